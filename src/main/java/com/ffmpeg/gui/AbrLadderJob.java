@@ -0,0 +1,221 @@
+package com.ffmpeg.gui;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Web yayını için uyarlanabilir bitrate (ABR) merdiveni: kaynak bir kez çözülür, {@code split} ile
+ * her basamağa dağıtılıp ölçeklenir ve bütün basamaklar aynı FFmpeg process'inde encode edilir.
+ *
+ * Keyframe'ler her basamakta aynı zamanlara zorlanır (segment süresinin katları, sahne değişimi
+ * keyframe'i kapalı), böylece oynatıcı basamaklar arasında segment sınırında geçiş yapabilir.
+ * Çıktı DASH muxer'ı ile fMP4 segmentleri olarak yazılır; aynı segmentleri gösteren HLS master
+ * ve medya playlist'leri de yanında üretilir.
+ *
+ * Thread bütçesi basamakların piksel sayısıyla orantılı paylaştırılır - 1080p basamak 360p'den
+ * çok daha fazla iş yapar; eşit paylaşımda küçük basamaklar boşta bekler.
+ */
+public class AbrLadderJob {
+
+    public static final String MPD_NAME = "manifest.mpd";
+    public static final String MASTER_PLAYLIST_NAME = "master.m3u8";
+
+    private static final String PRESET = "veryfast"; // Basamak sayısı kadar encode - tek dosyadan hızlı olmalı
+    private static final int AUDIO_BITRATE_KBPS = 128;
+
+    /**
+     * Tek basamak - genişlik kaynağın en-boy oranından hesaplanır
+     */
+    public static class Rendition {
+        private final int height;
+        private final int videoBitrateKbps;
+
+        public Rendition(int height, int videoBitrateKbps) {
+            this.height = height;
+            this.videoBitrateKbps = videoBitrateKbps;
+        }
+
+        public int getHeight() { return height; }
+        public int getVideoBitrateKbps() { return videoBitrateKbps; }
+
+        /** 16:9 varsayımıyla piksel sayısı - yalnızca thread paylaştırmada oran olarak kullanılır */
+        long approximatePixels() {
+            return (long) height * height * 16 / 9;
+        }
+
+        @Override
+        public String toString() {
+            return height + "p@" + videoBitrateKbps + "k";
+        }
+    }
+
+    /**
+     * 1080p/720p/480p/360p, H.264 için yaygın bitrate'ler
+     */
+    public static List<Rendition> defaultLadder() {
+        List<Rendition> ladder = new ArrayList<>();
+        ladder.add(new Rendition(1080, 5000));
+        ladder.add(new Rendition(720, 2800));
+        ladder.add(new Rendition(480, 1400));
+        ladder.add(new Rendition(360, 800));
+        return ladder;
+    }
+
+    /**
+     * Kaynaktan yüksek basamakları çıkarır (büyütmek bant genişliği harcar, kalite katmaz).
+     * Hiçbiri sığmıyorsa en düşük basamak kaynak yüksekliğinde tutulur.
+     */
+    public static List<Rendition> fitToSource(List<Rendition> ladder, int sourceHeight) {
+        if (sourceHeight <= 0) {
+            return new ArrayList<>(ladder);
+        }
+        List<Rendition> fitted = new ArrayList<>();
+        Rendition lowest = null;
+        for (Rendition rendition : ladder) {
+            if (rendition.height <= sourceHeight) {
+                fitted.add(rendition);
+            }
+            if (lowest == null || rendition.height < lowest.height) {
+                lowest = rendition;
+            }
+        }
+        if (fitted.isEmpty() && lowest != null) {
+            fitted.add(new Rendition(sourceHeight - sourceHeight % 2, lowest.videoBitrateKbps));
+        }
+        return fitted;
+    }
+
+    private final String inputPath;
+    private final Path outputDirectory;
+    private final List<Rendition> renditions;
+    private int segmentSeconds = 4;
+
+    public AbrLadderJob(String inputPath, Path outputDirectory, List<Rendition> renditions) {
+        this.inputPath = inputPath;
+        this.outputDirectory = outputDirectory;
+        this.renditions = new ArrayList<>(renditions);
+    }
+
+    public AbrLadderJob setSegmentSeconds(int segmentSeconds) {
+        this.segmentSeconds = Math.max(1, segmentSeconds);
+        return this;
+    }
+
+    public String getInputPath() { return inputPath; }
+    public Path getOutputDirectory() { return outputDirectory; }
+    public List<Rendition> getRenditions() { return Collections.unmodifiableList(renditions); }
+    public int getSegmentSeconds() { return segmentSeconds; }
+    public Path getMasterPlaylist() { return outputDirectory.resolve(MASTER_PLAYLIST_NAME); }
+    public Path getMpd() { return outputDirectory.resolve(MPD_NAME); }
+
+    /**
+     * Basamak başına encoder thread sayısı: toplam çekirdekler piksel sayısına göre paylaştırılır,
+     * her basamak en az bir thread alır
+     */
+    static int[] threadBudget(List<Rendition> renditions, int cores) {
+        long totalPixels = 0;
+        for (Rendition rendition : renditions) {
+            totalPixels += rendition.approximatePixels();
+        }
+        int[] threads = new int[renditions.size()];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = totalPixels > 0
+                ? (int) Math.max(1, Math.round((double) cores * renditions.get(i).approximatePixels() / totalPixels))
+                : 1;
+        }
+        return threads;
+    }
+
+    /**
+     * Tek giriş, split + basamak başına scale, bütün basamaklar tek DASH çıktısında (HLS playlist'leriyle)
+     */
+    List<String> buildCommand(String ffmpegPath, boolean inputHasAudio, int cores) {
+        List<String> command = new ArrayList<>();
+        command.add(ffmpegPath);
+        command.add("-nostdin");
+        command.add("-y");
+        command.add("-hide_banner");
+        command.add("-nostats");
+        command.add("-progress");
+        command.add("pipe:1");
+        command.add("-i");
+        command.add(inputPath);
+
+        StringBuilder graph = new StringBuilder("[0:v]split=").append(renditions.size());
+        for (int i = 0; i < renditions.size(); i++) {
+            graph.append("[s").append(i).append(']');
+        }
+        for (int i = 0; i < renditions.size(); i++) {
+            graph.append(";[s").append(i).append("]scale=-2:").append(renditions.get(i).height)
+                 .append("[v").append(i).append(']');
+        }
+        command.add("-filter_complex");
+        command.add(graph.toString());
+
+        for (int i = 0; i < renditions.size(); i++) {
+            command.add("-map");
+            command.add("[v" + i + "]");
+        }
+        if (inputHasAudio) {
+            command.add("-map");
+            command.add("0:a:0"); // Ses bir kez encode edilir, bütün basamaklar paylaşır
+        }
+
+        command.add("-c:v");
+        command.add("libx264");
+        command.add("-preset");
+        command.add(PRESET);
+        command.add("-pix_fmt");
+        command.add("yuv420p");
+        int[] threads = threadBudget(renditions, cores);
+        for (int i = 0; i < renditions.size(); i++) {
+            int bitrate = renditions.get(i).videoBitrateKbps;
+            command.add("-b:v:" + i);
+            command.add(bitrate + "k");
+            command.add("-maxrate:v:" + i);
+            command.add((bitrate * 107 / 100) + "k");
+            command.add("-bufsize:v:" + i);
+            command.add((bitrate * 3 / 2) + "k");
+            command.add("-threads:v:" + i);
+            command.add(String.valueOf(threads[i]));
+        }
+
+        // Hizalı keyframe'ler: her segment sınırında zorla, sahne değişiminde ekleme
+        command.add("-force_key_frames");
+        command.add("expr:gte(t,n_forced*" + segmentSeconds + ")");
+        command.add("-sc_threshold");
+        command.add("0");
+
+        if (inputHasAudio) {
+            command.add("-c:a");
+            command.add("aac");
+            command.add("-b:a");
+            command.add(AUDIO_BITRATE_KBPS + "k");
+            command.add("-ac");
+            command.add("2");
+        }
+
+        command.add("-f");
+        command.add("dash");
+        command.add("-seg_duration");
+        command.add(String.valueOf(segmentSeconds));
+        command.add("-use_template");
+        command.add("1");
+        command.add("-use_timeline");
+        command.add("1");
+        command.add("-adaptation_sets");
+        command.add(inputHasAudio ? "id=0,streams=v id=1,streams=a" : "id=0,streams=v");
+        command.add("-init_seg_name");
+        command.add("init_$RepresentationID$.m4s");
+        command.add("-media_seg_name");
+        command.add("chunk_$RepresentationID$_$Number%05d$.m4s");
+        command.add("-hls_playlist");
+        command.add("1");
+        command.add("-hls_master_name");
+        command.add(MASTER_PLAYLIST_NAME);
+        command.add(getMpd().toString());
+        return command;
+    }
+}
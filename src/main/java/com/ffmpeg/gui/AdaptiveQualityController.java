@@ -0,0 +1,220 @@
+package com.ffmpeg.gui;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Kayıt encoder'ı gerçek zamanın gerisine düştüğünde bir sonraki segment için daha ucuz
+ * ayarlara (preset -> çözünürlük -> fps) geçer, yeterli pay oluştuğunda kademeli olarak geri çıkar.
+ *
+ * Karar sadece segment sınırlarında verilir ({@link #evaluate}); aradaki telemetri olayları
+ * yalnızca biriktirilir. Yukarı çıkış için sakin geçen süre beklenir; yukarı çıkıştan hemen sonra
+ * tekrar baskı oluşursa bu süre ikiye katlanır (salınımı önlemek için).
+ */
+public class AdaptiveQualityController {
+
+    private static final List<String> PRESETS = List.of(
+        "medium", "fast", "faster", "veryfast", "superfast", "ultrafast");
+    private static final int[] STEP_HEIGHTS = {1080, 720, 540, 360};
+    private static final int MIN_FPS = 15;
+
+    /**
+     * Tek bir kalite kademesi
+     */
+    public static class Level {
+        private final int index;
+        private final String preset;
+        private final int width;
+        private final int height;
+        private final int fps;
+
+        Level(int index, String preset, int width, int height, int fps) {
+            this.index = index;
+            this.preset = preset;
+            this.width = width;
+            this.height = height;
+            this.fps = fps;
+        }
+
+        public int getIndex() { return index; }
+        public String getPreset() { return preset; }
+        public int getWidth() { return width; }
+        public int getHeight() { return height; }
+        public int getFps() { return fps; }
+
+        public String describe() {
+            return preset + " " + width + "x" + height + "@" + fps;
+        }
+
+        @Override
+        public String toString() {
+            return "level " + index + " (" + describe() + ")";
+        }
+    }
+
+    /**
+     * Segment sınırında uygulanacak değişiklik
+     */
+    public static class Decision {
+        private final Level from;
+        private final Level to;
+        private final String reason;
+
+        Decision(Level from, Level to, String reason) {
+            this.from = from;
+            this.to = to;
+            this.reason = reason;
+        }
+
+        public Level getFrom() { return from; }
+        public Level getTo() { return to; }
+        public String getReason() { return reason; }
+        public boolean isStepDown() { return to.getIndex() > from.getIndex(); }
+
+        @Override
+        public String toString() {
+            return (isStepDown() ? "step down " : "step up ") + from.describe() + " -> " + to.describe() + " (" + reason + ")";
+        }
+    }
+
+    private final List<Level> ladder;
+    private final long settleMillis;
+    private final long minUpHoldMillis;
+    private final long maxUpHoldMillis;
+
+    private int current = 0;
+    private long upHoldMillis;
+    private long lastChangeTime;
+    private long lastPressureTime;
+    private boolean lastChangeWasUp = false;
+    private int pressureEvents = 0;
+    private String lastPressure;
+
+    /**
+     * @param settleMillis   değişiklikten sonra olayların yok sayıldığı süre (kamera/encoder ısınması)
+     * @param upHoldMillis   yukarı çıkmadan önce baskısız geçmesi gereken minimum süre
+     */
+    public AdaptiveQualityController(List<Level> ladder, long settleMillis, long upHoldMillis, long now) {
+        if (ladder.isEmpty()) {
+            throw new IllegalArgumentException("Quality ladder is empty");
+        }
+        this.ladder = Collections.unmodifiableList(new ArrayList<>(ladder));
+        this.settleMillis = settleMillis;
+        this.minUpHoldMillis = upHoldMillis;
+        this.maxUpHoldMillis = upHoldMillis * 8;
+        this.upHoldMillis = upHoldMillis;
+        this.lastChangeTime = now;
+        this.lastPressureTime = now;
+    }
+
+    /**
+     * Başlangıç ayarlarından ucuzlayan kademe listesi: önce daha hızlı preset, sonra
+     * standart yüksekliklere küçültme, en son fps düşürme.
+     */
+    public static List<Level> buildLadder(String preset, int width, int height, int fps) {
+        List<Level> ladder = new ArrayList<>();
+        ladder.add(new Level(0, preset, width, height, fps));
+
+        int presetIndex = Math.max(0, PRESETS.indexOf(preset));
+        for (String faster : List.of("veryfast", "ultrafast")) {
+            if (PRESETS.indexOf(faster) > presetIndex) {
+                ladder.add(new Level(ladder.size(), faster, width, height, fps));
+                presetIndex = PRESETS.indexOf(faster);
+            }
+        }
+
+        String cheapest = PRESETS.get(presetIndex);
+        int w = width;
+        int h = height;
+        int resolutionSteps = 0;
+        for (int stepHeight : STEP_HEIGHTS) {
+            if (stepHeight < h && resolutionSteps < 2) {
+                w = (width * stepHeight / height) & ~1;
+                h = stepHeight;
+                ladder.add(new Level(ladder.size(), cheapest, w, h, fps));
+                resolutionSteps++;
+            }
+        }
+
+        int f = fps;
+        while (f > MIN_FPS) {
+            f = Math.max(MIN_FPS, f * 2 / 3);
+            ladder.add(new Level(ladder.size(), cheapest, w, h, f));
+        }
+        return ladder;
+    }
+
+    /**
+     * Telemetri olayını kaydeder; karar bir sonraki segment sınırına kadar bekler
+     */
+    public synchronized void onTelemetryEvent(EncoderTelemetry.Event event, long now) {
+        if (now - lastChangeTime < settleMillis) {
+            return;
+        }
+        switch (event.getType()) {
+            case SPEED_LOW:
+            case FPS_LOW:
+            case FRAMES_DROPPED:
+            case FRAMES_DUPLICATED:
+            case INPUT_BUFFER_FULL:
+                pressureEvents++;
+                lastPressureTime = now;
+                lastPressure = event.getType() + ": " + event.getMessage();
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Segment sınırında çağrılır.
+     * @param degraded encoder şu an hâlâ eşik altında mı (kenar tetikli olay tekrar gelmeyebilir)
+     * @return uygulanacak değişiklik, yoksa null
+     */
+    public synchronized Decision evaluate(long now, boolean degraded) {
+        boolean settled = now - lastChangeTime >= settleMillis;
+        if (settled && (pressureEvents > 0 || degraded)) {
+            String reason = pressureEvents > 0 ? lastPressure : "encoder still degraded";
+            pressureEvents = 0;
+            lastPressureTime = now;
+            if (current >= ladder.size() - 1) {
+                return null; // Zaten en ucuz kademe
+            }
+            // Yukarı çıkış işe yaramadıysa bir sonraki deneme daha geç yapılır
+            if (lastChangeWasUp) {
+                upHoldMillis = Math.min(upHoldMillis * 2, maxUpHoldMillis);
+            }
+            return change(current + 1, reason, now, false);
+        }
+
+        pressureEvents = 0;
+        if (current > 0 && now - Math.max(lastPressureTime, lastChangeTime) >= upHoldMillis) {
+            if (lastChangeWasUp) {
+                upHoldMillis = minUpHoldMillis; // Önceki yukarı çıkış tuttu
+            }
+            return change(current - 1, "no encoder pressure for " + (upHoldMillis / 1000) + "s", now, true);
+        }
+        return null;
+    }
+
+    private Decision change(int next, String reason, long now, boolean up) {
+        Decision decision = new Decision(ladder.get(current), ladder.get(next), reason);
+        current = next;
+        lastChangeTime = now;
+        lastChangeWasUp = up;
+        return decision;
+    }
+
+    public synchronized Level getCurrentLevel() {
+        return ladder.get(current);
+    }
+
+    public List<Level> getLadder() {
+        return ladder;
+    }
+
+    synchronized long getUpHoldMillis() {
+        return upHoldMillis;
+    }
+}
@@ -1,5 +1,8 @@
 package com.ffmpeg.gui;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Toplu işlem ayarlarını tutan sınıf
  */
@@ -17,6 +20,10 @@ public class BatchSettings {
     private int audioSampleRate = 44100;
     private int audioChannels = 2;
     
+    // Video girişleri için ek hedefler - hepsi tek FFmpeg çağrısında üretilir
+    private List<String> extraVideoFormats = new ArrayList<>();
+    private boolean extractAudio = false;
+    
     // Video ayarları getter/setter
     public String getVideoFormat() { return videoFormat; }
     public void setVideoFormat(String videoFormat) { this.videoFormat = videoFormat; }
@@ -51,4 +58,16 @@ public class BatchSettings {
     
     public int getAudioChannels() { return audioChannels; }
     public void setAudioChannels(int audioChannels) { this.audioChannels = audioChannels; }
+    
+    // Ek hedefler getter/setter
+    public List<String> getExtraVideoFormats() { return extraVideoFormats; }
+    public void setExtraVideoFormats(List<String> extraVideoFormats) { this.extraVideoFormats = new ArrayList<>(extraVideoFormats); }
+    
+    public boolean isExtractAudio() { return extractAudio; }
+    public void setExtractAudio(boolean extractAudio) { this.extractAudio = extractAudio; }
+    
+    /**
+     * Video girişinden birden fazla çıktı üretilecek mi
+     */
+    public boolean hasExtraTargets() { return !extraVideoFormats.isEmpty() || extractAudio; }
 } 
\ No newline at end of file
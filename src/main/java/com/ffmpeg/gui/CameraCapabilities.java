@@ -0,0 +1,290 @@
+package com.ffmpeg.gui;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Bir kamera cihazının desteklediği pixel format, çözünürlük ve fps listesi.
+ * FFmpeg "-list_options true" çıktısından oluşturulur ve önizleme/kayıt için
+ * en ucuz yakalama formatını seçer.
+ */
+public class CameraCapabilities {
+
+    private final List<Format> formats;
+
+    public CameraCapabilities(List<Format> formats) {
+        this.formats = Collections.unmodifiableList(new ArrayList<>(formats));
+    }
+
+    public static CameraCapabilities empty() {
+        return new CameraCapabilities(Collections.emptyList());
+    }
+
+    /**
+     * DirectShow "-list_options true" çıktısını parse eder.
+     * Örnek satır: "[dshow @ 0000] vcodec=mjpeg  min s=1280x720 fps=5 max s=1280x720 fps=30"
+     */
+    public static CameraCapabilities parseDshowOptions(List<String> lines) {
+        List<Format> parsed = new ArrayList<>();
+        for (String line : lines) {
+            Format format = parseDshowLine(line);
+            if (format != null && !parsed.contains(format)) {
+                parsed.add(format);
+            }
+        }
+        return new CameraCapabilities(parsed);
+    }
+
+    static Format parseDshowLine(String line) {
+        if (line == null) {
+            return null;
+        }
+
+        String codec = valueAfter(line, "vcodec=");
+        String pixelFormat = valueAfter(line, "pixel_format=");
+        if (codec == null && pixelFormat == null) {
+            return null;
+        }
+
+        int minIndex = line.indexOf("min s=");
+        int maxIndex = line.indexOf("max s=");
+        if (maxIndex < 0) {
+            return null;
+        }
+
+        int[] maxSize = parseSize(valueAfter(line.substring(maxIndex), "s="));
+        if (maxSize == null) {
+            return null;
+        }
+
+        double maxFps = parseFps(valueAfter(line.substring(maxIndex), "fps="));
+        double minFps = minIndex >= 0 && minIndex < maxIndex
+            ? parseFps(valueAfter(line.substring(minIndex, maxIndex), "fps="))
+            : maxFps;
+
+        return new Format(codec, pixelFormat, maxSize[0], maxSize[1], Math.min(minFps, maxFps), maxFps);
+    }
+
+    /**
+     * V4L2 "-list_formats all" çıktısını parse eder. V4L2 fps bilgisi vermediği için fps bilinmiyor (0) kalır.
+     * Örnek satır: "[video4linux2,v4l2 @ 0x55] Compressed:       mjpeg :          Motion-JPEG : 640x480 1280x720"
+     */
+    public static CameraCapabilities parseV4l2Formats(List<String> lines) {
+        List<Format> parsed = new ArrayList<>();
+        for (String line : lines) {
+            boolean compressed = line.contains("Compressed:");
+            if (!compressed && !line.contains("Raw")) {
+                continue;
+            }
+
+            String[] parts = line.substring(line.indexOf(compressed ? "Compressed:" : "Raw")).split(":");
+            if (parts.length < 4) {
+                continue;
+            }
+            String name = parts[1].trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+
+            for (String token : parts[parts.length - 1].trim().split("\\s+")) {
+                int[] size = parseSize(token);
+                if (size == null) {
+                    continue; // Stepwise boyutlar ({32-4096, 2}x...) atlanır
+                }
+                Format format = compressed
+                    ? new Format(name, null, size[0], size[1], 0, 0)
+                    : new Format(null, name, size[0], size[1], 0, 0);
+                if (!parsed.contains(format)) {
+                    parsed.add(format);
+                }
+            }
+        }
+        return new CameraCapabilities(parsed);
+    }
+
+    private static String valueAfter(String text, String key) {
+        int start = text.indexOf(key);
+        if (start < 0) {
+            return null;
+        }
+        start += key.length();
+        int end = start;
+        while (end < text.length() && !Character.isWhitespace(text.charAt(end))) {
+            end++;
+        }
+        return end > start ? text.substring(start, end) : null;
+    }
+
+    private static int[] parseSize(String value) {
+        if (value == null) {
+            return null;
+        }
+        int x = value.indexOf('x');
+        if (x <= 0) {
+            return null;
+        }
+        try {
+            return new int[] { Integer.parseInt(value.substring(0, x)), Integer.parseInt(value.substring(x + 1)) };
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static double parseFps(String value) {
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    public List<Format> getFormats() {
+        return formats;
+    }
+
+    public boolean isEmpty() {
+        return formats.isEmpty();
+    }
+
+    public boolean supportsMjpeg() {
+        return formats.stream().anyMatch(Format::isMjpeg);
+    }
+
+    /**
+     * Önizleme için en ucuz formatı seçer: hedef fps'e ulaşabilen MJPEG formatı varsa
+     * (stream copy ile decode/encode gerekmez) onu, yoksa en yakın native raw formatı döndürür.
+     */
+    public Format selectPreviewFormat(int targetWidth, int targetHeight, int targetFps) {
+        Format mjpeg = selectClosest(targetWidth, targetHeight, targetFps, true);
+        if (mjpeg != null) {
+            return mjpeg;
+        }
+        return selectCaptureFormat(targetWidth, targetHeight, targetFps);
+    }
+
+    /**
+     * Kayıt için yakalama formatını seçer. Hedef fps'i karşılayan formatlar önceliklidir,
+     * eşit durumda raw formatlar (decode maliyeti yok) tercih edilir.
+     */
+    public Format selectCaptureFormat(int targetWidth, int targetHeight, int targetFps) {
+        return selectClosest(targetWidth, targetHeight, targetFps, false);
+    }
+
+    private Format selectClosest(int targetWidth, int targetHeight, int targetFps, boolean mjpegOnly) {
+        Format best = null;
+        long bestScore = Long.MAX_VALUE;
+        long targetArea = (long) targetWidth * targetHeight;
+
+        for (Format format : formats) {
+            if (mjpegOnly && !format.isMjpeg()) {
+                continue;
+            }
+            if (!mjpegOnly && format.isCompressed() && !format.isMjpeg()) {
+                continue; // h264 vb. kamera çıkışları için decoder davranışı belirsiz
+            }
+
+            long score = Math.abs(format.getArea() - targetArea);
+            if (format.getArea() < targetArea) {
+                score *= 2; // Hedeften küçük çözünürlük upscale gerektirir
+            }
+            if (format.getMaxFps() > 0 && format.getMaxFps() + 0.01 < targetFps) {
+                score += targetArea * 4; // fps karşılanamıyorsa ciddi ceza (0 = bilinmiyor)
+            }
+            if (format.isMjpeg() && !mjpegOnly) {
+                score += 1; // Eşitlikte raw format
+            }
+
+            if (score < bestScore) {
+                bestScore = score;
+                best = format;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public String toString() {
+        return formats.toString();
+    }
+
+    /**
+     * Tek bir yakalama modu
+     */
+    public static class Format {
+        private final String codec;
+        private final String pixelFormat;
+        private final int width;
+        private final int height;
+        private final double minFps;
+        private final double maxFps;
+
+        public Format(String codec, String pixelFormat, int width, int height, double minFps, double maxFps) {
+            this.codec = codec;
+            this.pixelFormat = pixelFormat;
+            this.width = width;
+            this.height = height;
+            this.minFps = minFps;
+            this.maxFps = maxFps;
+        }
+
+        public String getCodec() { return codec; }
+        public String getPixelFormat() { return pixelFormat; }
+        public int getWidth() { return width; }
+        public int getHeight() { return height; }
+        public double getMinFps() { return minFps; }
+        public double getMaxFps() { return maxFps; }
+
+        public long getArea() {
+            return (long) width * height;
+        }
+
+        public boolean isCompressed() {
+            return codec != null;
+        }
+
+        public boolean isMjpeg() {
+            return codec != null && codec.toLowerCase(Locale.ROOT).contains("mjpeg");
+        }
+
+        public String getSize() {
+            return width + "x" + height;
+        }
+
+        /**
+         * Hedef fps'i formatın desteklediği aralığa sıkıştırır
+         */
+        public int clampFps(int fps) {
+            if (maxFps <= 0) {
+                return fps;
+            }
+            return (int) Math.max(Math.ceil(minFps), Math.min(fps, Math.floor(maxFps)));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Format)) {
+                return false;
+            }
+            Format other = (Format) o;
+            return width == other.width && height == other.height
+                && Double.compare(minFps, other.minFps) == 0 && Double.compare(maxFps, other.maxFps) == 0
+                && java.util.Objects.equals(codec, other.codec)
+                && java.util.Objects.equals(pixelFormat, other.pixelFormat);
+        }
+
+        @Override
+        public int hashCode() {
+            return java.util.Objects.hash(codec, pixelFormat, width, height, minFps, maxFps);
+        }
+
+        @Override
+        public String toString() {
+            return (codec != null ? codec : pixelFormat) + " " + getSize() + " @" + minFps + "-" + maxFps + "fps";
+        }
+    }
+}
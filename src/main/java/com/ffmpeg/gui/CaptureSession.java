@@ -0,0 +1,1912 @@
+package com.ffmpeg.gui;
+
+import javafx.application.Platform;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tek bir kamera cihazının önizleme + kayıt oturumu.
+ * Her oturumun kendi FFmpeg processi, frame pipeline'ı, segment sayacı ve metrikleri vardır.
+ * Frame okuma ve zamanlayıcı threadleri {@link CaptureSessionRegistry} tarafından tüm oturumlar
+ * arasında paylaşılır; oturum başına ayrı timer threadi açılmaz.
+ */
+public class CaptureSession {
+
+    private static final Logger logger = LoggerFactory.getLogger(CaptureSession.class);
+
+    // Önizleme hedefi
+    private static final int PREVIEW_WIDTH = 640;
+    private static final int PREVIEW_HEIGHT = 480;
+    private static final int PREVIEW_FPS = 30;
+    private static final int MAX_FRAME_SIZE = 4 * 1024 * 1024; // 4MB limit
+    private static final long MIN_FRAME_INTERVAL = 16; // ~60 FPS için minimum interval
+    private static final int TELEMETRY_PERIOD_SECONDS = 1;
+    private static final int PRE_ROLL_BITRATE_KBPS = 2000;
+    private static final int PRE_ROLL_CHUNK_SIZE = PreRollBuffer.TS_PACKET_SIZE * 1024; // ~190KB
+    private static final int CAPTURE_WIDTH = 1280;
+    private static final int CAPTURE_HEIGHT = 720;
+    private static final int CAPTURE_FPS = 30;
+    private static final String RECORDING_PRESET = "fast";
+    private static final long QUALITY_SETTLE_MS = 5000;
+    private static final long QUALITY_UP_HOLD_MS = 30000;
+    private static final int PROXY_HEIGHT = 360;
+    private static final String PROXY_MAXRATE = "800k";
+    private static final String PROXY_BUFSIZE = "1600k";
+
+    private final CameraService.CameraDevice device;
+    private final CaptureSource source;
+    private final CaptureSessionRegistry registry;
+
+    // Process yönetimi - önizleme ve kayıt aynı process (split filter)
+    private final Object processLock = new Object();
+    private Process ffmpegProcess;
+    private Future<?> frameReaderTask;
+    private Future<?> stderrReaderTask;
+
+    // Durum
+    private volatile boolean isPreviewActive = false;
+    private volatile boolean isRecording = false;
+    private volatile boolean isPaused = false;
+    private volatile String currentRecordingPath;
+
+    // Callbacks
+    private volatile CameraService.PreviewCallback previewCallback;
+    private volatile CameraService.RecordingCallback recordingCallback;
+
+    // Kayıt parametreleri
+    private volatile String recordingOutputDir = System.getProperty("user.home") + "/Desktop/MediaShift_Recordings";
+    private volatile String recordingFormat = "mp4";
+    private volatile String recordingQuality = "720p";
+    private volatile int recordingFps = 25;
+    private volatile int recordingBitrate = 2500;
+    private volatile int segmentDuration = 5;
+
+    // Kayıt zamanlayıcısı - registry tick'i ile güncellenir
+    private volatile long recordingStartTime = 0;
+    private volatile long pausedDuration = 0;
+    private volatile long lastPauseTime = 0;
+    private volatile long lastReportedSecond = -1;
+    private volatile int currentSegmentIndex = 0;
+    private int nextSegmentIndex = 0;
+    private volatile SegmentWatcher segmentWatcher;
+    private volatile SegmentManifest segmentManifest;
+    private volatile String recordingStartTimestamp = null;
+    private final List<String> recordedSegments = new ArrayList<>();
+    private final Object segmentLock = new Object();
+    private volatile int segmentStartNumber = 0;
+
+    // Adaptif kalite - encoder geride kalırsa segment sınırında daha ucuz ayarlarla yeniden başlatılır
+    private volatile boolean adaptiveQuality = true;
+    private volatile AdaptiveQualityController qualityController;
+    private volatile boolean qualityRestartPending = false;
+    private final Object recordingLock = new Object();
+
+    // Rolling merge - kapanan segmentler kayıt sürerken tek dosyaya eklenir
+    private volatile boolean rollingMerge = false;
+    private volatile RollingMerger rollingMerger;
+
+    // Sürekli kayıt - disk kotası aşıldığında en eski segmentler silinir/arşivlenir
+    private volatile SegmentRetention retention;
+
+    // Pre-roll - önizleme sırasında düşük maliyetli TS encode'u heap dışı ring buffer'da tutulur
+    private volatile int preRollSeconds = 0;
+    private volatile long preRollMaxBytes = 64L * 1024 * 1024;
+    private volatile PreRollBuffer preRollBuffer;
+    private volatile double preRollSavedSeconds = 0;
+    private ServerSocketChannel preRollServer;
+    private Future<?> preRollTask;
+
+    // Proxy kaydı - aynı decode edilmiş karelerden düşük çözünürlüklü, hizalı ikinci segment akışı
+    private volatile boolean proxyRecording = false;
+    // Kayıt başlarken alınan karar - ayar kayıt sırasında değişse de aynı kayıtta sabit kalır
+    private volatile boolean recordingWithProxy = false;
+    private final List<String> proxySegments = new ArrayList<>();
+
+    // Hareketle kayıt - önizleme karelerinde hareket algılanınca kayıt başlar, sakinleşince durur
+    private volatile MotionDetector.Settings motionSettings = MotionDetector.Settings.withPostRoll(10_000);
+    private volatile MotionDetector motionDetector;
+    private volatile CameraService.RecordingCallback motionCallback;
+    private final Object motionLock = new Object();
+    // motionLock ile korunur: istenen kayıt durumu ve onu uygulayan bir thread'in çalışıp çalışmadığı
+    private boolean motionWantsRecording = false;
+    private boolean motionTransitionRunning = false;
+
+    // Canlı HLS - capture process'ine eklenen ikinci encode çıkışı, LAN'a registry sunucusuyla sunulur
+    private volatile LiveHlsOutput liveOutput;
+
+    // Encoder telemetrisi - her process başlatıldığında yenilenir
+    private volatile EncoderTelemetry telemetry;
+    private final List<EncoderTelemetry.Listener> telemetryListeners = new java.util.concurrent.CopyOnWriteArrayList<>();
+
+    // Frame pipeline - UI threadinde bekleyen en son frame (eski frameler birikmez)
+    private final AtomicReference<byte[]> pendingFrame = new AtomicReference<>();
+    private final AtomicLong framesReceived = new AtomicLong();
+    private final AtomicLong framesDisplayed = new AtomicLong();
+    private final AtomicLong framesSkipped = new AtomicLong();
+    private final AtomicLong bytesRead = new AtomicLong();
+
+    CaptureSession(CameraService.CameraDevice device, CaptureSessionRegistry registry) {
+        this.device = device;
+        this.registry = registry;
+        this.source = CaptureSource.forDevice(device.getDeviceId());
+    }
+
+    // ========================== ÖNİZLEME ==========================
+
+    public boolean startPreview(CameraService.PreviewCallback callback) {
+        // Eğer zaten aktif bir önizleme varsa, önce onu durdur
+        if (isPreviewActive) {
+            logger.info("[{}] Preview already active, stopping current preview first", device.getName());
+            stopPreview();
+            sleepQuietly(500);
+        }
+
+        logger.info("[{}] Starting camera preview", device.getName());
+        this.previewCallback = callback;
+
+        try {
+            launch(buildPreviewCommand(), "preview");
+            startPreRollReader();
+            isPreviewActive = true;
+            return true;
+        } catch (Exception e) {
+            closePreRoll();
+            logger.error("[{}] Failed to start preview", device.getName(), e);
+            if (callback != null) {
+                callback.onPreviewError("Önizleme başlatılamadı: " + e.getMessage());
+            }
+            return false;
+        }
+    }
+
+    public void stopPreview() {
+        if (!isPreviewActive) {
+            return;
+        }
+
+        logger.info("[{}] Stopping camera preview", device.getName());
+        isPreviewActive = false;
+        terminateProcess(2000);
+
+        // previewCallback korunuyor - önizleme tekrar başlatılabilir olsun
+        logger.info("[{}] Camera preview stopped", device.getName());
+    }
+
+    private List<String> buildPreviewCommand() throws IOException {
+        // Kameranın native formatlarını sorgula (cache'li) ve en ucuz pipeline'ı seç
+        CameraCapabilities capabilities = registry.getCapabilities(device);
+        CameraCapabilities.Format previewFormat = capabilities.selectPreviewFormat(PREVIEW_WIDTH, PREVIEW_HEIGHT, PREVIEW_FPS);
+        boolean passthrough = previewFormat != null && previewFormat.isMjpeg();
+
+        List<String> command = new ArrayList<>();
+        command.add(registry.getFfmpegPath());
+
+        // Input - ultra düşük gecikme bufferları, kameranın native moduna en yakın boyut/format
+        command.addAll(source.buildInputArguments(device.getDeviceId(), previewFormat,
+            CaptureSource.InputSettings.preview(1280, 720, PREVIEW_FPS)));
+        command.add("-map");
+        command.add("0:v");
+
+        if (passthrough) {
+            // Kamera zaten MJPEG veriyor - decode/encode yok, frameler aynen aktarılır
+            logger.info("[{}] Preview using native MJPEG passthrough: {}", device.getName(), previewFormat);
+            command.add("-c:v");
+            command.add("copy");
+            command.add("-f");
+            command.add("mjpeg");
+        } else {
+            // Raw format - en yakın native boyuttan MJPEG encode
+            logger.info("[{}] Preview using raw capture format: {}", device.getName(),
+                        previewFormat != null ? previewFormat : "default 1280x720");
+            command.add("-f");
+            command.add("mjpeg");
+            command.add("-pix_fmt");
+            command.add("yuv420p");
+
+            // Native boyut hedefe eşitse scale filtresi gereksiz
+            if (previewFormat == null || previewFormat.getWidth() != PREVIEW_WIDTH || previewFormat.getHeight() != PREVIEW_HEIGHT) {
+                command.add("-vf");
+                command.add("scale=" + PREVIEW_WIDTH + ":" + PREVIEW_HEIGHT + ":flags=fast_bilinear");
+            }
+
+            command.add("-r");
+            command.add(String.valueOf(PREVIEW_FPS));
+            command.add("-q:v");
+            command.add("6");   // Daha iyi kalite, hızlı işlem
+            command.add("-bufsize");
+            command.add("256K"); // Ultra küçük buffer size (minimum gecikme)
+            command.add("-maxrate");
+            command.add("1.5M"); // Daha düşük bitrate (daha hızlı işlem)
+        }
+
+        // warning seviyesi: dshow "real-time buffer too full" uyarısı telemetriye ulaşsın
+        command.add("-loglevel");
+        command.add("warning");
+        command.add("-");
+        
+        // İkinci çıkış: pre-roll ring buffer'a giden düşük maliyetli MPEG-TS encode
+        if (preRollSeconds > 0) {
+            command.addAll(buildPreRollOutput());
+        }
+        LiveHlsOutput live = liveOutput;
+        if (live != null) {
+            command.addAll(live.buildOutputArguments(PREVIEW_FPS, source.providesAudio(device.getDeviceId())));
+        }
+        return command;
+    }
+
+    // ========================== KAYIT ==========================
+
+    public void setRecordingParams(String outputDir, String format, String quality,
+                                   int fps, int bitrate, int segmentDuration) {
+        this.recordingOutputDir = outputDir;
+        this.recordingFormat = format;
+        this.recordingQuality = quality;
+        this.recordingFps = fps;
+        this.recordingBitrate = bitrate;
+        this.segmentDuration = segmentDuration;
+    }
+
+    public boolean startRecording(CameraService.RecordingCallback callback) {
+        if (!isPreviewActive) {
+            if (callback != null) {
+                callback.onRecordingError("Önce kamera önizlemesini başlatın");
+            }
+            return false;
+        }
+
+        if (isRecording) {
+            if (callback != null) {
+                callback.onRecordingError("Kayıt zaten aktif");
+            }
+            return false;
+        }
+
+        this.recordingCallback = callback;
+
+        try {
+            recordingStartTimestamp = java.time.LocalDateTime.now().format(java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+            
+            // Önizleme process'i kapanmadan önce son N saniyeyi kaydın ilk parçası olarak yaz
+            String preRollPath = savePreRollForRecording();
+            
+            // Mevcut önizlemeyi durdur ve split filter ile hem önizleme hem kayıt yap
+            isPreviewActive = false;
+            terminateProcess(2000);
+            Thread.sleep(500); // Kameranın serbest kalması için bekle
+
+            resetRecordingTimer();
+            qualityController = adaptiveQuality && segmentDuration > 0
+                ? new AdaptiveQualityController(
+                    AdaptiveQualityController.buildLadder(RECORDING_PRESET, CAPTURE_WIDTH, CAPTURE_HEIGHT, CAPTURE_FPS),
+                    QUALITY_SETTLE_MS, QUALITY_UP_HOLD_MS, System.currentTimeMillis())
+                : null;
+            segmentManifest = segmentDuration > 0 ? createManifest() : null;
+            // Proxy sadece segmentli kayıtta - segment numaraları ve sınırları ana kayıtla aynı
+            recordingWithProxy = proxyRecording && segmentDuration > 0;
+            // Sürekli kayıtta segmentler silinebilir - tek dosyada birleştirme yapılmaz
+            rollingMerger = rollingMerge && retention == null && segmentManifest != null ? createRollingMerger() : null;
+            // Pre-roll kaydın ilk parçası - FFmpeg segmentlerinden önce listeye girer
+            if (preRollPath != null) {
+                synchronized (segmentLock) {
+                    recordedSegments.add(preRollPath);
+                }
+                SegmentRetention ring = retention;
+                if (ring != null) {
+                    ring.segmentClosed(Path.of(preRollPath), new java.io.File(preRollPath).length());
+                }
+                if (segmentManifest != null) {
+                    SegmentManifest.Entry leadIn = segmentManifest.addLeadIn(Path.of(preRollPath), preRollSavedSeconds,
+                        new java.io.File(preRollPath).length(), readInitSize(Path.of(preRollPath)));
+                    SegmentManifest manifest = segmentManifest;
+                    registry.getIoExecutor().submit(() -> recordSignatures(manifest, leadIn.getPath()));
+                    if (rollingMerger != null) {
+                        rollingMerger.addLeadIn(leadIn);
+                    }
+                }
+                if (callback != null) {
+                    callback.onSegmentCreated(preRollPath);
+                }
+            }
+            openSegmentWatcher();
+            seedRetention();
+            launch(buildRecordingCommand(), "recording");
+            logQualityLevel(0, "initial");
+            isPreviewActive = true;
+            isRecording = true;
+
+            if (callback != null) {
+                Platform.runLater(() -> callback.onRecordingStarted());
+            }
+            return true;
+        } catch (Exception e) {
+            logger.error("[{}] Failed to start recording", device.getName(), e);
+            closeSegmentWatcher();
+            cancelRollingMerge();
+            if (callback != null) {
+                callback.onRecordingError("Kayıt başlatılamadı: " + e.getMessage());
+            }
+            this.isRecording = false;
+            return false;
+        }
+    }
+
+    /**
+     * Hem preview hem recording yapan split filter komutu
+     */
+    private List<String> buildRecordingCommand() throws IOException {
+        // Çıkış dizinini oluştur
+        java.nio.file.Path outputDir = java.nio.file.Paths.get(recordingOutputDir);
+        if (!java.nio.file.Files.exists(outputDir)) {
+            java.nio.file.Files.createDirectories(outputDir);
+        }
+
+        List<String> command = new ArrayList<>();
+        command.add(registry.getFfmpegPath());
+        // HD çözünürlük - kameranın native modlarından en yakını (cache'li probe)
+        // Segment geçişlerinde queue overflow önlemek için biraz daha büyük buffer + PTS generation
+        CameraCapabilities.Format captureFormat = registry.getCapabilities(device)
+            .selectCaptureFormat(CAPTURE_WIDTH, CAPTURE_HEIGHT, CAPTURE_FPS);
+        command.addAll(source.buildInputArguments(device.getDeviceId(), captureFormat,
+            CaptureSource.InputSettings.recording(CAPTURE_WIDTH, CAPTURE_HEIGHT, CAPTURE_FPS)));
+        boolean sourceAudio = source.providesAudio(device.getDeviceId());
+
+        command.add("-loglevel");
+        command.add("info");
+
+        // Adaptif kalite kademesi - kapalıysa sabit başlangıç ayarları
+        AdaptiveQualityController controller = qualityController;
+        AdaptiveQualityController.Level level = controller != null ? controller.getCurrentLevel() : null;
+        String preset = level != null ? level.getPreset() : RECORDING_PRESET;
+        int fps = level != null ? level.getFps() : CAPTURE_FPS;
+        boolean scaled = level != null && (level.getWidth() != CAPTURE_WIDTH || level.getHeight() != CAPTURE_HEIGHT);
+
+        // Kalite değişiminde yeniden kurulan komut da kaydın başındaki proxy kararını kullanır
+        boolean proxy = recordingWithProxy;
+
+        // Split filter - preview ve recording (ve proxy) tek processte, kareler bir kez decode edilir
+        command.add("-filter_complex");
+        String filter = "[0:v]split=" + (proxy ? 3 : 2) + "[v1][v2]" + (proxy ? "[v3]" : "")
+            + "; [v1]scale=640:360:flags=lanczos:force_original_aspect_ratio=decrease[preview]";
+        if (scaled) {
+            filter += "; [v2]scale=" + level.getWidth() + ":" + level.getHeight() + ":flags=fast_bilinear[rec]";
+        }
+        if (proxy) {
+            filter += "; [v3]scale=-2:" + PROXY_HEIGHT + ":flags=fast_bilinear[proxy]";
+        }
+        command.add(filter);
+
+        // Preview output
+        command.add("-map");
+        command.add("[preview]");
+        command.add("-f");
+        command.add("mjpeg");
+        command.add("-pix_fmt");
+        command.add("yuv420p");
+        command.add("-r");
+        command.add("30");
+        command.add("-q:v");
+        command.add("6");
+        command.add("pipe:1");
+
+        // Recording output - seek optimizasyonu
+        command.add("-map");
+        command.add(scaled ? "[rec]" : "[v2]");
+        command.add("-c:v");
+        command.add("libx264");
+        command.add("-preset");
+        command.add(preset);     // Varsayılan fast - adaptif kademede daha hızlı preset
+        command.add("-crf");
+        command.add("23");       // Balanced kalite-hız
+        command.add("-tune");
+        command.add("zerolatency"); // Düşük gecikme için
+        command.add("-pix_fmt");
+        command.add("yuv420p");
+        if (fps != CAPTURE_FPS) {
+            command.add("-r");
+            command.add(String.valueOf(fps));
+        }
+        command.add("-g");
+        command.add(String.valueOf(fps));      // Her saniye keyframe
+        command.add("-keyint_min");
+        command.add(String.valueOf(segmentDuration > 0 ? fps : fps / 2));
+        command.add("-sc_threshold");
+        command.add("0");       // Düzenli keyframeler için
+        if (sourceAudio) {
+            command.add("-map");
+            command.add("1:a");
+            command.add("-c:a");
+            command.add("aac");
+            command.add("-b:a");
+            command.add("128k");
+        }
+
+        if (segmentDuration > 0) {
+            // Segmentler sadece sona eklenerek yazılır: TS ya da fragmented MP4 (faststart yok - kapanışta
+            // moov'u başa taşımak için dosya yeniden yazılmaz, yarım kalan segment de okunabilir)
+            boolean transportStream = isTransportStreamSegments();
+            String segmentPattern = java.nio.file.Paths.get(recordingOutputDir,
+                "MediaShift_" + recordingStartTimestamp + "_segment_%03d." + recordingFormat).toString();
+
+            command.add("-force_key_frames");
+            command.add("expr:gte(t,n_forced*" + segmentDuration + ")");
+            logger.info("[{}] Split recording with segments - Duration: {} seconds", device.getName(), segmentDuration);
+            command.add("-f");
+            command.add("segment");
+            command.add("-segment_time");
+            command.add(String.valueOf(segmentDuration));
+            command.add("-segment_start_number");
+            command.add(String.valueOf(segmentStartNumber)); // Kalite değişiminde numaralandırma devam eder
+            command.add("-reset_timestamps");
+            command.add("0");  // Timestampleri reset etme (süreklilik için)
+            command.add("-segment_atclocktime");
+            command.add("1");  // Smooth segment transitions
+            command.add("-segment_format");
+            command.add(transportStream ? "mpegts" : "mp4");
+            // Kapanan her segment listeye satır olarak eklenir - SegmentWatcher bu dosyayı izler
+            command.add("-segment_list");
+            command.add(java.nio.file.Paths.get(recordingOutputDir, "MediaShift_" + recordingStartTimestamp + "_segments.csv").toString());
+            command.add("-segment_list_type");
+            command.add("csv");
+            command.add("-segment_format_options");
+            command.add(segmentFormatOptions(transportStream));
+            command.add("-break_non_keyframes");
+            command.add("0");  // Non-keyframede break etme (süreklilik için)
+            // Segmentin hangi kalite kademesiyle kaydedildiği dosyanın kendisinde de görülsün
+            command.add("-metadata");
+            command.add("comment=MediaShift quality " + (level != null ? level : preset + " " + CAPTURE_WIDTH + "x" + CAPTURE_HEIGHT + "@" + fps));
+            command.add(segmentPattern);
+            currentRecordingPath = recordingOutputDir;
+
+            if (proxy) {
+                addProxyOutput(command, fps, sourceAudio, transportStream);
+            }
+        } else {
+            String outputPath = recordingOutputDir + "/" + generateRecordingFileName();
+            if (!"ts".equals(recordingFormat)) {
+                command.add("-movflags");
+                command.add("+faststart");
+            }
+            command.add("-y");
+            command.add(outputPath);
+            currentRecordingPath = outputPath;
+        }
+
+        LiveHlsOutput live = liveOutput;
+        if (live != null) {
+            command.addAll(live.buildOutputArguments(CAPTURE_FPS, sourceAudio));
+        }
+        return command;
+    }
+
+    private String generateRecordingFileName() {
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyyMMdd_HHmmss");
+        return "recording_" + sdf.format(new Date()) + ("ts".equals(recordingFormat) ? ".ts" : ".mp4");
+    }
+
+    /**
+     * Proxy segment akışı: ana kayıtla aynı keyframe ifadesi, segment süresi ve başlangıç numarası
+     * kullanıldığı için her proxy dosyası ana segmentle aynı aralığı kapsar ("_segment_" yerine "_proxy_").
+     */
+    private void addProxyOutput(List<String> command, int fps, boolean sourceAudio, boolean transportStream) {
+        command.add("-map");
+        command.add("[proxy]");
+        command.add("-c:v");
+        command.add("libx264");
+        command.add("-preset");
+        command.add("ultrafast");
+        command.add("-tune");
+        command.add("zerolatency");
+        command.add("-crf");
+        command.add("28");
+        command.add("-maxrate");
+        command.add(PROXY_MAXRATE);
+        command.add("-bufsize");
+        command.add(PROXY_BUFSIZE);
+        command.add("-pix_fmt");
+        command.add("yuv420p");
+        if (fps != CAPTURE_FPS) {
+            command.add("-r");
+            command.add(String.valueOf(fps));
+        }
+        command.add("-g");
+        command.add(String.valueOf(fps));
+        command.add("-sc_threshold");
+        command.add("0");
+        command.add("-force_key_frames");
+        command.add("expr:gte(t,n_forced*" + segmentDuration + ")");
+        if (sourceAudio) {
+            command.add("-map");
+            command.add("1:a");
+            command.add("-c:a");
+            command.add("aac");
+            command.add("-b:a");
+            command.add("64k");
+        }
+        command.add("-f");
+        command.add("segment");
+        command.add("-segment_time");
+        command.add(String.valueOf(segmentDuration));
+        command.add("-segment_start_number");
+        command.add(String.valueOf(segmentStartNumber));
+        command.add("-reset_timestamps");
+        command.add("0");
+        command.add("-segment_atclocktime");
+        command.add("1");
+        command.add("-segment_format");
+        command.add(transportStream ? "mpegts" : "mp4");
+        command.add("-segment_format_options");
+        command.add(segmentFormatOptions(transportStream));
+        command.add("-break_non_keyframes");
+        command.add("0");
+        command.add(java.nio.file.Paths.get(recordingOutputDir,
+            "MediaShift_" + recordingStartTimestamp + "_proxy_%03d." + recordingFormat).toString());
+        logger.info("[{}] Proxy recording enabled: {}p ultrafast", device.getName(), PROXY_HEIGHT);
+    }
+
+    private static String segmentFormatOptions(boolean transportStream) {
+        return transportStream ? "avoid_negative_ts=make_zero"
+                               : "movflags=+frag_keyframe+empty_moov+default_base_moof:avoid_negative_ts=make_zero";
+    }
+
+    /**
+     * Ana segmentin proxy karşılığı: "..._segment_007.mp4" -> "..._proxy_007.mp4"
+     */
+    static Path proxyPathFor(Path segment) {
+        String name = segment.getFileName().toString();
+        int index = name.lastIndexOf("_segment_");
+        if (index < 0) {
+            return null;
+        }
+        return segment.resolveSibling(name.substring(0, index) + "_proxy_" + name.substring(index + "_segment_".length()));
+    }
+
+    /**
+     * Segmentli kayıt MPEG-TS mi yazıyor (yoksa fragmented MP4)
+     */
+    private boolean isTransportStreamSegments() {
+        return "ts".equals(recordingFormat);
+    }
+
+    public void stopRecording() {
+        if (!isRecording) {
+            return;
+        }
+
+        logger.info("[{}] Stopping recording", device.getName());
+        synchronized (recordingLock) {
+            if (!isRecording) {
+                return; // Başka bir thread (ör. hareket kaydının kapatılması) bu arada durdurdu
+            }
+            this.isRecording = false;
+            qualityController = null;
+
+            // 'q' ile FFmpeg son segmenti kapatır ve listeye son satırı yazar
+            requestGracefulQuit(3000);
+            terminateProcess(3000);
+            closeSegmentWatcher();
+            finishRollingMerge();
+        }
+
+        CameraService.RecordingCallback callback = recordingCallback;
+        if (callback != null) {
+            Platform.runLater(() -> callback.onRecordingStopped());
+        }
+
+        currentRecordingPath = null;
+        isPreviewActive = false;
+        logger.info("[{}] Recording stopped successfully", device.getName());
+
+        // Kayıt bittikten sonra önizlemeyi yeniden başlat
+        CameraService.PreviewCallback preview = previewCallback;
+        if (preview != null) {
+            sleepQuietly(500); // Kameranın serbest kalması için bekle
+            logger.info("[{}] Restarting preview after recording stopped", device.getName());
+            if (!startPreview(preview)) {
+                Platform.runLater(() -> preview.onPreviewError("Önizleme yeniden başlatılamadı."));
+            }
+        }
+    }
+
+    public void pauseRecording() {
+        if (isRecording && !isPaused) {
+            isPaused = true;
+            lastPauseTime = System.currentTimeMillis();
+            logger.info("[{}] Recording paused", device.getName());
+
+            CameraService.RecordingCallback callback = recordingCallback;
+            if (callback instanceof CameraService.ExtendedRecordingCallback) {
+                Platform.runLater(() -> ((CameraService.ExtendedRecordingCallback) callback).onRecordingPaused());
+            }
+        }
+    }
+
+    public void resumeRecording() {
+        if (isRecording && isPaused) {
+            pausedDuration += (System.currentTimeMillis() - lastPauseTime);
+            isPaused = false;
+            logger.info("[{}] Recording resumed", device.getName());
+
+            CameraService.RecordingCallback callback = recordingCallback;
+            if (callback instanceof CameraService.ExtendedRecordingCallback) {
+                Platform.runLater(() -> ((CameraService.ExtendedRecordingCallback) callback).onRecordingResumed());
+            }
+        }
+    }
+
+    private void resetRecordingTimer() {
+        recordingStartTime = System.currentTimeMillis();
+        pausedDuration = 0;
+        lastPauseTime = 0;
+        lastReportedSecond = -1;
+        isPaused = false;
+        synchronized (segmentLock) {
+            currentSegmentIndex = 0;
+            nextSegmentIndex = 0;
+            segmentStartNumber = 0;
+            recordedSegments.clear();
+            proxySegments.clear();
+        }
+    }
+
+    /**
+     * Registry'nin paylaşılan zamanlayıcısından çağrılır: süre güncellemesi ve segment kontrolü.
+     * UI'a sadece gösterilen saniye değiştiğinde bildirim gider.
+     */
+    void tick(long now) {
+        if (!isRecording || isPaused) {
+            return;
+        }
+
+        long second = (now - recordingStartTime - pausedDuration) / 1000;
+        if (second != lastReportedSecond) {
+            lastReportedSecond = second;
+            CameraService.RecordingCallback callback = recordingCallback;
+            if (callback instanceof CameraService.ExtendedRecordingCallback) {
+                String formattedTime = formatTime(second * 1000);
+                Platform.runLater(() -> {
+                    try {
+                        ((CameraService.ExtendedRecordingCallback) callback).onTimeUpdate(formattedTime);
+                    } catch (Exception e) {
+                        logger.debug("Time update callback error", e);
+                    }
+                });
+            }
+        }
+    }
+
+    private SegmentManifest createManifest() throws IOException {
+        java.nio.file.Path outputDir = java.nio.file.Paths.get(recordingOutputDir);
+        java.nio.file.Files.createDirectories(outputDir);
+        return new SegmentManifest(outputDir.resolve("MediaShift_" + recordingStartTimestamp + "_manifest.csv"));
+    }
+
+    private RollingMerger createRollingMerger() {
+        java.nio.file.Path output = java.nio.file.Paths.get(recordingOutputDir)
+            .resolve("MediaShift_" + recordingStartTimestamp + "_merged.mp4");
+        return new RollingMerger(registry.getFfmpegPath(), registry.getFfprobePath(), output, new RollingMerger.Listener() {
+            @Override
+            public void onCompleted(Path file, double durationSeconds) {
+                CameraService.RecordingCallback callback = recordingCallback;
+                if (callback instanceof CameraService.ExtendedRecordingCallback) {
+                    Platform.runLater(() -> ((CameraService.ExtendedRecordingCallback) callback)
+                        .onRollingMergeCompleted(file.toString(), durationSeconds));
+                }
+            }
+
+            @Override
+            public void onAbandoned(String reason) {
+                logger.warn("[{}] Rolling merge stopped, segments will need a normal merge: {}", device.getName(), reason);
+            }
+        });
+    }
+
+    /**
+     * Kuyruktaki segmentler eklendikten sonra ana dosyayı kapatır (arka planda)
+     */
+    private void finishRollingMerge() {
+        RollingMerger merger = rollingMerger;
+        if (merger != null) {
+            rollingMerger = null;
+            merger.finish();
+        }
+    }
+
+    private void cancelRollingMerge() {
+        RollingMerger merger = rollingMerger;
+        if (merger != null) {
+            rollingMerger = null;
+            merger.cancel();
+        }
+    }
+
+    /**
+     * Kaydın segment manifestosu (segment süreleri, boyutları, zaman aralıkları).
+     * Kayıt bittikten sonra da son kaydınkini döndürür; segmentsiz kayıtta null.
+     */
+    public SegmentManifest getSegmentManifest() {
+        return segmentManifest;
+    }
+
+    /**
+     * Kayıt başlamadan önce segment olay kaynağını kurar (FFmpeg'in ilk segmenti kaçmasın)
+     */
+    private void openSegmentWatcher() throws IOException {
+        closeSegmentWatcher();
+        if (segmentDuration <= 0) {
+            return;
+        }
+        java.nio.file.Path outputDir = java.nio.file.Paths.get(recordingOutputDir);
+        SegmentWatcher watcher = new SegmentWatcher(outputDir,
+            "MediaShift_" + recordingStartTimestamp + "_segment_",
+            outputDir.resolve("MediaShift_" + recordingStartTimestamp + "_segments.csv"),
+            new SegmentWatcher.Listener() {
+                @Override
+                public void onSegmentOpened(Path segment) {
+                    segmentOpened(segment);
+                }
+
+                @Override
+                public void onSegmentClosed(Path segment, double startSeconds, double endSeconds) {
+                    segmentClosed(segment, startSeconds, endSeconds);
+                }
+            });
+        watcher.start(registry.getIoExecutor());
+        segmentWatcher = watcher;
+    }
+
+    /**
+     * Process kapandıktan sonra listedeki son satırları okur ve izlemeyi bırakır
+     */
+    private void closeSegmentWatcher() {
+        SegmentWatcher watcher = segmentWatcher;
+        if (watcher != null) {
+            watcher.drain();
+            watcher.close();
+            segmentWatcher = null;
+        }
+    }
+
+    private void segmentOpened(Path segment) {
+        String segmentPath = segment.toString();
+        synchronized (segmentLock) {
+            int index = parseSegmentIndex(segment.getFileName().toString());
+            recordedSegments.add(segmentPath);
+            if (index >= 0) {
+                currentSegmentIndex = index;
+                nextSegmentIndex = Math.max(nextSegmentIndex, index + 1);
+            }
+        }
+
+        CameraService.RecordingCallback callback = recordingCallback;
+        if (callback != null) {
+            callback.onSegmentCreated(segmentPath);
+        }
+        logger.info("[{}] New segment opened: {}", device.getName(), segmentPath);
+
+        // Yeni segment = önceki segmentin sınırı; kalite değişikliği burada uygulanır
+        evaluateQualityAtBoundary();
+    }
+
+    private void segmentClosed(Path segment, double startSeconds, double endSeconds) {
+        long size = segment.toFile().length();
+        // Segment muxer sadece keyframe'de böler (-break_non_keyframes 0)
+        SegmentManifest manifest = segmentManifest;
+        if (manifest != null) {
+            SegmentManifest.Entry entry = manifest.addSegment(segment, startSeconds, endSeconds, size, true,
+                                                              readInitSize(segment));
+            registry.getIoExecutor().submit(() -> recordSignatures(manifest, segment));
+            RollingMerger merger = rollingMerger;
+            if (merger != null) {
+                merger.append(entry);
+            }
+        }
+        SegmentRetention ring = retention;
+        if (ring != null) {
+            ring.segmentClosed(segment, size);
+        }
+        if (recordingWithProxy) {
+            // Proxy aynı sınırda kapanır; process durduğunda son proxy de tamamlanmış olur
+            Path proxy = proxyPathFor(segment);
+            if (proxy != null) {
+                synchronized (segmentLock) {
+                    proxySegments.add(proxy.toString());
+                }
+            }
+        }
+        logger.info("[{}] Segment closed: {} ({}s, {} KB)", device.getName(), segment.getFileName(),
+                   String.format("%.2f", endSeconds - startSeconds), size / 1024);
+
+        CameraService.RecordingCallback callback = recordingCallback;
+        if (callback instanceof CameraService.ExtendedRecordingCallback) {
+            ((CameraService.ExtendedRecordingCallback) callback)
+                .onSegmentClosed(segment.toString(), size, endSeconds - startSeconds);
+        }
+    }
+
+    /**
+     * Kapanan segmenti bir kez probe edip imzalarını manifestoya yazar - birleştirme anında
+     * bütün segmentler sırayla probe edilmez
+     */
+    private void recordSignatures(SegmentManifest manifest, Path segment) {
+        try {
+            manifest.setStreamSignatures(segment,
+                MediaProbeCache.shared().probe(registry.getFfprobePath(), segment).getStreamSignatures());
+        } catch (IOException e) {
+            logger.debug("[{}] Could not probe {}: {}", device.getName(), segment.getFileName(), e.getMessage());
+        }
+    }
+
+    /**
+     * Fragmented MP4 segmentin init (ftyp+moov) uzunluğu - sadece box başlıkları okunur; TS için 0
+     */
+    private long readInitSize(Path segment) {
+        if (!segment.getFileName().toString().endsWith(".mp4")) {
+            return 0;
+        }
+        try {
+            return Fmp4Stitcher.readLayout(segment).getInitLength();
+        } catch (IOException e) {
+            logger.debug("[{}] Could not index {}: {}", device.getName(), segment.getFileName(), e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * "..._segment_007.mp4" -> 7
+     */
+    private static int parseSegmentIndex(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        int underscore = fileName.lastIndexOf('_');
+        if (underscore < 0 || dot <= underscore) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(fileName.substring(underscore + 1, dot));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // ========================== ADAPTİF KALİTE ==========================
+
+    /**
+     * Adaptif kaliteyi açar/kapatır. Bir sonraki kayıt başlangıcında etkinleşir.
+     */
+    public void setAdaptiveQuality(boolean enabled) {
+        this.adaptiveQuality = enabled;
+    }
+
+    public boolean isAdaptiveQuality() {
+        return adaptiveQuality;
+    }
+
+    /**
+     * Canlı HLS çıkışını açar/kapatır. Bir sonraki FFmpeg başlatılışında (önizleme/kayıt) etkinleşir.
+     * @return akışın sunucudaki adı, kapatıldıysa null
+     */
+    public String setLiveOutput(boolean enabled) throws IOException {
+        LiveHlsServer server = registry.getLiveServer();
+        LiveHlsOutput current = liveOutput;
+        if (!enabled) {
+            if (current != null) {
+                liveOutput = null;
+                server.unregister(current.getName());
+                current.clear();
+            }
+            return null;
+        }
+        if (current == null) {
+            current = new LiveHlsOutput(LiveHlsOutput.streamName(device.getName()));
+            liveOutput = current;
+            server.register(current.getName(), current.getDirectory());
+            logger.info("[{}] Live HLS output enabled: {}", device.getName(), current.getDirectory());
+        }
+        return current.getName();
+    }
+
+    /**
+     * Canlı çıkışın tahmini gecikmesi (ms), kapalıysa veya henüz segment yoksa -1
+     */
+    public long getLiveLatencyMillis() {
+        LiveHlsOutput live = liveOutput;
+        return live != null ? live.estimateLatencyMillis() : -1;
+    }
+
+    // ========================== SÜREKLİ KAYIT ==========================
+
+    /**
+     * Disk kotalı sürekli kaydı açar (null = kapalı). İlk açılışta kayıt klasöründeki önceki
+     * kayıtlar manifestolarından kataloğa alınır; politika hemen uygulanmaya başlar.
+     */
+    public void setRetentionPolicy(SegmentRetention.Policy policy) {
+        SegmentRetention current = retention;
+        if (policy == null) {
+            if (current != null) {
+                retention = null;
+                current.close();
+                logger.info("[{}] Continuous recording retention disabled", device.getName());
+            }
+            return;
+        }
+        if (current != null) {
+            current.setPolicy(policy);
+            logger.info("[{}] Retention policy changed: {}", device.getName(), policy);
+            return;
+        }
+        retention = new SegmentRetention(device.getName(), policy, this::segmentsExpired);
+        logger.info("[{}] Continuous recording retention enabled: {}", device.getName(), policy);
+        if (isRecording) {
+            seedRetention();
+        }
+    }
+
+    /**
+     * Kayıt klasöründeki önceki kayıtları kataloğa alır - klasör başına bir kez, arka planda
+     */
+    private void seedRetention() {
+        SegmentRetention ring = retention;
+        if (ring == null) {
+            return;
+        }
+        java.nio.file.Path outputDir = java.nio.file.Paths.get(recordingOutputDir);
+        registry.getIoExecutor().submit(() -> ring.seed(outputDir, "MediaShift_*_manifest.csv"));
+    }
+
+    /**
+     * Disk kotası kataloğu (ayak izi, yazma hızı), sürekli kayıt kapalıysa null
+     */
+    public SegmentRetention getRetention() {
+        return retention;
+    }
+
+    private void segmentsExpired(List<Path> segments, long reclaimedBytes) {
+        java.util.Set<Path> expired = new java.util.HashSet<>(segments);
+        expireProxies(segments);
+        expireManifestEntries(segments);
+        List<String> paths = new ArrayList<>();
+        synchronized (segmentLock) {
+            recordedSegments.removeIf(segment -> {
+                boolean removed = expired.contains(Path.of(segment).toAbsolutePath().normalize());
+                if (removed) {
+                    paths.add(segment);
+                }
+                return removed;
+            });
+        }
+        if (paths.isEmpty()) {
+            return; // Önceki kayıtlardan - listede değil
+        }
+        CameraService.RecordingCallback callback = recordingCallback;
+        if (callback instanceof CameraService.ExtendedRecordingCallback) {
+            Platform.runLater(() -> ((CameraService.ExtendedRecordingCallback) callback)
+                .onSegmentsExpired(paths, reclaimedBytes));
+        }
+    }
+
+    /**
+     * Süresi dolan segmentleri ait oldukları manifestolardan çıkarır; kesim, paketleme ve birleştirme
+     * artık diskte olmayan kayıtlara gitmez. Aktif kaydın manifestosu bellekte de güncellenir.
+     */
+    private void expireManifestEntries(List<Path> segments) {
+        java.util.Map<Path, List<Path>> byManifest = new java.util.HashMap<>();
+        for (Path segment : segments) {
+            Path manifestFile = manifestFileFor(segment);
+            if (manifestFile != null) {
+                byManifest.computeIfAbsent(manifestFile, key -> new ArrayList<>()).add(segment);
+            }
+        }
+        SegmentManifest current = segmentManifest;
+        Path currentFile = current != null && current.getFile() != null
+            ? current.getFile().toAbsolutePath().normalize() : null;
+        for (java.util.Map.Entry<Path, List<Path>> group : byManifest.entrySet()) {
+            try {
+                int removed = group.getKey().equals(currentFile)
+                    ? current.remove(group.getValue())
+                    : SegmentManifest.removeFromFile(group.getKey(), group.getValue());
+                logger.debug("[{}] Removed {} expired entries from {}", device.getName(), removed,
+                             group.getKey().getFileName());
+            } catch (IOException e) {
+                logger.warn("[{}] Could not update manifest {}: {}", device.getName(), group.getKey().getFileName(),
+                            e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * "MediaShift_20240501_120000_segment_007.mp4" (ya da "..._preroll.ts") -> aynı klasördeki
+     * "MediaShift_20240501_120000_manifest.csv"; kayıt dosyası değilse null
+     */
+    private static Path manifestFileFor(Path segment) {
+        String name = segment.getFileName().toString();
+        int cut = name.lastIndexOf("_segment_");
+        if (cut < 0) {
+            cut = name.lastIndexOf("_preroll.");
+        }
+        if (cut <= 0) {
+            return null;
+        }
+        return segment.toAbsolutePath().normalize().resolveSibling(name.substring(0, cut) + "_manifest.csv");
+    }
+
+    /**
+     * Süresi dolan ana segmentlerin proxy'leri de aynı politikayla silinir/arşivlenir (temizlik thread'inde)
+     */
+    private void expireProxies(List<Path> segments) {
+        SegmentRetention ring = retention;
+        Path archive = ring != null && ring.getPolicy() != null ? ring.getPolicy().getArchiveDirectory() : null;
+        for (Path segment : segments) {
+            Path proxy = proxyPathFor(segment);
+            if (proxy == null || !java.nio.file.Files.exists(proxy)) {
+                continue;
+            }
+            try {
+                if (archive != null) {
+                    java.nio.file.Files.move(proxy, archive.resolve(proxy.getFileName()),
+                                             java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+                } else {
+                    java.nio.file.Files.delete(proxy);
+                }
+            } catch (IOException e) {
+                logger.debug("[{}] Could not expire proxy {}: {}", device.getName(), proxy.getFileName(), e.getMessage());
+            }
+            synchronized (segmentLock) {
+                proxySegments.remove(proxy.toString());
+            }
+        }
+    }
+
+    /**
+     * Hareketle kayıt ayarları - bir sonraki kurulumda etkinleşir
+     */
+    public void setMotionSettings(MotionDetector.Settings settings) {
+        this.motionSettings = settings;
+    }
+
+    /**
+     * Kaydı hareket algılamaya bağlar: önizleme sürer, hareket başlayınca (pre-roll ile) kayıt
+     * başlatılır, hareket bittikten sonra post-roll süresi dolunca durdurulur. Her hareket ayrı kayıttır.
+     */
+    public boolean armMotionRecording(CameraService.RecordingCallback callback) {
+        if (!isPreviewActive) {
+            if (callback != null) {
+                callback.onRecordingError("Önce kamera önizlemesini başlatın");
+            }
+            return false;
+        }
+        synchronized (motionLock) {
+            if (motionDetector != null) {
+                return true;
+            }
+            motionCallback = callback;
+            motionWantsRecording = false;
+            motionDetector = new MotionDetector(device.getName(), motionSettings, new MotionDetector.Listener() {
+                @Override
+                public void onMotionStarted(double score) {
+                    registry.getIoExecutor().submit(() -> motionChanged(true));
+                }
+
+                @Override
+                public void onMotionStopped(long activeMillis) {
+                    registry.getIoExecutor().submit(() -> motionChanged(false));
+                }
+            });
+        }
+        logger.info("[{}] Motion-gated recording armed ({}, pre-roll {}s)", device.getName(), motionSettings,
+                   preRollSeconds);
+        return true;
+    }
+
+    private void motionChanged(boolean active) {
+        synchronized (motionLock) {
+            if (motionDetector == null) {
+                return; // Bu arada devre dışı bırakıldı
+            }
+            motionWantsRecording = active;
+            if (motionTransitionRunning) {
+                return; // Süren başlatma/durdurma bitince yeni durumu uygular
+            }
+            motionTransitionRunning = true;
+        }
+        applyMotionState();
+    }
+
+    /**
+     * İstenen kayıt durumuna ulaşana kadar kaydı başlatır/durdurur. Kilit yalnızca karar için tutulur;
+     * yavaş olan startRecording/stopRecording kilit dışında çalışır. Aynı anda tek thread çalıştırır.
+     */
+    private void applyMotionState() {
+        while (true) {
+            boolean start;
+            CameraService.RecordingCallback callback;
+            synchronized (motionLock) {
+                boolean wanted = motionDetector != null && motionWantsRecording;
+                if (wanted == isRecording) {
+                    motionTransitionRunning = false;
+                    return;
+                }
+                start = wanted;
+                callback = motionCallback;
+            }
+            if (start) {
+                if (!startRecording(callback)) {
+                    synchronized (motionLock) {
+                        motionTransitionRunning = false;
+                    }
+                    return;
+                }
+            } else {
+                stopRecording();
+            }
+        }
+    }
+
+    /**
+     * Hareket algılamayı kapatır; hareket kaydı sürüyorsa durdurur. FX thread'inden çağrılabilir -
+     * durdurma (FFmpeg'in kapanmasını beklemek) I/O havuzunda yapılır.
+     */
+    public void disarmMotionRecording() {
+        MotionDetector detector;
+        boolean submitStop;
+        synchronized (motionLock) {
+            detector = motionDetector;
+            if (detector == null) {
+                return;
+            }
+            motionDetector = null;
+            motionCallback = null;
+            motionWantsRecording = false;
+            submitStop = !motionTransitionRunning;
+            motionTransitionRunning = true;
+        }
+        detector.close();
+        if (submitStop) {
+            registry.getIoExecutor().submit(this::applyMotionState);
+        }
+        logger.info("[{}] Motion-gated recording disarmed", device.getName());
+    }
+
+    public boolean isMotionArmed() {
+        return motionDetector != null;
+    }
+
+    /**
+     * Hareketle kayıt kuruluyken algılayıcı, değilse null
+     */
+    public MotionDetector getMotionDetector() {
+        return motionDetector;
+    }
+
+    /**
+     * Proxy kaydını açar/kapatır. Bir sonraki kayıt başlangıcında etkinleşir.
+     */
+    public void setProxyRecording(boolean enabled) {
+        this.proxyRecording = enabled;
+    }
+
+    public boolean isProxyRecording() {
+        return proxyRecording;
+    }
+
+    /**
+     * Son kaydın proxy dosyaları (ana segment sırasıyla); kayıt durduğunda hepsi kapanmıştır
+     */
+    public List<String> getProxySegments() {
+        synchronized (segmentLock) {
+            return new ArrayList<>(proxySegments);
+        }
+    }
+
+    /**
+     * Rolling merge'i açar/kapatır. Bir sonraki kayıt başlangıcında etkinleşir.
+     */
+    public void setRollingMerge(boolean enabled) {
+        this.rollingMerge = enabled;
+    }
+
+    public boolean isRollingMerge() {
+        return rollingMerge;
+    }
+
+    /**
+     * Aktif kayıt kalite kademesi, adaptif kalite kapalıysa null
+     */
+    public AdaptiveQualityController.Level getQualityLevel() {
+        AdaptiveQualityController controller = qualityController;
+        return controller != null ? controller.getCurrentLevel() : null;
+    }
+
+    private void onEncoderEvent(EncoderTelemetry.Event event) {
+        AdaptiveQualityController controller = qualityController;
+        if (controller != null && isRecording) {
+            controller.onTelemetryEvent(event, System.currentTimeMillis());
+        }
+    }
+
+    private void evaluateQualityAtBoundary() {
+        AdaptiveQualityController controller = qualityController;
+        if (controller == null || !isRecording || qualityRestartPending) {
+            return;
+        }
+        EncoderTelemetry current = telemetry;
+        AdaptiveQualityController.Decision decision =
+            controller.evaluate(System.currentTimeMillis(), current != null && current.isDegraded());
+        if (decision == null) {
+            return;
+        }
+
+        logger.warn("[{}] Adaptive quality: {}", device.getName(), decision);
+        qualityRestartPending = true;
+        // Process yeniden başlatma birkaç saniye sürer - paylaşılan tick threadini bloklamasın
+        registry.getIoExecutor().submit(() -> {
+            try {
+                restartRecordingProcess(decision);
+            } finally {
+                qualityRestartPending = false;
+            }
+        });
+    }
+
+    /**
+     * Yeni segment açıldığı anda processi yeni kademeyle yeniden başlatır. FFmpeg'e 'q' gönderilir,
+     * böylece açık segment trailer'ıyla kapanır; yeni process numaralandırmaya kaldığı yerden devam eder.
+     */
+    private void restartRecordingProcess(AdaptiveQualityController.Decision decision) {
+        synchronized (recordingLock) {
+            if (!isRecording) {
+                return;
+            }
+            requestGracefulQuit(2000);
+            terminateProcess(2000);
+            SegmentWatcher watcher = segmentWatcher;
+            if (watcher != null) {
+                watcher.drain();
+                watcher.resetList(); // Yeni process liste dosyasını baştan yazar
+            }
+            SegmentManifest manifest = segmentManifest;
+            if (manifest != null) {
+                manifest.startNewTimeline(); // Yeni process zamanları sıfırdan başlatır
+            }
+            synchronized (segmentLock) {
+                segmentStartNumber = nextSegmentIndex;
+            }
+            sleepQuietly(500); // Kameranın serbest kalması için bekle
+
+            try {
+                launch(buildRecordingCommand(), "recording");
+                logQualityLevel(segmentStartNumber, decision.toString());
+            } catch (IOException e) {
+                logger.error("[{}] Failed to restart recording at new quality level", device.getName(), e);
+                isRecording = false;
+                isPreviewActive = false;
+                qualityController = null;
+                closeSegmentWatcher();
+                finishRollingMerge();
+                CameraService.RecordingCallback callback = recordingCallback;
+                if (callback != null) {
+                    Platform.runLater(() -> callback.onRecordingError("Kayıt kalite değişiminde durdu: " + e.getMessage()));
+                }
+            }
+        }
+    }
+
+    private void requestGracefulQuit(long timeoutMillis) {
+        Process process;
+        synchronized (processLock) {
+            process = ffmpegProcess;
+        }
+        if (process == null || !process.isAlive()) {
+            return;
+        }
+        try {
+            process.getOutputStream().write('q');
+            process.getOutputStream().flush();
+            process.waitFor(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (IOException e) {
+            logger.debug("[{}] Could not send quit to FFmpeg: {}", device.getName(), e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Kalite değişikliklerini segment numarasıyla kayıt klasöründeki
+     * MediaShift_<zaman>_quality.log dosyasına ekler (segment metadata'sı)
+     */
+    private void logQualityLevel(int fromSegment, String reason) {
+        AdaptiveQualityController.Level level = getQualityLevel();
+        String timestamp = recordingStartTimestamp;
+        if (level == null || timestamp == null) {
+            return;
+        }
+
+        String line = String.format("%s segment=%03d level=%d preset=%s size=%dx%d fps=%d reason=%s%n",
+            java.time.LocalDateTime.now(), fromSegment, level.getIndex(), level.getPreset(),
+            level.getWidth(), level.getHeight(), level.getFps(), reason);
+        try {
+            java.nio.file.Files.writeString(java.nio.file.Paths.get(recordingOutputDir, "MediaShift_" + timestamp + "_quality.log"),
+                line, java.nio.file.StandardOpenOption.CREATE, java.nio.file.StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            logger.warn("[{}] Could not write quality log: {}", device.getName(), e.getMessage());
+        }
+    }
+
+    private String formatTime(long milliseconds) {
+        long seconds = milliseconds / 1000;
+        long minutes = seconds / 60;
+        long hours = minutes / 60;
+        return String.format("%02d:%02d:%02d", hours, minutes % 60, seconds % 60);
+    }
+
+    // ========================== PRE-ROLL ==========================
+
+    /**
+     * Pre-roll süresini ayarlar (0 = kapalı). Önizleme bir sonraki başlatılışında etkinleşir.
+     * Bellek kullanımı {@code maxBytes} ile sınırlanır; buffer bir kez ayrılır ve yeniden kullanılır.
+     */
+    public void setPreRoll(int seconds, long maxBytes) {
+        this.preRollSeconds = Math.max(0, seconds);
+        this.preRollMaxBytes = maxBytes;
+    }
+
+    public int getPreRollSeconds() {
+        return preRollSeconds;
+    }
+
+    /**
+     * Pre-roll için TCP loopback çıkışı hazırlar. FFmpeg bağlanır, gelen TS verisi socket'ten
+     * doğrudan direct buffer'a okunur (ara heap kopyası yok).
+     */
+    private List<String> buildPreRollOutput() throws IOException {
+        // ~N saniye + %50 pay, üst sınır preRollMaxBytes
+        long needed = (long) preRollSeconds * PRE_ROLL_BITRATE_KBPS * 1000 / 8 * 3 / 2;
+        long capacity = Math.min(Math.max(needed, 2L * PRE_ROLL_CHUNK_SIZE), preRollMaxBytes);
+        PreRollBuffer buffer = preRollBuffer;
+        if (buffer == null || buffer.getCapacity() / PRE_ROLL_CHUNK_SIZE != capacity / PRE_ROLL_CHUNK_SIZE) {
+            buffer = new PreRollBuffer(capacity, PRE_ROLL_CHUNK_SIZE);
+            preRollBuffer = buffer;
+            logger.info("[{}] Pre-roll buffer allocated: {} KB off-heap for {} seconds",
+                       device.getName(), buffer.getCapacity() / 1024, preRollSeconds);
+        } else {
+            buffer.clear();
+        }
+
+        preRollServer = ServerSocketChannel.open();
+        preRollServer.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1);
+        int port = ((InetSocketAddress) preRollServer.getLocalAddress()).getPort();
+
+        List<String> output = new ArrayList<>();
+        output.add("-map");
+        output.add("0:v");
+        output.add("-c:v");
+        output.add("libx264");
+        output.add("-preset");
+        output.add("ultrafast");
+        output.add("-tune");
+        output.add("zerolatency");
+        output.add("-pix_fmt");
+        output.add("yuv420p");
+        output.add("-g");
+        output.add(String.valueOf(PREVIEW_FPS)); // Her saniye keyframe - kesilen buffer hızlı açılsın
+        output.add("-b:v");
+        output.add(PRE_ROLL_BITRATE_KBPS + "k");
+        output.add("-maxrate");
+        output.add(PRE_ROLL_BITRATE_KBPS + "k");
+        output.add("-bufsize");
+        output.add((PRE_ROLL_BITRATE_KBPS / 2) + "k");
+        if (source.providesAudio(device.getDeviceId())) {
+            output.add("-map");
+            output.add("1:a");
+            output.add("-c:a");
+            output.add("aac");
+            output.add("-b:a");
+            output.add("96k");
+        }
+        output.add("-f");
+        output.add("mpegts");
+        output.add("tcp://127.0.0.1:" + port);
+        return output;
+    }
+
+    private void startPreRollReader() {
+        ServerSocketChannel server = preRollServer;
+        PreRollBuffer buffer = preRollBuffer;
+        if (server == null || buffer == null) {
+            return;
+        }
+
+        preRollTask = registry.getIoExecutor().submit(() -> {
+            try (SocketChannel channel = server.accept()) {
+                logger.info("[{}] Pre-roll stream connected", device.getName());
+                while (buffer.readFrom(channel) != -1) {
+                    // Okuma buffer içinde - heap allocation yok
+                }
+            } catch (IOException e) {
+                if (isPreviewActive) {
+                    logger.debug("[{}] Pre-roll stream closed: {}", device.getName(), e.getMessage());
+                }
+            }
+        });
+    }
+
+    private void closePreRoll() {
+        if (preRollServer != null) {
+            try {
+                preRollServer.close();
+            } catch (IOException e) {
+                logger.debug("Error closing pre-roll server", e);
+            }
+            preRollServer = null;
+        }
+        if (preRollTask != null) {
+            preRollTask.cancel(true);
+            preRollTask = null;
+        }
+    }
+
+    /**
+     * Son {@code seconds} saniyeyi MPEG-TS dosyası olarak kayıt klasörüne yazar (anlık tekrar)
+     */
+    public Path saveLastSeconds(int seconds) throws IOException {
+        PreRollBuffer buffer = preRollBuffer;
+        if (buffer == null || buffer.getTotalBytesWritten() == 0) {
+            throw new IOException("Pre-roll buffer is empty - enable pre-roll and start preview first");
+        }
+
+        java.nio.file.Path outputDir = java.nio.file.Paths.get(recordingOutputDir);
+        java.nio.file.Files.createDirectories(outputDir);
+        String timestamp = java.time.LocalDateTime.now().format(java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+        Path target = outputDir.resolve("MediaShift_" + timestamp + "_replay.ts");
+
+        long written = buffer.saveLast(seconds * 1000L, target);
+        logger.info("[{}] Saved last {} seconds ({} KB) to {}", device.getName(), seconds, written / 1024, target);
+        return target;
+    }
+
+    private String savePreRollForRecording() {
+        PreRollBuffer buffer = preRollBuffer;
+        if (preRollSeconds <= 0 || buffer == null || buffer.getTotalBytesWritten() == 0) {
+            return null;
+        }
+
+        try {
+            java.nio.file.Path outputDir = java.nio.file.Paths.get(recordingOutputDir);
+            java.nio.file.Files.createDirectories(outputDir);
+            Path target = outputDir.resolve("MediaShift_" + recordingStartTimestamp + "_preroll.ts");
+            long now = System.currentTimeMillis();
+            double estimatedSeconds = Math.min(preRollSeconds * 1000L, buffer.getBufferedMillis(now)) / 1000.0;
+            long written = buffer.saveLast(preRollSeconds * 1000L, target);
+            // Tampon bütün chunk'ları yazar - süre duvar saatinden değil dosyanın PTS aralığından
+            preRollSavedSeconds = measureLeadIn(target, estimatedSeconds);
+            logger.info("[{}] Pre-roll written: {} KB, {} s -> {}", device.getName(), written / 1024,
+                        String.format(java.util.Locale.ROOT, "%.2f", preRollSavedSeconds), target);
+            if (segmentDuration > 0 && !isTransportStreamSegments()) {
+                // Segmentler fragmented MP4 - pre-roll da aynı kapta olmalı, yoksa birleştirme/paketleme
+                // kap ve timebase farkı yüzünden stream copy yapamaz
+                Path remuxed = remuxPreRoll(target);
+                if (remuxed != null) {
+                    java.nio.file.Files.deleteIfExists(target);
+                    return remuxed.toString();
+                }
+            }
+            return target.toString();
+        } catch (IOException e) {
+            logger.warn("[{}] Could not write pre-roll: {}", device.getName(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * MPEG-TS pre-roll'ü kayıt segmentleriyle aynı fragmented MP4 biçimine stream copy ile aktarır.
+     * Video timescale'i segment muxer'ının seçtiğiyle aynıdır (FPS, 10000'i geçene kadar ikiye katlanır).
+     *
+     * @return MP4 dosyası, dönüştürülemezse null (TS olduğu gibi kullanılır)
+     */
+    private Path remuxPreRoll(Path transportStream) {
+        String name = transportStream.getFileName().toString();
+        Path target = transportStream.resolveSibling(name.substring(0, name.length() - 3) + ".mp4");
+        int timescale = CAPTURE_FPS;
+        while (timescale < 10000) {
+            timescale *= 2;
+        }
+
+        List<String> command = new ArrayList<>();
+        command.add(registry.getFfmpegPath());
+        command.add("-v");
+        command.add("error");
+        command.add("-y");
+        command.add("-i");
+        command.add(transportStream.toString());
+        command.add("-map");
+        command.add("0:v");
+        command.add("-map");
+        command.add("0:a?");
+        command.add("-c");
+        command.add("copy");
+        command.add("-video_track_timescale");
+        command.add(String.valueOf(timescale));
+        command.add("-movflags");
+        command.add("+frag_keyframe+empty_moov+default_base_moof");
+        command.add("-avoid_negative_ts");
+        command.add("make_zero");
+        command.add(target.toString());
+
+        try {
+            Process remux = new ProcessBuilder(command).redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+            if (!remux.waitFor(10, TimeUnit.SECONDS)) {
+                remux.destroyForcibly();
+                logger.warn("[{}] Pre-roll remux timed out", device.getName());
+            } else if (remux.exitValue() == 0 && java.nio.file.Files.size(target) > 0) {
+                return target;
+            } else {
+                logger.warn("[{}] Pre-roll remux failed (exit {})", device.getName(), remux.exitValue());
+            }
+        } catch (IOException e) {
+            logger.warn("[{}] Could not remux pre-roll: {}", device.getName(), e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            java.nio.file.Files.deleteIfExists(target);
+        } catch (IOException e) {
+            logger.debug("[{}] Could not remove partial pre-roll {}", device.getName(), target.getFileName());
+        }
+        return null;
+    }
+
+    /**
+     * Kaydedilmiş pre-roll'ün gerçek süresi; PTS okunamazsa tampon zamanlarından tahmin
+     */
+    private double measureLeadIn(Path file, double estimatedSeconds) {
+        try (java.nio.channels.FileChannel channel = java.nio.channels.FileChannel.open(file,
+                java.nio.file.StandardOpenOption.READ)) {
+            long[] pts = SegmentValidator.transportStreamPtsRange(channel);
+            if (pts != null && pts[1] > pts[0]) {
+                return (pts[1] - pts[0]) / 90000.0;
+            }
+        } catch (IOException e) {
+            logger.debug("[{}] Could not read pre-roll PTS range: {}", device.getName(), e.getMessage());
+        }
+        return estimatedSeconds;
+    }
+
+    // ========================== PROCESS / FRAME PIPELINE ==========================
+
+    /**
+     * FFmpeg processini başlatır ve stdout'u paylaşılan I/O havuzundan bir frame reader'a bağlar
+     */
+    private void launch(List<String> command, String label) throws IOException {
+        // Encoder telemetrisi stderr'e key=value olarak yazılır (stdout MJPEG için ayrılmış)
+        command.addAll(1, EncoderTelemetry.progressArguments("pipe:2", TELEMETRY_PERIOD_SECONDS));
+        logger.info("[{}] FFmpeg {} command: {}", device.getName(), label, String.join(" ", command));
+
+        ProcessBuilder pb = new ProcessBuilder(command);
+
+        synchronized (processLock) {
+            EncoderTelemetry processTelemetry = new EncoderTelemetry(device.getName() + " " + label, PREVIEW_FPS);
+            for (EncoderTelemetry.Listener listener : telemetryListeners) {
+                processTelemetry.addListener(listener);
+            }
+            processTelemetry.addListener(this::onEncoderEvent);
+            telemetry = processTelemetry;
+
+            Process process = pb.start();
+            ffmpegProcess = process;
+            java.util.ArrayDeque<String> recentErrors = new java.util.ArrayDeque<>();
+            stderrReaderTask = registry.getIoExecutor().submit(() -> readStderr(process, processTelemetry, recentErrors, label));
+
+            // Processin başlamasını bekle
+            try {
+                Thread.sleep(2000);
+
+                if (!process.isAlive()) {
+                    stderrReaderTask.get(2, TimeUnit.SECONDS);
+                    ffmpegProcess = null;
+                    String errorOutput;
+                    synchronized (recentErrors) {
+                        errorOutput = String.join("\n", recentErrors);
+                    }
+                    throw new IOException("FFmpeg " + label + " process failed to start. FFmpeg output: " + errorOutput);
+                }
+
+                logger.info("[{}] FFmpeg {} process started successfully", device.getName(), label);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for FFmpeg process to start");
+            } catch (java.util.concurrent.ExecutionException | java.util.concurrent.TimeoutException e) {
+                ffmpegProcess = null;
+                throw new IOException("FFmpeg " + label + " process failed to start", e);
+            }
+
+            frameReaderTask = registry.getIoExecutor().submit(() -> readFrames(process));
+        }
+    }
+
+    /**
+     * stderr: progress satırları telemetriye, diğerleri log'a. Son hata satırları başlatma
+     * hatası mesajı için saklanır.
+     */
+    private void readStderr(Process process, EncoderTelemetry processTelemetry,
+                            java.util.ArrayDeque<String> recentErrors, String label) {
+        // Progress satırları (saniyede onlarca) String'e çevrilmeden ayrıştırılır
+        FFmpegProgressParser parser = processTelemetry.getParser();
+        FFmpegProgressParser.LineHandler handler = (type, line) -> {
+            if (type == FFmpegProgressParser.LineType.REPORT_END) {
+                processTelemetry.completeReport(System.currentTimeMillis());
+                return;
+            }
+            if (type != FFmpegProgressParser.LineType.OTHER) {
+                return;
+            }
+            processTelemetry.acceptLogLine(line);
+            String text = line.toString();
+            logger.debug("[{}] FFmpeg {}: {}", device.getName(), label, text);
+            synchronized (recentErrors) {
+                recentErrors.addLast(text);
+                if (recentErrors.size() > 20) {
+                    recentErrors.removeFirst();
+                }
+            }
+        };
+        try (InputStream stderr = process.getErrorStream()) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = stderr.read(buffer)) > 0) {
+                parser.feed(buffer, 0, read, handler);
+            }
+            parser.flush(handler);
+        } catch (IOException e) {
+            logger.debug("[{}] FFmpeg {} stderr closed", device.getName(), label);
+        }
+    }
+
+    private void readFrames(Process process) {
+        logger.info("[{}] Frame reader started", device.getName());
+        final int FRAMES_TO_SKIP = 2; // İlk frameler genellikle bozuk
+        final long[] lastFrameTime = {0};
+
+        try (InputStream inputStream = process.getInputStream()) {
+            MjpegFrameAssembler assembler = new MjpegFrameAssembler(MAX_FRAME_SIZE);
+            byte[] buffer = new byte[32768];
+
+            MjpegFrameAssembler.FrameListener listener = frameData -> {
+                framesReceived.incrementAndGet();
+                if (assembler.getFrameCount() <= FRAMES_TO_SKIP) {
+                    return;
+                }
+
+                // Frame rate kontrolü - çok hızlı frameleri filtrele
+                long currentTime = System.currentTimeMillis();
+                if (currentTime - lastFrameTime[0] < MIN_FRAME_INTERVAL) {
+                    framesSkipped.incrementAndGet();
+                    return;
+                }
+                lastFrameTime[0] = currentTime;
+
+                if (frameData.length > 1000 && !isBlackFrame(frameData)) {
+                    // Passthrough framelerde Huffman tablosu olmayabilir
+                    byte[] frame = MjpegFrameAssembler.ensureHuffmanTables(frameData);
+                    deliverFrame(frame);
+                    MotionDetector detector = motionDetector;
+                    if (detector != null) {
+                        detector.offer(frame, currentTime); // Örnekleme aralığında değilse hemen döner
+                    }
+                }
+            };
+
+            int read;
+            while (!Thread.currentThread().isInterrupted() && (read = inputStream.read(buffer)) != -1) {
+                bytesRead.addAndGet(read);
+                assembler.feed(buffer, 0, read, listener);
+            }
+
+            if (assembler.getDroppedFrames() > 0) {
+                logger.warn("[{}] Frame buffer overflow, {} frames dropped", device.getName(), assembler.getDroppedFrames());
+            }
+        } catch (IOException e) {
+            if (process.isAlive() && isPreviewActive) {
+                logger.warn("[{}] Read error in frame reader", device.getName(), e);
+            }
+        } finally {
+            logger.info("[{}] Frame reader exiting", device.getName());
+        }
+    }
+
+    /**
+     * Frame'i UI threadine iletir. UI önceki frame'i henüz işlemediyse sadece en son frame tutulur,
+     * böylece yavaş UI'da runLater kuyruğu büyümez.
+     */
+    private void deliverFrame(byte[] frame) {
+        if (pendingFrame.getAndSet(frame) != null) {
+            framesSkipped.incrementAndGet();
+            return;
+        }
+
+        Platform.runLater(() -> {
+            byte[] latest = pendingFrame.getAndSet(null);
+            CameraService.PreviewCallback callback = previewCallback;
+            if (latest != null && callback != null && isPreviewActive) {
+                framesDisplayed.incrementAndGet();
+                try {
+                    callback.onFrameReceived(latest);
+                } catch (Exception e) {
+                    logger.warn("Error processing frame", e);
+                }
+            }
+        });
+    }
+
+    private void terminateProcess(long timeoutMillis) {
+        synchronized (processLock) {
+            if (ffmpegProcess != null) {
+                try {
+                    // Streamleri kapat - reader read()'den çıkar
+                    ffmpegProcess.getInputStream().close();
+                    ffmpegProcess.getOutputStream().close();
+                    ffmpegProcess.getErrorStream().close();
+                } catch (Exception e) {
+                    logger.debug("Error closing streams", e);
+                }
+
+                ffmpegProcess.destroy();
+                try {
+                    boolean terminated = ffmpegProcess.waitFor(timeoutMillis, TimeUnit.MILLISECONDS);
+                    if (!terminated || ffmpegProcess.isAlive()) {
+                        ffmpegProcess.destroyForcibly();
+                        ffmpegProcess.waitFor(1000, TimeUnit.MILLISECONDS);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    ffmpegProcess.destroyForcibly();
+                }
+                ffmpegProcess = null;
+            }
+
+            if (frameReaderTask != null) {
+                frameReaderTask.cancel(true);
+                frameReaderTask = null;
+            }
+            if (stderrReaderTask != null) {
+                stderrReaderTask.cancel(true);
+                stderrReaderTask = null;
+            }
+            pendingFrame.set(null);
+            closePreRoll();
+        }
+    }
+
+    /**
+     * Oturumu tamamen kapatır (kayıt dahil)
+     */
+    void close() {
+        previewCallback = null;
+        MotionDetector detector = motionDetector;
+        if (detector != null) {
+            motionDetector = null;
+            detector.close();
+        }
+        if (isRecording) {
+            isRecording = false;
+            requestGracefulQuit(3000);
+            terminateProcess(3000);
+        }
+        closeSegmentWatcher();
+        finishRollingMerge();
+        setRetentionPolicy(null);
+        isPreviewActive = false;
+        terminateProcess(2000);
+        recordingCallback = null;
+        LiveHlsOutput live = liveOutput;
+        if (live != null) {
+            liveOutput = null;
+            registry.getLiveServer().unregister(live.getName());
+            live.clear();
+        }
+    }
+
+    /**
+     * Siyah/boş frameleri tespit eder
+     */
+    private boolean isBlackFrame(byte[] frameData) {
+        // JPEG framelerde 0x00 bytelarının oranını kontrol et
+        int zeroCount = 0;
+        int sampleSize = Math.min(frameData.length, 5000); // İlk 5KBı sample olarak al
+        for (int i = 0; i < sampleSize; i++) {
+            if (frameData[i] == 0x00) {
+                zeroCount++;
+            }
+        }
+        // %80'den fazla sıfır byte varsa siyah frame olarak kabul et
+        return (double) zeroCount / sampleSize > 0.8;
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ========================== GETTER ==========================
+
+    public CameraService.CameraDevice getDevice() { return device; }
+    public String getDeviceId() { return device.getDeviceId(); }
+    public CaptureSource getSource() { return source; }
+    public boolean isPreviewActive() { return isPreviewActive; }
+    public boolean isRecording() { return isRecording; }
+    public boolean isPaused() { return isPaused; }
+    public String getCurrentRecordingPath() { return currentRecordingPath; }
+    public int getCurrentSegmentIndex() { return currentSegmentIndex; }
+    public String getRecordingQuality() { return recordingQuality; }
+    public int getRecordingFps() { return recordingFps; }
+    public int getRecordingBitrate() { return recordingBitrate; }
+
+    /**
+     * Aktif processin encoder telemetrisi (process yoksa null)
+     */
+    public EncoderTelemetry getTelemetry() { return telemetry; }
+
+    /**
+     * Eşik olayları için dinleyici - sonraki tüm processlerde de geçerli
+     */
+    public void addTelemetryListener(EncoderTelemetry.Listener listener) {
+        telemetryListeners.add(listener);
+        EncoderTelemetry current = telemetry;
+        if (current != null) {
+            current.addListener(listener);
+        }
+    }
+
+    public void removeTelemetryListener(EncoderTelemetry.Listener listener) {
+        telemetryListeners.remove(listener);
+        EncoderTelemetry current = telemetry;
+        if (current != null) {
+            current.removeListener(listener);
+        }
+    }
+
+    /** Frame reader'ın çözdüğü toplam frame sayısı */
+    public long getFramesReceived() { return framesReceived.get(); }
+    /** UI'a iletilen frame sayısı */
+    public long getFramesDisplayed() { return framesDisplayed.get(); }
+    /** Throttle veya yavaş UI nedeniyle atlanan frame sayısı */
+    public long getFramesSkipped() { return framesSkipped.get(); }
+    /** FFmpeg stdout'tan okunan toplam byte */
+    public long getBytesRead() { return bytesRead.get(); }
+
+    public long getTotalRecordingTime() {
+        if (recordingStartTime == 0) {
+            return 0;
+        }
+        long currentTime = System.currentTimeMillis();
+        long totalTime = currentTime - recordingStartTime - pausedDuration;
+        if (isPaused && lastPauseTime > 0) {
+            totalTime -= (currentTime - lastPauseTime);
+        }
+        return totalTime;
+    }
+
+    public List<String> getRecordedSegments() {
+        synchronized (segmentLock) {
+            return new ArrayList<>(recordedSegments);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.ffmpeg.gui;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cihaz başına bir {@link CaptureSession} tutar ve tüm oturumlar için ortak kaynakları sağlar:
+ * - Tek bir zamanlayıcı threadi (süre güncellemesi + segment kontrolü tüm oturumlar için tek tick)
+ * - Frame okuyucular için paylaşılan, yeniden kullanılan I/O thread havuzu
+ * - Kamera format cache'i
+ */
+public class CaptureSessionRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(CaptureSessionRegistry.class);
+
+    private static final long TICK_INTERVAL_MS = 100;
+
+    private final FFmpegService ffmpegService;
+    private final Map<String, CaptureSession> sessions = new ConcurrentHashMap<>();
+
+    // Kamera format cache'i - deviceId -> desteklenen formatlar
+    private final Map<String, CameraCapabilities> capabilityCache = new ConcurrentHashMap<>();
+
+    private final ExecutorService ioExecutor;
+    private final LiveHlsServer liveServer = new LiveHlsServer();
+    private final Object tickLock = new Object();
+    private ScheduledExecutorService ticker;
+    private ScheduledFuture<?> tickTask;
+
+    public CaptureSessionRegistry(FFmpegService ffmpegService) {
+        this.ffmpegService = ffmpegService;
+        this.ioExecutor = Executors.newCachedThreadPool(daemonThreads("CaptureIO"));
+    }
+
+    /**
+     * Cihaz için oturum döndürür, yoksa oluşturur
+     */
+    public CaptureSession openSession(CameraService.CameraDevice device) {
+        CaptureSession session = sessions.computeIfAbsent(device.getDeviceId(), id -> {
+            logger.info("Opening capture session for {} ({})", device.getName(), id);
+            return new CaptureSession(device, this);
+        });
+        ensureTicker();
+        return session;
+    }
+
+    public CaptureSession getSession(String deviceId) {
+        return deviceId != null ? sessions.get(deviceId) : null;
+    }
+
+    public List<CaptureSession> getSessions() {
+        return new ArrayList<>(sessions.values());
+    }
+
+    /**
+     * Oturumu kapatır ve registry'den çıkarır
+     */
+    public void closeSession(String deviceId) {
+        CaptureSession session = sessions.remove(deviceId);
+        if (session != null) {
+            logger.info("Closing capture session for {}", session.getDevice().getName());
+            session.close();
+        }
+    }
+
+    /**
+     * Kameranın desteklediği formatları döndürür. İlk çağrıda FFmpeg ile sorgulanır,
+     * sonraki çağrılarda cache kullanılır.
+     */
+    public CameraCapabilities getCapabilities(CameraService.CameraDevice device) {
+        return capabilityCache.computeIfAbsent(device.getDeviceId(), id -> {
+            CaptureSource source = CaptureSource.forDevice(id);
+            CameraCapabilities capabilities = source.probeCapabilities(getFfmpegPath(), id);
+            logger.info("Camera {} ({}) supports {} formats (MJPEG: {})",
+                       device.getName(), source.getFormatName(), capabilities.getFormats().size(), capabilities.supportsMjpeg());
+            for (CameraCapabilities.Format format : capabilities.getFormats()) {
+                logger.debug("Format: {}", format);
+            }
+            return capabilities;
+        });
+    }
+
+    /**
+     * Cache'i temizler - kamera takılıp çıkarıldığında yeniden sorgulanır
+     */
+    public void invalidateCapabilities() {
+        capabilityCache.clear();
+    }
+
+    String getFfmpegPath() {
+        return ffmpegService.getFfmpegPath();
+    }
+
+    String getFfprobePath() {
+        return ffmpegService.getFfprobePath();
+    }
+
+    ExecutorService getIoExecutor() {
+        return ioExecutor;
+    }
+
+    /**
+     * Oturumların canlı HLS çıkışlarını sunan paylaşılan sunucu
+     */
+    public LiveHlsServer getLiveServer() {
+        return liveServer;
+    }
+
+    private void ensureTicker() {
+        synchronized (tickLock) {
+            if (tickTask == null) {
+                ticker = Executors.newSingleThreadScheduledExecutor(daemonThreads("CaptureSessionTicker"));
+                tickTask = ticker.scheduleAtFixedRate(this::tickAll, TICK_INTERVAL_MS, TICK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void tickAll() {
+        long now = System.currentTimeMillis();
+        for (CaptureSession session : sessions.values()) {
+            try {
+                session.tick(now);
+            } catch (Exception e) {
+                logger.error("Error in capture session tick for {}", session.getDevice().getName(), e);
+            }
+        }
+    }
+
+    /**
+     * Tüm oturumları kapatır ve paylaşılan threadleri durdurur
+     */
+    public void shutdown() {
+        logger.info("Shutting down {} capture sessions", sessions.size());
+        for (String deviceId : new ArrayList<>(sessions.keySet())) {
+            closeSession(deviceId);
+        }
+
+        synchronized (tickLock) {
+            if (tickTask != null) {
+                tickTask.cancel(false);
+                ticker.shutdownNow();
+                tickTask = null;
+                ticker = null;
+            }
+        }
+        liveServer.stop();
+        ioExecutor.shutdownNow();
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,661 @@
+package com.ffmpeg.gui;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FFmpeg yakalama girişi (kamera veya sentetik kaynak).
+ * Önizleme ve kayıt komutları "-f ... -i ..." kısmını platforma göre buradan alır;
+ * böylece DirectShow, V4L2, AVFoundation ve lavfi aynı pipeline üzerinden çalışır.
+ */
+public interface CaptureSource {
+
+    /** Sentetik cihaz ID öneki - bu önekle başlayan cihazlar lavfi üzerinden üretilir */
+    String SYNTHETIC_PREFIX = "lavfi:";
+
+    /** Sentetik kaynağı kamera listesine zorla eklemek için system property */
+    String SYNTHETIC_PROPERTY = "mediashift.synthetic";
+
+    /**
+     * FFmpeg input format adı (dshow, v4l2, avfoundation, lavfi)
+     */
+    String getFormatName();
+
+    /**
+     * Kaynağın sunduğu cihazları listeler
+     */
+    List<CameraService.CameraDevice> discoverDevices(String ffmpegPath) throws Exception;
+
+    /**
+     * Cihazın native formatlarını sorgular. Desteklenmiyorsa boş döner.
+     */
+    CameraCapabilities probeCapabilities(String ffmpegPath, String deviceId);
+
+    /**
+     * "-i" dahil tüm input argümanlarını oluşturur. Format null ise settings'teki boyut/fps kullanılır.
+     */
+    List<String> buildInputArguments(String deviceId, CameraCapabilities.Format format, InputSettings settings);
+
+    /**
+     * Kaynak video dışında ikinci input olarak ses de veriyorsa true (ses input indeksi 1)
+     */
+    default boolean providesAudio(String deviceId) {
+        return false;
+    }
+
+    /**
+     * Cihaz ID'sine göre kaynak seçer: sentetik cihazlar lavfi, diğerleri platform kaynağı
+     */
+    static CaptureSource forDevice(String deviceId) {
+        if (deviceId != null && deviceId.startsWith(SYNTHETIC_PREFIX)) {
+            return SyntheticSource.fromDeviceId(deviceId);
+        }
+        return forPlatform();
+    }
+
+    /**
+     * Çalışılan işletim sistemine uygun kamera kaynağı
+     */
+    static CaptureSource forPlatform() {
+        String os = System.getProperty("os.name", "").toLowerCase();
+        if (os.contains("win")) {
+            return new DirectShowSource();
+        } else if (os.contains("mac")) {
+            return new AVFoundationSource();
+        }
+        return new V4l2Source();
+    }
+
+    /**
+     * Sentetik kaynak isteniyor mu (headless test/benchmark ortamları)
+     */
+    static boolean isSyntheticRequested() {
+        return Boolean.parseBoolean(System.getProperty(SYNTHETIC_PROPERTY, "false"));
+    }
+
+    /**
+     * Komut çıktısını satır satır toplar (list_devices / list_options çağrıları için)
+     */
+    static List<String> runAndCollect(List<String> command, long timeoutSeconds) throws Exception {
+        ProcessBuilder pb = new ProcessBuilder(command);
+        pb.redirectErrorStream(true);
+        Process process = pb.start();
+
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+
+        process.waitFor(timeoutSeconds, TimeUnit.SECONDS);
+        if (process.isAlive()) {
+            process.destroyForcibly();
+        }
+        return lines;
+    }
+
+    /**
+     * Input tarafı buffer ve hedef ayarları
+     */
+    class InputSettings {
+        private final int width;
+        private final int height;
+        private final int fps;
+        private String rtbufsize = "2M";
+        private int threadQueueSize = 64;
+        private String fflags = "nobuffer";
+
+        public InputSettings(int width, int height, int fps) {
+            this.width = width;
+            this.height = height;
+            this.fps = fps;
+        }
+
+        /**
+         * Önizleme - minimum gecikme için en küçük bufferlar
+         */
+        public static InputSettings preview(int width, int height, int fps) {
+            return new InputSettings(width, height, fps).rtbufsize("512K").threadQueueSize(16).fflags("nobuffer");
+        }
+
+        /**
+         * Kayıt - segment geçişlerinde queue overflow olmaması için biraz daha büyük bufferlar
+         */
+        public static InputSettings recording(int width, int height, int fps) {
+            return new InputSettings(width, height, fps).rtbufsize("2M").threadQueueSize(64).fflags("nobuffer+genpts");
+        }
+
+        public InputSettings rtbufsize(String rtbufsize) {
+            this.rtbufsize = rtbufsize;
+            return this;
+        }
+
+        public InputSettings threadQueueSize(int threadQueueSize) {
+            this.threadQueueSize = threadQueueSize;
+            return this;
+        }
+
+        public InputSettings fflags(String fflags) {
+            this.fflags = fflags;
+            return this;
+        }
+
+        public int getWidth() { return width; }
+        public int getHeight() { return height; }
+        public int getFps() { return fps; }
+        public String getRtbufsize() { return rtbufsize; }
+        public int getThreadQueueSize() { return threadQueueSize; }
+        public String getFflags() { return fflags; }
+
+        public String getSize() {
+            return width + "x" + height;
+        }
+
+        /**
+         * Formata göre video_size / framerate argümanları
+         */
+        List<String> sizeAndRate(CameraCapabilities.Format format) {
+            List<String> args = new ArrayList<>();
+            args.add("-video_size");
+            args.add(format != null ? format.getSize() : getSize());
+            args.add("-framerate");
+            args.add(String.valueOf(format != null ? format.clampFps(fps) : fps));
+            return args;
+        }
+    }
+
+    // ========================== WINDOWS ==========================
+
+    /**
+     * Windows DirectShow kameraları
+     */
+    class DirectShowSource implements CaptureSource {
+        private static final Logger logger = LoggerFactory.getLogger(DirectShowSource.class);
+
+        @Override
+        public String getFormatName() {
+            return "dshow";
+        }
+
+        @Override
+        public List<CameraService.CameraDevice> discoverDevices(String ffmpegPath) throws Exception {
+            List<CameraService.CameraDevice> cameras = new ArrayList<>();
+            List<String> lines;
+            try {
+                lines = runAndCollect(Arrays.asList(ffmpegPath, "-hide_banner", "-f", "dshow",
+                                                    "-list_devices", "true", "-i", "dummy"), 10);
+            } catch (Exception e) {
+                logger.error("Error discovering cameras with DirectShow", e);
+                logger.info("Trying alternative camera detection methods...");
+                return tryAlternativeDetection(ffmpegPath);
+            }
+
+            boolean inVideoSection = false;
+            for (String line : lines) {
+                logger.debug("FFmpeg: {}", line);
+                String lower = line.toLowerCase();
+
+                // Video/audio section başlıkları (eski FFmpeg sürümleri "(video)" etiketi yazmaz)
+                if (lower.contains("video devices") || lower.contains("directshow video")) {
+                    inVideoSection = true;
+                    continue;
+                }
+                if (lower.contains("audio devices") || lower.contains("directshow audio")) {
+                    inVideoSection = false;
+                    continue;
+                }
+
+                int startQuote = line.indexOf('"');
+                int endQuote = startQuote >= 0 ? line.indexOf('"', startQuote + 1) : -1;
+                if (startQuote < 0 || endQuote < 0) {
+                    continue;
+                }
+
+                // Alternative name satırlarını atla
+                if (lower.contains("alternative name")) {
+                    continue;
+                }
+
+                String afterQuote = line.substring(endQuote + 1);
+                boolean taggedVideo = afterQuote.contains("(video)");
+                boolean taggedOther = afterQuote.contains("(audio)") || afterQuote.contains("(none)");
+                if (!taggedVideo && (taggedOther || !inVideoSection)) {
+                    continue;
+                }
+
+                String deviceName = line.substring(startQuote + 1, endQuote);
+                if (deviceName.trim().isEmpty()) {
+                    continue;
+                }
+
+                boolean alreadyAdded = cameras.stream().anyMatch(cam -> cam.getName().equals(deviceName));
+                if (!alreadyAdded) {
+                    cameras.add(new CameraService.CameraDevice(deviceName, "video=" + deviceName, "DirectShow Video Device"));
+                    logger.info("✓ FOUND CAMERA: {} with deviceId: video={}", deviceName, deviceName);
+                }
+            }
+
+            // Eğer hiç kamera bulunamadıysa, yaygın varsayılan isimleri ekle
+            if (cameras.isEmpty()) {
+                logger.info("No cameras found, adding default cameras");
+                cameras.add(new CameraService.CameraDevice("Default Camera", "video=0", "Default Video Device (Index 0)"));
+                cameras.add(new CameraService.CameraDevice("USB Camera", "video=USB2.0 HD UVC WebCam", "Common USB Camera"));
+                cameras.add(new CameraService.CameraDevice("Integrated Camera", "video=Integrated Camera", "Built-in Camera"));
+            }
+            return cameras;
+        }
+
+        /**
+         * list_devices başarısız olduğunda bilinen indeks ve isimleri tek tek dener
+         */
+        private List<CameraService.CameraDevice> tryAlternativeDetection(String ffmpegPath) {
+            List<CameraService.CameraDevice> cameras = new ArrayList<>();
+            List<String> candidates = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                candidates.add(String.valueOf(i));
+            }
+            candidates.addAll(Arrays.asList(
+                "USB2.0 HD UVC WebCam",
+                "Integrated Camera",
+                "USB Camera",
+                "HD WebCam",
+                "FaceTime HD Camera",
+                "Microsoft Camera"
+            ));
+
+            for (String candidate : candidates) {
+                try {
+                    ProcessBuilder testPb = new ProcessBuilder(
+                        ffmpegPath, "-f", "dshow", "-i", "video=" + candidate, "-t", "0.1", "-f", "null", "-"
+                    );
+                    testPb.redirectErrorStream(true);
+                    testPb.redirectOutput(ProcessBuilder.Redirect.DISCARD);
+
+                    Process testProcess = testPb.start();
+                    boolean finished = testProcess.waitFor(3, TimeUnit.SECONDS);
+                    if (finished && testProcess.exitValue() == 0) {
+                        boolean index = candidate.chars().allMatch(Character::isDigit);
+                        String name = index ? "Camera " + candidate : candidate;
+                        String description = index ? "Camera Device Index " + candidate : "Common Camera Device";
+                        cameras.add(new CameraService.CameraDevice(name, "video=" + candidate, description));
+                        logger.info("Found camera: {}", name);
+                    }
+                    if (testProcess.isAlive()) {
+                        testProcess.destroyForcibly();
+                    }
+                } catch (Exception e) {
+                    logger.debug("Camera '{}' not available", candidate);
+                }
+            }
+            return cameras;
+        }
+
+        @Override
+        public CameraCapabilities probeCapabilities(String ffmpegPath, String deviceId) {
+            try {
+                List<String> lines = runAndCollect(Arrays.asList(ffmpegPath, "-hide_banner", "-f", "dshow",
+                                                                 "-list_options", "true", "-i", toInputName(deviceId)), 5);
+                return CameraCapabilities.parseDshowOptions(lines);
+            } catch (Exception e) {
+                logger.warn("Could not check camera formats: {}", e.getMessage());
+                return CameraCapabilities.empty();
+            }
+        }
+
+        @Override
+        public List<String> buildInputArguments(String deviceId, CameraCapabilities.Format format, InputSettings settings) {
+            List<String> args = new ArrayList<>();
+            args.add("-f");
+            args.add("dshow");
+            args.add("-rtbufsize");
+            args.add(settings.getRtbufsize());
+            args.add("-thread_queue_size");
+            args.add(String.valueOf(settings.getThreadQueueSize()));
+            args.add("-fflags");
+            args.add(settings.getFflags());
+
+            // dshow sıkıştırılmış modu -vcodec ile, raw modu -pixel_format ile seçer
+            if (format != null && format.isMjpeg()) {
+                args.add("-vcodec");
+                args.add("mjpeg");
+            } else if (format != null && format.getPixelFormat() != null) {
+                args.add("-pixel_format");
+                args.add(format.getPixelFormat());
+            }
+            args.addAll(settings.sizeAndRate(format));
+
+            args.add("-i");
+            args.add(toInputName(deviceId));
+            return args;
+        }
+
+        private static String toInputName(String deviceId) {
+            return deviceId.startsWith("video=") ? deviceId : "video=" + deviceId;
+        }
+    }
+
+    // ========================== LINUX ==========================
+
+    /**
+     * Linux Video4Linux2 cihazları (/dev/videoN)
+     */
+    class V4l2Source implements CaptureSource {
+        private static final Logger logger = LoggerFactory.getLogger(V4l2Source.class);
+
+        @Override
+        public String getFormatName() {
+            return "v4l2";
+        }
+
+        @Override
+        public List<CameraService.CameraDevice> discoverDevices(String ffmpegPath) {
+            List<CameraService.CameraDevice> cameras = new ArrayList<>();
+            File[] nodes = new File("/dev").listFiles((dir, name) -> name.matches("video\\d+"));
+            if (nodes == null) {
+                return cameras;
+            }
+
+            Arrays.sort(nodes, (a, b) -> Integer.compare(
+                Integer.parseInt(a.getName().substring(5)), Integer.parseInt(b.getName().substring(5))));
+            for (File node : nodes) {
+                String name = readDeviceName(node.getName());
+                cameras.add(new CameraService.CameraDevice(name, node.getAbsolutePath(), "Video4Linux2 Device"));
+                logger.info("✓ FOUND CAMERA: {} at {}", name, node.getAbsolutePath());
+            }
+            return cameras;
+        }
+
+        /**
+         * sysfs üzerinden okunabilir cihaz adı, yoksa node adı
+         */
+        private String readDeviceName(String nodeName) {
+            File nameFile = new File("/sys/class/video4linux/" + nodeName + "/name");
+            try {
+                if (nameFile.canRead()) {
+                    String name = new String(java.nio.file.Files.readAllBytes(nameFile.toPath())).trim();
+                    if (!name.isEmpty()) {
+                        return name + " (" + nodeName + ")";
+                    }
+                }
+            } catch (Exception e) {
+                logger.debug("Could not read device name for {}", nodeName);
+            }
+            return nodeName;
+        }
+
+        @Override
+        public CameraCapabilities probeCapabilities(String ffmpegPath, String deviceId) {
+            try {
+                List<String> lines = runAndCollect(Arrays.asList(ffmpegPath, "-hide_banner", "-f", "v4l2",
+                                                                 "-list_formats", "all", "-i", deviceId), 5);
+                return CameraCapabilities.parseV4l2Formats(lines);
+            } catch (Exception e) {
+                logger.warn("Could not check camera formats: {}", e.getMessage());
+                return CameraCapabilities.empty();
+            }
+        }
+
+        @Override
+        public List<String> buildInputArguments(String deviceId, CameraCapabilities.Format format, InputSettings settings) {
+            List<String> args = new ArrayList<>();
+            args.add("-f");
+            args.add("v4l2");
+            args.add("-thread_queue_size");
+            args.add(String.valueOf(settings.getThreadQueueSize()));
+            args.add("-fflags");
+            args.add(settings.getFflags());
+
+            if (format != null && format.isMjpeg()) {
+                args.add("-input_format");
+                args.add("mjpeg");
+            } else if (format != null && format.getPixelFormat() != null) {
+                args.add("-input_format");
+                args.add(format.getPixelFormat());
+            }
+            args.addAll(settings.sizeAndRate(format));
+
+            args.add("-i");
+            args.add(deviceId);
+            return args;
+        }
+    }
+
+    // ========================== MACOS ==========================
+
+    /**
+     * macOS AVFoundation cihazları - cihaz ID'si indeks olarak tutulur
+     */
+    class AVFoundationSource implements CaptureSource {
+        private static final Logger logger = LoggerFactory.getLogger(AVFoundationSource.class);
+
+        @Override
+        public String getFormatName() {
+            return "avfoundation";
+        }
+
+        @Override
+        public List<CameraService.CameraDevice> discoverDevices(String ffmpegPath) throws Exception {
+            List<CameraService.CameraDevice> cameras = new ArrayList<>();
+            List<String> lines = runAndCollect(Arrays.asList(ffmpegPath, "-hide_banner", "-f", "avfoundation",
+                                                             "-list_devices", "true", "-i", ""), 10);
+
+            boolean inVideoSection = false;
+            for (String line : lines) {
+                if (line.contains("video devices:")) {
+                    inVideoSection = true;
+                    continue;
+                }
+                if (line.contains("audio devices:")) {
+                    inVideoSection = false;
+                    continue;
+                }
+                if (!inVideoSection) {
+                    continue;
+                }
+
+                // "[AVFoundation indev @ 0x..] [0] FaceTime HD Camera"
+                int open = line.indexOf("] [");
+                int close = open >= 0 ? line.indexOf(']', open + 3) : -1;
+                if (open < 0 || close < 0) {
+                    continue;
+                }
+                String index = line.substring(open + 3, close);
+                String name = line.substring(close + 1).trim();
+                if (!index.isEmpty() && index.chars().allMatch(Character::isDigit) && !name.isEmpty()) {
+                    cameras.add(new CameraService.CameraDevice(name, index, "AVFoundation Video Device"));
+                    logger.info("✓ FOUND CAMERA: {} at index {}", name, index);
+                }
+            }
+            return cameras;
+        }
+
+        @Override
+        public CameraCapabilities probeCapabilities(String ffmpegPath, String deviceId) {
+            // AVFoundation modları sadece hata mesajında listeliyor - varsayılan ayarlar kullanılır
+            return CameraCapabilities.empty();
+        }
+
+        @Override
+        public List<String> buildInputArguments(String deviceId, CameraCapabilities.Format format, InputSettings settings) {
+            List<String> args = new ArrayList<>();
+            args.add("-f");
+            args.add("avfoundation");
+            args.add("-thread_queue_size");
+            args.add(String.valueOf(settings.getThreadQueueSize()));
+            if (format != null && format.getPixelFormat() != null) {
+                args.add("-pixel_format");
+                args.add(format.getPixelFormat());
+            }
+            args.addAll(settings.sizeAndRate(format));
+            args.add("-i");
+            args.add(toIndex(deviceId));
+            return args;
+        }
+
+        /**
+         * "video=1" veya "1" biçimindeki ID'den indeksi çıkarır
+         */
+        static String toIndex(String deviceId) {
+            String index = deviceId.contains("=") ? deviceId.substring(deviceId.lastIndexOf('=') + 1) : deviceId;
+            return !index.isEmpty() && index.chars().allMatch(Character::isDigit) ? index : "0";
+        }
+    }
+
+    // ========================== SENTETİK ==========================
+
+    /**
+     * lavfi testsrc2 (+ isteğe bağlı sine) ile kamerasız test kaynağı.
+     * Headless Linux sunucularda önizleme, segment ve merge pipeline'larının soak test /
+     * benchmark'ı için kullanılır. Ayarlar cihaz ID'sinde taşınır:
+     * "lavfi:testsrc2=size=1280x720:rate=30[:audio]"
+     * Varsayılanlar system property ile değiştirilebilir: mediashift.synthetic.size,
+     * mediashift.synthetic.fps, mediashift.synthetic.audio, mediashift.synthetic.realtime
+     */
+    class SyntheticSource implements CaptureSource {
+        private final int width;
+        private final int height;
+        private final int fps;
+        private final boolean audio;
+        private final boolean realtime;
+
+        public SyntheticSource(int width, int height, int fps, boolean audio, boolean realtime) {
+            this.width = width;
+            this.height = height;
+            this.fps = fps;
+            this.audio = audio;
+            this.realtime = realtime;
+        }
+
+        /**
+         * System property'lerden varsayılan sentetik kaynak
+         */
+        public static SyntheticSource fromSystemProperties() {
+            int[] size = parseSize(System.getProperty("mediashift.synthetic.size", "1280x720"), 1280, 720);
+            int fps = parseInt(System.getProperty("mediashift.synthetic.fps", "30"), 30);
+            boolean audio = Boolean.parseBoolean(System.getProperty("mediashift.synthetic.audio", "true"));
+            return new SyntheticSource(size[0], size[1], fps, audio, isRealtime());
+        }
+
+        public static SyntheticSource fromDeviceId(String deviceId) {
+            String spec = deviceId.substring(SYNTHETIC_PREFIX.length());
+            int width = 1280;
+            int height = 720;
+            int fps = 30;
+            boolean audio = false;
+            for (String part : spec.split(":")) {
+                if (part.startsWith("testsrc2=")) {
+                    part = part.substring("testsrc2=".length());
+                }
+                if (part.startsWith("size=")) {
+                    int[] size = parseSize(part.substring(5), width, height);
+                    width = size[0];
+                    height = size[1];
+                } else if (part.startsWith("rate=")) {
+                    fps = parseInt(part.substring(5), fps);
+                } else if (part.equals("audio")) {
+                    audio = true;
+                }
+            }
+            return new SyntheticSource(width, height, fps, audio, isRealtime());
+        }
+
+        /**
+         * -re kapatılırsa kaynak encoder'ın yetiştiği hızda frame üretir (throughput ölçümü)
+         */
+        private static boolean isRealtime() {
+            return Boolean.parseBoolean(System.getProperty("mediashift.synthetic.realtime", "true"));
+        }
+
+        public String getDeviceId() {
+            return SYNTHETIC_PREFIX + "testsrc2=size=" + width + "x" + height + ":rate=" + fps + (audio ? ":audio" : "");
+        }
+
+        public CameraService.CameraDevice toDevice() {
+            return new CameraService.CameraDevice(
+                "Synthetic Test Source (" + width + "x" + height + "@" + fps + ")",
+                getDeviceId(),
+                "lavfi testsrc2" + (audio ? " + sine" : ""));
+        }
+
+        @Override
+        public String getFormatName() {
+            return "lavfi";
+        }
+
+        @Override
+        public List<CameraService.CameraDevice> discoverDevices(String ffmpegPath) {
+            List<CameraService.CameraDevice> devices = new ArrayList<>();
+            devices.add(toDevice());
+            return devices;
+        }
+
+        @Override
+        public CameraCapabilities probeCapabilities(String ffmpegPath, String deviceId) {
+            List<CameraCapabilities.Format> formats = new ArrayList<>();
+            formats.add(new CameraCapabilities.Format(null, "yuv420p", width, height, fps, fps));
+            return new CameraCapabilities(formats);
+        }
+
+        @Override
+        public List<String> buildInputArguments(String deviceId, CameraCapabilities.Format format, InputSettings settings) {
+            List<String> args = new ArrayList<>();
+            if (realtime) {
+                args.add("-re");
+            }
+            args.add("-f");
+            args.add("lavfi");
+            args.add("-thread_queue_size");
+            args.add(String.valueOf(settings.getThreadQueueSize()));
+            args.add("-i");
+            args.add("testsrc2=size=" + width + "x" + height + ":rate=" + fps);
+
+            if (audio) {
+                if (realtime) {
+                    args.add("-re");
+                }
+                args.add("-f");
+                args.add("lavfi");
+                args.add("-thread_queue_size");
+                args.add(String.valueOf(settings.getThreadQueueSize()));
+                args.add("-i");
+                args.add("sine=frequency=1000:sample_rate=48000");
+            }
+            return args;
+        }
+
+        @Override
+        public boolean providesAudio(String deviceId) {
+            return audio;
+        }
+
+        private static int[] parseSize(String value, int defaultWidth, int defaultHeight) {
+            int x = value.indexOf('x');
+            if (x > 0) {
+                try {
+                    return new int[] { Integer.parseInt(value.substring(0, x)), Integer.parseInt(value.substring(x + 1)) };
+                } catch (NumberFormatException e) {
+                    // Varsayılan kullanılır
+                }
+            }
+            return new int[] { defaultWidth, defaultHeight };
+        }
+
+        private static int parseInt(String value, int defaultValue) {
+            try {
+                return Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                return defaultValue;
+            }
+        }
+    }
+}
@@ -0,0 +1,556 @@
+package com.ffmpeg.gui;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Segmentli kayıttan zaman aralığı keser - bütün kaydı birleştirmeden.
+ *
+ * Aralığı kapsayan segmentler manifestodan bulunur. İçteki segmentler stream copy ile alınır;
+ * kare hassasiyeti istendiğinde yalnızca ilk ve son segmentin aralığa düşen kısmı yeniden
+ * encode edilir (segmentler keyframe ile başlar, keyframe'ler segment sınırlarındadır).
+ * Parçalar MPEG-TS olarak hazırlanır (SPS/PPS her parçada bant içi kalır) ve concat demuxer
+ * ile tek MP4'e stream copy edilir. Süre ve çıktı boyutu kaydın değil klibin uzunluğuyla orantılıdır.
+ *
+ * MP4 tek bir parametre seti taşır; sınır parçaları bu yüzden kaynak segmentin codec, profil ve
+ * piksel formatıyla encode edilir ve birleştirmeden önce parçaların imzaları karşılaştırılır
+ * ({@link MediaProbeCache.ProbeInfo#isCopyCompatible}). Uyuşmazsa bütün klip yeniden encode edilir.
+ *
+ * Kare hassasiyeti istenmezse tek FFmpeg çalışır: kesim noktaları önceki keyframe'e (segment
+ * başına) yuvarlanır, hiçbir şey encode edilmez.
+ */
+public class ClipExtractor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClipExtractor.class);
+
+    private static final int MAX_ERROR_LINES = 20;
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+
+    /**
+     * Kesim özeti
+     */
+    public static class Result {
+        private final Path output;
+        private final int segmentCount;
+        private final double copiedSeconds;
+        private final double reencodedSeconds;
+        private final long elapsedMillis;
+
+        Result(Path output, int segmentCount, double copiedSeconds, double reencodedSeconds, long elapsedMillis) {
+            this.output = output;
+            this.segmentCount = segmentCount;
+            this.copiedSeconds = copiedSeconds;
+            this.reencodedSeconds = reencodedSeconds;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public Path getOutput() { return output; }
+        public int getSegmentCount() { return segmentCount; }
+        public double getCopiedSeconds() { return copiedSeconds; }
+        public double getReencodedSeconds() { return reencodedSeconds; }
+        public double getDurationSeconds() { return copiedSeconds + reencodedSeconds; }
+        public long getElapsedMillis() { return elapsedMillis; }
+    }
+
+    /**
+     * Bir segmentten alınacak parça - zamanlar segment başına göre
+     */
+    static class Piece {
+        final SegmentManifest.Entry entry;
+        final double from;
+        final double to;
+        final boolean reencode;
+
+        Piece(SegmentManifest.Entry entry, double from, double to, boolean reencode) {
+            this.entry = entry;
+            this.from = from;
+            this.to = to;
+            this.reencode = reencode;
+        }
+
+        boolean isWhole() {
+            return from <= 0 && to >= entry.getDuration();
+        }
+    }
+
+    private final String ffmpegPath;
+    private final String ffprobePath;
+    private final SegmentManifest manifest;
+
+    public ClipExtractor(String ffmpegPath, String ffprobePath, SegmentManifest manifest) {
+        this.ffmpegPath = ffmpegPath;
+        this.ffprobePath = ffprobePath;
+        this.manifest = manifest;
+    }
+
+    /**
+     * [start, end) kayıt zamanı aralığını output'a yazar
+     *
+     * @param frameAccurate true ise sınır segmentleri kesin kareden kesilir (yeniden encode)
+     */
+    public Result extract(double start, double end, Path output, boolean frameAccurate) throws IOException {
+        long startNanos = System.nanoTime();
+        List<Piece> pieces = plan(manifest.findRange(start, end), start, end, frameAccurate);
+        if (pieces.isEmpty()) {
+            throw new IOException(String.format(Locale.ROOT, "No recorded segments cover %.1f-%.1f s", start, end));
+        }
+        for (Piece piece : pieces) {
+            if (!Files.exists(piece.entry.getPath())) {
+                throw new IOException("Segment missing: " + piece.entry.getPath().getFileName());
+            }
+        }
+
+        double copied = 0;
+        double reencoded = 0;
+        for (Piece piece : pieces) {
+            if (piece.reencode) {
+                reencoded += piece.to - piece.from;
+            } else {
+                copied += piece.to - piece.from;
+            }
+        }
+
+        if (frameAccurate) {
+            if (extractAccurate(pieces, output)) {
+                reencoded += copied;
+                copied = 0;
+            }
+        } else {
+            extractCopy(pieces, output);
+        }
+
+        long elapsed = (System.nanoTime() - startNanos) / 1_000_000;
+        logger.info("Extracted {}-{} s from {} segments into {} ({} s copied, {} s re-encoded) in {} ms",
+                   String.format(Locale.ROOT, "%.2f", start), String.format(Locale.ROOT, "%.2f", end), pieces.size(),
+                   output, String.format(Locale.ROOT, "%.2f", copied), String.format(Locale.ROOT, "%.2f", reencoded), elapsed);
+        return new Result(output, pieces.size(), copied, reencoded, elapsed);
+    }
+
+    /**
+     * Kapsayan segmentlerden parça listesi. Kare hassasiyetinde segmentin ortasından başlayan ya da
+     * ortasında biten parçalar yeniden encode edilir; stream copy'de kesim segment başına yuvarlanır.
+     */
+    static List<Piece> plan(List<SegmentManifest.Entry> covering, double start, double end, boolean frameAccurate) {
+        List<Piece> pieces = new ArrayList<>();
+        for (SegmentManifest.Entry entry : covering) {
+            double from = Math.max(0, start - entry.getStart());
+            double to = Math.min(entry.getDuration(), end - entry.getStart());
+            if (to <= from) {
+                continue;
+            }
+            boolean trimmed = from > 0 || to < entry.getDuration();
+            if (!frameAccurate && from > 0) {
+                from = 0; // Keyframe sadece segment başında
+            }
+            pieces.add(new Piece(entry, from, to, frameAccurate && trimmed));
+        }
+        return pieces;
+    }
+
+    /**
+     * Tek FFmpeg: concat listesi inpoint/outpoint ile, stream copy
+     */
+    private void extractCopy(List<Piece> pieces, Path output) throws IOException {
+        Path list = Files.createTempFile(output.toAbsolutePath().getParent(), "clip_", ".txt");
+        try {
+            StringBuilder sb = new StringBuilder("ffconcat version 1.0\n");
+            for (Piece piece : pieces) {
+                appendConcatEntry(sb, piece.entry.getPath());
+                if (!piece.isWhole() && piece.to < piece.entry.getDuration()) {
+                    sb.append(String.format(Locale.ROOT, "outpoint %.6f\n", piece.to));
+                }
+            }
+            Files.writeString(list, sb.toString(), StandardCharsets.UTF_8);
+            run(concatCommand(list, output), "clip copy");
+        } finally {
+            Files.deleteIfExists(list);
+        }
+    }
+
+    /**
+     * Sınır parçaları ayrı ayrı encode edilir, ardışık tam segmentler tek copy parçası olur;
+     * parçalar sonra tek MP4'te birleştirilir
+     *
+     * @return parçalar stream copy ile birleştirilemediği için bütün klip encode edildiyse true
+     */
+    private boolean extractAccurate(List<Piece> pieces, Path output) throws IOException {
+        Path work = Files.createTempDirectory(output.toAbsolutePath().getParent(), "clip_");
+        try {
+            List<String> encoderArgs = boundaryEncoderArgs(probeQuietly(pieces.get(0).entry.getPath()));
+            List<Path> parts = new ArrayList<>();
+            List<Piece> run = new ArrayList<>();
+            for (Piece piece : pieces) {
+                if (!piece.reencode) {
+                    run.add(piece);
+                    continue;
+                }
+                if (!run.isEmpty()) {
+                    parts.add(copyPart(run, work.resolve("part_" + parts.size() + ".ts")));
+                    run.clear();
+                }
+                parts.add(encodePart(piece, encoderArgs, work.resolve("part_" + parts.size() + ".ts")));
+            }
+            if (!run.isEmpty()) {
+                parts.add(copyPart(run, work.resolve("part_" + parts.size() + ".ts")));
+            }
+
+            if (!partsCopyCompatible(parts)) {
+                logger.warn("Clip parts have different parameter sets - re-encoding the whole clip");
+                encodeWhole(pieces, encoderArgs, work.resolve("whole.txt"), output);
+                return true;
+            }
+
+            Path list = work.resolve("parts.txt");
+            StringBuilder sb = new StringBuilder("ffconcat version 1.0\n");
+            for (Path part : parts) {
+                appendConcatEntry(sb, part);
+            }
+            Files.writeString(list, sb.toString(), StandardCharsets.UTF_8);
+            run(concatCommand(list, output), "clip join");
+            return false;
+        } finally {
+            deleteRecursively(work);
+        }
+    }
+
+    private MediaProbeCache.ProbeInfo probeQuietly(Path file) {
+        try {
+            return MediaProbeCache.shared().probe(ffprobePath, file);
+        } catch (IOException e) {
+            logger.warn("Could not probe {}: {}", file.getFileName(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Bütün parçaların stream imzaları aynı mı; okunamayan parça uyumsuz sayılır
+     */
+    private boolean partsCopyCompatible(List<Path> parts) {
+        MediaProbeCache.ProbeInfo first = probeQuietly(parts.get(0));
+        if (first == null) {
+            return false;
+        }
+        for (int i = 1; i < parts.size(); i++) {
+            MediaProbeCache.ProbeInfo info = probeQuietly(parts.get(i));
+            if (info == null || !info.isCopyCompatible(first)) {
+                logger.info("Clip part {} differs: {} vs {}", parts.get(i).getFileName(), info, first);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Kapsayan segmentler tek girişte birleştirilip aralık çıkış tarafında (kare hassasiyetinde) kesilir
+     */
+    private void encodeWhole(List<Piece> pieces, List<String> encoderArgs, Path list, Path output) throws IOException {
+        StringBuilder sb = new StringBuilder("ffconcat version 1.0\n");
+        double duration = 0;
+        for (Piece piece : pieces) {
+            appendConcatEntry(sb, piece.entry.getPath());
+            duration += piece.to - piece.from;
+        }
+        Files.writeString(list, sb.toString(), StandardCharsets.UTF_8);
+
+        List<String> command = new ArrayList<>();
+        command.add(ffmpegPath);
+        command.add("-hide_banner");
+        command.add("-f");
+        command.add("concat");
+        command.add("-safe");
+        command.add("0");
+        command.add("-i");
+        command.add(list.toString());
+        command.add("-ss");
+        command.add(String.format(Locale.ROOT, "%.6f", pieces.get(0).from));
+        command.add("-t");
+        command.add(String.format(Locale.ROOT, "%.6f", duration));
+        command.add("-map");
+        command.add("0:v");
+        command.add("-map");
+        command.add("0:a?");
+        command.addAll(encoderArgs);
+        command.add("-movflags");
+        command.add("+faststart");
+        command.add("-y");
+        command.add(output.toString());
+        run(command, "clip full encode");
+    }
+
+    /**
+     * Sınır parçalarının encoder ayarları: codec, profil, piksel formatı ve ses biçimi kaynak segmentten
+     * alınır, B-frame kullanılmaz (kayıt zerolatency ile yapılır). Level, kayıttaki gibi encoder'ın
+     * çözünürlük/FPS'ten seçtiği değerdir. Kaynak okunamadıysa (null) kayıt ayarları varsayılır.
+     */
+    static List<String> boundaryEncoderArgs(MediaProbeCache.ProbeInfo source) {
+        String videoCodec = "h264";
+        String profile = "";
+        String pixelFormat = "yuv420p";
+        String audioCodec = "aac";
+        String sampleRate = "";
+        String channels = "";
+        boolean videoSeen = false;
+        boolean audioSeen = false;
+        if (source != null) {
+            for (String signature : source.getStreamSignatures()) {
+                String[] fields = signature.split(":");
+                if (!videoSeen && fields[0].equals("video") && fields.length > 4) {
+                    videoCodec = fields[1];
+                    profile = fields[2];
+                    if (fields[4].startsWith("yuv")) {
+                        pixelFormat = fields[4];
+                    }
+                    videoSeen = true;
+                } else if (!audioSeen && fields[0].equals("audio") && fields.length > 3) {
+                    audioCodec = fields[1];
+                    sampleRate = fields[2];
+                    channels = fields[3];
+                    audioSeen = true;
+                }
+            }
+        }
+
+        List<String> args = new ArrayList<>();
+        boolean hevc = videoCodec.equals("hevc");
+        args.add("-c:v");
+        args.add(hevc ? "libx265" : "libx264");
+        args.add("-preset");
+        args.add("veryfast");
+        args.add("-crf");
+        args.add("18");
+        String encoderProfile = encoderProfile(profile, hevc);
+        if (encoderProfile != null) {
+            args.add("-profile:v");
+            args.add(encoderProfile);
+        }
+        args.add("-tune");
+        args.add("zerolatency");
+        args.add("-pix_fmt");
+        args.add(pixelFormat);
+
+        args.add("-c:a");
+        args.add(audioCodec.equals("mp3") ? "libmp3lame" : audioCodec.equals("opus") ? "libopus" : "aac");
+        args.add("-b:a");
+        args.add("128k");
+        if (sampleRate.matches("\\d+")) {
+            args.add("-ar");
+            args.add(sampleRate);
+        }
+        if (channels.matches("\\d+")) {
+            args.add("-ac");
+            args.add(channels);
+        }
+        return args;
+    }
+
+    /**
+     * ffprobe profil adı -> encoder profili ("High" -> "high"); tanınmıyorsa null
+     */
+    private static String encoderProfile(String probed, boolean hevc) {
+        String name = probed.toLowerCase(Locale.ROOT);
+        if (hevc) {
+            return name.equals("main") || name.equals("main 10") ? name.replace(" ", "") : null;
+        }
+        switch (name) {
+            case "baseline":
+            case "constrained baseline":
+                return "baseline";
+            case "main":
+            case "high":
+                return name;
+            case "high 10":
+                return "high10";
+            default:
+                return null;
+        }
+    }
+
+    private Path copyPart(List<Piece> run, Path target) throws IOException {
+        Path list = target.resolveSibling(target.getFileName() + ".txt");
+        StringBuilder sb = new StringBuilder("ffconcat version 1.0\n");
+        for (Piece piece : run) {
+            appendConcatEntry(sb, piece.entry.getPath());
+        }
+        Files.writeString(list, sb.toString(), StandardCharsets.UTF_8);
+
+        List<String> command = new ArrayList<>();
+        command.add(ffmpegPath);
+        command.add("-hide_banner");
+        command.add("-f");
+        command.add("concat");
+        command.add("-safe");
+        command.add("0");
+        command.add("-i");
+        command.add(list.toString());
+        command.add("-map");
+        command.add("0:v");
+        command.add("-map");
+        command.add("0:a?");
+        command.add("-c");
+        command.add("copy");
+        command.add("-f");
+        command.add("mpegts");
+        command.add("-y");
+        command.add(target.toString());
+        run(command, "clip interior");
+        return target;
+    }
+
+    private Path encodePart(Piece piece, List<String> encoderArgs, Path target) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(ffmpegPath);
+        command.add("-hide_banner");
+        // Giriş tarafında arama: segment başındaki keyframe'den decode edilir, kesim kare hassasiyetinde
+        command.add("-ss");
+        command.add(String.format(Locale.ROOT, "%.6f", piece.from));
+        command.add("-i");
+        command.add(piece.entry.getPath().toString());
+        command.add("-t");
+        command.add(String.format(Locale.ROOT, "%.6f", piece.to - piece.from));
+        command.add("-map");
+        command.add("0:v");
+        command.add("-map");
+        command.add("0:a?");
+        command.addAll(encoderArgs);
+        command.add("-f");
+        command.add("mpegts");
+        command.add("-y");
+        command.add(target.toString());
+        run(command, "clip boundary");
+        return target;
+    }
+
+    private List<String> concatCommand(Path list, Path output) {
+        List<String> command = new ArrayList<>();
+        command.add(ffmpegPath);
+        command.add("-hide_banner");
+        command.add("-f");
+        command.add("concat");
+        command.add("-safe");
+        command.add("0");
+        command.add("-i");
+        command.add(list.toString());
+        command.add("-map");
+        command.add("0:v");
+        command.add("-map");
+        command.add("0:a?");
+        command.add("-c");
+        command.add("copy");
+        command.add("-movflags");
+        command.add("+faststart");
+        command.add("-avoid_negative_ts");
+        command.add("make_zero");
+        command.add("-y");
+        command.add(output.toString());
+        return command;
+    }
+
+    private static void appendConcatEntry(StringBuilder sb, Path file) {
+        sb.append("file '").append(file.toAbsolutePath().toString().replace("\\", "/").replace("'", "'\\''"))
+          .append("'\n");
+    }
+
+    /**
+     * FFmpeg'i çalıştırır; hata durumunda son stderr satırlarıyla IOException
+     */
+    private void run(List<String> command, String label) throws IOException {
+        logger.debug("FFmpeg {} command: {}", label, String.join(" ", command));
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        FFmpegProgressParser parser = new FFmpegProgressParser();
+        Deque<String> recent = new ArrayDeque<>();
+        FFmpegProgressParser.LineHandler handler = (type, line) -> {
+            if (type == FFmpegProgressParser.LineType.OTHER) {
+                if (recent.size() == MAX_ERROR_LINES) {
+                    recent.pollFirst();
+                }
+                recent.addLast(line.toString());
+            }
+        };
+        byte[] buffer = new byte[8192];
+        try (InputStream in = process.getInputStream()) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                parser.feed(buffer, 0, read, handler);
+            }
+            parser.flush(handler);
+        }
+        int exitCode;
+        try {
+            exitCode = process.waitFor();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            process.destroyForcibly();
+            throw new IOException("Interrupted during " + label);
+        }
+        if (exitCode != 0) {
+            throw new IOException("FFmpeg " + label + " failed (exit " + exitCode + "): "
+                                  + (recent.isEmpty() ? "no output" : recent.peekLast()));
+        }
+    }
+
+    private static void deleteRecursively(Path directory) {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+            Files.deleteIfExists(directory);
+        } catch (IOException e) {
+            logger.debug("Could not clean up {}: {}", directory, e.getMessage());
+        }
+    }
+
+    // ========================== ZAMAN DÖNÜŞÜMLERİ ==========================
+
+    /**
+     * "00:37:00", "37:00", "2220" ya da "2220.5" -> saniye; geçersizse -1
+     */
+    static double parseTime(String text) {
+        String trimmed = text.trim();
+        long micros = FFmpegProgressParser.parseClock(trimmed, 0, trimmed.length(), -1);
+        return micros < 0 ? -1 : micros / 1_000_000.0;
+    }
+
+    /**
+     * Manifesto dosya adındaki kayıt başlangıcı ("MediaShift_20240501_120000_manifest.csv"), yoksa null
+     */
+    static LocalDateTime recordingStart(Path manifestFile) {
+        if (manifestFile == null) {
+            return null;
+        }
+        String name = manifestFile.getFileName().toString();
+        if (!name.startsWith("MediaShift_") || name.length() < 26) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(name.substring(11, 26), FILE_TIMESTAMP);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Duvar saati -> kayıt zamanı (saniye). Kayıt gece yarısını geçtiyse saat ertesi güne alınır.
+     */
+    static double mediaSecondsAt(LocalDateTime recordingStart, java.time.LocalTime clock) {
+        LocalDateTime at = recordingStart.toLocalDate().atTime(clock);
+        if (at.isBefore(recordingStart)) {
+            at = at.plusDays(1);
+        }
+        return java.time.Duration.between(recordingStart, at).toMillis() / 1000.0;
+    }
+}
@@ -0,0 +1,284 @@
+package com.ffmpeg.gui;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Kayıt/önizleme FFmpeg processlerinin "-progress" çıktısından canlı encoder metrikleri.
+ * Her "progress=" satırıyla bir rapor tamamlanır; fps, dup/drop, speed, bitrate ve
+ * çıkış byte/sn hesaplanır ve eşik aşıldığında dinleyicilere olay gönderilir.
+ * Olaylar kenar tetiklidir: durum başladığında bir kez, düzeldiğinde RECOVERED ile bir kez.
+ */
+public class EncoderTelemetry {
+
+    private static final Logger logger = LoggerFactory.getLogger(EncoderTelemetry.class);
+
+    /**
+     * "-progress" ile birlikte FFmpeg'e verilecek argümanlar (rapor aralığı saniye)
+     */
+    public static List<String> progressArguments(String target, int periodSeconds) {
+        return List.of("-progress", target, "-stats_period", String.valueOf(periodSeconds), "-nostats");
+    }
+
+    public enum EventType {
+        SPEED_LOW,          // Encoder gerçek zamanın gerisinde (speed < eşik)
+        FPS_LOW,            // Çıkış fps hedefin altında
+        FRAMES_DROPPED,     // Son raporda yeni drop var
+        FRAMES_DUPLICATED,  // Son raporda eşik üstü duplicate var
+        INPUT_BUFFER_FULL,  // dshow "real-time buffer too full" - kamera frame'leri kayboluyor
+        RECOVERED           // Önceki uyarı durumu düzeldi
+    }
+
+    /**
+     * Eşik aşıldığında çağrılır (processin okuyucu threadinde)
+     */
+    public interface Listener {
+        void onTelemetryEvent(Event event);
+    }
+
+    public static class Event {
+        private final String source;
+        private final EventType type;
+        private final String message;
+        private final Snapshot snapshot;
+
+        public Event(String source, EventType type, String message, Snapshot snapshot) {
+            this.source = source;
+            this.type = type;
+            this.message = message;
+            this.snapshot = snapshot;
+        }
+
+        public String getSource() { return source; }
+        public EventType getType() { return type; }
+        public String getMessage() { return message; }
+        public Snapshot getSnapshot() { return snapshot; }
+
+        @Override
+        public String toString() {
+            return "[" + source + "] " + type + ": " + message;
+        }
+    }
+
+    /**
+     * Tek bir progress raporunun değerleri
+     */
+    public static class Snapshot {
+        private final long frame;
+        private final double fps;
+        private final long dupFrames;
+        private final long dropFrames;
+        private final double speed;
+        private final double bitrateKbps;
+        private final long totalSize;
+        private final long outTimeMicros;
+        private final double outputBytesPerSecond;
+        private final long timestamp;
+
+        Snapshot(long frame, double fps, long dupFrames, long dropFrames, double speed, double bitrateKbps,
+                 long totalSize, long outTimeMicros, double outputBytesPerSecond, long timestamp) {
+            this.frame = frame;
+            this.fps = fps;
+            this.dupFrames = dupFrames;
+            this.dropFrames = dropFrames;
+            this.speed = speed;
+            this.bitrateKbps = bitrateKbps;
+            this.totalSize = totalSize;
+            this.outTimeMicros = outTimeMicros;
+            this.outputBytesPerSecond = outputBytesPerSecond;
+            this.timestamp = timestamp;
+        }
+
+        public long getFrame() { return frame; }
+        public double getFps() { return fps; }
+        public long getDupFrames() { return dupFrames; }
+        public long getDropFrames() { return dropFrames; }
+        public double getSpeed() { return speed; }
+        public double getBitrateKbps() { return bitrateKbps; }
+        public long getTotalSize() { return totalSize; }
+        public long getOutTimeMicros() { return outTimeMicros; }
+        public double getOutputBytesPerSecond() { return outputBytesPerSecond; }
+        public long getTimestamp() { return timestamp; }
+
+        @Override
+        public String toString() {
+            return String.format("fps=%.1f speed=%.2fx bitrate=%.0fkbps out=%.0fB/s dup=%d drop=%d",
+                                 fps, speed, bitrateKbps, outputBytesPerSecond, dupFrames, dropFrames);
+        }
+    }
+
+    private final String source;
+    private final double targetFps;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    // Eşikler
+    private volatile double minSpeed = 0.95;
+    private volatile double minFpsRatio = 0.9;
+    private volatile long maxDupPerReport = 5;
+    private volatile int consecutiveReportsForAlert = 2;
+
+    // Okunmakta olan rapor - tek okuyucu thread'i yazar
+    private final FFmpegProgressParser parser = new FFmpegProgressParser();
+
+    private volatile Snapshot latest;
+    private Snapshot previous;
+    private int slowReports = 0;
+    private int lowFpsReports = 0;
+    private boolean speedAlert = false;
+    private boolean fpsAlert = false;
+    private long lastBufferFullEvent = 0;
+    private volatile long reportCount = 0;
+
+    public EncoderTelemetry(String source, double targetFps) {
+        this.source = source;
+        this.targetFps = targetFps;
+    }
+
+    public void addListener(Listener listener) {
+        if (listener != null) {
+            listeners.add(listener);
+        }
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    public void setThresholds(double minSpeed, double minFpsRatio, long maxDupPerReport, int consecutiveReports) {
+        this.minSpeed = minSpeed;
+        this.minFpsRatio = minFpsRatio;
+        this.maxDupPerReport = maxDupPerReport;
+        this.consecutiveReportsForAlert = Math.max(1, consecutiveReports);
+    }
+
+    /**
+     * Progress satırını işler.
+     * @return satır bir progress anahtarıysa true (log satırı değil)
+     */
+    public boolean acceptLine(CharSequence line) {
+        FFmpegProgressParser.LineType type = parser.accept(line);
+        if (type == FFmpegProgressParser.LineType.REPORT_END) {
+            completeReport(System.currentTimeMillis());
+        }
+        return type == FFmpegProgressParser.LineType.PROGRESS || type == FFmpegProgressParser.LineType.REPORT_END;
+    }
+
+    /**
+     * Paylaşılan ayrıştırıcı - byte akışı okuyan process runner'lar doğrudan besleyebilir
+     */
+    FFmpegProgressParser getParser() {
+        return parser;
+    }
+
+    /**
+     * Progress dışındaki log satırlarında bilinen uyarıları arar
+     */
+    public void acceptLogLine(CharSequence line) {
+        if (line == null) {
+            return;
+        }
+        if (FFmpegProgressParser.containsIgnoreCase(line, "real-time buffer")
+            && (FFmpegProgressParser.containsIgnoreCase(line, "too full")
+                || FFmpegProgressParser.containsIgnoreCase(line, "frame dropped"))) {
+            long now = System.currentTimeMillis();
+            // Bu uyarı her frame için basılır - saniyede en fazla bir olay
+            if (now - lastBufferFullEvent >= 1000) {
+                lastBufferFullEvent = now;
+                fire(EventType.INPUT_BUFFER_FULL, "Capture buffer full, camera frames are being dropped", latest);
+            }
+        }
+    }
+
+    void completeReport(long now) {
+        FFmpegProgressParser.Progress progress = parser.getProgress();
+        long totalSize = progress.getTotalSize();
+        double bytesPerSecond = 0;
+        if (previous != null && now > previous.getTimestamp()) {
+            bytesPerSecond = (totalSize - previous.getTotalSize()) * 1000.0 / (now - previous.getTimestamp());
+        }
+
+        Snapshot snapshot = new Snapshot(progress.getFrame(), progress.getFps(), progress.getDupFrames(),
+                                         progress.getDropFrames(), progress.getSpeed(), progress.getBitrateKbps(),
+                                         totalSize, progress.getOutTimeMicros(), Math.max(0, bytesPerSecond), now);
+        Snapshot before = previous;
+        previous = snapshot;
+        latest = snapshot;
+        reportCount++;
+        logger.debug("[{}] Encoder: {}", source, snapshot);
+
+        evaluate(before, snapshot);
+    }
+
+    private void evaluate(Snapshot before, Snapshot current) {
+        // Başlangıçtaki ilk rapor (encoder ısınması) eşiklere tabi değil
+        if (before == null) {
+            return;
+        }
+
+        long newDrops = current.getDropFrames() - before.getDropFrames();
+        if (newDrops > 0) {
+            fire(EventType.FRAMES_DROPPED, newDrops + " frames dropped (total " + current.getDropFrames() + ")", current);
+        }
+
+        long newDups = current.getDupFrames() - before.getDupFrames();
+        if (newDups > maxDupPerReport) {
+            fire(EventType.FRAMES_DUPLICATED, newDups + " frames duplicated - input is not keeping up", current);
+        }
+
+        if (current.getSpeed() > 0 && current.getSpeed() < minSpeed) {
+            slowReports++;
+        } else if (current.getSpeed() > 0) {
+            slowReports = 0;
+        }
+        if (!speedAlert && slowReports >= consecutiveReportsForAlert) {
+            speedAlert = true;
+            fire(EventType.SPEED_LOW, String.format("Encoder falling behind real time (speed %.2fx)", current.getSpeed()), current);
+        } else if (speedAlert && slowReports == 0) {
+            speedAlert = false;
+            fire(EventType.RECOVERED, String.format("Encoder speed recovered (%.2fx)", current.getSpeed()), current);
+        }
+
+        if (targetFps > 0 && current.getFps() > 0 && current.getFps() < targetFps * minFpsRatio) {
+            lowFpsReports++;
+        } else if (current.getFps() > 0) {
+            lowFpsReports = 0;
+        }
+        if (!fpsAlert && lowFpsReports >= consecutiveReportsForAlert) {
+            fpsAlert = true;
+            fire(EventType.FPS_LOW, String.format("Output fps %.1f below target %.0f", current.getFps(), targetFps), current);
+        } else if (fpsAlert && lowFpsReports == 0) {
+            fpsAlert = false;
+            fire(EventType.RECOVERED, String.format("Output fps recovered (%.1f)", current.getFps()), current);
+        }
+    }
+
+    private void fire(EventType type, String message, Snapshot snapshot) {
+        Event event = new Event(source, type, message, snapshot);
+        logger.warn("Encoder telemetry {}", event);
+        for (Listener listener : listeners) {
+            try {
+                listener.onTelemetryEvent(event);
+            } catch (Exception e) {
+                logger.debug("Telemetry listener error", e);
+            }
+        }
+    }
+
+    /**
+     * En son tamamlanan rapor, henüz rapor yoksa null
+     */
+    public Snapshot getLatest() {
+        return latest;
+    }
+
+    public long getReportCount() {
+        return reportCount;
+    }
+
+    public boolean isDegraded() {
+        return speedAlert || fpsAlert;
+    }
+}
@@ -0,0 +1,461 @@
+package com.ffmpeg.gui;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * FFmpeg "-progress" (key=value) ve stderr istatistik ("frame=  12 fps=30 ... speed=1.0x")
+ * satırlarını regex ve satır başına nesne oluşturmadan ayrıştırır.
+ *
+ * Değerler yeniden kullanılan tek bir {@link Progress} nesnesine yazılır. Byte akışı
+ * {@link #feed} ile verilirse satırlar sabit bir tamponda birleştirilir;
+ * sadece progress olmayan (log) satırlar, handler {@code toString()} çağırırsa String'e çevrilir.
+ *
+ * Bir parser tek bir process'in tek okuyucu thread'ine aittir.
+ */
+public class FFmpegProgressParser {
+
+    private static final int MAX_LINE_LENGTH = 4096;
+
+    /**
+     * Satırın türü
+     */
+    public enum LineType {
+        /** -progress bloğunun bir anahtarı */
+        PROGRESS,
+        /** "progress=continue/end" - blok tamamlandı */
+        REPORT_END,
+        /** Klasik stderr istatistik satırı */
+        STATS,
+        /** Diğer log satırları */
+        OTHER
+    }
+
+    /**
+     * {@link #feed} ile okunan her satır için çağrılır. line sadece çağrı süresince geçerlidir.
+     */
+    public interface LineHandler {
+        void onLine(LineType type, CharSequence line);
+    }
+
+    /**
+     * Son okunan değerler - "N/A" gelen alanlar önceki değerini korur
+     */
+    public static class Progress {
+        private long frame;
+        private double fps;
+        private double bitrateKbps;
+        private long totalSize;
+        private long outTimeMicros;
+        private long dupFrames;
+        private long dropFrames;
+        private double speed;
+        private boolean end;
+
+        public long getFrame() { return frame; }
+        public double getFps() { return fps; }
+        public double getBitrateKbps() { return bitrateKbps; }
+        public long getTotalSize() { return totalSize; }
+        public long getOutTimeMicros() { return outTimeMicros; }
+        public double getOutTimeSeconds() { return outTimeMicros / 1_000_000.0; }
+        public long getDupFrames() { return dupFrames; }
+        public long getDropFrames() { return dropFrames; }
+        public double getSpeed() { return speed; }
+        /** "progress=end" okundu */
+        public boolean isEnd() { return end; }
+
+        public void reset() {
+            frame = 0;
+            fps = 0;
+            bitrateKbps = 0;
+            totalSize = 0;
+            outTimeMicros = 0;
+            dupFrames = 0;
+            dropFrames = 0;
+            speed = 0;
+            end = false;
+        }
+    }
+
+    /**
+     * Satır tamponunun CharSequence görünümü. Byte'lar ASCII olarak okunur; toString UTF-8 çözer.
+     */
+    private static final class LineView implements CharSequence {
+        private final byte[] bytes = new byte[MAX_LINE_LENGTH];
+        private int length;
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (bytes[index] & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return toString().substring(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return new String(bytes, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+
+    private final Progress progress;
+    private final LineView line = new LineView();
+    private boolean overflow = false;
+    private long parsedLines = 0;
+
+    public FFmpegProgressParser() {
+        this(new Progress());
+    }
+
+    public FFmpegProgressParser(Progress progress) {
+        this.progress = progress;
+    }
+
+    public Progress getProgress() {
+        return progress;
+    }
+
+    public long getParsedLines() {
+        return parsedLines;
+    }
+
+    /**
+     * Process çıktısından okunan byte'ları işler; tamamlanan her satır için handler çağrılır.
+     * Satır sonu "\n" veya "\r" (istatistik satırları "\r" ile yenilenir).
+     */
+    public void feed(byte[] buffer, int offset, int count, LineHandler handler) {
+        int end = offset + count;
+        for (int i = offset; i < end; i++) {
+            byte b = buffer[i];
+            if (b == '\n' || b == '\r') {
+                if (line.length > 0) {
+                    LineType type = accept(line);
+                    if (handler != null) {
+                        handler.onLine(type, line);
+                    }
+                }
+                line.length = 0;
+                overflow = false;
+            } else if (line.length < MAX_LINE_LENGTH) {
+                line.bytes[line.length++] = b;
+            } else if (!overflow) {
+                overflow = true; // Çok uzun satırın kalanı atılır
+            }
+        }
+    }
+
+    /**
+     * Tamamlanmamış son satırı işler (akış kapandığında)
+     */
+    public void flush(LineHandler handler) {
+        if (line.length > 0) {
+            LineType type = accept(line);
+            if (handler != null) {
+                handler.onLine(type, line);
+            }
+            line.length = 0;
+        }
+    }
+
+    /**
+     * Tek satırı ayrıştırır ve değerleri {@link Progress}'e yazar
+     */
+    public LineType accept(CharSequence text) {
+        if (text == null) {
+            return LineType.OTHER;
+        }
+        int length = text.length();
+        int start = skipSpaces(text, 0, length);
+        while (length > start && text.charAt(length - 1) <= ' ') {
+            length--;
+        }
+        int eq = indexOf(text, '=', start, length);
+        if (eq <= start || indexOf(text, ' ', start, eq) >= 0) {
+            return LineType.OTHER;
+        }
+
+        // "frame=  123 fps= 30 ..." - değerden sonra boşluk ve başka bir anahtar
+        int valueStart = skipSpaces(text, eq + 1, length);
+        int valueEnd = indexOf(text, ' ', valueStart, length);
+        if (valueEnd >= 0 && indexOf(text, '=', valueEnd, length) >= 0) {
+            parseStats(text, start, length);
+            parsedLines++;
+            return LineType.STATS;
+        }
+
+        if (!applyValue(text, start, eq, valueStart, length)) {
+            return LineType.OTHER;
+        }
+        parsedLines++;
+        return regionEquals(text, start, eq, "progress") ? LineType.REPORT_END : LineType.PROGRESS;
+    }
+
+    private void parseStats(CharSequence text, int from, int to) {
+        int position = from;
+        while (position < to) {
+            int keyStart = skipSpaces(text, position, to);
+            int eq = indexOf(text, '=', keyStart, to);
+            if (eq < 0) {
+                return;
+            }
+            int valueStart = skipSpaces(text, eq + 1, to);
+            int valueEnd = indexOf(text, ' ', valueStart, to);
+            if (valueEnd < 0) {
+                valueEnd = to;
+            }
+            applyValue(text, keyStart, eq, valueStart, valueEnd);
+            position = valueEnd;
+        }
+    }
+
+    /**
+     * @return anahtar tanınan bir progress anahtarıysa true
+     */
+    private boolean applyValue(CharSequence text, int keyStart, int keyEnd, int valueStart, int valueEnd) {
+        int keyLength = keyEnd - keyStart;
+        Progress p = progress;
+        switch (keyLength) {
+            case 3:
+                if (regionEquals(text, keyStart, keyEnd, "fps")) {
+                    p.fps = parseDecimal(text, valueStart, valueEnd, p.fps);
+                    return true;
+                }
+                if (regionEquals(text, keyStart, keyEnd, "dup")) { // istatistik satırı
+                    p.dupFrames = parseLong(text, valueStart, valueEnd, p.dupFrames);
+                    return true;
+                }
+                return false;
+            case 4:
+                if (regionEquals(text, keyStart, keyEnd, "drop")) {
+                    p.dropFrames = parseLong(text, valueStart, valueEnd, p.dropFrames);
+                    return true;
+                }
+                if (regionEquals(text, keyStart, keyEnd, "time")) {
+                    p.outTimeMicros = parseClock(text, valueStart, valueEnd, p.outTimeMicros);
+                    return true;
+                }
+                if (regionEquals(text, keyStart, keyEnd, "size")) { // "1024kB"
+                    p.totalSize = parseLong(text, valueStart, valueEnd, p.totalSize / 1024) * 1024;
+                    return true;
+                }
+                return false;
+            case 5:
+                if (regionEquals(text, keyStart, keyEnd, "frame")) {
+                    p.frame = parseLong(text, valueStart, valueEnd, p.frame);
+                    return true;
+                }
+                if (regionEquals(text, keyStart, keyEnd, "speed")) {
+                    p.speed = parseDecimal(text, valueStart, valueEnd, p.speed);
+                    return true;
+                }
+                return false;
+            case 7:
+                if (regionEquals(text, keyStart, keyEnd, "bitrate")) {
+                    p.bitrateKbps = parseDecimal(text, valueStart, valueEnd, p.bitrateKbps);
+                    return true;
+                }
+                return false;
+            case 8:
+                if (regionEquals(text, keyStart, keyEnd, "out_time")) {
+                    p.outTimeMicros = parseClock(text, valueStart, valueEnd, p.outTimeMicros);
+                    return true;
+                }
+                if (regionEquals(text, keyStart, keyEnd, "progress")) {
+                    p.end = regionEquals(text, valueStart, valueEnd, "end");
+                    return true;
+                }
+                return false;
+            case 10:
+                if (regionEquals(text, keyStart, keyEnd, "dup_frames")) {
+                    p.dupFrames = parseLong(text, valueStart, valueEnd, p.dupFrames);
+                    return true;
+                }
+                if (regionEquals(text, keyStart, keyEnd, "total_size")) {
+                    p.totalSize = parseLong(text, valueStart, valueEnd, p.totalSize);
+                    return true;
+                }
+                return false;
+            case 11:
+                if (regionEquals(text, keyStart, keyEnd, "drop_frames")) {
+                    p.dropFrames = parseLong(text, valueStart, valueEnd, p.dropFrames);
+                    return true;
+                }
+                if (regionEquals(text, keyStart, keyEnd, "out_time_us")
+                    || regionEquals(text, keyStart, keyEnd, "out_time_ms")) { // ikisi de mikrosaniye
+                    p.outTimeMicros = parseLong(text, valueStart, valueEnd, p.outTimeMicros);
+                    return true;
+                }
+                return false;
+            default:
+                // stream_0_0_q vb.
+                return keyLength > 7 && regionEquals(text, keyStart, keyStart + 7, "stream_");
+        }
+    }
+
+    // ========================== SAYI AYRIŞTIRMA ==========================
+
+    /**
+     * Baştaki tam sayı; rakam yoksa ("N/A") fallback. Sondaki birimler ("kB") yok sayılır.
+     */
+    static long parseLong(CharSequence text, int start, int end, long fallback) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && text.charAt(i) == '-') {
+            negative = true;
+            i++;
+        }
+        long value = 0;
+        int digits = 0;
+        for (; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                break;
+            }
+            value = value * 10 + (c - '0');
+            digits++;
+        }
+        if (digits == 0) {
+            return fallback;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * "1.01x", "2000.5kbits/s", "30" - baştaki ondalık sayı
+     */
+    static double parseDecimal(CharSequence text, int start, int end, double fallback) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && text.charAt(i) == '-') {
+            negative = true;
+            i++;
+        }
+        long whole = 0;
+        long fraction = 0;
+        long scale = 1;
+        int digits = 0;
+        boolean inFraction = false;
+        for (; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == '.' && !inFraction) {
+                inFraction = true;
+            } else if (c >= '0' && c <= '9') {
+                if (inFraction) {
+                    if (scale < 1_000_000_000L) {
+                        fraction = fraction * 10 + (c - '0');
+                        scale *= 10;
+                    }
+                } else {
+                    whole = whole * 10 + (c - '0');
+                }
+                digits++;
+            } else {
+                break;
+            }
+        }
+        if (digits == 0) {
+            return fallback;
+        }
+        double value = whole + (double) fraction / scale;
+        return negative ? -value : value;
+    }
+
+    /**
+     * "HH:MM:SS.ffffff" -> mikrosaniye
+     */
+    static long parseClock(CharSequence text, int start, int end, long fallback) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && text.charAt(i) == '-') {
+            negative = true;
+            i++;
+        }
+        long seconds = 0;
+        long part = 0;
+        int digits = 0;
+        for (; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                part = part * 10 + (c - '0');
+                digits++;
+            } else if (c == ':') {
+                seconds = (seconds + part) * 60;
+                part = 0;
+            } else {
+                break;
+            }
+        }
+        if (digits == 0) {
+            return fallback;
+        }
+        seconds += part;
+        long micros = 0;
+        if (i < end && text.charAt(i) == '.') {
+            long scale = 100_000;
+            for (i++; i < end && scale > 0; i++) {
+                char c = text.charAt(i);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                micros += (c - '0') * scale;
+                scale /= 10;
+            }
+        }
+        long value = seconds * 1_000_000 + micros;
+        return negative ? -value : value;
+    }
+
+    // ========================== METİN YARDIMCILARI ==========================
+
+    /**
+     * Küçük/büyük harf duyarsız arama - satırı kopyalamadan (needle küçük harf ASCII olmalı)
+     */
+    public static boolean containsIgnoreCase(CharSequence text, String needle) {
+        int last = text.length() - needle.length();
+        for (int i = 0; i <= last; i++) {
+            int j = 0;
+            while (j < needle.length() && Character.toLowerCase(text.charAt(i + j)) == needle.charAt(j)) {
+                j++;
+            }
+            if (j == needle.length()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean regionEquals(CharSequence text, int start, int end, String value) {
+        if (end - start != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (text.charAt(start + i) != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(CharSequence text, char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (text.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int skipSpaces(CharSequence text, int from, int to) {
+        int i = from;
+        while (i < to && text.charAt(i) == ' ') {
+            i++;
+        }
+        return i;
+    }
+}
@@ -18,6 +18,7 @@ import java.nio.file.Paths;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.List;
 
 public class FFmpegService {
@@ -33,6 +34,7 @@ public class FFmpegService {
     private String ffprobePath;
     private int maxThreads;
     private boolean detailedLogging = false; // Detaylı loglama özelliği
+    private final AtomicInteger activeJobs = new AtomicInteger(); // Kuyrukta/çalışan dönüştürmeler
     
     public FFmpegService() {
         this.maxThreads = Math.min(Runtime.getRuntime().availableProcessors(), 8); // Maksimum 8 thread
@@ -124,7 +126,35 @@ public class FFmpegService {
         return ffmpegOtomatikBul();
     }
     
-    private String temizleDosyaAdi(String dosyaAdi) {
+    /**
+     * Formatı küçük harfe çevirir ve Türkçe karakterleri temizler
+     */
+    static String formatTemizle(String format) {
+        return format.toLowerCase()
+            .replace("ı", "i")
+            .replace("ğ", "g")
+            .replace("ü", "u")
+            .replace("ş", "s")
+            .replace("ö", "o")
+            .replace("ç", "c");
+    }
+    
+    /**
+     * Dosya adındaki Türkçe karakterleri temizler; uzantı yoksa veya yanlışsa formatın uzantısını ekler
+     */
+    static String cikisYoluHazirla(String outputPath, String format) {
+        String cleanOutputPath = temizleDosyaAdi(outputPath);
+        if (!cleanOutputPath.toLowerCase().endsWith("." + format)) {
+            String basePath = cleanOutputPath;
+            if (basePath.contains(".")) {
+                basePath = basePath.substring(0, basePath.lastIndexOf('.'));
+            }
+            cleanOutputPath = basePath + "." + format;
+        }
+        return cleanOutputPath;
+    }
+    
+    private static String temizleDosyaAdi(String dosyaAdi) {
         if (dosyaAdi == null) return "";
         
         // Dosya yolunu ve adını ayır
@@ -183,7 +213,7 @@ public class FFmpegService {
     }
     
     public CompletableFuture<Void> convertVideo(VideoConversionParams params, ProgressCallback callback) {
-        return CompletableFuture.runAsync(() -> {
+        return track(CompletableFuture.runAsync(() -> {
             try {
                 if (executor == null) {
                     throw new RuntimeException("FFmpeg executor başlatılmamış. FFmpeg kurulu olduğundan emin olun.");
@@ -195,30 +225,9 @@ public class FFmpegService {
                     throw new IOException("Giriş dosyası bulunamadı: " + params.getInputPath());
                 }
                 
-                String outputPath = params.getOutputPath();
                 // Formatı küçük harfe çevir ve Türkçe karakterleri temizle
-                String format = params.getFormat().toLowerCase()
-                    .replace("ı", "i")
-                    .replace("ğ", "g")
-                    .replace("ü", "u")
-                    .replace("ş", "s")
-                    .replace("ö", "o")
-                    .replace("ç", "c");
-                
-                // Dosya adındaki Türkçe karakterleri temizle
-                String cleanOutputPath = temizleDosyaAdi(outputPath);
-                
-                // Temizlenmiş dosya yolunu kullan
-                outputPath = cleanOutputPath;
-                
-                // Eğer dosya uzantısı yoksa veya yanlışsa, doğru uzantıyı ekle
-                if (!outputPath.toLowerCase().endsWith("." + format)) {
-                    String basePath = outputPath;
-                    if (basePath.contains(".")) {
-                        basePath = basePath.substring(0, basePath.lastIndexOf('.'));
-                    }
-                    outputPath = basePath + "." + format;
-                }
+                String format = formatTemizle(params.getFormat());
+                String outputPath = cikisYoluHazirla(params.getOutputPath(), format);
                 
                 // Çıkış klasörünün varlığını kontrol et ve oluştur
                 File outputFile = new File(outputPath);
@@ -243,42 +252,7 @@ public class FFmpegService {
                 outputBuilder.setVideoFrameRate(params.getFps());
                 
                 // Codece göre sıkıştırma ayarları
-                if (videoCodec.equals("libx264")) {
-                    // H.264 için CRF (Constant Rate Factor) kullan - daha iyi kalite/sıkıştırma oranı
-                    int crf = Math.max(18, Math.min(28, 23)); // 18-28 arası, 23 varsayılan (düşük = daha iyi kalite)
-                    outputBuilder.addExtraArgs("-crf", String.valueOf(crf));
-                    outputBuilder.addExtraArgs("-preset", "medium"); // Sıkıştırma hızı: ultrafast, superfast, veryfast, faster, fast, medium, slow, slower, veryslow
-                    outputBuilder.addExtraArgs("-tune", "film"); // Optimizasyon: film, animation, grain, stillimage, fastdecode, zerolatency
-                    
-                    // Maksimum bitrate sınırı (bitrate kontrolü için)
-                    if (params.getBitrate() > 0) {
-                        outputBuilder.addExtraArgs("-maxrate", params.getBitrate() + "k");
-                        outputBuilder.addExtraArgs("-bufsize", (params.getBitrate() * 2) + "k");
-                    }
-                } else if (videoCodec.equals("libx265")) {
-                    // H.265 için CRF kullan
-                    int crf = Math.max(20, Math.min(30, 25)); // H.265 için 20-30 arası, 25 varsayılan
-                    outputBuilder.addExtraArgs("-crf", String.valueOf(crf));
-                    outputBuilder.addExtraArgs("-preset", "medium");
-                    
-                    // Maksimum bitrate sınırı
-                    if (params.getBitrate() > 0) {
-                        outputBuilder.addExtraArgs("-maxrate", params.getBitrate() + "k");
-                        outputBuilder.addExtraArgs("-bufsize", (params.getBitrate() * 2) + "k");
-                    }
-                } else if (videoCodec.equals("libvpx-vp9")) {
-                    // VP9 için CRF kullan
-                    int crf = Math.max(20, Math.min(32, 25));
-                    outputBuilder.addExtraArgs("-crf", String.valueOf(crf));
-                    outputBuilder.addExtraArgs("-b:v", "0"); // VP9 için bitrate 0 olmalı CRF ile kullanılırken
-                    outputBuilder.addExtraArgs("-deadline", "good"); // Sıkıştırma kalitesi: best, good, realtime
-                    outputBuilder.addExtraArgs("-cpu-used", "2"); // CPU kullanımı: 0-5 arası, düşük = daha iyi kalite
-                } else {
-                    // Diğer codecler için bitrate kullan
-                    if (params.getBitrate() > 0) {
-                        outputBuilder.addExtraArgs("-b:v", params.getBitrate() + "k");
-                    }
-                }
+                outputBuilder.addExtraArgs(videoCodecArgs(videoCodec, params.getBitrate()).toArray(new String[0]));
                 
                 // Audio bitrate ayarları
                 if (params.getBitrate() > 0) {
@@ -322,7 +296,7 @@ public class FFmpegService {
                 logger.error("Video dönüştürme hatası", e);
                 throw new RuntimeException("Video dönüştürme başarısız: " + e.getMessage(), e);
             }
-        }, executorService);
+        }, executorService));
     }
     
     public CompletableFuture<Void> audioDonustur(AudioConversionParams params, ProgressCallback callback) {
@@ -330,7 +304,7 @@ public class FFmpegService {
     }
     
     public CompletableFuture<Void> convertAudio(AudioConversionParams params, ProgressCallback callback) {
-        return CompletableFuture.runAsync(() -> {
+        return track(CompletableFuture.runAsync(() -> {
             try {
                 if (executor == null) {
                     throw new RuntimeException("FFmpeg executor başlatılmamış. FFmpeg kurulu olduğundan emin olun.");
@@ -342,30 +316,9 @@ public class FFmpegService {
                     throw new IOException("Giriş dosyası bulunamadı: " + params.getInputPath());
                 }
                 
-                String outputPath = params.getOutputPath();
                 // Formatı küçük harfe çevir ve Türkçe karakterleri temizle
-                String format = params.getFormat().toLowerCase()
-                    .replace("ı", "i")
-                    .replace("ğ", "g")
-                    .replace("ü", "u")
-                    .replace("ş", "s")
-                    .replace("ö", "o")
-                    .replace("ç", "c");
-                
-                // Dosya adındaki Türkçe karakterleri temizle
-                String cleanOutputPath = temizleDosyaAdi(outputPath);
-                
-                // Temizlenmiş dosya yolunu kullan
-                outputPath = cleanOutputPath;
-                
-                // Eğer dosya uzantısı yoksa veya yanlışsa, doğru uzantıyı ekle
-                if (!outputPath.toLowerCase().endsWith("." + format)) {
-                    String basePath = outputPath;
-                    if (basePath.contains(".")) {
-                        basePath = basePath.substring(0, basePath.lastIndexOf('.'));
-                    }
-                    outputPath = basePath + "." + format;
-                }
+                String format = formatTemizle(params.getFormat());
+                String outputPath = cikisYoluHazirla(params.getOutputPath(), format);
                 
                 // Çıkış klasörünün varlığını kontrol et ve oluştur
                 File outputFile = new File(outputPath);
@@ -388,43 +341,7 @@ public class FFmpegService {
                 outputBuilder.setAudioChannels(params.getChannels());
                 
                 // Codece göre sıkıştırma ayarları
-                if (audioCodec.equals("libmp3lame")) {
-                    // MP3 için VBR (Variable Bit Rate) kullan - daha iyi kalite/sıkıştırma oranı
-                    int quality = Math.max(0, Math.min(9, 5)); // 0-9 arası, 0 = en iyi kalite, 9 = en kötü kalite
-                    outputBuilder.addExtraArgs("-q:a", String.valueOf(quality));
-                    
-                    // Maksimum bitrate sınırı
-                    if (params.getBitrate() > 0) {
-                        outputBuilder.addExtraArgs("-b:a", params.getBitrate() + "k");
-                    }
-                } else if (audioCodec.equals("aac")) {
-                    // AAC için VBR kullan
-                    int quality = Math.max(1, Math.min(5, 3)); // 1-5 arası, 1 = en iyi kalite, 5 = en kötü kalite
-                    outputBuilder.addExtraArgs("-q:a", String.valueOf(quality));
-                    
-                    // Maksimum bitrate sınırı
-                    if (params.getBitrate() > 0) {
-                        outputBuilder.addExtraArgs("-b:a", params.getBitrate() + "k");
-                    }
-                } else if (audioCodec.equals("libvorbis")) {
-                    // OGG Vorbis için VBR kullan
-                    int quality = Math.max(-1, Math.min(10, 5)); // -1-10 arası, -1 = en iyi kalite, 10 = en kötü kalite
-                    outputBuilder.addExtraArgs("-q:a", String.valueOf(quality));
-                    
-                    // Maksimum bitrate sınırı
-                    if (params.getBitrate() > 0) {
-                        outputBuilder.addExtraArgs("-b:a", params.getBitrate() + "k");
-                    }
-                } else if (audioCodec.equals("flac")) {
-                    // FLAC için lossless sıkıştırma seviyesi
-                    int compression = Math.max(0, Math.min(8, 5)); // 0-8 arası, 0 = hızlı, 8 = en iyi sıkıştırma
-                    outputBuilder.addExtraArgs("-compression_level", String.valueOf(compression));
-                } else {
-                    // Diğer codecler için bitrate kullan
-                    if (params.getBitrate() > 0) {
-                        outputBuilder.addExtraArgs("-b:a", params.getBitrate() + "k");
-                    }
-                }
+                outputBuilder.addExtraArgs(audioCodecArgs(audioCodec, params.getBitrate()).toArray(new String[0]));
                 
                 // Genel audio optimizasyonları
                 outputBuilder.addExtraArgs("-ar", String.valueOf(params.getSampleRate())); // Sample rate
@@ -460,10 +377,255 @@ public class FFmpegService {
                 logger.error("Audio dönüştürme hatası", e);
                 throw new RuntimeException("Audio dönüştürme başarısız: " + e.getMessage(), e);
             }
-        }, executorService);
+        }, executorService));
+    }
+    
+    /**
+     * Tek girişten birden fazla çıktıyı tek FFmpeg çağrısıyla üretir - giriş bir kez çözülür.
+     * İlerleme çıktı bazında bildirilir; FFmpeg hatasında hiçbir çıktı tamamlanmış sayılmaz.
+     */
+    public CompletableFuture<Void> convertMultiOutput(MultiOutputJob job, MultiOutputJob.Listener listener) {
+        return track(CompletableFuture.runAsync(() -> {
+            try {
+                File inputFile = new File(job.getInputPath());
+                if (!inputFile.exists()) {
+                    throw new IOException("Giriş dosyası bulunamadı: " + job.getInputPath());
+                }
+                if (job.getTargets().isEmpty()) {
+                    throw new IOException("Çıktı hedefi yok");
+                }
+                
+                MediaProbeCache.ProbeInfo probe = MediaProbeCache.shared().probe(ffprobePath, inputFile.toPath());
+                for (MultiOutputJob.Target target : job.getTargets()) {
+                    if (!target.isVideo() && !probe.hasAudio()) {
+                        throw new IOException("Girişte ses yok, ses hedefi üretilemez: " + target.getOutputPath());
+                    }
+                    if (target.isVideo() && !probe.hasVideo() && !probe.hasAudio()) {
+                        throw new IOException("Girişte video ya da ses yok: " + job.getInputPath());
+                    }
+                    File outputDir = new File(target.getOutputPath()).getParentFile();
+                    if (outputDir != null && !outputDir.exists()) {
+                        outputDir.mkdirs();
+                    }
+                }
+                
+                List<String> command = job.buildCommand(ffmpegPath, probe.hasVideo(), probe.hasAudio());
+                logger.info("Multi-output conversion: {} -> {} outputs", job.getInputPath(), job.getTargets().size());
+                if (detailedLogging) {
+                    logger.info("FFmpeg command: {}", String.join(" ", command));
+                }
+                
+                List<MultiOutputJob.Target> outputs = job.getTargets();
+                runWithProgress(command, seconds -> {
+                    for (int i = 0; i < outputs.size(); i++) {
+                        listener.onOutputProgress(i, outputs.get(i), seconds, new File(outputs.get(i).getOutputPath()).length());
+                    }
+                });
+                
+                List<MultiOutputJob.Target> targets = job.getTargets();
+                for (int i = 0; i < targets.size(); i++) {
+                    long size = new File(targets.get(i).getOutputPath()).length();
+                    logger.info("Output completed: {} ({} KB)", targets.get(i).getOutputPath(), size / 1024);
+                    listener.onOutputCompleted(i, targets.get(i), size);
+                }
+                
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Çok çıkışlı dönüştürme iptal edildi", e);
+            } catch (Exception e) {
+                logger.error("Çok çıkışlı dönüştürme hatası", e);
+                throw new RuntimeException("Çok çıkışlı dönüştürme başarısız: " + e.getMessage(), e);
+            }
+        }, executorService));
+    }
+    
+    /**
+     * ABR merdivenini tek geçişte üretir: giriş bir kez çözülür, bütün basamaklar aynı process'te encode edilir.
+     * Kaynaktan yüksek basamaklar atlanır. İlerleme işlenen giriş süresi (saniye) olarak bildirilir.
+     */
+    public CompletableFuture<Void> convertAbrLadder(String inputPath, Path outputDirectory, List<AbrLadderJob.Rendition> ladder,
+                                                    int segmentSeconds, ProgressCallback callback) {
+        return track(CompletableFuture.runAsync(() -> {
+            try {
+                File inputFile = new File(inputPath);
+                if (!inputFile.exists()) {
+                    throw new IOException("Giriş dosyası bulunamadı: " + inputPath);
+                }
+                MediaProbeCache.ProbeInfo probe = MediaProbeCache.shared().probe(ffprobePath, inputFile.toPath());
+                if (!probe.hasVideo()) {
+                    throw new IOException("Girişte video yok: " + inputPath);
+                }
+                
+                List<AbrLadderJob.Rendition> renditions = AbrLadderJob.fitToSource(ladder, probe.getVideoHeight());
+                if (renditions.isEmpty()) {
+                    throw new IOException("ABR merdiveni boş");
+                }
+                AbrLadderJob job = new AbrLadderJob(inputPath, outputDirectory, renditions).setSegmentSeconds(segmentSeconds);
+                Files.createDirectories(outputDirectory);
+                
+                List<String> command = job.buildCommand(ffmpegPath, probe.hasAudio(), Runtime.getRuntime().availableProcessors());
+                logger.info("ABR ladder conversion: {} -> {} {}", inputPath, outputDirectory, renditions);
+                if (detailedLogging) {
+                    logger.info("FFmpeg command: {}", String.join(" ", command));
+                }
+                
+                runWithProgress(command, seconds -> {
+                    if (seconds > 0) {
+                        callback.onProgress(seconds);
+                    }
+                });
+                
+                logger.info("ABR ladder completed: {} (master {})", job.getMpd(), job.getMasterPlaylist());
+                
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("ABR dönüştürme iptal edildi", e);
+            } catch (Exception e) {
+                logger.error("ABR dönüştürme hatası", e);
+                throw new RuntimeException("ABR dönüştürme başarısız: " + e.getMessage(), e);
+            }
+        }, executorService));
     }
     
-    private String formatIcinVideoCodecBul(String format, String requestedCodec) {
+    /**
+     * FFmpeg'i çalıştırır ve "-progress pipe:1" bloklarında işlenen süreyi (saniye) bildirir.
+     * Çıkış kodu sıfır değilse son çıktı satırıyla IOException atar; kesilirse process öldürülür.
+     */
+    private void runWithProgress(List<String> command, java.util.function.DoubleConsumer onProgress)
+            throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        try {
+            java.util.ArrayDeque<String> recentOutput = new java.util.ArrayDeque<>();
+            FFmpegProgressParser parser = new FFmpegProgressParser();
+            FFmpegProgressParser.LineHandler handler = (type, line) -> {
+                if (type == FFmpegProgressParser.LineType.REPORT_END) {
+                    onProgress.accept(parser.getProgress().getOutTimeSeconds());
+                } else if (type == FFmpegProgressParser.LineType.OTHER) {
+                    String text = line.toString();
+                    if (detailedLogging) {
+                        logger.info("FFmpeg: {}", text);
+                    }
+                    recentOutput.addLast(text);
+                    if (recentOutput.size() > 20) {
+                        recentOutput.removeFirst();
+                    }
+                }
+            };
+            try (java.io.InputStream output = process.getInputStream()) {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = output.read(buffer)) > 0) {
+                    parser.feed(buffer, 0, read, handler);
+                }
+                parser.flush(handler);
+            }
+            
+            int exitCode = process.waitFor();
+            if (exitCode != 0) {
+                logger.error("FFmpeg failed! Last output lines:\n{}", String.join("\n", recentOutput));
+                throw new IOException("FFmpeg çıkış kodu " + exitCode + ": "
+                                      + (recentOutput.isEmpty() ? "" : recentOutput.peekLast()));
+            }
+        } finally {
+            if (process.isAlive()) {
+                process.destroyForcibly();
+            }
+        }
+    }
+    
+    /**
+     * Video codec'ine göre sıkıştırma argümanları - tek çıkışlı ve çok çıkışlı dönüştürmeler aynı ayarları kullanır
+     */
+    static List<String> videoCodecArgs(String videoCodec, int bitrate) {
+        List<String> args = new java.util.ArrayList<>();
+        if (videoCodec.equals("libx264")) {
+            // H.264 için CRF (Constant Rate Factor) kullan - daha iyi kalite/sıkıştırma oranı
+            int crf = Math.max(18, Math.min(28, 23)); // 18-28 arası, 23 varsayılan (düşük = daha iyi kalite)
+            args.add("-crf");
+            args.add(String.valueOf(crf));
+            args.add("-preset");
+            args.add("medium"); // Sıkıştırma hızı: ultrafast, superfast, veryfast, faster, fast, medium, slow, slower, veryslow
+            args.add("-tune");
+            args.add("film"); // Optimizasyon: film, animation, grain, stillimage, fastdecode, zerolatency
+            
+            // Maksimum bitrate sınırı (bitrate kontrolü için)
+            if (bitrate > 0) {
+                args.add("-maxrate");
+                args.add(bitrate + "k");
+                args.add("-bufsize");
+                args.add((bitrate * 2) + "k");
+            }
+        } else if (videoCodec.equals("libx265")) {
+            // H.265 için CRF kullan
+            int crf = Math.max(20, Math.min(30, 25)); // H.265 için 20-30 arası, 25 varsayılan
+            args.add("-crf");
+            args.add(String.valueOf(crf));
+            args.add("-preset");
+            args.add("medium");
+            
+            // Maksimum bitrate sınırı
+            if (bitrate > 0) {
+                args.add("-maxrate");
+                args.add(bitrate + "k");
+                args.add("-bufsize");
+                args.add((bitrate * 2) + "k");
+            }
+        } else if (videoCodec.equals("libvpx-vp9")) {
+            // VP9 için CRF kullan
+            int crf = Math.max(20, Math.min(32, 25));
+            args.add("-crf");
+            args.add(String.valueOf(crf));
+            args.add("-b:v");
+            args.add("0"); // VP9 için bitrate 0 olmalı CRF ile kullanılırken
+            args.add("-deadline");
+            args.add("good"); // Sıkıştırma kalitesi: best, good, realtime
+            args.add("-cpu-used");
+            args.add("2"); // CPU kullanımı: 0-5 arası, düşük = daha iyi kalite
+        } else if (bitrate > 0) {
+            // Diğer codecler için bitrate kullan
+            args.add("-b:v");
+            args.add(bitrate + "k");
+        }
+        return args;
+    }
+    
+    /**
+     * Audio codec'ine göre sıkıştırma argümanları
+     */
+    static List<String> audioCodecArgs(String audioCodec, int bitrate) {
+        List<String> args = new java.util.ArrayList<>();
+        if (audioCodec.equals("libmp3lame")) {
+            // MP3 için VBR (Variable Bit Rate) kullan - daha iyi kalite/sıkıştırma oranı
+            int quality = Math.max(0, Math.min(9, 5)); // 0-9 arası, 0 = en iyi kalite, 9 = en kötü kalite
+            args.add("-q:a");
+            args.add(String.valueOf(quality));
+        } else if (audioCodec.equals("aac")) {
+            // AAC için VBR kullan
+            int quality = Math.max(1, Math.min(5, 3)); // 1-5 arası, 1 = en iyi kalite, 5 = en kötü kalite
+            args.add("-q:a");
+            args.add(String.valueOf(quality));
+        } else if (audioCodec.equals("libvorbis")) {
+            // OGG Vorbis için VBR kullan
+            int quality = Math.max(-1, Math.min(10, 5)); // -1-10 arası, -1 = en iyi kalite, 10 = en kötü kalite
+            args.add("-q:a");
+            args.add(String.valueOf(quality));
+        } else if (audioCodec.equals("flac")) {
+            // FLAC için lossless sıkıştırma seviyesi
+            int compression = Math.max(0, Math.min(8, 5)); // 0-8 arası, 0 = hızlı, 8 = en iyi sıkıştırma
+            args.add("-compression_level");
+            args.add(String.valueOf(compression));
+            return args; // Kayıpsız - bitrate sınırı yok
+        }
+        
+        // Maksimum bitrate sınırı
+        if (bitrate > 0) {
+            args.add("-b:a");
+            args.add(bitrate + "k");
+        }
+        return args;
+    }
+    
+    static String formatIcinVideoCodecBul(String format, String requestedCodec) {
         String formatLower = format.toLowerCase();
         String codecLower = requestedCodec != null ? requestedCodec.toLowerCase() : "";
         
@@ -504,7 +666,7 @@ public class FFmpegService {
         }
     }
     
-    private String formatIcinAudioCodecBul(String format) {
+    static String formatIcinAudioCodecBul(String format) {
         switch (format.toLowerCase()) {
             case "mp3":
                 return "libmp3lame";
@@ -516,6 +678,8 @@ public class FFmpegService {
                 return "flac";
             case "ogg":
                 return "libvorbis";
+            case "webm":
+                return "libopus"; // WebM AAC taşıyamaz
             case "wma":
                 return "wmav2";
             default:
@@ -579,7 +743,7 @@ public class FFmpegService {
     
     public CompletableFuture<Void> processBatchFiles(java.util.List<File> files, String outputDir, 
                                                    BatchSettings batchSettings, BatchProcessingCallback callback) {
-        return CompletableFuture.runAsync(() -> {
+        return track(CompletableFuture.runAsync(() -> {
             int totalFiles = files.size();
             final int[] processedFiles = {0};
             final int[] failedFiles = {0};
@@ -624,12 +788,18 @@ public class FFmpegService {
                                     batchSettings.getVideoFps()
                                 );
                                 
-                                videoDonustur(params, new ProgressCallback() {
-                                    @Override
-                                    public void onProgress(double progress) {
-                                        callback.onFileProgress(processedFiles[0], totalFiles, progress);
-                                    }
-                                }).get(30, java.util.concurrent.TimeUnit.MINUTES); // 30 dakika timeout
+                                if (batchSettings.hasExtraTargets()) {
+                                    // Birden fazla hedef profil - giriş bir kez çözülür
+                                    cokCiktiliDonustur(file, outputDir, params, batchSettings, processedFiles[0], totalFiles, callback)
+                                        .get(30, java.util.concurrent.TimeUnit.MINUTES); // 30 dakika timeout
+                                } else {
+                                    videoDonustur(params, new ProgressCallback() {
+                                        @Override
+                                        public void onProgress(double progress) {
+                                            callback.onFileProgress(processedFiles[0], totalFiles, progress);
+                                        }
+                                    }).get(30, java.util.concurrent.TimeUnit.MINUTES); // 30 dakika timeout
+                                }
                                 
                                 logger.info("Video conversion completed: {}", file.getName());
                                 
@@ -717,10 +887,67 @@ public class FFmpegService {
             }
             
             logger.info("Batch processing completed: {} files processed, {} files failed", processedFiles[0], failedFiles[0]);
-        }, executorService);
+        }, executorService));
+    }
+    
+    /**
+     * Toplu işlemde video girişinin ana hedefi, ek video formatları ve isteğe bağlı ses çıktısı
+     */
+    private CompletableFuture<Void> cokCiktiliDonustur(File file, String outputDir, VideoConversionParams primary,
+                                                      BatchSettings batchSettings, int fileIndex, int totalFiles,
+                                                      BatchProcessingCallback callback) {
+        MultiOutputJob job = new MultiOutputJob(file.getAbsolutePath()).addVideo(primary);
+        java.util.Set<String> formats = new java.util.HashSet<>();
+        formats.add(primary.getFormat().toLowerCase());
+        for (String extraFormat : batchSettings.getExtraVideoFormats()) {
+            String format = extraFormat.toLowerCase();
+            if (formats.add(format)) {
+                job.addVideo(new VideoConversionParams(
+                    primary.getInputPath(), cikisYoluOlustur(file, outputDir, format), format,
+                    format.equals("webm") ? "VP9" : primary.getCodec(),
+                    primary.getBitrate(), primary.getWidth(), primary.getHeight(), primary.getFps()));
+            }
+        }
+        if (batchSettings.isExtractAudio()) {
+            String format = batchSettings.getAudioFormat().toLowerCase();
+            job.addAudio(new AudioConversionParams(
+                primary.getInputPath(), cikisYoluOlustur(file, outputDir, format), format,
+                batchSettings.getAudioCodec(), batchSettings.getAudioBitrate(),
+                batchSettings.getAudioSampleRate(), batchSettings.getAudioChannels()));
+        }
+        
+        double duration;
+        try {
+            duration = MediaProbeCache.shared().probe(ffprobePath, file.toPath()).getDuration();
+        } catch (IOException e) {
+            duration = 0;
+        }
+        final double totalDuration = duration;
+        logger.info("Multi-output targets for {}: {}", file.getName(), job.getTargets());
+        return convertMultiOutput(job, new MultiOutputJob.Listener() {
+            @Override
+            public void onOutputProgress(int index, MultiOutputJob.Target target, double processedSeconds, long writtenBytes) {
+                if (index == 0 && totalDuration > 0) {
+                    callback.onFileProgress(fileIndex, totalFiles, Math.min(1.0, processedSeconds / totalDuration));
+                }
+            }
+            
+            @Override
+            public void onOutputCompleted(int index, MultiOutputJob.Target target, long sizeBytes) {
+                logger.info("Batch output {}/{} ready: {} ({} KB)", index + 1, job.getTargets().size(),
+                            target.getOutputPath(), sizeBytes / 1024);
+            }
+        });
     }
     
     private String cikisYoluOlustur(File inputFile, String outputDir, FileType fileType, BatchSettings batchSettings) {
+        String extension = fileType == FileType.VIDEO ? 
+            batchSettings.getVideoFormat().toLowerCase() : 
+            batchSettings.getAudioFormat().toLowerCase();
+        return cikisYoluOlustur(inputFile, outputDir, extension);
+    }
+    
+    private String cikisYoluOlustur(File inputFile, String outputDir, String extension) {
         String fileName = inputFile.getName();
         String baseName = fileName;
         if (fileName.contains(".")) {
@@ -730,9 +957,6 @@ public class FFmpegService {
         // Dosya adındaki Türkçe karakterleri temizle
         baseName = temizleDosyaAdi(baseName);
         
-        String extension = fileType == FileType.VIDEO ? 
-            batchSettings.getVideoFormat().toLowerCase() : 
-            batchSettings.getAudioFormat().toLowerCase();
         String outputFileName = baseName + "_converted." + extension;
         
         return Paths.get(outputDir, outputFileName).toString();
@@ -764,10 +988,29 @@ public class FFmpegService {
         }
     }
     
+    /**
+     * Dönüştürme işini tamamlanana kadar aktif sayar (arka plan işleri bu sırada bekler)
+     */
+    private CompletableFuture<Void> track(CompletableFuture<Void> job) {
+        activeJobs.incrementAndGet();
+        return job.whenComplete((result, error) -> activeJobs.decrementAndGet());
+    }
+    
+    /**
+     * Kuyrukta bekleyen ya da çalışan kullanıcı dönüştürmelerinin sayısı
+     */
+    public int getActiveJobCount() {
+        return activeJobs.get();
+    }
+    
     public String getFfmpegPath() {
         return ffmpegPath;
     }
     
+    public String getFfprobePath() {
+        return ffprobePath;
+    }
+    
     public void setFfmpegPath(String ffmpegPath) {
         this.ffmpegPath = ffmpegPath;
         initializeFFmpeg();
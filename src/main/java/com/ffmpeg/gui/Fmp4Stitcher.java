@@ -0,0 +1,613 @@
+package com.ffmpeg.gui;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fragmented MP4 segmentlerini FFmpeg çalıştırmadan tek dosyada birleştirir.
+ *
+ * Kayıt segmentleri "+frag_keyframe+empty_moov+default_base_moof" ile yazılır: her dosya bir
+ * ftyp/moov init'i ve ardından moof+mdat çiftlerinden oluşur, trun veri ofsetleri kendi moof'una
+ * göredir. Bu yüzden birleştirme box seviyesinde yapılabilir: ilk segmentin init'i bir kez yazılır,
+ * her moof'un sıra numarası (mfhd) ve başlangıç zamanı (tfdt) yeniden yazılır, mdat içerikleri
+ * {@link FileChannel#transferTo} ile kopyalanmadan çıkışa aktarılır.
+ *
+ * Track yapısı (track ID, timescale) segmentler arasında farklıysa ya da bir traf veri ofsetlerini
+ * moof'a göre değil dosyaya göre veriyorsa (tfhd base-data-offset, default-base-is-moof yok)
+ * {@link IOException} fırlatılır; çağıran FFmpeg ile birleştirmeye dönmelidir.
+ */
+public class Fmp4Stitcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(Fmp4Stitcher.class);
+
+    /**
+     * Birleştirme özeti
+     */
+    public static class Result {
+        private final int segmentCount;
+        private final int fragmentCount;
+        private final long bytesWritten;
+        private final double durationSeconds;
+
+        Result(int segmentCount, int fragmentCount, long bytesWritten, double durationSeconds) {
+            this.segmentCount = segmentCount;
+            this.fragmentCount = fragmentCount;
+            this.bytesWritten = bytesWritten;
+            this.durationSeconds = durationSeconds;
+        }
+
+        public int getSegmentCount() { return segmentCount; }
+        public int getFragmentCount() { return fragmentCount; }
+        public long getBytesWritten() { return bytesWritten; }
+        public double getDurationSeconds() { return durationSeconds; }
+    }
+
+    /**
+     * Tek segmentin yerleşimi ve zamanlaması - paketleme için (içerik kopyalanmaz)
+     */
+    public static class Layout {
+        private final long initLength;
+        private final long mediaEnd;
+        private final long timescale;
+        private final long firstDecodeTime;
+        private final long endDecodeTime;
+
+        Layout(long initLength, long mediaEnd, long timescale, long firstDecodeTime, long endDecodeTime) {
+            this.initLength = initLength;
+            this.mediaEnd = mediaEnd;
+            this.timescale = timescale;
+            this.firstDecodeTime = firstDecodeTime;
+            this.endDecodeTime = endDecodeTime;
+        }
+
+        /** ftyp+moov'un byte uzunluğu - ilk moof bu ofsette başlar */
+        public long getInitLength() { return initLength; }
+        /** Son mdat'ın bittiği ofset */
+        public long getMediaEnd() { return mediaEnd; }
+        /** Referans (ilk) track'in timescale'i */
+        public long getTimescale() { return timescale; }
+        public long getFirstDecodeTime() { return firstDecodeTime; }
+        public long getEndDecodeTime() { return endDecodeTime; }
+        public double getStartSeconds() { return firstDecodeTime / (double) timescale; }
+        public double getDurationSeconds() { return (endDecodeTime - firstDecodeTime) / (double) timescale; }
+    }
+
+    /**
+     * Segmentin init/medya sınırlarını ve referans track zamanlarını okur
+     */
+    public static Layout readLayout(Path path) throws IOException {
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+            Segment segment = parseSegment(path, in);
+            if (segment.boxes.isEmpty() || segment.boxes.get(0).moof == null) {
+                throw new IOException(path.getFileName() + " has no fragments");
+            }
+            long initLength = segment.boxes.get(0).position;
+            if (segment.ftyp.position != 0 || segment.moov.position + segment.moov.size > initLength) {
+                throw new IOException(path.getFileName() + " init is not contiguous at the start of the file");
+            }
+            Box last = segment.boxes.get(segment.boxes.size() - 1);
+            int referenceId = segment.tracks.keySet().iterator().next();
+            return new Layout(initLength, last.position + last.size, segment.tracks.get(referenceId).timescale,
+                              segment.firstDecodeTime.getOrDefault(referenceId, 0L),
+                              segment.endDecodeTime.getOrDefault(referenceId, 0L));
+        }
+    }
+
+    /**
+     * moov'dan okunan track bilgisi
+     */
+    private static class Track {
+        long timescale;
+        long defaultSampleDuration;
+    }
+
+    /**
+     * Bir moof içindeki traf - tfdt yeniden yazılacak konum ve fragmanın süresi
+     */
+    private static class Fragment {
+        int trackId;
+        int tfhdFlags = -1;
+        int tfdtOffset = -1; // moof buffer'ı içinde, tfdt gövdesinin (version/flags sonrası) başı
+        boolean tfdtVersion1;
+        long baseDecodeTime;
+        long duration;
+    }
+
+    /**
+     * Segmentteki top-level box: moof ise bellekte, mdat ise dosyadaki konumu
+     */
+    private static class Box {
+        final String type;
+        final long position;
+        final long size;
+        final int headerSize;
+        ByteBuffer moof;
+        int mfhdOffset = -1;
+        final List<Fragment> fragments = new ArrayList<>();
+
+        Box(String type, long position, long size, int headerSize) {
+            this.type = type;
+            this.position = position;
+            this.size = size;
+            this.headerSize = headerSize;
+        }
+    }
+
+    private static class Segment {
+        final Path path;
+        Box ftyp;
+        Box moov;
+        final Map<Integer, Track> tracks = new LinkedHashMap<>();
+        final List<Box> boxes = new ArrayList<>();
+        final Map<Integer, Long> firstDecodeTime = new LinkedHashMap<>();
+        final Map<Integer, Long> endDecodeTime = new LinkedHashMap<>();
+
+        Segment(Path path) {
+            this.path = path;
+        }
+    }
+
+    /**
+     * Segmentleri sırayla birleştirir. Çıkış dosyası varsa üzerine yazılır.
+     */
+    public Result stitch(List<Path> segments, Path output) throws IOException {
+        if (segments.isEmpty()) {
+            throw new IOException("No segments to stitch");
+        }
+
+        Segment first = null;
+        Map<Integer, Long> cursor = new LinkedHashMap<>();
+        int sequence = 1;
+        int fragments = 0;
+        long written = 0;
+
+        try (FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Path path : segments) {
+                try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+                    Segment segment = parseSegment(path, in);
+                    if (first == null) {
+                        first = segment;
+                        written += transfer(in, segment.ftyp.position, segment.ftyp.size, out);
+                        written += transfer(in, segment.moov.position, segment.moov.size, out);
+                    } else {
+                        checkCompatible(first, segment);
+                    }
+
+                    Map<Integer, Long> shifts = computeShifts(first, segment, cursor);
+                    for (Box box : segment.boxes) {
+                        if (box.moof != null) {
+                            rewriteMoof(box, sequence++, shifts, segment.path);
+                            written += writeFully(box.moof, out);
+                            fragments++;
+                        } else {
+                            written += transferMdat(in, box, out);
+                        }
+                    }
+                    for (Map.Entry<Integer, Long> end : segment.endDecodeTime.entrySet()) {
+                        cursor.put(end.getKey(), end.getValue() + shifts.getOrDefault(end.getKey(), 0L));
+                    }
+                }
+            }
+        }
+
+        double duration = 0;
+        for (Map.Entry<Integer, Long> end : cursor.entrySet()) {
+            Track track = first.tracks.get(end.getKey());
+            long start = first.firstDecodeTime.getOrDefault(end.getKey(), 0L);
+            duration = Math.max(duration, (end.getValue() - start) / (double) track.timescale);
+        }
+        logger.info("Stitched {} segments ({} fragments, {} bytes) into {}", segments.size(), fragments, written, output);
+        return new Result(segments.size(), fragments, written, duration);
+    }
+
+    /**
+     * Segmentin zaman kaydırması: referans track (moov'daki ilk track) bir önceki segmentin bittiği
+     * yerden devam eder, diğer tracklar aynı süre kadar kaydırılır (A/V ofseti korunur).
+     * Zamanlar zaten süreklilik içindeyse kaydırma 0'dır.
+     */
+    private static Map<Integer, Long> computeShifts(Segment first, Segment segment, Map<Integer, Long> cursor) {
+        Map<Integer, Long> shifts = new LinkedHashMap<>();
+        if (cursor.isEmpty()) {
+            return shifts;
+        }
+        int referenceId = first.tracks.keySet().iterator().next();
+        Long referenceStart = segment.firstDecodeTime.get(referenceId);
+        Long referenceCursor = cursor.get(referenceId);
+        if (referenceStart == null || referenceCursor == null) {
+            return shifts;
+        }
+        long referenceShift = referenceCursor - referenceStart;
+        double shiftSeconds = referenceShift / (double) first.tracks.get(referenceId).timescale;
+        for (Map.Entry<Integer, Track> track : first.tracks.entrySet()) {
+            shifts.put(track.getKey(), track.getKey() == referenceId
+                ? referenceShift
+                : Math.round(shiftSeconds * track.getValue().timescale));
+        }
+        return shifts;
+    }
+
+    private static void checkCompatible(Segment first, Segment segment) throws IOException {
+        if (!first.tracks.keySet().equals(segment.tracks.keySet())) {
+            throw new IOException(segment.path.getFileName() + " has tracks " + segment.tracks.keySet()
+                                  + ", expected " + first.tracks.keySet());
+        }
+        for (Map.Entry<Integer, Track> track : first.tracks.entrySet()) {
+            if (segment.tracks.get(track.getKey()).timescale != track.getValue().timescale) {
+                throw new IOException(segment.path.getFileName() + " track " + track.getKey() + " timescale differs");
+            }
+        }
+    }
+
+    private static void rewriteMoof(Box box, int sequence, Map<Integer, Long> shifts, Path path) throws IOException {
+        ByteBuffer moof = box.moof;
+        if (box.mfhdOffset >= 0) {
+            moof.putInt(box.mfhdOffset, sequence);
+        }
+        for (Fragment fragment : box.fragments) {
+            if (fragment.tfdtOffset < 0) {
+                continue;
+            }
+            long time = fragment.baseDecodeTime + shifts.getOrDefault(fragment.trackId, 0L);
+            if (time < 0) {
+                throw new IOException("Negative decode time in " + path.getFileName());
+            }
+            if (fragment.tfdtVersion1) {
+                moof.putLong(fragment.tfdtOffset, time);
+            } else if (time > 0xFFFFFFFFL) {
+                throw new IOException("Decode time overflows 32-bit tfdt in " + path.getFileName());
+            } else {
+                moof.putInt(fragment.tfdtOffset, (int) time);
+            }
+        }
+        moof.rewind();
+    }
+
+    // ========================== OKUMA ==========================
+
+    private static Segment parseSegment(Path path, FileChannel in) throws IOException {
+        Segment segment = new Segment(path);
+        long fileSize = in.size();
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(16);
+
+        while (position + 8 <= fileSize) {
+            header.clear().limit(8);
+            readFully(in, header, position);
+            long size = header.getInt(0) & 0xFFFFFFFFL;
+            String type = fourCC(header, 4);
+            int headerSize = 8;
+            if (size == 1) {
+                header.clear().limit(8);
+                readFully(in, header, position + 8);
+                size = header.getLong(0);
+                headerSize = 16;
+            } else if (size == 0) {
+                size = fileSize - position;
+            }
+            if (size < headerSize || position + size > fileSize) {
+                // Yarım yazılmış son box (ör. kapanmamış segment) - kalanı atla
+                logger.warn("Truncated {} box at {} in {}", type, position, path.getFileName());
+                break;
+            }
+
+            Box box = new Box(type, position, size, headerSize);
+            switch (type) {
+                case "ftyp":
+                    segment.ftyp = box;
+                    break;
+                case "moov":
+                    segment.moov = box;
+                    parseMoov(readBox(in, box), headerSize, segment);
+                    break;
+                case "moof":
+                    box.moof = readBox(in, box);
+                    parseMoof(box, segment);
+                    segment.boxes.add(box);
+                    break;
+                case "mdat":
+                    segment.boxes.add(box);
+                    break;
+                default:
+                    // sidx, mfra, free... birleşik dosyada geçersiz ofsetler içerir
+                    break;
+            }
+            position += size;
+        }
+        dropIncompleteFragments(segment);
+
+        if (segment.ftyp == null || segment.moov == null) {
+            throw new IOException(path.getFileName() + " is not a fragmented MP4 (missing ftyp/moov)");
+        }
+        if (segment.tracks.isEmpty()) {
+            throw new IOException(path.getFileName() + " has no tracks");
+        }
+        return segment;
+    }
+
+    private static ByteBuffer readBox(FileChannel in, Box box) throws IOException {
+        if (box.size > Integer.MAX_VALUE) {
+            throw new IOException(box.type + " box too large: " + box.size);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) box.size);
+        readFully(in, buffer, box.position);
+        buffer.flip();
+        return buffer;
+    }
+
+    private static void parseMoov(ByteBuffer moov, int headerSize, Segment segment) {
+        Map<Integer, Long> trexDurations = new LinkedHashMap<>();
+        walk(moov, headerSize, moov.limit(), (type, start, end) -> {
+            switch (type) {
+                case "trak":
+                    parseTrak(moov, start, end, segment);
+                    return false;
+                case "mvex":
+                    return true;
+                case "trex":
+                    trexDurations.put(moov.getInt(start + 4), moov.getInt(start + 12) & 0xFFFFFFFFL);
+                    return false;
+                default:
+                    return false;
+            }
+        });
+        for (Map.Entry<Integer, Long> trex : trexDurations.entrySet()) {
+            Track track = segment.tracks.get(trex.getKey());
+            if (track != null) {
+                track.defaultSampleDuration = trex.getValue();
+            }
+        }
+    }
+
+    private static void parseTrak(ByteBuffer moov, int trakStart, int trakEnd, Segment segment) {
+        int[] trackId = {-1};
+        long[] timescale = {0};
+        walk(moov, trakStart, trakEnd, (type, start, end) -> {
+            switch (type) {
+                case "tkhd": {
+                    boolean v1 = moov.get(start) == 1;
+                    trackId[0] = moov.getInt(start + (v1 ? 20 : 12));
+                    return false;
+                }
+                case "mdia":
+                    return true;
+                case "mdhd": {
+                    boolean v1 = moov.get(start) == 1;
+                    timescale[0] = moov.getInt(start + (v1 ? 20 : 12)) & 0xFFFFFFFFL;
+                    return false;
+                }
+                default:
+                    return false;
+            }
+        });
+        if (trackId[0] >= 0 && timescale[0] > 0) {
+            Track track = new Track();
+            track.timescale = timescale[0];
+            segment.tracks.put(trackId[0], track);
+        }
+    }
+
+    private static void parseMoof(Box box, Segment segment) throws IOException {
+        ByteBuffer moof = box.moof;
+        List<IOException> errors = new ArrayList<>();
+        walk(moof, box.headerSize, moof.limit(), (type, start, end) -> {
+            if (type.equals("mfhd")) {
+                box.mfhdOffset = start + 4;
+            } else if (type.equals("traf")) {
+                try {
+                    box.fragments.add(parseTraf(moof, start, end, segment));
+                } catch (IOException e) {
+                    errors.add(e);
+                }
+            }
+            return false;
+        });
+        if (!errors.isEmpty()) {
+            throw errors.get(0);
+        }
+    }
+
+    /**
+     * Arkasında tam bir mdat olmayan moof'ları atar (ör. yazılırken kesilmiş son fragman) ve
+     * zamanları yalnızca kalan fragmanlardan hesaplar
+     */
+    private static void dropIncompleteFragments(Segment segment) {
+        List<Box> kept = new ArrayList<>();
+        for (int i = 0; i < segment.boxes.size(); i++) {
+            Box box = segment.boxes.get(i);
+            if (box.moof != null) {
+                boolean hasMdat = i + 1 < segment.boxes.size() && segment.boxes.get(i + 1).moof == null;
+                if (!hasMdat) {
+                    logger.warn("Dropping moof at {} without a complete mdat in {}", box.position,
+                                segment.path.getFileName());
+                    continue;
+                }
+                for (Fragment fragment : box.fragments) {
+                    segment.firstDecodeTime.putIfAbsent(fragment.trackId, fragment.baseDecodeTime);
+                    long end = fragment.baseDecodeTime + fragment.duration;
+                    segment.endDecodeTime.merge(fragment.trackId, end, Math::max);
+                }
+            }
+            kept.add(box);
+        }
+        segment.boxes.clear();
+        segment.boxes.addAll(kept);
+    }
+
+    private static Fragment parseTraf(ByteBuffer moof, int trafStart, int trafEnd, Segment segment) throws IOException {
+        Fragment fragment = new Fragment();
+        long[] defaultDuration = {-1};
+        List<int[]> truns = new ArrayList<>();
+
+        walk(moof, trafStart, trafEnd, (type, start, end) -> {
+            switch (type) {
+                case "tfhd": {
+                    int flags = moof.getInt(start) & 0xFFFFFF;
+                    fragment.tfhdFlags = flags;
+                    fragment.trackId = moof.getInt(start + 4);
+                    int offset = start + 8;
+                    if ((flags & 0x01) != 0) offset += 8; // base_data_offset
+                    if ((flags & 0x02) != 0) offset += 4; // sample_description_index
+                    if ((flags & 0x08) != 0) {
+                        defaultDuration[0] = moof.getInt(offset) & 0xFFFFFFFFL;
+                    }
+                    break;
+                }
+                case "tfdt":
+                    fragment.tfdtVersion1 = moof.get(start) == 1;
+                    fragment.tfdtOffset = start + 4;
+                    fragment.baseDecodeTime = fragment.tfdtVersion1
+                        ? moof.getLong(start + 4)
+                        : moof.getInt(start + 4) & 0xFFFFFFFFL;
+                    break;
+                case "trun":
+                    truns.add(new int[] {start, end});
+                    break;
+                default:
+                    break;
+            }
+            return false;
+        });
+
+        Track track = segment.tracks.get(fragment.trackId);
+        if (track == null) {
+            throw new IOException("Fragment references unknown track " + fragment.trackId);
+        }
+        if (fragment.tfdtOffset < 0) {
+            throw new IOException("Fragment of track " + fragment.trackId + " has no tfdt");
+        }
+        // trun ofsetleri moof'a göre değilse moof'u taşımak veri ofsetlerini bozar
+        if ((fragment.tfhdFlags & 0x01) != 0) {
+            throw new IOException("Fragment of track " + fragment.trackId + " uses an explicit base-data-offset");
+        }
+        if ((fragment.tfhdFlags & 0x020000) == 0) {
+            throw new IOException("Fragment of track " + fragment.trackId + " is not default-base-is-moof");
+        }
+        long sampleDuration = defaultDuration[0] >= 0 ? defaultDuration[0] : track.defaultSampleDuration;
+        for (int[] trun : truns) {
+            fragment.duration += trunDuration(moof, trun[0], sampleDuration);
+        }
+        return fragment;
+    }
+
+    private static long trunDuration(ByteBuffer moof, int start, long defaultDuration) {
+        int flags = moof.getInt(start) & 0xFFFFFF;
+        int count = moof.getInt(start + 4);
+        if ((flags & 0x100) == 0) {
+            return count * defaultDuration;
+        }
+        int offset = start + 8;
+        if ((flags & 0x01) != 0) offset += 4; // data_offset
+        if ((flags & 0x04) != 0) offset += 4; // first_sample_flags
+        int stride = 4;
+        if ((flags & 0x200) != 0) stride += 4;
+        if ((flags & 0x400) != 0) stride += 4;
+        if ((flags & 0x800) != 0) stride += 4;
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            total += moof.getInt(offset + i * stride) & 0xFFFFFFFFL;
+        }
+        return total;
+    }
+
+    /**
+     * Çocuk box'ları dolaşır; visitor true dönerse box'ın içine inilir.
+     * start/end gövdenin (header sonrası) sınırlarıdır.
+     */
+    private interface BoxVisitor {
+        boolean visit(String type, int start, int end);
+    }
+
+    private static void walk(ByteBuffer buffer, int from, int to, BoxVisitor visitor) {
+        int position = from;
+        while (position + 8 <= to) {
+            long size = buffer.getInt(position) & 0xFFFFFFFFL;
+            String type = fourCC(buffer, position + 4);
+            int headerSize = 8;
+            if (size == 1) {
+                size = buffer.getLong(position + 8);
+                headerSize = 16;
+            } else if (size == 0) {
+                size = to - position;
+            }
+            if (size < headerSize || position + size > to) {
+                return;
+            }
+            int start = position + headerSize;
+            int end = (int) (position + size);
+            if (visitor.visit(type, start, end)) {
+                walk(buffer, start, end, visitor);
+            }
+            position = end;
+        }
+    }
+
+    private static String fourCC(ByteBuffer buffer, int offset) {
+        char[] chars = new char[4];
+        for (int i = 0; i < 4; i++) {
+            chars[i] = (char) (buffer.get(offset + i) & 0xFF);
+        }
+        return new String(chars);
+    }
+
+    // ========================== YAZMA ==========================
+
+    private static long transferMdat(FileChannel in, Box box, FileChannel out) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(box.headerSize);
+        readFully(in, header, box.position);
+        header.flip();
+        if (header.getInt(0) == 0) {
+            // "Dosya sonuna kadar" mdat'ı birleşik dosyada açık boyutla yaz (header boyu değişmez)
+            if (box.size > 0xFFFFFFFFL) {
+                throw new IOException("mdat too large for 32-bit size");
+            }
+            header.putInt(0, (int) box.size);
+        }
+        long written = writeFully(header, out);
+        return written + transfer(in, box.position + box.headerSize, box.size - box.headerSize, out);
+    }
+
+    /**
+     * Kernel seviyesinde kopyalama - içerik Java heap'ine okunmaz
+     */
+    private static long transfer(FileChannel in, long position, long count, FileChannel out) throws IOException {
+        long done = 0;
+        while (done < count) {
+            long transferred = in.transferTo(position + done, count - done, out);
+            if (transferred <= 0) {
+                throw new IOException("Unexpected end of file while copying");
+            }
+            done += transferred;
+        }
+        return done;
+    }
+
+    private static long writeFully(ByteBuffer buffer, FileChannel out) throws IOException {
+        long written = 0;
+        while (buffer.hasRemaining()) {
+            written += out.write(buffer);
+        }
+        return written;
+    }
+
+    private static void readFully(FileChannel in, ByteBuffer buffer, long position) throws IOException {
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            int read = in.read(buffer, offset);
+            if (read < 0) {
+                throw new IOException("Unexpected end of file");
+            }
+            offset += read;
+        }
+    }
+}
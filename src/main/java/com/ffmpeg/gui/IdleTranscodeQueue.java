@@ -0,0 +1,488 @@
+package com.ffmpeg.gui;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Bitmiş kayıtları (kapanan segmentler ya da oturumlar) makine boştayken arşiv profiline yeniden
+ * encode eden arka plan kuyruğu.
+ *
+ * Kayıt hızlı ve verimsiz bir encode ile yapılır; arşiv kopyası yavaş preset ile çok daha küçük olur.
+ * İş birimi tek dosyadır: kesilen iş baştan alınır ama en fazla bir segmentlik emek kaybolur.
+ * Bir iş yalnızca şu koşullarda başlar: kayıt ya da kullanıcı dönüştürmesi yok, sistem yükü eşiğin
+ * altında ve saat izin verilen aralıkta. Çalışırken koşullar her çeyrek saniyede yeniden kontrol edilir;
+ * bozulursa FFmpeg hemen durdurulur ve iş kuyruğun başına geri konur.
+ *
+ * Arşiv kopyası önce geçici dosyaya yazılır, süresi ffprobe ile kaynakla karşılaştırılarak doğrulanır
+ * ve ancak ondan sonra yerine taşınır. Kaynak dosya varsayılan olarak hiç silinmez.
+ */
+public class IdleTranscodeQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdleTranscodeQueue.class);
+
+    private static final long CHECK_INTERVAL_MS = 250;
+    private static final long STOP_TIMEOUT_MS = 2000;
+    private static final int MAX_ATTEMPTS = 3;
+
+    /**
+     * Kuyruk ayarları
+     */
+    public static class Settings {
+        private final Path archiveDirectory;
+        private final LocalTime windowStart;
+        private final LocalTime windowEnd;
+        private final double maxLoadPerCore;
+        private final String preset;
+        private final int crf;
+        private final boolean replaceOriginals;
+
+        /**
+         * @param windowStart windowEnd ile aynıysa saat sınırı yok; gece yarısını geçen aralık olabilir
+         * @param maxLoadPerCore çekirdek başına yük ortalaması üst sınırı (ör. 0.5)
+         * @param replaceOriginals doğrulanan arşiv kopyasından sonra kaynak silinsin mi
+         */
+        public Settings(Path archiveDirectory, LocalTime windowStart, LocalTime windowEnd, double maxLoadPerCore,
+                        String preset, int crf, boolean replaceOriginals) {
+            this.archiveDirectory = archiveDirectory;
+            this.windowStart = windowStart;
+            this.windowEnd = windowEnd;
+            this.maxLoadPerCore = maxLoadPerCore;
+            this.preset = preset;
+            this.crf = crf;
+            this.replaceOriginals = replaceOriginals;
+        }
+
+        /**
+         * Her saatte, yük çekirdek başına 0.5'in altındayken; x264 slow, CRF 23
+         */
+        public static Settings defaults(Path archiveDirectory) {
+            return new Settings(archiveDirectory, LocalTime.MIDNIGHT, LocalTime.MIDNIGHT, 0.5, "slow", 23, false);
+        }
+
+        public Path getArchiveDirectory() { return archiveDirectory; }
+        public LocalTime getWindowStart() { return windowStart; }
+        public LocalTime getWindowEnd() { return windowEnd; }
+        public double getMaxLoadPerCore() { return maxLoadPerCore; }
+        public String getPreset() { return preset; }
+        public int getCrf() { return crf; }
+        public boolean isReplaceOriginals() { return replaceOriginals; }
+    }
+
+    /**
+     * Kuyruk olayları - kuyruk thread'inden çağrılır
+     */
+    public interface Listener {
+        void onJobCompleted(Path source, Path archive, long sourceBytes, long archiveBytes);
+        void onJobFailed(Path source, String reason);
+        void onPaused(String reason);
+    }
+
+    /**
+     * Kuyruktaki tek dosya
+     */
+    private static class Job {
+        final Path source;
+        int attempts;
+
+        Job(Path source) {
+            this.source = source;
+        }
+    }
+
+    private final String ffmpegPath;
+    private final String ffprobePath;
+    private final BooleanSupplier foregroundBusy;
+    private final Listener listener;
+    private final ScheduledExecutorService scheduler;
+    private final OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+    private volatile Settings settings;
+
+    private final Object lock = new Object();
+    private final Deque<Job> queue = new ArrayDeque<>();
+    private final Set<Path> queued = new HashSet<>();
+
+    // Sadece kuyruk thread'inden
+    private Job current;
+    private volatile Process process;
+    private Path tempOutput;
+    private String pausedReason;
+
+    private volatile long completedCount;
+    private volatile long savedBytes;
+    private volatile boolean closed;
+
+    /**
+     * @param foregroundBusy kayıt ya da kullanıcı dönüştürmesi sürüyorsa true
+     */
+    public IdleTranscodeQueue(String ffmpegPath, String ffprobePath, Settings settings, BooleanSupplier foregroundBusy,
+                              Listener listener) {
+        this.ffmpegPath = ffmpegPath;
+        this.ffprobePath = ffprobePath;
+        this.settings = settings;
+        this.foregroundBusy = foregroundBusy;
+        this.listener = listener;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "IdleTranscodeQueue");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::check, CHECK_INTERVAL_MS, CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Dosyayı kuyruğa ekler; zaten kuyruktaysa ya da arşiv kopyası varsa eklenmez
+     */
+    public boolean enqueue(Path source) {
+        Path path = source.toAbsolutePath().normalize();
+        if (Files.exists(archivePathFor(path, settings.archiveDirectory))) {
+            return false;
+        }
+        synchronized (lock) {
+            if (!queued.add(path)) {
+                return false;
+            }
+            queue.addLast(new Job(path));
+        }
+        return true;
+    }
+
+    /**
+     * Bitmiş oturumun bütün segmentlerini sırayla kuyruğa ekler
+     */
+    public int enqueueSession(SegmentManifest manifest) {
+        int added = 0;
+        for (SegmentManifest.Entry entry : manifest.getEntries()) {
+            if (enqueue(entry.getPath())) {
+                added++;
+            }
+        }
+        return added;
+    }
+
+    public void setSettings(Settings settings) {
+        this.settings = settings;
+    }
+
+    /**
+     * Kuyruk thread'inde periyodik kontrol: boşta ise sıradaki işi başlatır, değilse çalışanı durdurur
+     */
+    private void check() {
+        if (closed) {
+            return;
+        }
+        try {
+            String busy = busyReason(LocalTime.now());
+            if (process != null) {
+                if (!process.isAlive()) {
+                    finish(); // Bitmiş encode kesintiye uğratılmaz
+                } else if (busy != null) {
+                    preempt(busy);
+                }
+                return;
+            }
+            if (busy != null) {
+                return;
+            }
+            if (pausedReason != null) {
+                logger.info("Archive queue resumed");
+                pausedReason = null;
+            }
+            startNext();
+        } catch (RuntimeException e) {
+            logger.warn("Archive queue check failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Makine boşta değilse nedeni, boştaysa null
+     */
+    String busyReason(LocalTime now) {
+        if (foregroundBusy != null && foregroundBusy.getAsBoolean()) {
+            return "capture or conversion active";
+        }
+        Settings config = settings;
+        if (!inWindow(now, config.windowStart, config.windowEnd)) {
+            return "outside " + config.windowStart + "-" + config.windowEnd;
+        }
+        double load = os.getSystemLoadAverage(); // Windows'ta -1: yük sınırı uygulanamaz
+        if (process == null && load >= 0 && load / os.getAvailableProcessors() > config.maxLoadPerCore) {
+            // Kendi encode'umuz da yükü artırır - çalışırken sadece diğer koşullara bakılır
+            return String.format(java.util.Locale.ROOT, "load %.2f", load);
+        }
+        return null;
+    }
+
+    static boolean inWindow(LocalTime now, LocalTime start, LocalTime end) {
+        if (start.equals(end)) {
+            return true;
+        }
+        if (start.isBefore(end)) {
+            return !now.isBefore(start) && now.isBefore(end);
+        }
+        return !now.isBefore(start) || now.isBefore(end); // Gece yarısını geçen aralık
+    }
+
+    private void startNext() {
+        Job job;
+        synchronized (lock) {
+            job = queue.pollFirst();
+        }
+        if (job == null) {
+            return;
+        }
+        if (!Files.exists(job.source)) {
+            forget(job); // Kota ya da kullanıcı tarafından silinmiş
+            return;
+        }
+        Settings config = settings;
+        Path archive = archivePathFor(job.source, config.archiveDirectory);
+        try {
+            Files.createDirectories(archive.getParent());
+            tempOutput = archive.resolveSibling(archive.getFileName() + ".part");
+            process = new ProcessBuilder(buildCommand(ffmpegPath, job.source, tempOutput, config))
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+            current = job;
+            job.attempts++;
+            logger.info("Archiving {} ({} left in queue)", job.source.getFileName(), getQueuedCount());
+        } catch (IOException e) {
+            process = null;
+            fail(job, "Could not start ffmpeg: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Arşiv encode'u: tek dosya, video yeniden encode, ses kopyalanır. Yarı çekirdek sayısıyla sınırlı
+     * thread - kuyruk durdurulana kadar geçen kısa sürede bile makineyi tamamen doldurmaz.
+     */
+    static List<String> buildCommand(String ffmpegPath, Path source, Path output, Settings settings) {
+        List<String> command = new ArrayList<>();
+        command.add(ffmpegPath);
+        command.add("-nostdin");
+        command.add("-y");
+        command.add("-v");
+        command.add("error");
+        command.add("-i");
+        command.add(source.toString());
+        command.add("-map");
+        command.add("0:v");
+        command.add("-map");
+        command.add("0:a?");
+        command.add("-c:v");
+        command.add("libx264");
+        command.add("-preset");
+        command.add(settings.preset);
+        command.add("-crf");
+        command.add(String.valueOf(settings.crf));
+        command.add("-pix_fmt");
+        command.add("yuv420p");
+        command.add("-c:a");
+        command.add("copy");
+        command.add("-threads");
+        command.add(String.valueOf(Math.max(1, Runtime.getRuntime().availableProcessors() / 2)));
+        command.add("-movflags");
+        command.add("+faststart");
+        command.add("-f");
+        command.add("mp4");
+        command.add(output.toString());
+        return command;
+    }
+
+    /**
+     * Arşiv dosyasının yolu: "..._segment_007.ts" -> "..._segment_007_archive.mp4". Ek, arşiv klasörünün
+     * kurtarma taramasında yarım kalmış oturum sanılmasını önler.
+     */
+    static Path archivePathFor(Path source, Path archiveDirectory) {
+        String name = source.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        return archiveDirectory.resolve(base + "_archive.mp4");
+    }
+
+    /**
+     * Koşullar bozuldu - FFmpeg durdurulur, yarım çıktı silinir, iş sıranın başına döner
+     */
+    private void preempt(String reason) {
+        Job job = current;
+        stopProcess();
+        deleteTemp();
+        if (job != null) {
+            job.attempts--; // Kesinti deneme sayılmaz
+            synchronized (lock) {
+                queue.addFirst(job);
+            }
+        }
+        current = null;
+        if (!reason.equals(pausedReason)) {
+            pausedReason = reason;
+            logger.info("Archive queue paused: {}", reason);
+            if (listener != null) {
+                listener.onPaused(reason);
+            }
+        }
+    }
+
+    private void finish() {
+        Job job = current;
+        int exitCode = process.exitValue();
+        process = null;
+        current = null;
+        if (exitCode != 0) {
+            deleteTemp();
+            fail(job, "ffmpeg exited with " + exitCode);
+            return;
+        }
+        Settings config = settings;
+        Path archive = archivePathFor(job.source, config.archiveDirectory);
+        try {
+            String problem = verify(job.source, tempOutput);
+            if (problem != null) {
+                deleteTemp();
+                fail(job, problem);
+                return;
+            }
+            long sourceBytes = Files.size(job.source);
+            Files.move(tempOutput, archive, StandardCopyOption.REPLACE_EXISTING);
+            tempOutput = null;
+            long archiveBytes = Files.size(archive);
+            if (config.replaceOriginals) {
+                Files.deleteIfExists(job.source);
+            }
+            forget(job);
+            completedCount++;
+            savedBytes += sourceBytes - archiveBytes;
+            logger.info("Archived {} ({} KB -> {} KB)", job.source.getFileName(), sourceBytes / 1024, archiveBytes / 1024);
+            if (listener != null) {
+                listener.onJobCompleted(job.source, archive, sourceBytes, archiveBytes);
+            }
+        } catch (IOException e) {
+            deleteTemp();
+            fail(job, e.getMessage());
+        }
+    }
+
+    /**
+     * Arşiv kopyası kaynakla aynı süredeyse null, değilse sorun
+     */
+    private String verify(Path source, Path archive) throws IOException {
+        if (Files.size(archive) == 0) {
+            return "empty archive output";
+        }
+        MediaProbeCache cache = MediaProbeCache.shared();
+        double sourceDuration = cache.probe(ffprobePath, source).getDuration();
+        double archiveDuration = cache.probe(ffprobePath, archive).getDuration();
+        cache.invalidate(archive); // Geçici ad - taşındıktan sonra geçersiz
+        return durationsMatch(sourceDuration, archiveDuration) ? null
+            : String.format(java.util.Locale.ROOT, "duration mismatch: %.2f s vs %.2f s", sourceDuration, archiveDuration);
+    }
+
+    /**
+     * Yarım saniye ya da %2 tolerans (kısa segmentlerde kare yuvarlaması)
+     */
+    static boolean durationsMatch(double source, double archive) {
+        return source > 0 && Math.abs(source - archive) <= Math.max(0.5, source * 0.02);
+    }
+
+    private void fail(Job job, String reason) {
+        if (job.attempts < MAX_ATTEMPTS && Files.exists(job.source)) {
+            logger.info("Archiving {} failed ({}), will retry", job.source.getFileName(), reason);
+            synchronized (lock) {
+                queue.addLast(job);
+            }
+            return;
+        }
+        forget(job);
+        logger.warn("Archiving {} failed: {}", job.source.getFileName(), reason);
+        if (listener != null) {
+            listener.onJobFailed(job.source, reason);
+        }
+    }
+
+    private void forget(Job job) {
+        synchronized (lock) {
+            queued.remove(job.source);
+        }
+    }
+
+    private void stopProcess() {
+        Process running = process;
+        process = null;
+        if (running == null) {
+            return;
+        }
+        running.destroy();
+        try {
+            if (!running.waitFor(STOP_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                running.destroyForcibly();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running.destroyForcibly();
+        }
+    }
+
+    private void deleteTemp() {
+        Path temp = tempOutput;
+        tempOutput = null;
+        if (temp != null) {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException e) {
+                logger.debug("Could not delete {}: {}", temp, e.getMessage());
+            }
+        }
+    }
+
+    public int getQueuedCount() {
+        synchronized (lock) {
+            return queue.size();
+        }
+    }
+
+    public boolean isWorking() {
+        return process != null;
+    }
+
+    public long getCompletedCount() {
+        return completedCount;
+    }
+
+    /**
+     * Arşiv kopyalarının kaynaklara göre kazandırdığı toplam byte
+     */
+    public long getSavedBytes() {
+        return savedBytes;
+    }
+
+    /**
+     * Kuyruğu kapatır; çalışan encode durdurulur, kaynak dosyalara dokunulmaz
+     */
+    public void close() {
+        closed = true;
+        scheduler.execute(() -> {
+            stopProcess();
+            deleteTemp();
+        });
+        scheduler.shutdown();
+    }
+}
@@ -0,0 +1,397 @@
+package com.ffmpeg.gui;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.FileTime;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kamera oturumunun canlı HLS çıkışı: mevcut capture process'ine eklenen ikinci bir encode
+ * çıkışı (ayrı kamera process'i yok). Kısa fMP4 segmentler RAM tabanlı bir klasöre
+ * (Linux'ta /dev/shm) yazılır ve {@link LiveHlsServer} ile LAN'a sunulur.
+ *
+ * FFmpeg'in hls muxer'ı EXT-X-PART üretmez; düşük gecikme kısa (1 sn) segmentler ve
+ * sunucudaki blocking playlist reload ile sağlanır.
+ */
+public class LiveHlsOutput {
+
+    private static final Logger logger = LoggerFactory.getLogger(LiveHlsOutput.class);
+
+    static final String PLAYLIST_NAME = "index.m3u8";
+    static final double SEGMENT_SECONDS = 1.0;
+    private static final int LIST_SIZE = 6;
+    private static final int WIDTH = 960;
+    private static final int HEIGHT = 540;
+    private static final int VIDEO_BITRATE_KBPS = 1500;
+    // WatchService'in polling ile çalıştığı platformlar ve kaçan olaylar için tek stat aralığı
+    private static final long WATCH_POLL_MS = 250;
+
+    private final String name;
+    private final Path directory;
+
+    public LiveHlsOutput(String name) throws IOException {
+        this.name = name;
+        this.directory = baseDirectory().resolve("MediaShift_live").resolve(name);
+        Files.createDirectories(directory);
+        clear();
+    }
+
+    /**
+     * Cihaz adından URL'de kullanılabilir kısa ad ("USB Kamera (2)" -> "usb-kamera-2")
+     */
+    public static String streamName(String deviceName) {
+        StringBuilder sb = new StringBuilder();
+        for (char c : deviceName.toLowerCase(Locale.ROOT).toCharArray()) {
+            if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+                sb.append(c);
+            } else if (sb.length() > 0 && sb.charAt(sb.length() - 1) != '-') {
+                sb.append('-');
+            }
+        }
+        while (sb.length() > 0 && sb.charAt(sb.length() - 1) == '-') {
+            sb.setLength(sb.length() - 1);
+        }
+        return sb.length() > 0 ? sb.toString() : "camera";
+    }
+
+    /**
+     * tmpfs varsa orası - segmentler diske hiç inmez
+     */
+    private static Path baseDirectory() {
+        Path shm = Paths.get("/dev/shm");
+        if (Files.isDirectory(shm) && Files.isWritable(shm)) {
+            return shm;
+        }
+        return Paths.get(System.getProperty("java.io.tmpdir"));
+    }
+
+    /**
+     * Capture komutuna eklenecek çıkış argümanları
+     *
+     * @param fps   kaynak fps - her segment bir keyframe ile başlar
+     * @param audio kaynakta ses varsa 1:a eklenir
+     */
+    public List<String> buildOutputArguments(int fps, boolean audio) {
+        List<String> output = new ArrayList<>();
+        output.add("-map");
+        output.add("0:v");
+        output.add("-c:v");
+        output.add("libx264");
+        output.add("-preset");
+        output.add("ultrafast");
+        output.add("-tune");
+        output.add("zerolatency");
+        output.add("-pix_fmt");
+        output.add("yuv420p");
+        output.add("-vf");
+        output.add("scale=" + WIDTH + ":" + HEIGHT + ":force_original_aspect_ratio=decrease:flags=fast_bilinear");
+        output.add("-g");
+        output.add(String.valueOf(Math.max(1, (int) Math.round(fps * SEGMENT_SECONDS))));
+        output.add("-sc_threshold");
+        output.add("0");
+        output.add("-b:v");
+        output.add(VIDEO_BITRATE_KBPS + "k");
+        output.add("-maxrate");
+        output.add(VIDEO_BITRATE_KBPS + "k");
+        output.add("-bufsize");
+        output.add(VIDEO_BITRATE_KBPS + "k");
+        if (audio) {
+            output.add("-map");
+            output.add("1:a");
+            output.add("-c:a");
+            output.add("aac");
+            output.add("-b:a");
+            output.add("96k");
+        }
+        output.add("-f");
+        output.add("hls");
+        output.add("-hls_time");
+        output.add(String.format(Locale.ROOT, "%.1f", SEGMENT_SECONDS));
+        output.add("-hls_list_size");
+        output.add(String.valueOf(LIST_SIZE));
+        output.add("-hls_segment_type");
+        output.add("fmp4");
+        output.add("-hls_fmp4_init_filename");
+        output.add("init.mp4");
+        output.add("-hls_segment_filename");
+        output.add(directory.resolve("part_%06d.m4s").toString());
+        // Process yeniden başlatıldığında (kayıt başlat/durdur, kalite değişimi) liste devam eder
+        output.add("-hls_flags");
+        output.add("delete_segments+independent_segments+program_date_time+temp_file+append_list+discont_start+omit_endlist");
+        output.add("-y");
+        output.add(directory.resolve(PLAYLIST_NAME).toString());
+        return output;
+    }
+
+    /**
+     * Son segmentin bitişi ile şimdiki zaman farkı (encode + segmentleme gecikmesi).
+     * Playlist henüz yoksa -1.
+     */
+    public long estimateLatencyMillis() {
+        try {
+            List<String> lines = Files.readAllLines(directory.resolve(PLAYLIST_NAME), StandardCharsets.UTF_8);
+            return latencyMillis(lines, System.currentTimeMillis());
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Son EXT-X-PROGRAM-DATE-TIME + ardından gelen EXTINF süresi = son örneğin duvar saati
+     */
+    static long latencyMillis(List<String> playlist, long now) {
+        long lastStart = -1;
+        double lastDuration = 0;
+        for (String line : playlist) {
+            if (line.startsWith("#EXT-X-PROGRAM-DATE-TIME:")) {
+                try {
+                    lastStart = OffsetDateTime.parse(line.substring(25).trim()
+                        .replaceAll("([+-]\\d{2})(\\d{2})$", "$1:$2")).toInstant().toEpochMilli();
+                } catch (RuntimeException e) {
+                    lastStart = -1;
+                }
+            } else if (line.startsWith("#EXTINF:")) {
+                int comma = line.indexOf(',');
+                try {
+                    lastDuration = Double.parseDouble(line.substring(8, comma > 0 ? comma : line.length()));
+                } catch (NumberFormatException e) {
+                    lastDuration = 0;
+                }
+            }
+        }
+        if (lastStart < 0) {
+            return -1;
+        }
+        return Math.max(0, now - (lastStart + Math.round(lastDuration * 1000)));
+    }
+
+    /**
+     * Listedeki son segmentin sıra numarası, liste yoksa/boşsa -1
+     */
+    static long lastMediaSequence(List<String> lines) {
+        if (lines == null) {
+            return -1;
+        }
+        long first = 0;
+        int count = 0;
+        for (String line : lines) {
+            if (line.startsWith("#EXT-X-MEDIA-SEQUENCE:")) {
+                try {
+                    first = Long.parseLong(line.substring(22).trim());
+                } catch (NumberFormatException e) {
+                    first = 0;
+                }
+            } else if (line.startsWith("#EXTINF:")) {
+                count++;
+            }
+        }
+        return count == 0 ? -1 : first + count - 1;
+    }
+
+    /**
+     * Bir akış klasöründeki playlist'i izler. FFmpeg listeyi her yazdığında dosya bir kez okunur
+     * ve bekleyen blocking reload istekleri uyandırılır; istekler dosyayı kendileri yoklamaz.
+     */
+    public static class PlaylistMonitor implements Closeable {
+        private final Path directory;
+        private final Path playlist;
+
+        private List<String> lines;
+        private long lastSequence = -1;
+        private FileTime lastModified;
+        private WatchService watchService;
+        private Future<?> watchTask;
+        private boolean running = false;
+
+        public PlaylistMonitor(Path directory) {
+            this.directory = directory;
+            this.playlist = directory.resolve(PLAYLIST_NAME);
+        }
+
+        /**
+         * İzlemeyi başlatır (zaten çalışıyorsa bir şey yapmaz) ve playlist'in güncel halini okur
+         */
+        public synchronized void start(ExecutorService executor) {
+            if (running) {
+                return;
+            }
+            running = true;
+            try {
+                watchService = directory.getFileSystem().newWatchService();
+                directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            } catch (IOException e) {
+                logger.debug("Playlist watch unavailable for {}, polling: {}", directory, e.getMessage());
+                closeWatchService();
+            }
+            refresh(); // İzleme kaydından sonra - arada yazılan liste kaçmaz
+            WatchService service = watchService;
+            watchTask = executor.submit(() -> watchLoop(service));
+        }
+
+        private synchronized boolean isRunning() {
+            return running;
+        }
+
+        private void watchLoop(WatchService service) {
+            try {
+                while (isRunning()) {
+                    if (service == null) {
+                        Thread.sleep(WATCH_POLL_MS);
+                        refreshIfModified();
+                        continue;
+                    }
+                    WatchKey key = service.poll(WATCH_POLL_MS, TimeUnit.MILLISECONDS);
+                    if (key == null) {
+                        refreshIfModified();
+                        continue;
+                    }
+                    boolean changed = false;
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        // temp_file: index.m3u8.tmp yazılıp index.m3u8'e taşınır (ENTRY_CREATE)
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                                || playlist.getFileName().equals(event.context())) {
+                            changed = true;
+                        }
+                    }
+                    key.reset();
+                    if (changed) {
+                        refresh();
+                    }
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                // Kapatıldı
+            }
+        }
+
+        private void refreshIfModified() {
+            try {
+                FileTime modified = Files.getLastModifiedTime(playlist);
+                synchronized (this) {
+                    if (modified.equals(lastModified)) {
+                        return;
+                    }
+                }
+            } catch (IOException e) {
+                synchronized (this) {
+                    if (lines == null) {
+                        return;
+                    }
+                }
+            }
+            refresh();
+        }
+
+        private void refresh() {
+            List<String> read;
+            FileTime modified;
+            try {
+                modified = Files.getLastModifiedTime(playlist);
+                read = List.copyOf(Files.readAllLines(playlist, StandardCharsets.UTF_8));
+            } catch (NoSuchFileException e) {
+                read = null;
+                modified = null;
+            } catch (IOException e) {
+                logger.debug("Could not read live playlist {}: {}", playlist, e.getMessage());
+                return;
+            }
+            if (read != null && read.isEmpty()) {
+                return; // Yazılmakta olan dosya - tamamlandığında yeni olay gelir
+            }
+            synchronized (this) {
+                lines = read;
+                lastModified = modified;
+                lastSequence = lastMediaSequence(read);
+                notifyAll();
+            }
+        }
+
+        /**
+         * Son okunan playlist satırları, playlist yoksa null
+         */
+        public synchronized List<String> getLines() {
+            return lines;
+        }
+
+        /**
+         * Verilen sıra numaralı segment listeye girene kadar bekler
+         * @return o segmenti içeren playlist, süre dolduysa null
+         */
+        public synchronized List<String> awaitSequence(long sequence, long timeoutMillis) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + timeoutMillis;
+            while (lastSequence < sequence) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return null;
+                }
+                wait(remaining);
+            }
+            return lines;
+        }
+
+        public Path getDirectory() {
+            return directory;
+        }
+
+        private void closeWatchService() {
+            if (watchService != null) {
+                try {
+                    watchService.close();
+                } catch (IOException e) {
+                    logger.debug("Error closing watch service", e);
+                }
+                watchService = null;
+            }
+        }
+
+        @Override
+        public synchronized void close() {
+            running = false;
+            closeWatchService();
+            if (watchTask != null) {
+                watchTask.cancel(true);
+                watchTask = null;
+            }
+        }
+    }
+
+    /**
+     * Önceki çalıştırmalardan kalan segmentleri siler
+     */
+    public void clear() {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            logger.debug("Could not clear live directory {}: {}", directory, e.getMessage());
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+}
@@ -0,0 +1,278 @@
+package com.ffmpeg.gui;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Canlı HLS çıkışlarını LAN'a sunan gömülü HTTP sunucusu (JDK HttpServer).
+ *
+ * Yollar: /live/&lt;akış&gt;/index.m3u8, /live/&lt;akış&gt;/init.mp4, /live/&lt;akış&gt;/part_000123.m4s
+ *
+ * Playlist isteğinde "_HLS_msn=N" varsa N numaralı segment listeye girene kadar yanıt bekletilir
+ * (blocking playlist reload); istemci yeni segmenti yazıldığı anda alır, periyodik yoklama yapmaz.
+ * Bekleyen istekler {@link LiveHlsOutput.PlaylistMonitor} üzerinde uyur, playlist yazıldığında uyandırılır.
+ * Playlist önbelleğe alınmaz, segmentler değişmez olduğu için kısa süre önbelleklenebilir.
+ */
+public class LiveHlsServer {
+
+    private static final Logger logger = LoggerFactory.getLogger(LiveHlsServer.class);
+
+    private static final Pattern SAFE_NAME = Pattern.compile("[A-Za-z0-9_.-]+");
+
+    private final Map<String, LiveHlsOutput.PlaylistMonitor> streams = new ConcurrentHashMap<>();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong bytesServed = new AtomicLong();
+    private final AtomicLong blockedReloads = new AtomicLong();
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * Verilen portta dinlemeye başlar (0 = boş port)
+     */
+    public synchronized void start(int port) throws IOException {
+        if (server != null) {
+            return;
+        }
+        server = HttpServer.create(new InetSocketAddress(port), 64);
+        // Bekletilen playlist istekleri thread tutar - sabit havuz yerine cached
+        executor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "LiveHlsServer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/live/", this::handle);
+        server.start();
+        logger.info("Live HLS server listening on port {}", getPort());
+    }
+
+    public synchronized void stop() {
+        if (server != null) {
+            server.stop(0);
+            // Playlist izleme bir sonraki istekte yeniden başlar
+            for (LiveHlsOutput.PlaylistMonitor monitor : streams.values()) {
+                monitor.close();
+            }
+            executor.shutdownNow();
+            server = null;
+            executor = null;
+            logger.info("Live HLS server stopped");
+        }
+    }
+
+    public synchronized boolean isRunning() {
+        return server != null;
+    }
+
+    public synchronized int getPort() {
+        return server != null ? server.getAddress().getPort() : -1;
+    }
+
+    public void register(String name, Path directory) {
+        LiveHlsOutput.PlaylistMonitor previous = streams.put(name, new LiveHlsOutput.PlaylistMonitor(directory));
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    public void unregister(String name) {
+        LiveHlsOutput.PlaylistMonitor monitor = streams.remove(name);
+        if (monitor != null) {
+            monitor.close();
+        }
+    }
+
+    /**
+     * Playlist izlemesi ilk playlist isteğiyle başlar - izlenmeyen akış için thread tutulmaz
+     */
+    private synchronized void watch(LiveHlsOutput.PlaylistMonitor monitor) {
+        if (executor != null) {
+            monitor.start(executor);
+        }
+    }
+
+    /**
+     * Bu makinenin LAN adresiyle akış URL'i
+     */
+    public String getStreamUrl(String name) {
+        return "http://" + lanAddress() + ":" + getPort() + "/live/" + name + "/" + LiveHlsOutput.PLAYLIST_NAME;
+    }
+
+    private static String lanAddress() {
+        try {
+            for (java.net.NetworkInterface nic : java.util.Collections.list(java.net.NetworkInterface.getNetworkInterfaces())) {
+                if (!nic.isUp() || nic.isLoopback() || nic.isVirtual()) {
+                    continue;
+                }
+                for (java.net.InetAddress address : java.util.Collections.list(nic.getInetAddresses())) {
+                    if (address instanceof java.net.Inet4Address && address.isSiteLocalAddress()) {
+                        return address.getHostAddress();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            logger.debug("Could not list network interfaces: {}", e.getMessage());
+        }
+        return "localhost";
+    }
+
+    public long getRequestCount() { return requests.get(); }
+    public long getBytesServed() { return bytesServed.get(); }
+    public long getBlockedReloadCount() { return blockedReloads.get(); }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try {
+            if (!"GET".equals(exchange.getRequestMethod()) && !"HEAD".equals(exchange.getRequestMethod())) {
+                sendStatus(exchange, 405);
+                return;
+            }
+            URI uri = exchange.getRequestURI();
+            String[] parts = uri.getPath().split("/");
+            // "", "live", akış, dosya
+            if (parts.length != 4 || !SAFE_NAME.matcher(parts[3]).matches()) {
+                sendStatus(exchange, 404);
+                return;
+            }
+            LiveHlsOutput.PlaylistMonitor monitor = streams.get(parts[2]);
+            if (monitor == null) {
+                sendStatus(exchange, 404);
+                return;
+            }
+
+            String file = parts[3];
+            if (file.equals(LiveHlsOutput.PLAYLIST_NAME)) {
+                servePlaylist(exchange, monitor, parseMsn(uri.getRawQuery()));
+            } else if (file.endsWith(".m4s") || file.endsWith(".mp4")) {
+                serveFile(exchange, monitor.getDirectory().resolve(file), file.endsWith(".m4s") ? "video/iso.segment" : "video/mp4");
+            } else {
+                sendStatus(exchange, 404);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            sendStatus(exchange, 503);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void servePlaylist(HttpExchange exchange, LiveHlsOutput.PlaylistMonitor monitor, long requestedMsn)
+            throws IOException, InterruptedException {
+        watch(monitor);
+        List<String> lines = monitor.getLines();
+        if (requestedMsn >= 0) {
+            long lastMsn = LiveHlsOutput.lastMediaSequence(lines);
+            // Spesifikasyon: iki segmentten daha ilerisi istenirse bekletilmez
+            if (lastMsn >= 0 && requestedMsn > lastMsn + 2) {
+                sendStatus(exchange, 400);
+                return;
+            }
+            if (lastMsn < requestedMsn) {
+                blockedReloads.incrementAndGet();
+                lines = monitor.awaitSequence(requestedMsn, Math.round(LiveHlsOutput.SEGMENT_SECONDS * 3000));
+                if (lines == null) {
+                    sendStatus(exchange, 503);
+                    return;
+                }
+            }
+        }
+        if (lines == null) {
+            sendStatus(exchange, 404);
+            return;
+        }
+
+        byte[] body = withServerControl(lines).getBytes(StandardCharsets.UTF_8);
+        Headers headers = exchange.getResponseHeaders();
+        headers.set("Content-Type", "application/vnd.apple.mpegurl");
+        headers.set("Cache-Control", "no-cache, no-store");
+        headers.set("Access-Control-Allow-Origin", "*");
+        sendBody(exchange, body);
+    }
+
+    private void serveFile(HttpExchange exchange, Path file, String contentType) throws IOException {
+        byte[] body;
+        try {
+            body = Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            sendStatus(exchange, 404); // delete_segments ile listeden düşmüş
+            return;
+        }
+        Headers headers = exchange.getResponseHeaders();
+        headers.set("Content-Type", contentType);
+        // Segment adı tekrar kullanılmaz - içerik değişmez
+        headers.set("Cache-Control", "public, max-age=60, immutable");
+        headers.set("Access-Control-Allow-Origin", "*");
+        sendBody(exchange, body);
+    }
+
+    private void sendBody(HttpExchange exchange, byte[] body) throws IOException {
+        boolean head = "HEAD".equals(exchange.getRequestMethod());
+        exchange.sendResponseHeaders(200, head ? -1 : body.length);
+        if (!head) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+            bytesServed.addAndGet(body.length);
+        }
+    }
+
+    private static void sendStatus(HttpExchange exchange, int status) throws IOException {
+        exchange.sendResponseHeaders(status, -1);
+    }
+
+    static long parseMsn(String query) {
+        if (query == null) {
+            return -1;
+        }
+        for (String parameter : query.split("&")) {
+            if (parameter.startsWith("_HLS_msn=")) {
+                try {
+                    return Long.parseLong(parameter.substring(9));
+                } catch (NumberFormatException e) {
+                    return -1;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * İstemcilere blocking reload desteğini bildirir
+     */
+    static String withServerControl(List<String> lines) {
+        StringBuilder sb = new StringBuilder();
+        for (String line : lines) {
+            sb.append(line).append('\n');
+            if (line.startsWith("#EXT-X-TARGETDURATION:")) {
+                double target;
+                try {
+                    target = Double.parseDouble(line.substring(22).trim());
+                } catch (NumberFormatException e) {
+                    target = LiveHlsOutput.SEGMENT_SECONDS;
+                }
+                sb.append(String.format(java.util.Locale.ROOT, "#EXT-X-SERVER-CONTROL:CAN-BLOCK-RELOAD=YES,HOLD-BACK=%.1f",
+                                        target * 3)).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+}
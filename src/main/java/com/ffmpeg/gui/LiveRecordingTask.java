@@ -27,11 +27,23 @@ import java.util.concurrent.atomic.AtomicLong;
 public class LiveRecordingTask extends Task<Void> {
     
     private static final Logger logger = LoggerFactory.getLogger(LiveRecordingTask.class);
+    private static final String SEGMENT_LIST_FILE = "segments.csv";
+    private static final String MANIFEST_FILE = "manifest.csv";
+    
+    // Segment listesi izleyicileri için paylaşılan daemon thread havuzu
+    private static final java.util.concurrent.ExecutorService SEGMENT_EVENTS =
+        java.util.concurrent.Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "SegmentWatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
     
     private final String cameraDevice;
     private final String outputDirectory;
     private final LiveRecordingParams params;
     private final RecordingCallback callback;
+    private final CaptureSource captureSource;
+    private final EncoderTelemetry telemetry;
     
     private Process ffmpegProcess;
     private Process ffmpegSegmentProcess; // Segment yazımı için ayrı process
@@ -43,6 +55,9 @@ public class LiveRecordingTask extends Task<Void> {
     
     private final List<VideoSegment> recordedSegments = new ArrayList<>();
     private final Set<String> processedSegmentFiles = new HashSet<>(); // Yeni tracking
+    private SegmentWatcher segmentWatcher;
+    private volatile SegmentManifest segmentManifest;
+    private volatile SegmentRetention retention;
     private int currentSegmentIndex = 0;
     private String currentSegmentPath;
     private long segmentStartTime = 0;
@@ -135,6 +150,8 @@ public class LiveRecordingTask extends Task<Void> {
         this.outputDirectory = outputDirectory;
         this.params = params;
         this.callback = callback;
+        this.captureSource = CaptureSource.forDevice(cameraDevice);
+        this.telemetry = new EncoderTelemetry(cameraDevice, params.getFps());
         
         // Segment tracking Setini temizle - yeni kayıt için
         this.processedSegmentFiles.clear();
@@ -147,11 +164,12 @@ public class LiveRecordingTask extends Task<Void> {
             startRecording();
             
             // HLS segmentation ile tek FFmpeg process - kamera donması önlenir
+            startSegmentWatcher();
             startContinuousRecording();
             
-            // Segment izleme döngüsü - dosya sistemi izlemesi
-            long lastSegmentCheck = System.currentTimeMillis();
-            int consecutiveEmptyChecks = 0;
+            // Segmentler SegmentWatcher olaylarıyla gelir - döngü sadece process ve süre takibi yapar
+            long lastSegmentTime = System.currentTimeMillis();
+            int lastSegmentCount = 0;
             
             while (isRecording.get() && !isCancelled()) {
                 // Cancellation kontrolü
@@ -169,26 +187,18 @@ public class LiveRecordingTask extends Task<Void> {
                     break;
                 }
                 
-                // Segment kontrolü - daha seyrek aralıklarla
+                // Çok uzun süre segment kapanmamışsa uyarı
                 long currentTime = System.currentTimeMillis();
-                if (currentTime - lastSegmentCheck > 5000) { // 5 saniyede bir kontrol (daha az sıklık)
-                    int segmentsBefore = recordedSegments.size();
-                    checkForNewSegments();
-                    int segmentsAfter = recordedSegments.size();
-                    
-                    if (segmentsBefore == segmentsAfter) {
-                        consecutiveEmptyChecks++;
-                    } else {
-                        consecutiveEmptyChecks = 0;
-                    }
-                    
-                    // Çok uzun süre segment oluşmamışsa uyarı
-                    if (consecutiveEmptyChecks > 10) { // 50 saniye segment yok
-                        logger.warn("No new segments created for 50 seconds");
-                        consecutiveEmptyChecks = 0; // Reset to avoid spam
-                    }
-                    
-                    lastSegmentCheck = currentTime;
+                int segmentCount;
+                synchronized (recordedSegments) {
+                    segmentCount = recordedSegments.size();
+                }
+                if (segmentCount != lastSegmentCount) {
+                    lastSegmentCount = segmentCount;
+                    lastSegmentTime = currentTime;
+                } else if (currentTime - lastSegmentTime > 50000) { // 50 saniye segment yok
+                    logger.warn("No new segments created for 50 seconds");
+                    lastSegmentTime = currentTime; // Reset to avoid spam
                 }
                 
                 // Zaman güncellemesi
@@ -225,7 +235,7 @@ public class LiveRecordingTask extends Task<Void> {
                 Files.createDirectories(outputPath);
             }
             
-            // ESKİ SEGMENT DOSYALARINI TEMİZLE - segment explosionı önler
+            // Önceki kaydın segmentlerini kenara al - aynı adlar yeniden kullanılacak
             cleanupOldSegmentFiles(outputPath);
             
             isRecording.set(true);
@@ -244,36 +254,41 @@ public class LiveRecordingTask extends Task<Void> {
     }
     
     /**
-     * Eski segment dosyalarını temizler - segment explosionı önler
+     * Önceki kaydın segmentlerini ve manifestosunu "previous_<zaman>" alt klasörüne taşır.
+     * Silinmezler: kayıt çökmüşse {@link SessionRecovery} oradan kurtarabilir.
      */
     private void cleanupOldSegmentFiles(Path outputPath) {
         try {
-            logger.info("Cleaning up old segment files before starting new recording...");
-            
-            int deletedCount = 0;
-            if (Files.exists(outputPath)) {
-                List<Path> oldSegments = Files.list(outputPath)
-                    .filter(path -> path.toString().endsWith(".mp4"))
-                    .filter(path -> path.getFileName().toString().contains("segment_"))
+            List<Path> oldFiles;
+            try (java.util.stream.Stream<Path> files = Files.list(outputPath)) {
+                oldFiles = files
+                    .filter(path -> {
+                        String name = path.getFileName().toString();
+                        return (name.startsWith("segment_") && name.endsWith(".mp4")) || name.equals(MANIFEST_FILE);
+                    })
                     .collect(Collectors.toList());
-                
-                for (Path oldSegment : oldSegments) {
+            }
+            
+            if (!oldFiles.isEmpty()) {
+                Path previous = outputPath.resolve("previous_" + LocalDateTime.now().format(
+                    java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")));
+                Files.createDirectories(previous);
+                int movedCount = 0;
+                for (Path oldFile : oldFiles) {
                     try {
-                        Files.deleteIfExists(oldSegment);
-                        deletedCount++;
-                        logger.debug("Deleted old segment: {}", oldSegment.getFileName());
-                    } catch (Exception e) {
-                        logger.warn("Failed to delete old segment: {}", oldSegment.getFileName(), e);
+                        Files.move(oldFile, previous.resolve(oldFile.getFileName()));
+                        movedCount++;
+                    } catch (IOException e) {
+                        logger.warn("Failed to move old segment: {}", oldFile.getFileName(), e);
                     }
                 }
+                logger.info("Moved {} files of the previous recording to {}", movedCount, previous);
             }
             
             // Setleri de temizle
             processedSegmentFiles.clear();
             recordedSegments.clear();
             
-            logger.info("Cleanup completed: {} old segments deleted", deletedCount);
-            
         } catch (Exception e) {
             logger.warn("Error during segment cleanup", e);
         }
@@ -299,75 +314,38 @@ public class LiveRecordingTask extends Task<Void> {
             segmentStartTime = System.currentTimeMillis();
             
             // *** SAFE OUTPUT HANDLING - Anti-freeze ***
-            // Non-blocking reader ile FFmpeg donmasını önleme
-            BufferedReader reader = new BufferedReader(new InputStreamReader(ffmpegProcess.getInputStream()));
-            BufferedReader errorReader = new BufferedReader(new InputStreamReader(ffmpegProcess.getErrorStream()));
-            
-            // STDOUT okuma (non-blocking)
-            CompletableFuture.runAsync(() -> {
-                try {
-                    String line;
-                    while (isRecording.get() && !isCancelled()) {
-                        if (reader.ready()) { // Non-blocking check
-                            line = reader.readLine();
-                            if (line != null) {
-                                // Progress information parsing
-                                if (line.startsWith("frame=")) {
-                                    logger.debug("Progress: {}", line);
-                                } else {
-                                    logger.debug("FFmpeg: {}", line);
-                                }
-                            }
-                        } else {
-                            Thread.sleep(10); // Kısa bekleme
-                        }
-                        
-                        if (Thread.currentThread().isInterrupted()) {
-                            break;
-                        }
-                    }
-                } catch (Exception e) {
-                    if (isRecording.get() && !isCancelled()) {
-                        logger.warn("Error reading FFmpeg output", e);
-                    }
-                } finally {
-                    try { reader.close(); } catch (Exception ignored) {}
+            // İki akış ayrı thread'lerde sürekli okunur (pipe dolup FFmpeg donmasın); satırlar
+            // CaptureSession ile aynı ayrıştırıcıdan geçer, progress satırları String'e çevrilmez
+            Process process = ffmpegProcess;
+            
+            // STDOUT: -progress pipe:1 blokları
+            FFmpegProgressParser.LineHandler progressHandler = (type, line) -> {
+                if (type == FFmpegProgressParser.LineType.REPORT_END) {
+                    telemetry.completeReport(System.currentTimeMillis());
+                } else if (type == FFmpegProgressParser.LineType.OTHER && logger.isDebugEnabled()) {
+                    logger.debug("FFmpeg: {}", line.toString());
                 }
-            }, CompletableFuture.delayedExecutor(0, TimeUnit.MILLISECONDS));
+            };
+            CompletableFuture.runAsync(() -> pumpOutput(process.getInputStream(), telemetry.getParser(),
+                progressHandler, "output"), CompletableFuture.delayedExecutor(0, TimeUnit.MILLISECONDS));
             
             // STDERR okuma (hata mesajları)
-            CompletableFuture.runAsync(() -> {
-                try {
-                    String line;
-                    while (isRecording.get() && !isCancelled()) {
-                        if (errorReader.ready()) { // Non-blocking check
-                            line = errorReader.readLine();
-                            if (line != null) {
-                                // Hata tespiti
-                                if (line.toLowerCase().contains("error") || 
-                                    line.toLowerCase().contains("failed") ||
-                                    line.toLowerCase().contains("could not")) {
-                                    logger.warn("FFmpeg potential error: {}", line);
-                                } else {
-                                    logger.debug("FFmpeg stderr: {}", line);
-                                }
-                            }
-                        } else {
-                            Thread.sleep(10); // Kısa bekleme
-                        }
-                        
-                        if (Thread.currentThread().isInterrupted()) {
-                            break;
-                        }
-                    }
-                } catch (Exception e) {
-                    if (isRecording.get() && !isCancelled()) {
-                        logger.warn("Error reading FFmpeg error output", e);
-                    }
-                } finally {
-                    try { errorReader.close(); } catch (Exception ignored) {}
+            FFmpegProgressParser.LineHandler errorHandler = (type, line) -> {
+                if (type != FFmpegProgressParser.LineType.OTHER) {
+                    return;
                 }
-            }, CompletableFuture.delayedExecutor(0, TimeUnit.MILLISECONDS));
+                telemetry.acceptLogLine(line);
+                // Hata tespiti
+                if (FFmpegProgressParser.containsIgnoreCase(line, "error") ||
+                    FFmpegProgressParser.containsIgnoreCase(line, "failed") ||
+                    FFmpegProgressParser.containsIgnoreCase(line, "could not")) {
+                    logger.warn("FFmpeg potential error: {}", line.toString());
+                } else if (logger.isDebugEnabled()) {
+                    logger.debug("FFmpeg stderr: {}", line.toString());
+                }
+            };
+            CompletableFuture.runAsync(() -> pumpOutput(process.getErrorStream(), new FFmpegProgressParser(),
+                errorHandler, "error output"), CompletableFuture.delayedExecutor(0, TimeUnit.MILLISECONDS));
             
         } catch (Exception e) {
             logger.error("Error starting continuous recording", e);
@@ -376,55 +354,45 @@ public class LiveRecordingTask extends Task<Void> {
     }
     
     /**
-     * Yeni segmentleri kontrol eder
+     * Segment listesini izlemeye başlar - FFmpeg başlamadan önce çağrılır
      */
-    private void checkForNewSegments() {
-        try {
-            // Segment klasöründeki dosyaları kontrol et
-            Path outputPath = Paths.get(outputDirectory);
-            if (!Files.exists(outputPath)) {
-                return;
-            }
-            
-            // Sadece çok yeni segment dosyalarını bul
-            List<Path> newSegments = Files.list(outputPath)
-                .filter(path -> path.toString().endsWith(".mp4"))
-                .filter(path -> path.toString().contains("segment_"))
-                .filter(path -> {
-                    String fileName = path.getFileName().toString();
-                    // Bu dosya daha önce işlendi mi?
-                    boolean notProcessed = !processedSegmentFiles.contains(fileName);
-                    return notProcessed;
-                })
-                .filter(path -> {
-                    try {
-                        // Dosya boyutu kontrol et - son segment küçük olabilir, minimum şartı düşür
-                        long size = Files.size(path);
-                        return size > 1024; // En az 1KB olmalı (son segment küçük olabilir)
-                    } catch (Exception e) {
-                        return false;
-                    }
-                })
-                .limit(5) // Aynı anda max 5 segment işle - explosionı önler
-                .collect(Collectors.toList());
-                
-            // Yeni segmentleri işle
-            if (!newSegments.isEmpty()) {
-                logger.debug("Found {} new segments to process", newSegments.size());
-                for (Path segmentPath : newSegments) {
-                    processNewSegment(segmentPath);
+    private void startSegmentWatcher() throws IOException {
+        Path listFile = Paths.get(outputDirectory, SEGMENT_LIST_FILE);
+        Files.deleteIfExists(listFile); // Önceki kaydın satırları tekrar okunmasın
+        Path manifestFile = Paths.get(outputDirectory, MANIFEST_FILE);
+        Files.deleteIfExists(manifestFile);
+        segmentManifest = new SegmentManifest(manifestFile);
+        
+        segmentWatcher = new SegmentWatcher(Paths.get(outputDirectory), "segment_", listFile,
+            new SegmentWatcher.Listener() {
+                @Override
+                public void onSegmentOpened(Path segment) {
+                    logger.debug("Segment opened: {}", segment.getFileName());
                 }
-            }
                 
-        } catch (Exception e) {
-            logger.warn("Error checking for new segments", e);
+                @Override
+                public void onSegmentClosed(Path segment, double startSeconds, double endSeconds) {
+                    processNewSegment(segment, startSeconds, endSeconds);
+                }
+            });
+        segmentWatcher.start(SEGMENT_EVENTS);
+    }
+    
+    /**
+     * Process kapandıktan sonra listedeki son segmentleri işler ve izlemeyi bırakır
+     */
+    private void stopSegmentWatcher() {
+        if (segmentWatcher != null) {
+            segmentWatcher.drain();
+            segmentWatcher.close();
+            segmentWatcher = null;
         }
     }
     
     /**
      * Yeni segment işlemi
      */
-    private void processNewSegment(Path segmentPath) {
+    private void processNewSegment(Path segmentPath, double startSeconds, double endSeconds) {
         try {
             String fileName = segmentPath.getFileName().toString();
             
@@ -439,8 +407,17 @@ public class LiveRecordingTask extends Task<Void> {
             }
             
             long fileSize = Files.size(segmentPath);
-            long duration = params.getSegmentDuration() * 1000L; // Approximate
-            LocalDateTime createdAt = LocalDateTime.now();
+            segmentManifest.addSegment(segmentPath, startSeconds, endSeconds, fileSize, true);
+            SegmentRetention ring = retention;
+            if (ring != null) {
+                ring.segmentClosed(segmentPath, fileSize);
+            }
+            
+            // Süre ve zaman muxer'ın PTS değerlerinden - tespit anından değil
+            long duration = Math.round((endSeconds - startSeconds) * 1000);
+            LocalDateTime createdAt = LocalDateTime.ofInstant(
+                java.time.Instant.ofEpochMilli(recordingStartTime.get() + Math.round(startSeconds * 1000)),
+                java.time.ZoneId.systemDefault());
             
             VideoSegment segment = new VideoSegment(segmentPath.toString(), duration, createdAt, fileSize);
             
@@ -490,17 +467,13 @@ public class LiveRecordingTask extends Task<Void> {
             ffmpegProcess = processBuilder.start();
             
             // FFmpeg çıktısını logla
-            BufferedReader reader = new BufferedReader(new InputStreamReader(ffmpegProcess.getInputStream()));
-            CompletableFuture.runAsync(() -> {
-                try {
-                    String line;
-                    while ((line = reader.readLine()) != null && isRecording.get()) {
-                        logger.debug("FFmpeg: {}", line);
+            Process process = ffmpegProcess;
+            CompletableFuture.runAsync(() -> pumpOutput(process.getInputStream(), new FFmpegProgressParser(),
+                (type, line) -> {
+                    if (type == FFmpegProgressParser.LineType.OTHER && logger.isDebugEnabled()) {
+                        logger.debug("FFmpeg: {}", line.toString());
                     }
-                } catch (Exception e) {
-                    logger.warn("Error reading FFmpeg output", e);
-                }
-            });
+                }, "output"));
             
         } catch (Exception e) {
             logger.error("Error starting new segment", e);
@@ -508,6 +481,26 @@ public class LiveRecordingTask extends Task<Void> {
         }
     }
     
+    /**
+     * Process çıktısını process kapanana kadar okur ve satırları ayrıştırıcıya verir.
+     * Satır nesnesi handler dönene kadar geçerlidir; saklanacaksa String'e çevrilmeli.
+     */
+    private void pumpOutput(InputStream stream, FFmpegProgressParser parser,
+                            FFmpegProgressParser.LineHandler handler, String label) {
+        try (InputStream input = stream) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = input.read(buffer)) > 0) {
+                parser.feed(buffer, 0, read, handler);
+            }
+            parser.flush(handler);
+        } catch (IOException e) {
+            if (isRecording.get() && !isCancelled()) {
+                logger.warn("Error reading FFmpeg {}", label, e);
+            }
+        }
+    }
+    
     /**
      * FFmpeg komutunu oluşturur
      */
@@ -517,42 +510,12 @@ public class LiveRecordingTask extends Task<Void> {
         command.add("ffmpeg");
         command.add("-y"); // Dosya üzerine yaz
         
-        // Platform-specific input ayarları
-        String os = System.getProperty("os.name").toLowerCase();
-        
-        if (os.contains("win")) {
-            // Windows DirectShow - kamera cihazının daha güvenilir kullanımı için ek parametreler
-            command.add("-f");
-            command.add("dshow");
-            command.add("-rtbufsize");
-            command.add("32M"); // Orta boyut buffer - donmayı önler
-            command.add("-thread_queue_size");
-            command.add("512"); // Orta boyut queue
-            command.add("-fflags");
-            command.add("nobuffer"); // Bufferı minimum tut
-            command.add("-flags");
-            command.add("low_delay"); // Düşük gecikme modu
-            command.add("-i");
-            
-            // Device ID formatını kontrol et - zaten video= prefixi varsa doğrudan kullan
-            String deviceInput = cameraDevice;
-            if (!deviceInput.startsWith("video=")) {
-                deviceInput = "video=" + cameraDevice;
-            }
-            command.add(deviceInput);
-        } else if (os.contains("mac")) {
-            // macOS AVFoundation
-            command.add("-f");
-            command.add("avfoundation");
-            command.add("-i");
-            command.add(extractCameraIndex(cameraDevice));
-        } else {
-            // Linux Video4Linux
-            command.add("-f");
-            command.add("v4l2");
-            command.add("-i");
-            command.add(cameraDevice);
-        }
+        // Platform-specific input ayarları - orta boyut buffer/queue donmayı önler
+        command.add("-flags");
+        command.add("low_delay"); // Düşük gecikme modu
+        command.addAll(captureSource.buildInputArguments(cameraDevice, null,
+            new CaptureSource.InputSettings(1280, 720, params.getFps())
+                .rtbufsize("32M").threadQueueSize(512).fflags("nobuffer")));
         
         // Video encoder ayarları - MP4 optimizasyonu
         command.add("-c:v");
@@ -632,45 +595,19 @@ public class LiveRecordingTask extends Task<Void> {
         
         command.add("ffmpeg");
         command.add("-y"); // Dosya üzerine yaz
-        
-        // Platform-specific input ayarları
-        String os = System.getProperty("os.name").toLowerCase();
-        
-        if (os.contains("win")) {
-            // Windows DirectShow - anti-freeze optimizations
-            command.add("-f");
-            command.add("dshow");
-            command.add("-rtbufsize");
-            command.add("8M"); // Çok küçük buffer - donmayı önler
-            command.add("-thread_queue_size");
-            command.add("64"); // Minimal queue - donma riski azalır
-            command.add("-fflags");
-            command.add("nobuffer+flush_packets"); // Agresif flush
-            command.add("-flags");
-            command.add("low_delay");
-            command.add("-probesize");
-            command.add("1M"); // Hızlı başlatma
-            command.add("-analyzeduration");
-            command.add("1M"); // Hızlı analiz
-            command.add("-i");
-            
-            // Device ID formatını kontrol et - zaten video= prefixi varsa doğrudan kullan
-            String deviceInput = cameraDevice;
-            if (!deviceInput.startsWith("video=")) {
-                deviceInput = "video=" + cameraDevice;
-            }
-            command.add(deviceInput);
-        } else if (os.contains("mac")) {
-            command.add("-f");
-            command.add("avfoundation");
-            command.add("-i");
-            command.add(extractCameraIndex(cameraDevice));
-        } else {
-            command.add("-f");
-            command.add("v4l2");
-            command.add("-i");
-            command.add(cameraDevice);
-        }
+        // Encoder telemetrisi stdout'a (bu komutta stdout başka çıktı taşımıyor)
+        command.addAll(EncoderTelemetry.progressArguments("pipe:1", 1));
+        
+        // Platform-specific input ayarları - anti-freeze: küçük buffer, agresif flush, hızlı başlatma
+        command.add("-flags");
+        command.add("low_delay");
+        command.add("-probesize");
+        command.add("1M");
+        command.add("-analyzeduration");
+        command.add("1M");
+        command.addAll(captureSource.buildInputArguments(cameraDevice, null,
+            new CaptureSource.InputSettings(1280, 720, params.getFps())
+                .rtbufsize("8M").threadQueueSize(64).fflags("nobuffer+flush_packets")));
         
         // Video encoder ayarları - hızlı encoding
         command.add("-c:v");
@@ -727,8 +664,11 @@ public class LiveRecordingTask extends Task<Void> {
         command.add(String.valueOf(params.getSegmentDuration()));
         command.add("-segment_format");
         command.add("mp4");
+        // Kapanan her segment "dosya,başlangıç,bitiş" satırı olarak listeye eklenir
+        command.add("-segment_list");
+        command.add(Paths.get(outputDirectory, SEGMENT_LIST_FILE).toString());
         command.add("-segment_list_type");
-        command.add("flat");
+        command.add("csv");
         command.add("-reset_timestamps");
         command.add("1");
         command.add("-avoid_negative_ts");
@@ -744,9 +684,10 @@ public class LiveRecordingTask extends Task<Void> {
         command.add("-force_key_frames");
         command.add("expr:gte(t,n_forced*" + params.getSegmentDuration() + ")");
         
-        // MP4 faststart - streaming için
-        command.add("-movflags");
-        command.add("+faststart+frag_keyframe");
+        // Segmentler sadece sona eklenerek yazılır (fragmented MP4, faststart yok): kapanışta dosya
+        // yeniden yazılmaz, çökmede yarım kalan segment SessionRecovery ile kurtarılabilir
+        command.add("-segment_format_options");
+        command.add("movflags=+frag_keyframe+empty_moov+default_base_moof");
         
         // Error resilience - donma durumunda otomatik devam
         command.add("-err_detect");
@@ -767,22 +708,6 @@ public class LiveRecordingTask extends Task<Void> {
         return command;
     }
     
-    /**
-     * Kamera indeksini extract eder
-     */
-    private String extractCameraIndex(String deviceId) {
-        if (deviceId.contains("=")) {
-            String index = deviceId.substring(deviceId.lastIndexOf("=") + 1);
-            try {
-                Integer.parseInt(index);
-                return index;
-            } catch (NumberFormatException e) {
-                return "0";
-            }
-        }
-        return "0";
-    }
-    
     /**
      * Mevcut segmenti tamamlar
      */
@@ -969,14 +894,8 @@ public class LiveRecordingTask extends Task<Void> {
         
         // Son segmentleri kontrol et ve işle
         try {
-            // FFmpegin dosya yazımını tamamlaması için daha uzun bekle
-            Thread.sleep(2000);
-            
-            // Birden fazla kez kontrol et çünkü son segment geç oluşabilir
-            for (int i = 0; i < 3; i++) {
-                checkForNewSegments();
-                Thread.sleep(500); // Her kontrol arasında bekle
-            }
+            // Process kapandı - son segmentin liste satırı yazılmış olmalı
+            stopSegmentWatcher();
             
             logger.info("Final segment check completed, total segments: {}", recordedSegments.size());
         } catch (Exception e) {
@@ -988,6 +907,47 @@ public class LiveRecordingTask extends Task<Void> {
         }
     }
     
+    /**
+     * Disk kotalı sürekli kaydı açar/kapatır (null = kapalı). Bu görev segment adlarını her
+     * kayıtta baştan kullandığı için katalog yalnızca bu kaydın segmentlerini içerir.
+     */
+    public void setRetentionPolicy(SegmentRetention.Policy policy) {
+        SegmentRetention current = retention;
+        if (policy == null) {
+            if (current != null) {
+                retention = null;
+                current.close();
+            }
+        } else if (current != null) {
+            current.setPolicy(policy);
+        } else {
+            retention = new SegmentRetention(cameraDevice, policy, (segments, reclaimedBytes) -> {
+                java.util.Set<String> expired = new HashSet<>();
+                for (Path segment : segments) {
+                    expired.add(segment.toString());
+                }
+                synchronized (recordedSegments) {
+                    recordedSegments.removeIf(segment ->
+                        expired.contains(Paths.get(segment.getFilePath()).toAbsolutePath().normalize().toString()));
+                }
+            });
+        }
+    }
+    
+    /**
+     * Disk kotası kataloğu (ayak izi, yazma hızı), kapalıysa null
+     */
+    public SegmentRetention getRetention() {
+        return retention;
+    }
+    
+    /**
+     * Segment manifestosu - süreler, boyutlar ve zaman aralığı aramaları için
+     */
+    public SegmentManifest getSegmentManifest() {
+        return segmentManifest;
+    }
+    
     /**
      * Kaydedilen segmentleri döndürür
      */
@@ -995,6 +955,13 @@ public class LiveRecordingTask extends Task<Void> {
         return new ArrayList<>(recordedSegments);
     }
     
+    /**
+     * Kayıt encoder'ının canlı metrikleri (fps, speed, drop/dup)
+     */
+    public EncoderTelemetry getTelemetry() {
+        return telemetry;
+    }
+    
     /**
      * Kayıt durumunu kontrol eder
      */
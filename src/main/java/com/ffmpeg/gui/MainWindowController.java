@@ -41,6 +41,7 @@ import java.time.format.DateTimeFormatter;
 public class MainWindowController implements Initializable {
     
     private static final Logger logger = LoggerFactory.getLogger(MainWindowController.class);
+    private static final int LIVE_STREAM_PORT = 8088;
     
     @FXML private VBox mainContainer;
     @FXML private TabPane tabPane;
@@ -135,6 +136,8 @@ public class MainWindowController implements Initializable {
     @FXML private Spinner<Integer> batchVideoWidthSpinner;
     @FXML private Spinner<Integer> batchVideoHeightSpinner;
     @FXML private Spinner<Double> batchVideoFpsSpinner;
+    @FXML private TextField batchExtraFormatsField;
+    @FXML private CheckBox batchExtractAudioCheck;
     
     // Batch Audio Settings
     @FXML private CheckBox enableAudioSettingsCheck;
@@ -196,6 +199,7 @@ public class MainWindowController implements Initializable {
     @FXML private Button stopPreviewBtn;
     @FXML private Button startRecordingBtn;
     @FXML private Button stopRecordingBtn;
+    @FXML private Button saveReplayBtn;
     @FXML private TextField recordingOutputDirField;
     @FXML private Button selectRecordingDirBtn;
     @FXML private ComboBox<String> recordingFormatCombo;
@@ -203,6 +207,15 @@ public class MainWindowController implements Initializable {
     @FXML private Spinner<Integer> recordingFpsSpinner;
     @FXML private Spinner<Integer> recordingBitrateSpinner;
     @FXML private Spinner<Integer> segmentDurationSpinner;
+    @FXML private Spinner<Integer> preRollSpinner;
+    @FXML private Spinner<Integer> retentionQuotaSpinner;
+    @FXML private CheckBox rollingMergeCheck;
+    @FXML private CheckBox proxyRecordingCheck;
+    @FXML private CheckBox motionRecordingCheck;
+    @FXML private Spinner<Integer> motionPostRollSpinner;
+    @FXML private CheckBox idleArchiveCheck;
+    @FXML private TextField archiveWindowField;
+    @FXML private CheckBox liveStreamCheck;
     @FXML private Label recordingStatusLabel;
     @FXML private Label recordingTimeLabel;
     @FXML private Label recordingFileLabel;
@@ -214,6 +227,8 @@ public class MainWindowController implements Initializable {
     @FXML private Label segmentCountLabel;
     @FXML private Button refreshSegmentsBtn;
     @FXML private Button mergeSegmentsBtn;
+    @FXML private Button packageSegmentsBtn;
+    @FXML private Button extractClipBtn;
     @FXML private Button clearSegmentsBtn;
     
     private Stage primaryStage;
@@ -221,6 +236,9 @@ public class MainWindowController implements Initializable {
     private FileExplorer fileExplorer;
     private MediaFileAnalyzer mediaAnalyzer;
     private CameraService cameraService;
+    private volatile IdleTranscodeQueue idleTranscodeQueue;
+    // FFmpegService dışında çalışan birleştirme/kesme/paketleme işleri - boşta arşivleme bunlar bitene kadar bekler
+    private final java.util.concurrent.atomic.AtomicInteger foregroundTasks = new java.util.concurrent.atomic.AtomicInteger();
     private ObservableList<File> batchFiles = FXCollections.observableArrayList();
     // LiveRecordingTask için değişkenler
     private LiveRecordingTask liveRecordingTask;
@@ -228,6 +246,8 @@ public class MainWindowController implements Initializable {
     
     // Segment listesi
     private ObservableList<LiveRecordingTask.VideoSegment> recordedSegments = FXCollections.observableArrayList();
+    // Segment yolu -> listedeki indeks (sadece FX threadinde). Olaylar listeyi yeniden kurmadan günceller.
+    private final java.util.Map<String, Integer> segmentIndexByPath = new java.util.HashMap<>();
     
     // Aktif kayıt oturumu için değişkenler
     private String currentRecordingSessionId = null;
@@ -274,6 +294,8 @@ public class MainWindowController implements Initializable {
         
         // Kamera servisini başlat
         cameraService = new CameraService(ffmpegService);
+        cameraService.setTelemetryListener(event ->
+            Platform.runLater(() -> addCameraLog("Encoder uyarısı: " + event.getType() + " - " + event.getMessage())));
         
         fileExplorer = new FileExplorer(fileTreeView);
         
@@ -286,6 +308,7 @@ public class MainWindowController implements Initializable {
             if (cameraService != null) {
                 detectCameras();
             }
+            recoverInterruptedSessions();
         });
         
         logger.info("Main window controller started successfully");
@@ -293,7 +316,7 @@ public class MainWindowController implements Initializable {
     
     private void initializeComponents() {
         // Video ayarları
-        videoFormatCombo.getItems().addAll("MP4", "AVI", "MKV", "MOV", "WMV", "FLV", "WebM");
+        videoFormatCombo.getItems().addAll("MP4", "AVI", "MKV", "MOV", "WMV", "FLV", "WebM", "ABR");
         videoFormatCombo.setValue("MP4");
         
         videoCodecCombo.getItems().addAll("H.264", "H.265", "VP9", "AV1", "MPEG-4");
@@ -816,6 +839,20 @@ public class MainWindowController implements Initializable {
             batchSettings.setVideoWidth(batchVideoWidthSpinner.getValue());
             batchSettings.setVideoHeight(batchVideoHeightSpinner.getValue());
             batchSettings.setVideoFps(batchVideoFpsSpinner.getValue());
+            
+            // Ek hedef profiller - tek FFmpeg çağrısında, giriş bir kez çözülerek üretilir
+            java.util.List<String> extraFormats = new java.util.ArrayList<>();
+            if (batchExtraFormatsField != null) {
+                for (String format : batchExtraFormatsField.getText().split("[,\\s]+")) {
+                    if (!format.isEmpty() && batchVideoFormatCombo.getItems().stream().anyMatch(format::equalsIgnoreCase)) {
+                        extraFormats.add(format);
+                    } else if (!format.isEmpty()) {
+                        logger.warn("Unknown extra batch format skipped: {}", format);
+                    }
+                }
+            }
+            batchSettings.setExtraVideoFormats(extraFormats);
+            batchSettings.setExtractAudio(batchExtractAudioCheck != null && batchExtractAudioCheck.isSelected());
         }
         
         // Audio ayarları
@@ -1782,7 +1819,7 @@ public class MainWindowController implements Initializable {
         }
         
         // Kayıt formatları
-        recordingFormatCombo.getItems().addAll("MP4", "AVI", "MOV", "MKV");
+        recordingFormatCombo.getItems().addAll("MP4", "TS", "AVI", "MOV", "MKV");
         recordingFormatCombo.setValue("MP4");
         
         // Video kaliteleri
@@ -1798,6 +1835,64 @@ public class MainWindowController implements Initializable {
         // Segment duration spinner - varsayılan 5 saniye
         SimpleEditableSpinner.makeEditable(segmentDurationSpinner, 5, 600, 5);
         
+        // Pre-roll spinner - 0 kapalı, önizleme yeniden başlatılınca etkinleşir
+        SimpleEditableSpinner.makeEditable(preRollSpinner, 0, 120, 0);
+        // Hareket bittikten sonra kaydın sürdüğü süre
+        if (motionPostRollSpinner != null) {
+            SimpleEditableSpinner.makeEditable(motionPostRollSpinner, 1, 600, 10);
+        }
+        preRollSpinner.valueProperty().addListener((obs, oldVal, newVal) -> {
+            if (newVal != null) {
+                cameraService.setPreRollSeconds(newVal);
+            }
+        });
+        
+        // Disk kotası - 0 sınırsız; aşıldığında en eski segmentler silinir (sürekli kayıt)
+        if (retentionQuotaSpinner != null) {
+            SimpleEditableSpinner.makeEditable(retentionQuotaSpinner, 0, 10000, 0);
+            retentionQuotaSpinner.valueProperty().addListener((obs, oldVal, newVal) -> {
+                if (newVal != null) {
+                    cameraService.setRetentionPolicy(newVal > 0
+                        ? new SegmentRetention.Policy(newVal * 1024L * 1024 * 1024, 0, 0, null)
+                        : null);
+                }
+            });
+        }
+        
+        // Rolling merge - segmentler kayıt sürerken tek dosyada birleştirilir
+        if (rollingMergeCheck != null) {
+            rollingMergeCheck.setOnAction(e -> cameraService.setRollingMerge(rollingMergeCheck.isSelected()));
+        }
+        
+        // Proxy kaydı - kurgu için düşük çözünürlüklü kopya, kayıtla aynı anda hazır
+        if (proxyRecordingCheck != null) {
+            proxyRecordingCheck.setOnAction(e -> cameraService.setProxyRecording(proxyRecordingCheck.isSelected()));
+        }
+        
+        // Boşta arşivleme - kapanan segmentler makine boştayken arşiv profiline yeniden encode edilir
+        if (idleArchiveCheck != null) {
+            idleArchiveCheck.setOnAction(e -> setIdleArchiving(idleArchiveCheck.isSelected()));
+        }
+        
+        // Canlı yayın - LAN'daki diğer makineler HLS ile izleyebilir
+        if (liveStreamCheck != null) {
+            liveStreamCheck.setOnAction(e -> {
+                try {
+                    String url = cameraService.setLiveStreaming(liveStreamCheck.isSelected(), LIVE_STREAM_PORT);
+                    if (url != null) {
+                        addCameraLog("Canlı yayın adresi (önizleme yeniden başlatılınca aktif): " + url);
+                    } else if (liveStreamCheck.isSelected()) {
+                        addCameraLog("Canlı yayın kamera seçildiğinde başlayacak");
+                    } else {
+                        addCameraLog("Canlı yayın kapatıldı");
+                    }
+                } catch (java.io.IOException ex) {
+                    liveStreamCheck.setSelected(false);
+                    addCameraLog("Canlı yayın başlatılamadı: " + ex.getMessage());
+                }
+            });
+        }
+        
         // Varsayılan kayıt klasörü - Projenin kendi dizininde
         String projectDir = System.getProperty("user.dir");
         String defaultRecordingDir = projectDir + "/MediaShift_Recordings";
@@ -1806,12 +1901,9 @@ public class MainWindowController implements Initializable {
         // Kamera önizleme alanını hazırla
         setupCameraPreview();
         
-        // Segment listesini ayarla
+        // Segment listesini ayarla - segment olayları listeyi artımlı günceller, periyodik tarama yok
         setupSegmentList();
         
-        // Segment refresh timerını başlat
-        startSegmentRefreshTimer();
-        
         logger.info("Camera controls initialized");
     }
     
@@ -1896,6 +1988,7 @@ public class MainWindowController implements Initializable {
         // Kayıt kontrolleri
         startRecordingBtn.setOnAction(e -> startCameraRecording());
         stopRecordingBtn.setOnAction(e -> stopCameraRecording());
+        saveReplayBtn.setOnAction(e -> saveCameraReplay());
         
         // Klasör seçimi
         selectRecordingDirBtn.setOnAction(e -> selectRecordingDirectory());
@@ -1918,6 +2011,8 @@ public class MainWindowController implements Initializable {
         // Segment yönetimi event handlerları
         refreshSegmentsBtn.setOnAction(e -> refreshSegments());
         mergeSegmentsBtn.setOnAction(e -> mergeSelectedSegments());
+        packageSegmentsBtn.setOnAction(e -> packageSegments());
+        extractClipBtn.setOnAction(e -> extractClip());
         clearSegmentsBtn.setOnAction(e -> clearSegmentList());
     }
     
@@ -1991,6 +2086,7 @@ public class MainWindowController implements Initializable {
             startPreviewBtn.setDisable(true);
             stopPreviewBtn.setDisable(false);
             startRecordingBtn.setDisable(false);
+            saveReplayBtn.setDisable(false);
             addCameraLog("Kamera önizlemesi başlatıldı");
         } else {
             addCameraLog("Kamera önizlemesi başlatılamadı!");
@@ -2007,6 +2103,7 @@ public class MainWindowController implements Initializable {
         stopPreviewBtn.setDisable(true);
         startRecordingBtn.setDisable(true);
         stopRecordingBtn.setDisable(true);
+        saveReplayBtn.setDisable(true);
         
         // Preview'ı temizle
         if (cameraImageView != null) {
@@ -2016,6 +2113,26 @@ public class MainWindowController implements Initializable {
         addCameraLog("Kamera önizlemesi durduruldu");
     }
     
+    /**
+     * Pre-roll buffer'daki son anları dosyaya yazar
+     */
+    private void saveCameraReplay() {
+        int seconds = preRollSpinner.getValue();
+        if (seconds <= 0) {
+            showAlert("Uyarı", "Önce pre-roll süresini ayarlayıp önizlemeyi yeniden başlatın", Alert.AlertType.WARNING);
+            return;
+        }
+        
+        try {
+            cameraService.setRecordingOutputDir(recordingOutputDirField.getText().trim());
+            java.nio.file.Path replay = cameraService.saveLastSeconds(seconds);
+            addCameraLog("Son " + seconds + " saniye kaydedildi: " + replay.getFileName());
+        } catch (Exception e) {
+            addCameraLog("Anlık tekrar kaydedilemedi: " + e.getMessage());
+            logger.error("Replay save error", e);
+        }
+    }
+    
     private void startCameraRecording() {
         if (!cameraService.isPreviewActive()) {
             showAlert("Uyarı", "Kayıt için önce kamera önizlemesini başlatın", Alert.AlertType.WARNING);
@@ -2034,6 +2151,7 @@ public class MainWindowController implements Initializable {
             java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
         recordingStartTime = System.currentTimeMillis();
         addCameraLog("Yeni kayıt oturumu başlatıldı: " + currentRecordingSessionId);
+        clearSegments();
         
         // *** ÖNİZLEME DURDURULMUYOR - AYNI ANDA KAYIT VE ÖNİZLEME ***
         addCameraLog("Kamera kayıt başlatılıyor (aynı anda önizleme + kayıt)...");
@@ -2127,7 +2245,7 @@ public class MainWindowController implements Initializable {
             cameraService.setRecordingParams(outputDir, format, quality, fps, bitrate, segmentDuration, "segment");
             
             // Kayıt başlat - önizleme durmadan
-            boolean recordingStarted = cameraService.startRecording(new CameraService.ExtendedRecordingCallback() {
+            CameraService.ExtendedRecordingCallback cameraRecordingCallback = new CameraService.ExtendedRecordingCallback() {
                 @Override
                 public void onRecordingStarted() {
                     Platform.runLater(() -> {
@@ -2139,25 +2257,26 @@ public class MainWindowController implements Initializable {
                 @Override
                 public void onRecordingStopped() {
                     Platform.runLater(() -> {
+                        if (cameraService.isMotionArmed()) {
+                            // Hareket bitti - kurulu kalır, bir sonraki harekette yeni kayıt başlar
+                            updateRecordingStatus("Hareket bekleniyor");
+                            addCameraLog("Hareket bitti, kayıt durdu - yeni hareket bekleniyor");
+                            updateSegmentList();
+                            return;
+                        }
                         startRecordingBtn.setDisable(false);
                         stopRecordingBtn.setDisable(true);
                         updateRecordingStatus("Kayıt yapılmıyor");
                         recordingFileLabel.setText("Dosya: -");
                         recordingTimeLabel.setText("00:00:00");
                         addCameraLog("Kamera kayıt durduruldu (önizleme aktif)");
+                        List<String> proxies = cameraService.getProxySegments();
+                        if (!proxies.isEmpty()) {
+                            addCameraLog("Proxy dosyaları hazır: " + proxies.size() + " segment");
+                        }
                         
-                        // Son segmentlerin UI'ya yansıması için gecikmeli güncelleme
-                        new Thread(() -> {
-                            try {
-                                Thread.sleep(2000); // 2 saniye bekle
-                                Platform.runLater(() -> {
-                                    updateSegmentList();
-                                    addCameraLog("Segment listesi güncellendi");
-                                });
-                            } catch (InterruptedException e) {
-                                Thread.currentThread().interrupt();
-                            }
-                        }).start();
+                        // Son segment kapanış olayı durdurma sırasında geldi - kaçan varsa eşitle
+                        updateSegmentList();
                     });
                 }
                 
@@ -2178,11 +2297,36 @@ public class MainWindowController implements Initializable {
                         recordingFileLabel.setText("Segment: " + new java.io.File(segmentPath).getName());
                         addCameraLog("Yeni segment oluşturuldu: " + new java.io.File(segmentPath).getName());
                         
-                        // Segment listesini güncelle
-                        updateSegmentList();
+                        // Listeye sadece bu segmenti ekle
+                        addOrUpdateSegment(segmentPath, new java.io.File(segmentPath).length(), 0);
                     });
                 }
                 
+                @Override
+                public void onSegmentClosed(String segmentPath, long fileSize, double durationSeconds) {
+                    Platform.runLater(() -> addOrUpdateSegment(segmentPath, fileSize, Math.round(durationSeconds * 1000)));
+                    IdleTranscodeQueue queue = idleTranscodeQueue;
+                    if (queue != null) {
+                        queue.enqueue(java.nio.file.Paths.get(segmentPath));
+                    }
+                }
+                
+                @Override
+                public void onRollingMergeCompleted(String outputPath, double durationSeconds) {
+                    addCameraLog(String.format("Kayıt birleştirildi: %s (%.1f sn)", outputPath, durationSeconds));
+                }
+                
+                @Override
+                public void onSegmentsExpired(java.util.List<String> segmentPaths, long reclaimedBytes) {
+                    removeSegments(segmentPaths);
+                    SegmentRetention retention = cameraService.getRetention();
+                    if (retention != null) {
+                        addCameraLog(String.format("Disk kotası: %d segment kaldırıldı (%d MB), kullanım %d MB, yazma %.0f KB/s",
+                            segmentPaths.size(), reclaimedBytes / (1024 * 1024), retention.getFootprintBytes() / (1024 * 1024),
+                            retention.getWriteRateBytesPerSecond() / 1024));
+                    }
+                }
+                
                 @Override
                 public void onTimeUpdate(String formattedTime) {
                     Platform.runLater(() -> {
@@ -2205,7 +2349,22 @@ public class MainWindowController implements Initializable {
                         addCameraLog("Kamera kayıt devam ediyor");
                     });
                 }
-            });
+            };
+            
+            // Hareketle kayıt - kayıt hareket algılandıkça başlar/durur
+            boolean motionGated = motionRecordingCheck != null && motionRecordingCheck.isSelected();
+            boolean recordingStarted;
+            if (motionGated) {
+                cameraService.setMotionSettings(MotionDetector.Settings.withPostRoll(motionPostRollSpinner.getValue() * 1000L));
+                recordingStarted = cameraService.startMotionRecording(cameraRecordingCallback);
+                if (recordingStarted) {
+                    updateRecordingStatus("Hareket bekleniyor");
+                    addCameraLog("Hareketle kayıt etkin (pre-roll " + preRollSpinner.getValue() + " sn, post-roll "
+                                 + motionPostRollSpinner.getValue() + " sn)");
+                }
+            } else {
+                recordingStarted = cameraService.startRecording(cameraRecordingCallback);
+            }
             
             if (!recordingStarted) {
                 addCameraLog("Kamera kayıt başlatılamadı!");
@@ -2225,7 +2384,7 @@ public class MainWindowController implements Initializable {
     }
     
     private void stopCameraRecording() {
-        if (cameraService == null || !cameraService.isRecording()) {
+        if (cameraService == null || (!cameraService.isRecording() && !cameraService.isMotionArmed())) {
             addCameraLog("Aktif kayıt bulunamadı");
             return;
         }
@@ -2243,15 +2402,8 @@ public class MainWindowController implements Initializable {
             addCameraLog("Kamera kayıt durduruldu");
             addCameraLog("Kayıt oturumu tamamlandı: " + currentRecordingSessionId);
             
-            // Son segmentlerin UI'ya yansıması için bekle
-            Platform.runLater(() -> {
-                try {
-                    Thread.sleep(1000); // Segment list güncellemesi için bekle
-                    updateSegmentList(); // Son segmentleri güncelle
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                }
-            });
+            // stopRecording son segmenti kapatıp bildirdi - kaçan varsa eşitle
+            updateSegmentList();
             
             // UI'ı güncelle
             updateRecordingStatus("Kayıt yapılmıyor");
@@ -2321,6 +2473,12 @@ public class MainWindowController implements Initializable {
             recordingThread = null;
         }
         
+        // Arşiv kuyruğunu durdur - yarım arşiv dosyası silinir, kaynaklara dokunulmaz
+        if (idleTranscodeQueue != null) {
+            idleTranscodeQueue.close();
+            idleTranscodeQueue = null;
+        }
+        
         // Kamera servisini kapat (preview ve recordingi durdurur)
         if (cameraService != null) {
             logger.info("Shutting down camera service...");
@@ -2373,6 +2531,7 @@ public class MainWindowController implements Initializable {
         // Segment listelerini temizle
         if (recordedSegments != null) {
             recordedSegments.clear();
+            segmentIndexByPath.clear();
         }
         
         logger.info("MainWindowController shutdown completed");
@@ -2387,101 +2546,81 @@ public class MainWindowController implements Initializable {
     }
     
     /**
-     * Segment listesini güncelle - CameraService'den gelen segmentlerle
+     * Segment listesini CameraService'in segmentleriyle eşitler. Sadece listede olmayanlar eklenir;
+     * mevcut satırlar ve seçim korunur.
      */
     private void updateSegmentList() {
-        if (cameraService != null && segmentListView != null) {
-            try {
-                List<String> segments = cameraService.getRecordedSegments();
-                logger.info("Updating segment list, found {} segments from CameraService", segments != null ? segments.size() : 0);
-                
-                // CameraService segmentlerine ek olarak kayıt klasöründeki dosyaları da tara
-                String recordingDir = recordingOutputDirField.getText().trim();
-                if (!recordingDir.isEmpty()) {
-                    java.util.Set<String> allSegments = new java.util.HashSet<>();
-                    
-                    // CameraService segmentlerini ekle
-                    if (segments != null) {
-                        allSegments.addAll(segments);
-                    }
-                    
-                    // Kayıt klasöründeki tüm segment dosyalarını da ekle - SADECE AKTİF OTURUM
-                    try {
-                        java.nio.file.Path recordingPath = java.nio.file.Paths.get(recordingDir);
-                        if (java.nio.file.Files.exists(recordingPath) && currentRecordingSessionId != null) {
-                            java.nio.file.Files.list(recordingPath)
-                                .filter(path -> path.toString().endsWith(".mp4"))
-                                .filter(path -> path.getFileName().toString().contains("segment"))
-                                .filter(path -> {
-                                    // Sadece aktif kayıt oturumundaki segmentleri al
-                                    String fileName = path.getFileName().toString();
-                                    return fileName.contains(currentRecordingSessionId);
-                                })
-                                .forEach(path -> allSegments.add(path.toString()));
-                            
-                            logger.info("Found {} segments for current recording session {}", 
-                                allSegments.size() - (segments != null ? segments.size() : 0), currentRecordingSessionId);
-                        }
-                    } catch (Exception e) {
-                        logger.warn("Error scanning recording directory: {}", e.getMessage());
-                    }
-                    
-                    segments = new java.util.ArrayList<>(allSegments);
-                }
-                
-                if (segments != null && !segments.isEmpty()) {
-                    // String segmentleri LiveRecordingTask.VideoSegmente dönüştür
-                    ObservableList<LiveRecordingTask.VideoSegment> videoSegments = FXCollections.observableArrayList();
-                    
-                    for (String segmentPath : segments) {
-                        try {
-                            java.io.File segmentFile = new java.io.File(segmentPath);
-                            if (segmentFile.exists()) {
-                                // Dosya boyutunu al
-                                long fileSize = segmentFile.length();
-                                
-                                // Basit bir VideoSegment oluştur
-                                LiveRecordingTask.VideoSegment segment = new LiveRecordingTask.VideoSegment(
-                                    segmentPath,
-                                    0, // Duration bilgisi yok, 0 olarak ayarla
-                                    java.time.LocalDateTime.now(),
-                                    fileSize
-                                );
-                                videoSegments.add(segment);
-                                logger.debug("Added segment to list: {} (size: {} bytes)", segmentPath, fileSize);
-                            } else {
-                                logger.warn("Segment file does not exist: {}", segmentPath);
-                            }
-                        } catch (Exception e) {
-                            logger.warn("Error creating video segment for: " + segmentPath, e);
-                        }
-                    }
-                    
-                    // UI'ı güncelle
-                    Platform.runLater(() -> {
-                        recordedSegments.clear();
-                        recordedSegments.addAll(videoSegments);
-                        updateSegmentCount();
-                        updateMergeButtonState();
-                        logger.info("Segment list updated with {} segments", videoSegments.size());
-                    });
-                } else {
-                    logger.info("No segments found, clearing segment list");
-                    Platform.runLater(() -> {
-                        recordedSegments.clear();
-                        updateSegmentCount();
-                        updateMergeButtonState();
-                    });
+        if (cameraService == null || segmentListView == null) {
+            logger.warn("Cannot update segment list: cameraService={}, segmentListView={}", 
+                       cameraService != null, segmentListView != null);
+            return;
+        }
+        
+        List<String> segments = cameraService.getRecordedSegments();
+        Runnable sync = () -> {
+            int added = 0;
+            for (String segmentPath : segments) {
+                if (!segmentIndexByPath.containsKey(segmentPath)) {
+                    addOrUpdateSegment(segmentPath, new java.io.File(segmentPath).length(), 0);
+                    added++;
                 }
-            } catch (Exception e) {
-                logger.error("Error updating segment list", e);
             }
+            if (added > 0) {
+                logger.info("Segment list synchronized, {} segments added", added);
+            }
+        };
+        if (Platform.isFxApplicationThread()) {
+            sync.run();
         } else {
-            logger.warn("Cannot update segment list: cameraService={}, segmentListView={}", 
-                       cameraService != null, segmentListView != null);
+            Platform.runLater(sync);
+        }
+    }
+    
+    /**
+     * Disk kotası nedeniyle silinen segmentleri listeden çıkarır ve dizini yeniden kurar
+     */
+    private void removeSegments(java.util.List<String> segmentPaths) {
+        java.util.Set<String> removed = new java.util.HashSet<>(segmentPaths);
+        if (!recordedSegments.removeIf(segment -> removed.contains(segment.getFilePath()))) {
+            return;
+        }
+        segmentIndexByPath.clear();
+        for (int i = 0; i < recordedSegments.size(); i++) {
+            segmentIndexByPath.put(recordedSegments.get(i).getFilePath(), i);
+        }
+        updateSegmentCount();
+        updateMergeButtonState();
+    }
+    
+    /**
+     * Tek bir segment satırını ekler ya da (kapanış olayında) boyut/süre bilgisiyle günceller
+     */
+    private void addOrUpdateSegment(String segmentPath, long fileSize, long durationMillis) {
+        Integer index = segmentIndexByPath.get(segmentPath);
+        if (index == null) {
+            segmentIndexByPath.put(segmentPath, recordedSegments.size());
+            recordedSegments.add(new LiveRecordingTask.VideoSegment(
+                segmentPath, durationMillis, java.time.LocalDateTime.now(), fileSize));
+            updateSegmentCount();
+            updateMergeButtonState();
+            return;
+        }
+        
+        LiveRecordingTask.VideoSegment existing = recordedSegments.get(index);
+        boolean selected = segmentListView != null && segmentListView.getSelectionModel().isSelected(index);
+        recordedSegments.set(index, new LiveRecordingTask.VideoSegment(
+            segmentPath, durationMillis > 0 ? durationMillis : existing.getDuration(), existing.getCreatedAt(), fileSize));
+        if (selected) {
+            segmentListView.getSelectionModel().select(index);
         }
     }
     
+    private void clearSegments() {
+        recordedSegments.clear();
+        segmentIndexByPath.clear();
+        updateSegmentCount();
+    }
+    
     private void updateMergeButtonState() {
         if (mergeSegmentsBtn != null) {
             int selectedCount = segmentListView.getSelectionModel().getSelectedItems().size();
@@ -2499,21 +2638,6 @@ public class MainWindowController implements Initializable {
         }
     }
     
-    /**
-     * Segment listesini periyodik olarak güncelle
-     */
-    private void startSegmentRefreshTimer() {
-        javafx.animation.Timeline segmentRefreshTimer = new javafx.animation.Timeline(
-            new javafx.animation.KeyFrame(javafx.util.Duration.seconds(2), event -> {
-                if (cameraService != null && cameraService.isRecording()) {
-                    updateSegmentList();
-                }
-            })
-        );
-        segmentRefreshTimer.setCycleCount(javafx.animation.Timeline.INDEFINITE);
-        segmentRefreshTimer.play();
-    }
-    
     /**
      * Kayıt durumunu güncelle
      */
@@ -2699,16 +2823,285 @@ public class MainWindowController implements Initializable {
                 }
             });
         
+        // Segment süreleri kayıt manifestosundan - dosyalar probe edilmez
+        merger.setManifest(cameraService.getSegmentManifest());
+        
         // Background threadde çalıştır
-        Thread mergeThread = new Thread(merger);
-        mergeThread.setDaemon(true);
-        mergeThread.start();
+        startForegroundTask(merger, "VideoSegmentMerger");
     }
     
+    /**
+     * Segmentleri yeniden encode etmeden HLS/DASH VOD olarak paketle - playlist segment klasörüne yazılır
+     */
+    @FXML
+    private void packageSegments() {
+        java.util.List<LiveRecordingTask.VideoSegment> selected =
+            new java.util.ArrayList<>(segmentListView.getSelectionModel().getSelectedItems());
+        if (selected.isEmpty()) {
+            selected.addAll(segmentListView.getItems());
+        }
+        if (selected.isEmpty()) {
+            showAlert("Uyarı", "Paketlenecek segment yok.", Alert.AlertType.WARNING);
+            return;
+        }
+
+        java.util.List<java.nio.file.Path> paths = new java.util.ArrayList<>();
+        for (LiveRecordingTask.VideoSegment segment : selected) {
+            paths.add(java.nio.file.Paths.get(segment.getFilePath()));
+        }
+        paths.sort(java.util.Comparator.comparing(java.nio.file.Path::getFileName));
+        java.nio.file.Path directory = paths.get(0).toAbsolutePath().getParent();
+        String baseName = "MediaShift_" + java.time.LocalDateTime.now().format(
+            java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + "_vod";
+        VodPackager packager = new VodPackager(cameraService != null ? cameraService.getSegmentManifest() : null);
+
+        packageSegmentsBtn.setDisable(true);
+        addCameraLog("Segmentler paketleniyor: " + paths.size() + " segment");
+        startForegroundTask(() -> {
+            try {
+                VodPackager.Result result = packager.packageSegments(paths, directory, baseName, true);
+                Platform.runLater(() -> {
+                    addCameraLog(String.format("✅ HLS playlist hazır (%d segment, %.1f sn): %s",
+                        result.getSegmentCount(), result.getDurationSeconds(), result.getPlaylist()));
+                    if (result.getMpd() != null) {
+                        addCameraLog("✅ DASH manifest: " + result.getMpd());
+                    }
+                    if (result.getSkippedCount() > 0) {
+                        addCameraLog("⚠️ fMP4 olmayan " + result.getSkippedCount() + " segment atlandı");
+                    }
+                });
+            } catch (java.io.IOException e) {
+                logger.error("Packaging failed", e);
+                Platform.runLater(() -> addCameraLog("❌ Paketleme hatası: " + e.getMessage()));
+            } finally {
+                Platform.runLater(() -> packageSegmentsBtn.setDisable(false));
+            }
+        }, "VodPackager");
+    }
+
+    /**
+     * Son kayıttan zaman aralığı keser. "00:37:00-00:42:00" kayıt zamanı, "@14:37-14:42" duvar saatidir.
+     */
+    @FXML
+    private void extractClip() {
+        SegmentManifest manifest = cameraService != null ? cameraService.getSegmentManifest() : null;
+        if (manifest == null || manifest.size() == 0) {
+            showAlert("Uyarı", "Kesilecek segmentli kayıt yok.", Alert.AlertType.WARNING);
+            return;
+        }
+
+        TextInputDialog dialog = new TextInputDialog("00:00:00-00:01:00");
+        dialog.setTitle("Aralık Çıkar");
+        dialog.setHeaderText(String.format("Kayıt süresi: %s\nKayıt zamanı: 00:37:00-00:42:00, saat: @14:37:00-14:42:00",
+            formatClock(manifest.getEnd())));
+        dialog.setContentText("Aralık:");
+        java.util.Optional<String> input = dialog.showAndWait();
+        if (input.isEmpty()) {
+            return;
+        }
+
+        String text = input.get().trim();
+        boolean wallClock = text.startsWith("@");
+        String[] parts = (wallClock ? text.substring(1) : text).split("-");
+        double start = -1;
+        double end = -1;
+        if (parts.length == 2) {
+            if (wallClock) {
+                java.time.LocalDateTime recordingStart = ClipExtractor.recordingStart(manifest.getFile());
+                try {
+                    if (recordingStart != null) {
+                        start = ClipExtractor.mediaSecondsAt(recordingStart, java.time.LocalTime.parse(parts[0].trim()));
+                        end = ClipExtractor.mediaSecondsAt(recordingStart, java.time.LocalTime.parse(parts[1].trim()));
+                    }
+                } catch (java.time.format.DateTimeParseException e) {
+                    start = -1;
+                }
+            } else {
+                start = ClipExtractor.parseTime(parts[0]);
+                end = ClipExtractor.parseTime(parts[1]);
+            }
+        }
+        if (start < 0 || end <= start) {
+            showAlert("Uyarı", "Geçersiz aralık: " + text, Alert.AlertType.WARNING);
+            return;
+        }
+
+        double clipStart = start;
+        double clipEnd = end;
+        extractClipBtn.setDisable(true);
+        addCameraLog(String.format("Aralık kesiliyor: %s - %s", formatClock(clipStart), formatClock(clipEnd)));
+        startForegroundTask(() -> {
+            try {
+                ClipExtractor.Result result = cameraService.extractClip(clipStart, clipEnd, true);
+                Platform.runLater(() -> addCameraLog(String.format(
+                    "✅ Klip hazır (%d segment, %.1f sn kopyalandı, %.1f sn encode edildi, %.1f sn sürdü): %s",
+                    result.getSegmentCount(), result.getCopiedSeconds(), result.getReencodedSeconds(),
+                    result.getElapsedMillis() / 1000.0, result.getOutput())));
+            } catch (java.io.IOException e) {
+                logger.error("Clip extraction failed", e);
+                Platform.runLater(() -> addCameraLog("❌ Klip kesilemedi: " + e.getMessage()));
+            } finally {
+                Platform.runLater(() -> extractClipBtn.setDisable(false));
+            }
+        }, "ClipExtractor");
+    }
+
+    /**
+     * Kullanıcının başlattığı FFmpeg işini daemon threadde çalıştırır; iş sürerken boşta arşivleme başlamaz
+     */
+    private void startForegroundTask(Runnable task, String name) {
+        foregroundTasks.incrementAndGet();
+        Thread thread = new Thread(() -> {
+            try {
+                task.run();
+            } finally {
+                foregroundTasks.decrementAndGet();
+            }
+        }, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static String formatClock(double seconds) {
+        long total = Math.round(seconds);
+        return String.format("%02d:%02d:%02d", total / 3600, (total % 3600) / 60, total % 60);
+    }
+
+    /**
+     * Çökme sonrası yarım kalan kayıt oturumlarını arka planda onarır ve birleştirme/paketleme önerir
+     */
+    private void recoverInterruptedSessions() {
+        if (recordingOutputDirField == null || recordingOutputDirField.getText().trim().isEmpty()) {
+            return;
+        }
+        java.nio.file.Path root = java.nio.file.Paths.get(recordingOutputDirField.getText().trim());
+        Thread recoveryThread = new Thread(() -> {
+            try {
+                java.util.List<SessionRecovery.Session> sessions = SessionRecovery.scanAll(root);
+                for (SessionRecovery.Session session : sessions) {
+                    Platform.runLater(() -> offerRecoveredSession(session));
+                }
+            } catch (java.io.IOException e) {
+                logger.warn("Recovery scan failed: {}", e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "SessionRecovery");
+        recoveryThread.setDaemon(true);
+        recoveryThread.start();
+    }
+
+    private void offerRecoveredSession(SessionRecovery.Session session) {
+        java.util.List<java.nio.file.Path> segments = session.getSegments();
+        addCameraLog(String.format("Yarım kalan kayıt onarıldı: %s (%d segment eklendi, %d KB yarım veri kesildi)",
+            session.getName(), session.getRecoveredCount(), session.getTruncatedBytes() / 1024));
+        IdleTranscodeQueue queue = idleTranscodeQueue;
+        if (queue != null) {
+            queue.enqueueSession(session.getManifest());
+        }
+
+        ButtonType listButton = new ButtonType("Listeye Ekle");
+        ButtonType packageButton = new ButtonType("Paketle (HLS)");
+        Alert alert = new Alert(Alert.AlertType.CONFIRMATION,
+            String.format("Önceki çalışmada yarım kalan kayıt bulundu ve onarıldı:\n%s\n%d segment, %s",
+                session.getName(), segments.size(), formatClock(session.getManifest().getTotalDuration())),
+            listButton, packageButton, ButtonType.CLOSE);
+        alert.setTitle("Kayıt Kurtarma");
+        alert.setHeaderText("Yarım kalan kayıt");
+        java.util.Optional<ButtonType> choice = alert.showAndWait();
+        if (choice.isEmpty()) {
+            return;
+        }
+        if (choice.get() == listButton) {
+            // Birleştirme her zamanki gibi segment listesinden yapılır
+            for (java.nio.file.Path segment : segments) {
+                SegmentManifest.Entry entry = session.getManifest().get(segment);
+                addOrUpdateSegment(segment.toString(), entry != null ? entry.getSize() : segment.toFile().length(),
+                                   entry != null ? Math.round(entry.getDuration() * 1000) : 0);
+            }
+        } else if (choice.get() == packageButton) {
+            java.nio.file.Path directory = session.getManifestFile().toAbsolutePath().getParent();
+            startForegroundTask(() -> {
+                try {
+                    VodPackager.Result result = new VodPackager(session.getManifest())
+                        .packageSegments(segments, directory, session.getName() + "_vod", true);
+                    Platform.runLater(() -> addCameraLog("✅ Kurtarılan kayıt paketlendi: " + result.getPlaylist()));
+                } catch (java.io.IOException e) {
+                    Platform.runLater(() -> addCameraLog("❌ Paketleme hatası: " + e.getMessage()));
+                }
+            }, "VodPackager");
+        }
+    }
+
+    /**
+     * Boşta arşivleme kuyruğunu açar/kapatır. Arşiv kopyaları kayıt klasöründeki "archive" klasörüne yazılır,
+     * kaynak segmentler silinmez.
+     */
+    private void setIdleArchiving(boolean enabled) {
+        IdleTranscodeQueue previous = idleTranscodeQueue;
+        idleTranscodeQueue = null;
+        if (previous != null) {
+            previous.close();
+        }
+        if (!enabled) {
+            addCameraLog("Boşta arşivleme kapatıldı");
+            return;
+        }
+        java.time.LocalTime[] window = parseArchiveWindow(archiveWindowField != null ? archiveWindowField.getText() : "");
+        if (window == null) {
+            idleArchiveCheck.setSelected(false);
+            addCameraLog("Geçersiz arşiv saat aralığı (ör. 22:00-06:00)");
+            return;
+        }
+        java.nio.file.Path archiveDir = java.nio.file.Paths.get(recordingOutputDirField.getText().trim(), "archive");
+        IdleTranscodeQueue.Settings defaults = IdleTranscodeQueue.Settings.defaults(archiveDir);
+        IdleTranscodeQueue.Settings settings = new IdleTranscodeQueue.Settings(archiveDir, window[0], window[1],
+            defaults.getMaxLoadPerCore(), defaults.getPreset(), defaults.getCrf(), false);
+        idleTranscodeQueue = new IdleTranscodeQueue(ffmpegService.getFfmpegPath(), ffmpegService.getFfprobePath(), settings,
+            () -> cameraService.isAnyCaptureActive() || ffmpegService.getActiveJobCount() > 0
+                  || foregroundTasks.get() > 0,
+            new IdleTranscodeQueue.Listener() {
+                @Override
+                public void onJobCompleted(java.nio.file.Path source, java.nio.file.Path archive, long sourceBytes, long archiveBytes) {
+                    addCameraLog(String.format("Arşivlendi: %s (%d KB -> %d KB)", archive.getFileName(),
+                        sourceBytes / 1024, archiveBytes / 1024));
+                }
+
+                @Override
+                public void onJobFailed(java.nio.file.Path source, String reason) {
+                    addCameraLog("Arşivleme hatası: " + source.getFileName() + " - " + reason);
+                }
+
+                @Override
+                public void onPaused(String reason) {
+                    logger.debug("Archive queue paused: {}", reason);
+                }
+            });
+        addCameraLog("Boşta arşivleme etkin: " + archiveDir
+                     + (window[0].equals(window[1]) ? "" : " (" + window[0] + "-" + window[1] + ")"));
+    }
+
+    /**
+     * "22:00-06:00" -> {başlangıç, bitiş}; boşsa saat sınırı yok, geçersizse null
+     */
+    private static java.time.LocalTime[] parseArchiveWindow(String text) {
+        if (text == null || text.trim().isEmpty()) {
+            return new java.time.LocalTime[] {java.time.LocalTime.MIDNIGHT, java.time.LocalTime.MIDNIGHT};
+        }
+        String[] parts = text.trim().split("\\s*-\\s*");
+        if (parts.length != 2) {
+            return null;
+        }
+        try {
+            return new java.time.LocalTime[] {java.time.LocalTime.parse(parts[0]), java.time.LocalTime.parse(parts[1])};
+        } catch (java.time.format.DateTimeParseException e) {
+            return null;
+        }
+    }
+
     @FXML
     private void clearSegmentList() {
-        recordedSegments.clear();
-        updateSegmentCount();
+        clearSegments();
         addCameraLog("Segment listesi temizlendi");
     }
 
@@ -0,0 +1,238 @@
+package com.ffmpeg.gui;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ffprobe sonuçlarının uygulama genelinde paylaşılan cache'i. Anahtar dosya yolu + boyut +
+ * değişiklik zamanıdır; dosya değişmedikçe aynı segment ikinci kez probe edilmez.
+ *
+ * Her stream için birleştirme uyumluluğunu belirleyen imza tutulur: codec, profil, çözünürlük,
+ * piksel formatı, timebase ve extradata (SPS/PPS, AudioSpecificConfig) özeti.
+ */
+public class MediaProbeCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(MediaProbeCache.class);
+
+    private static final MediaProbeCache SHARED = new MediaProbeCache();
+    private static final long PROBE_TIMEOUT_SECONDS = 30;
+
+    /**
+     * Tek dosyanın probe sonucu
+     */
+    public static class ProbeInfo {
+        private final double duration;
+        private final List<String> streamSignatures;
+
+        ProbeInfo(double duration, List<String> streamSignatures) {
+            this.duration = duration;
+            this.streamSignatures = streamSignatures;
+        }
+
+        /** Saniye, bilinmiyorsa 0 */
+        public double getDuration() { return duration; }
+
+        /** Stream sırasıyla imzalar ("video:h264:High:1280x720:yuv420p:1/15360:CRC32:...") */
+        public List<String> getStreamSignatures() { return streamSignatures; }
+
+        public boolean hasVideo() { return hasStream("video:"); }
+        public boolean hasAudio() { return hasStream("audio:"); }
+
+        /**
+         * İlk video stream'inin yüksekliği ("video:h264:High:1280x720:..." imzasından), bilinmiyorsa 0
+         */
+        public int getVideoHeight() {
+            for (String signature : streamSignatures) {
+                String[] fields = signature.split(":");
+                if (fields.length > 3 && fields[0].equals("video")) {
+                    int x = fields[3].indexOf('x');
+                    try {
+                        return x > 0 ? Integer.parseInt(fields[3].substring(x + 1)) : 0;
+                    } catch (NumberFormatException e) {
+                        return 0;
+                    }
+                }
+            }
+            return 0;
+        }
+
+        private boolean hasStream(String typePrefix) {
+            for (String signature : streamSignatures) {
+                if (signature.startsWith(typePrefix)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Stream copy ile aynı dosyaya eklenebilir mi
+         */
+        public boolean isCopyCompatible(ProbeInfo other) {
+            return streamSignatures.equals(other.streamSignatures);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%.3fs %s", duration, streamSignatures);
+        }
+    }
+
+    private static class Key {
+        private final Path path;
+        private final long size;
+        private final long modified;
+
+        Key(Path path, long size, long modified) {
+            this.path = path;
+            this.size = size;
+            this.modified = modified;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return size == other.size && modified == other.modified && path.equals(other.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return path.hashCode() * 31 + Long.hashCode(size) * 17 + Long.hashCode(modified);
+        }
+    }
+
+    private final Map<Key, ProbeInfo> cache = new ConcurrentHashMap<>();
+
+    public static MediaProbeCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * Dosyanın probe bilgisini döndürür; cache'te yoksa ffprobe çalıştırılır
+     */
+    public ProbeInfo probe(String ffprobePath, Path file) throws IOException {
+        Path absolute = file.toAbsolutePath().normalize();
+        Key key = new Key(absolute, Files.size(absolute), Files.getLastModifiedTime(absolute).toMillis());
+        ProbeInfo cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        ProbeInfo info = runProbe(ffprobePath, absolute);
+        cache.put(key, info);
+        logger.debug("Probed {}: {}", absolute.getFileName(), info);
+        return info;
+    }
+
+    /**
+     * Dosya dışarıda değiştirildiğinde/silindiğinde cache'ten çıkarır
+     */
+    public void invalidate(Path file) {
+        Path absolute = file.toAbsolutePath().normalize();
+        cache.keySet().removeIf(key -> key.path.equals(absolute));
+    }
+
+    private ProbeInfo runProbe(String ffprobePath, Path file) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(ffprobePath);
+        command.add("-v");
+        command.add("error");
+        command.add("-show_data_hash");
+        command.add("CRC32");
+        command.add("-show_entries");
+        command.add("format=duration:stream=codec_type,codec_name,profile,width,height,pix_fmt,"
+                    + "time_base,sample_rate,channels,extradata_hash");
+        command.add("-of");
+        command.add("compact");
+        command.add(file.toString());
+
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        List<String> lines = new ArrayList<>();
+        // Diğer runner'larla aynı satır ayrıştırıcısı; compact çıktıda satır türü önemsiz, hepsi toplanır
+        FFmpegProgressParser parser = new FFmpegProgressParser();
+        FFmpegProgressParser.LineHandler handler = (type, line) -> lines.add(line.toString());
+        try (InputStream output = process.getInputStream()) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = output.read(buffer)) > 0) {
+                parser.feed(buffer, 0, read, handler);
+            }
+            parser.flush(handler);
+        }
+        try {
+            if (!process.waitFor(PROBE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+                throw new IOException("ffprobe timed out: " + file);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            process.destroyForcibly();
+            throw new IOException("Interrupted while probing " + file);
+        }
+        if (process.exitValue() != 0) {
+            throw new IOException("ffprobe failed for " + file + ": " + String.join(" ", lines));
+        }
+        return parse(lines);
+    }
+
+    /**
+     * "-of compact" çıktısını ayrıştırır: her stream ve format kendi satırında, alanlar '|' ile ayrılır
+     */
+    static ProbeInfo parse(List<String> lines) {
+        double duration = 0;
+        List<String> signatures = new ArrayList<>();
+        for (String line : lines) {
+            String[] fields = line.split("\\|");
+            if (fields.length == 0) {
+                continue;
+            }
+            Map<String, String> values = new java.util.HashMap<>();
+            for (int i = 1; i < fields.length; i++) {
+                int eq = fields[i].indexOf('=');
+                if (eq > 0) {
+                    values.put(fields[i].substring(0, eq), fields[i].substring(eq + 1));
+                }
+            }
+
+            if (fields[0].equals("format")) {
+                try {
+                    duration = Double.parseDouble(values.getOrDefault("duration", "0"));
+                } catch (NumberFormatException e) {
+                    duration = 0; // "N/A"
+                }
+            } else if (fields[0].equals("stream")) {
+                signatures.add(signature(values));
+            }
+        }
+        return new ProbeInfo(duration, List.copyOf(signatures));
+    }
+
+    private static String signature(Map<String, String> stream) {
+        String type = stream.getOrDefault("codec_type", "unknown");
+        StringBuilder sb = new StringBuilder(type).append(':').append(stream.getOrDefault("codec_name", ""));
+        if (type.equals("video")) {
+            sb.append(':').append(stream.getOrDefault("profile", ""))
+              .append(':').append(stream.getOrDefault("width", "")).append('x').append(stream.getOrDefault("height", ""))
+              .append(':').append(stream.getOrDefault("pix_fmt", ""));
+        } else if (type.equals("audio")) {
+            sb.append(':').append(stream.getOrDefault("sample_rate", ""))
+              .append(':').append(stream.getOrDefault("channels", ""));
+        }
+        sb.append(':').append(stream.getOrDefault("time_base", ""))
+          .append(':').append(stream.getOrDefault("extradata_hash", ""));
+        return sb.toString();
+    }
+}
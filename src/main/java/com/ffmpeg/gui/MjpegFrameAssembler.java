@@ -0,0 +1,228 @@
+package com.ffmpeg.gui;
+
+/**
+ * FFmpeg'in stdout'a yazdığı MJPEG akışını tek tek JPEG framelerine ayırır.
+ * Gelen chunklar üzerinde SOI (FF D8) / EOI (FF D9) markerları aranır, frame verisi
+ * yeniden kullanılan tek bir buffer içinde biriktirilir.
+ */
+public class MjpegFrameAssembler {
+
+    /**
+     * Tamamlanan frame bildirimi
+     */
+    public interface FrameListener {
+        void onFrame(byte[] frameData);
+    }
+
+    private final int maxFrameSize;
+    private byte[] buffer;
+    private int size = 0;
+    private boolean inFrame = false;
+    private boolean previousWasFF = false;
+    private long frameCount = 0;
+    private long droppedFrames = 0;
+
+    public MjpegFrameAssembler(int maxFrameSize) {
+        this.maxFrameSize = maxFrameSize;
+        this.buffer = new byte[Math.min(256 * 1024, maxFrameSize)];
+    }
+
+    /**
+     * Okunan veriyi işler, tamamlanan her frame için listener çağrılır
+     */
+    public void feed(byte[] data, int offset, int length, FrameListener listener) {
+        int end = offset + length;
+        int i = offset;
+
+        while (i < end) {
+            if (!inFrame) {
+                // SOI ara
+                while (i < end) {
+                    int b = data[i++] & 0xFF;
+                    if (previousWasFF && b == 0xD8) {
+                        inFrame = true;
+                        previousWasFF = false;
+                        size = 0;
+                        append((byte) 0xFF);
+                        append((byte) 0xD8);
+                        break;
+                    }
+                    previousWasFF = b == 0xFF;
+                }
+            } else {
+                // EOI ara - entropy verisinde FF byte'ları FF 00 olarak stuff edildiği için güvenli
+                int start = i;
+                boolean complete = false;
+                while (i < end) {
+                    int b = data[i++] & 0xFF;
+                    if (previousWasFF && b == 0xD9) {
+                        complete = true;
+                        break;
+                    }
+                    previousWasFF = b == 0xFF;
+                }
+
+                if (!append(data, start, i - start)) {
+                    // Buffer overflow koruması
+                    droppedFrames++;
+                    inFrame = false;
+                    previousWasFF = false;
+                    size = 0;
+                    continue;
+                }
+
+                if (complete) {
+                    inFrame = false;
+                    previousWasFF = false;
+                    frameCount++;
+                    byte[] frame = new byte[size];
+                    System.arraycopy(buffer, 0, frame, 0, size);
+                    size = 0;
+                    if (listener != null) {
+                        listener.onFrame(frame);
+                    }
+                }
+            }
+        }
+    }
+
+    private void append(byte value) {
+        ensureCapacity(size + 1);
+        buffer[size++] = value;
+    }
+
+    private boolean append(byte[] data, int offset, int length) {
+        if (size + length > maxFrameSize) {
+            return false;
+        }
+        ensureCapacity(size + length);
+        System.arraycopy(data, offset, buffer, size, length);
+        size += length;
+        return true;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required > buffer.length) {
+            int newLength = Math.min(Math.max(buffer.length * 2, required), maxFrameSize);
+            byte[] grown = new byte[Math.max(newLength, required)];
+            System.arraycopy(buffer, 0, grown, 0, size);
+            buffer = grown;
+        }
+    }
+
+    public void reset() {
+        size = 0;
+        inFrame = false;
+        previousWasFF = false;
+    }
+
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    public long getDroppedFrames() {
+        return droppedFrames;
+    }
+
+    // ========================== HUFFMAN TABLOSU ==========================
+
+    /**
+     * Kamera MJPEG çıktısı (MJPEG/AVI1) genellikle DHT segmenti içermez; decoder'lar için
+     * JPEG standardındaki (Annex K.3) varsayılan tabloları SOS'tan önce ekler.
+     * DHT zaten varsa frame aynen döner.
+     */
+    public static byte[] ensureHuffmanTables(byte[] jpeg) {
+        if (jpeg == null || jpeg.length < 4) {
+            return jpeg;
+        }
+
+        int pos = 2; // SOI sonrası
+        while (pos + 4 <= jpeg.length) {
+            if ((jpeg[pos] & 0xFF) != 0xFF) {
+                return jpeg; // Beklenmeyen yapı - dokunma
+            }
+            int marker = jpeg[pos + 1] & 0xFF;
+            if (marker == 0xFF) {
+                pos++; // Fill byte
+                continue;
+            }
+            if (marker == 0xC4) {
+                return jpeg;
+            }
+            if (marker == 0xDA) {
+                byte[] fixed = new byte[jpeg.length + DEFAULT_DHT.length];
+                System.arraycopy(jpeg, 0, fixed, 0, pos);
+                System.arraycopy(DEFAULT_DHT, 0, fixed, pos, DEFAULT_DHT.length);
+                System.arraycopy(jpeg, pos, fixed, pos + DEFAULT_DHT.length, jpeg.length - pos);
+                return fixed;
+            }
+            int segmentLength = ((jpeg[pos + 2] & 0xFF) << 8) | (jpeg[pos + 3] & 0xFF);
+            pos += 2 + segmentLength;
+        }
+        return jpeg;
+    }
+
+    private static final int[] DC_LUMINANCE_BITS = { 0, 1, 5, 1, 1, 1, 1, 1, 1, 0, 0, 0, 0, 0, 0, 0 };
+    private static final int[] DC_CHROMINANCE_BITS = { 0, 3, 1, 1, 1, 1, 1, 1, 1, 1, 1, 0, 0, 0, 0, 0 };
+    private static final int[] DC_VALUES = { 0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11 };
+
+    private static final int[] AC_LUMINANCE_BITS = { 0, 2, 1, 3, 3, 2, 4, 3, 5, 5, 4, 4, 0, 0, 1, 0x7d };
+    private static final int[] AC_LUMINANCE_VALUES = {
+        0x01, 0x02, 0x03, 0x00, 0x04, 0x11, 0x05, 0x12, 0x21, 0x31, 0x41, 0x06, 0x13, 0x51, 0x61, 0x07,
+        0x22, 0x71, 0x14, 0x32, 0x81, 0x91, 0xa1, 0x08, 0x23, 0x42, 0xb1, 0xc1, 0x15, 0x52, 0xd1, 0xf0,
+        0x24, 0x33, 0x62, 0x72, 0x82, 0x09, 0x0a, 0x16, 0x17, 0x18, 0x19, 0x1a, 0x25, 0x26, 0x27, 0x28,
+        0x29, 0x2a, 0x34, 0x35, 0x36, 0x37, 0x38, 0x39, 0x3a, 0x43, 0x44, 0x45, 0x46, 0x47, 0x48, 0x49,
+        0x4a, 0x53, 0x54, 0x55, 0x56, 0x57, 0x58, 0x59, 0x5a, 0x63, 0x64, 0x65, 0x66, 0x67, 0x68, 0x69,
+        0x6a, 0x73, 0x74, 0x75, 0x76, 0x77, 0x78, 0x79, 0x7a, 0x83, 0x84, 0x85, 0x86, 0x87, 0x88, 0x89,
+        0x8a, 0x92, 0x93, 0x94, 0x95, 0x96, 0x97, 0x98, 0x99, 0x9a, 0xa2, 0xa3, 0xa4, 0xa5, 0xa6, 0xa7,
+        0xa8, 0xa9, 0xaa, 0xb2, 0xb3, 0xb4, 0xb5, 0xb6, 0xb7, 0xb8, 0xb9, 0xba, 0xc2, 0xc3, 0xc4, 0xc5,
+        0xc6, 0xc7, 0xc8, 0xc9, 0xca, 0xd2, 0xd3, 0xd4, 0xd5, 0xd6, 0xd7, 0xd8, 0xd9, 0xda, 0xe1, 0xe2,
+        0xe3, 0xe4, 0xe5, 0xe6, 0xe7, 0xe8, 0xe9, 0xea, 0xf1, 0xf2, 0xf3, 0xf4, 0xf5, 0xf6, 0xf7, 0xf8,
+        0xf9, 0xfa
+    };
+
+    private static final int[] AC_CHROMINANCE_BITS = { 0, 2, 1, 2, 4, 4, 3, 4, 7, 5, 4, 4, 0, 1, 2, 0x77 };
+    private static final int[] AC_CHROMINANCE_VALUES = {
+        0x00, 0x01, 0x02, 0x03, 0x11, 0x04, 0x05, 0x21, 0x31, 0x06, 0x12, 0x41, 0x51, 0x07, 0x61, 0x71,
+        0x13, 0x22, 0x32, 0x81, 0x08, 0x14, 0x42, 0x91, 0xa1, 0xb1, 0xc1, 0x09, 0x23, 0x33, 0x52, 0xf0,
+        0x15, 0x62, 0x72, 0xd1, 0x0a, 0x16, 0x24, 0x34, 0xe1, 0x25, 0xf1, 0x17, 0x18, 0x19, 0x1a, 0x26,
+        0x27, 0x28, 0x29, 0x2a, 0x35, 0x36, 0x37, 0x38, 0x39, 0x3a, 0x43, 0x44, 0x45, 0x46, 0x47, 0x48,
+        0x49, 0x4a, 0x53, 0x54, 0x55, 0x56, 0x57, 0x58, 0x59, 0x5a, 0x63, 0x64, 0x65, 0x66, 0x67, 0x68,
+        0x69, 0x6a, 0x73, 0x74, 0x75, 0x76, 0x77, 0x78, 0x79, 0x7a, 0x82, 0x83, 0x84, 0x85, 0x86, 0x87,
+        0x88, 0x89, 0x8a, 0x92, 0x93, 0x94, 0x95, 0x96, 0x97, 0x98, 0x99, 0x9a, 0xa2, 0xa3, 0xa4, 0xa5,
+        0xa6, 0xa7, 0xa8, 0xa9, 0xaa, 0xb2, 0xb3, 0xb4, 0xb5, 0xb6, 0xb7, 0xb8, 0xb9, 0xba, 0xc2, 0xc3,
+        0xc4, 0xc5, 0xc6, 0xc7, 0xc8, 0xc9, 0xca, 0xd2, 0xd3, 0xd4, 0xd5, 0xd6, 0xd7, 0xd8, 0xd9, 0xda,
+        0xe2, 0xe3, 0xe4, 0xe5, 0xe6, 0xe7, 0xe8, 0xe9, 0xea, 0xf2, 0xf3, 0xf4, 0xf5, 0xf6, 0xf7, 0xf8,
+        0xf9, 0xfa
+    };
+
+    private static final byte[] DEFAULT_DHT = buildDefaultDht();
+
+    private static byte[] buildDefaultDht() {
+        int[][] bits = { DC_LUMINANCE_BITS, AC_LUMINANCE_BITS, DC_CHROMINANCE_BITS, AC_CHROMINANCE_BITS };
+        int[][] values = { DC_VALUES, AC_LUMINANCE_VALUES, DC_VALUES, AC_CHROMINANCE_VALUES };
+        int[] tableClasses = { 0x00, 0x10, 0x01, 0x11 };
+
+        int length = 2;
+        for (int[] v : values) {
+            length += 1 + 16 + v.length;
+        }
+
+        byte[] dht = new byte[2 + length];
+        int pos = 0;
+        dht[pos++] = (byte) 0xFF;
+        dht[pos++] = (byte) 0xC4;
+        dht[pos++] = (byte) (length >> 8);
+        dht[pos++] = (byte) length;
+        for (int t = 0; t < 4; t++) {
+            dht[pos++] = (byte) tableClasses[t];
+            for (int b : bits[t]) {
+                dht[pos++] = (byte) b;
+            }
+            for (int v : values[t]) {
+                dht[pos++] = (byte) v;
+            }
+        }
+        return dht;
+    }
+}
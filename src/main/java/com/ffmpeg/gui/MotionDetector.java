@@ -0,0 +1,265 @@
+package com.ffmpeg.gui;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.Raster;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Önizleme karelerinden (MJPEG) ucuz hareket algılama: kareler saniyede birkaç kez örneklenir,
+ * JPEG yalnızca parlaklık (Y) kanalı olarak 1/8 çözünürlükte okunur ve ardışık örnekler arasında
+ * belirgin değişen piksel oranı hesaplanır.
+ *
+ * Başlama ve durma için iki ayrı eşik (histerezis) vardır: hareket, skor başlama eşiğini
+ * {@link Settings#getTriggerMillis()} boyunca aştığında başlar; skor durma eşiğinin altında
+ * {@link Settings#getPostRollMillis()} kadar kaldığında biter.
+ *
+ * Çözümleme tek bir paylaşılan daemon thread'inde yapılır; frame reader sadece en son kareyi
+ * bırakır ve beklemez. Meşgulken gelen kareler atlanır.
+ */
+public class MotionDetector {
+
+    private static final Logger logger = LoggerFactory.getLogger(MotionDetector.class);
+
+    private static final long SAMPLE_INTERVAL_MS = 250; // Saniyede 4 örnek
+    private static final int SUBSAMPLING = 8;           // 640x360 -> 80x45
+    private static final int PIXEL_THRESHOLD = 20;      // Gürültü sayılmayan parlaklık farkı
+
+    // Bütün kameraların çözümlemesi için tek daemon thread
+    private static final ExecutorService ANALYZER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "MotionDetector");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    /**
+     * Algılama ayarları - eşikler değişen piksel oranıdır (0-1)
+     */
+    public static class Settings {
+        private final double startThreshold;
+        private final double stopThreshold;
+        private final long triggerMillis;
+        private final long postRollMillis;
+
+        public Settings(double startThreshold, double stopThreshold, long triggerMillis, long postRollMillis) {
+            this.startThreshold = startThreshold;
+            this.stopThreshold = Math.min(stopThreshold, startThreshold);
+            this.triggerMillis = triggerMillis;
+            this.postRollMillis = postRollMillis;
+        }
+
+        /**
+         * Karenin %2'si yarım saniye değişince başla, %0.5'in altında verilen süre kalınca dur
+         */
+        public static Settings withPostRoll(long postRollMillis) {
+            return new Settings(0.02, 0.005, 500, postRollMillis);
+        }
+
+        public double getStartThreshold() { return startThreshold; }
+        public double getStopThreshold() { return stopThreshold; }
+        public long getTriggerMillis() { return triggerMillis; }
+        public long getPostRollMillis() { return postRollMillis; }
+
+        @Override
+        public String toString() {
+            return String.format(java.util.Locale.ROOT, "start=%.3f, stop=%.3f, trigger=%dms, postRoll=%dms",
+                                 startThreshold, stopThreshold, triggerMillis, postRollMillis);
+        }
+    }
+
+    /**
+     * Hareket durumu değişimleri - çözümleme thread'inden çağrılır
+     */
+    public interface Listener {
+        void onMotionStarted(double score);
+        void onMotionStopped(long activeMillis);
+    }
+
+    private final String name;
+    private final Settings settings;
+    private final Listener listener;
+    private final AtomicReference<byte[]> pendingFrame = new AtomicReference<>();
+    private final long createdNanos = System.nanoTime();
+    private volatile long lastOfferMillis = -SAMPLE_INTERVAL_MS;
+    private volatile boolean closed;
+    private volatile long busyNanos;
+    private volatile long samples;
+    private volatile double lastScore;
+    private ImageReader reader; // Sadece çözümleme thread'inden
+
+    // Durum makinesi - sadece çözümleme thread'inden (testlerde doğrudan)
+    private byte[] previous;
+    private volatile boolean active;
+    private long aboveSince = -1;
+    private long lastActivity;
+    private long activeSince;
+
+    public MotionDetector(String name, Settings settings, Listener listener) {
+        this.name = name;
+        this.settings = settings;
+        this.listener = listener;
+    }
+
+    /**
+     * Frame reader'dan çağrılır; örnekleme aralığı dolmadıysa hemen döner, hiç beklemez
+     */
+    public void offer(byte[] jpeg, long nowMillis) {
+        if (closed || nowMillis - lastOfferMillis < SAMPLE_INTERVAL_MS) {
+            return;
+        }
+        lastOfferMillis = nowMillis;
+        if (pendingFrame.getAndSet(jpeg) == null) {
+            ANALYZER.execute(this::analyzePending);
+        }
+    }
+
+    private void analyzePending() {
+        byte[] frame = pendingFrame.getAndSet(null);
+        if (frame == null || closed) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            byte[] luma = decodeLuma(frame);
+            if (luma != null) {
+                update(luma, System.currentTimeMillis());
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.debug("[{}] Motion sample skipped: {}", name, e.getMessage());
+        } finally {
+            busyNanos += System.nanoTime() - start;
+            samples++;
+        }
+    }
+
+    /**
+     * JPEG'in Y kanalı, her eksende 1/SUBSAMPLING. readRaster renk dönüşümü yapmaz (JFIF -> YCbCr).
+     */
+    private byte[] decodeLuma(byte[] jpeg) throws IOException {
+        if (reader == null) {
+            Iterator<ImageReader> readers = ImageIO.getImageReadersByFormatName("jpeg");
+            if (!readers.hasNext()) {
+                throw new IOException("No JPEG reader");
+            }
+            reader = readers.next();
+        }
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(jpeg))) {
+            reader.setInput(input, true, true);
+            ImageReadParam param = reader.getDefaultReadParam();
+            param.setSourceSubsampling(SUBSAMPLING, SUBSAMPLING, 0, 0);
+            Raster raster = reader.readRaster(0, param);
+            int width = raster.getWidth();
+            int height = raster.getHeight();
+            int[] samples = raster.getSamples(raster.getMinX(), raster.getMinY(), width, height, 0, (int[]) null);
+            byte[] luma = new byte[samples.length];
+            for (int i = 0; i < samples.length; i++) {
+                luma[i] = (byte) samples[i];
+            }
+            return luma;
+        } finally {
+            reader.setInput(null);
+        }
+    }
+
+    /**
+     * İki örnek arasında PIXEL_THRESHOLD'dan fazla değişen piksellerin oranı
+     */
+    static double score(byte[] previous, byte[] current) {
+        int changed = 0;
+        for (int i = 0; i < current.length; i++) {
+            if (Math.abs((previous[i] & 0xFF) - (current[i] & 0xFF)) > PIXEL_THRESHOLD) {
+                changed++;
+            }
+        }
+        return current.length == 0 ? 0 : changed / (double) current.length;
+    }
+
+    /**
+     * Yeni parlaklık örneğiyle durum makinesini ilerletir; hareket sürüyorsa true
+     */
+    boolean update(byte[] luma, long nowMillis) {
+        byte[] last = previous;
+        previous = luma;
+        if (last == null || last.length != luma.length) {
+            return active; // İlk örnek ya da çözünürlük değişti - kıyas yok
+        }
+        double score = score(last, luma);
+        lastScore = score;
+
+        if (!active) {
+            if (score >= settings.startThreshold) {
+                if (aboveSince < 0) {
+                    aboveSince = nowMillis;
+                }
+                if (nowMillis - aboveSince >= settings.triggerMillis) {
+                    active = true;
+                    activeSince = nowMillis;
+                    lastActivity = nowMillis;
+                    aboveSince = -1;
+                    logger.info("[{}] Motion started (score {})", name, String.format("%.3f", score));
+                    if (listener != null) {
+                        listener.onMotionStarted(score);
+                    }
+                }
+            } else {
+                aboveSince = -1;
+            }
+        } else if (score >= settings.stopThreshold) {
+            lastActivity = nowMillis;
+        } else if (nowMillis - lastActivity >= settings.postRollMillis) {
+            active = false;
+            logger.info("[{}] Motion stopped after {} s", name, (nowMillis - activeSince) / 1000);
+            if (listener != null) {
+                listener.onMotionStopped(nowMillis - activeSince);
+            }
+        }
+        return active;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public double getLastScore() {
+        return lastScore;
+    }
+
+    public Settings getSettings() {
+        return settings;
+    }
+
+    /**
+     * Çözümlemenin harcadığı işlemci payı (tek çekirdeğin oranı olarak)
+     */
+    public double getCpuShare() {
+        long elapsed = System.nanoTime() - createdNanos;
+        return elapsed > 0 ? busyNanos / (double) elapsed : 0;
+    }
+
+    /**
+     * Algılamayı durdurur; bekleyen örnek çözümlenmez
+     */
+    public void close() {
+        closed = true;
+        pendingFrame.set(null);
+        logger.info("[{}] Motion detector closed: {} samples, {}% of a core", name, samples,
+                    String.format("%.2f", getCpuShare() * 100));
+        ANALYZER.execute(() -> {
+            if (reader != null) {
+                reader.dispose();
+                reader = null;
+            }
+        });
+    }
+}
@@ -0,0 +1,228 @@
+package com.ffmpeg.gui;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Tek girişten birden fazla çıktı (ör. MP4 H.264 + WebM VP9 + MP3) üreten dönüştürme işi.
+ *
+ * Hedefler ayrı ayrı dönüştürülürse giriş her biri için yeniden çözülür. Burada tek bir FFmpeg
+ * çağrısı kurulur: giriş bir kez çözülür, görüntü {@code split}, ses {@code asplit} ile
+ * hedeflere dağıtılır ve her hedef kendi çıktı dosyasına kendi codec ayarlarıyla encode edilir.
+ * Codec ayarları tek çıkışlı dönüştürmelerle aynıdır ({@link FFmpegService#videoCodecArgs}).
+ */
+public class MultiOutputJob {
+
+    /**
+     * Tek çıktı dosyası - video hedefi ses de içerir (girişte ses varsa), ses hedefi yalnızca ses
+     */
+    public static class Target {
+        private final String outputPath;
+        private final String format;
+        private final String videoCodec;
+        private final String audioCodec;
+        private final int width;
+        private final int height;
+        private final double fps;
+        private final int videoBitrate;
+        private final int audioBitrate;
+        private final int sampleRate;
+        private final int channels;
+
+        Target(String outputPath, String format, String videoCodec, String audioCodec, int width, int height,
+               double fps, int videoBitrate, int audioBitrate, int sampleRate, int channels) {
+            this.outputPath = outputPath;
+            this.format = format;
+            this.videoCodec = videoCodec;
+            this.audioCodec = audioCodec;
+            this.width = width;
+            this.height = height;
+            this.fps = fps;
+            this.videoBitrate = videoBitrate;
+            this.audioBitrate = audioBitrate;
+            this.sampleRate = sampleRate;
+            this.channels = channels;
+        }
+
+        public String getOutputPath() { return outputPath; }
+        public String getFormat() { return format; }
+        /** Ses hedefinde null */
+        public String getVideoCodec() { return videoCodec; }
+        public String getAudioCodec() { return audioCodec; }
+        public boolean isVideo() { return videoCodec != null; }
+
+        @Override
+        public String toString() {
+            return isVideo()
+                ? String.format(Locale.ROOT, "%s (%s/%s %dx%d)", outputPath, videoCodec, audioCodec, width, height)
+                : String.format(Locale.ROOT, "%s (%s)", outputPath, audioCodec);
+        }
+    }
+
+    /**
+     * Çıktı bazında ilerleme - FFmpeg'in okuyucu thread'inden çağrılır
+     */
+    public interface Listener {
+        /**
+         * @param processedSeconds işlenen giriş süresi (hedefler aynı çözülmüş kareleri aldığı için birlikte ilerler)
+         * @param writtenBytes çıktı dosyasının şu anki boyutu
+         */
+        void onOutputProgress(int index, Target target, double processedSeconds, long writtenBytes);
+
+        void onOutputCompleted(int index, Target target, long sizeBytes);
+    }
+
+    private final String inputPath;
+    private final List<Target> targets = new ArrayList<>();
+
+    public MultiOutputJob(String inputPath) {
+        this.inputPath = inputPath;
+    }
+
+    /**
+     * Video hedefi ekler; format ve codec seçimi {@link FFmpegService#convertVideo} ile aynı
+     */
+    public MultiOutputJob addVideo(VideoConversionParams params) {
+        String format = FFmpegService.formatTemizle(params.getFormat());
+        targets.add(new Target(FFmpegService.cikisYoluHazirla(params.getOutputPath(), format), format,
+                               FFmpegService.formatIcinVideoCodecBul(format, params.getCodec()),
+                               FFmpegService.formatIcinAudioCodecBul(format), params.getWidth(), params.getHeight(),
+                               params.getFps(), params.getBitrate(),
+                               params.getBitrate() > 0 ? Math.max(64, params.getBitrate() / 10) : 0, 0, 0));
+        return this;
+    }
+
+    /**
+     * Ses hedefi ekler; format ve codec seçimi {@link FFmpegService#convertAudio} ile aynı
+     */
+    public MultiOutputJob addAudio(AudioConversionParams params) {
+        String format = FFmpegService.formatTemizle(params.getFormat());
+        targets.add(new Target(FFmpegService.cikisYoluHazirla(params.getOutputPath(), format), format, null,
+                               FFmpegService.formatIcinAudioCodecBul(format), 0, 0, 0, 0, params.getBitrate(),
+                               params.getSampleRate(), params.getChannels()));
+        return this;
+    }
+
+    public String getInputPath() {
+        return inputPath;
+    }
+
+    public List<Target> getTargets() {
+        return Collections.unmodifiableList(targets);
+    }
+
+    /**
+     * split/asplit filtre grafiği: video hedefleri [vN], ses alan hedefler [aN] etiketlerini okur
+     */
+    String buildFilterGraph(boolean inputHasVideo, boolean inputHasAudio) {
+        List<Integer> videoTargets = new ArrayList<>();
+        List<Integer> audioTargets = new ArrayList<>();
+        for (int i = 0; i < targets.size(); i++) {
+            if (targets.get(i).isVideo() && inputHasVideo) {
+                videoTargets.add(i);
+            }
+            if (inputHasAudio) {
+                audioTargets.add(i);
+            }
+        }
+
+        List<String> chains = new ArrayList<>();
+        if (!videoTargets.isEmpty()) {
+            StringBuilder split = new StringBuilder("[0:v]split=").append(videoTargets.size());
+            for (int index : videoTargets) {
+                split.append("[vs").append(index).append(']');
+            }
+            chains.add(split.toString());
+            for (int index : videoTargets) {
+                Target target = targets.get(index);
+                StringBuilder chain = new StringBuilder("[vs").append(index).append(']');
+                List<String> filters = new ArrayList<>();
+                if (target.width > 0 && target.height > 0) {
+                    filters.add("scale=" + target.width + ":" + target.height);
+                }
+                if (target.fps > 0) {
+                    filters.add(String.format(Locale.ROOT, "fps=%s", formatFps(target.fps)));
+                }
+                chain.append(filters.isEmpty() ? "null" : String.join(",", filters));
+                chains.add(chain.append("[v").append(index).append(']').toString());
+            }
+        }
+        if (!audioTargets.isEmpty()) {
+            StringBuilder split = new StringBuilder("[0:a]asplit=").append(audioTargets.size());
+            for (int index : audioTargets) {
+                split.append("[a").append(index).append(']');
+            }
+            chains.add(split.toString());
+        }
+        return String.join(";", chains);
+    }
+
+    /**
+     * Tek FFmpeg çağrısı: bir giriş, grafiğin etiketlerine bağlı hedef başına bir çıktı.
+     * İlerleme "-progress pipe:1" ile stdout'a yazılır.
+     */
+    List<String> buildCommand(String ffmpegPath, boolean inputHasVideo, boolean inputHasAudio) {
+        List<String> command = new ArrayList<>();
+        command.add(ffmpegPath);
+        command.add("-nostdin");
+        command.add("-y");
+        command.add("-hide_banner");
+        command.add("-nostats");
+        command.add("-progress");
+        command.add("pipe:1");
+        command.add("-i");
+        command.add(inputPath);
+        String graph = buildFilterGraph(inputHasVideo, inputHasAudio);
+        if (!graph.isEmpty()) {
+            command.add("-filter_complex");
+            command.add(graph);
+        }
+
+        for (int i = 0; i < targets.size(); i++) {
+            Target target = targets.get(i);
+            boolean video = target.isVideo() && inputHasVideo;
+            if (video) {
+                command.add("-map");
+                command.add("[v" + i + "]");
+                command.add("-c:v");
+                command.add(target.videoCodec);
+                command.addAll(FFmpegService.videoCodecArgs(target.videoCodec, target.videoBitrate));
+                command.add("-g");
+                command.add("30");
+                command.add("-keyint_min");
+                command.add("25");
+                command.add("-sc_threshold");
+                command.add("0");
+            }
+            if (inputHasAudio) {
+                command.add("-map");
+                command.add("[a" + i + "]");
+                command.add("-c:a");
+                command.add(target.audioCodec);
+                command.addAll(FFmpegService.audioCodecArgs(target.audioCodec, target.audioBitrate));
+                if (target.sampleRate > 0) {
+                    command.add("-ar");
+                    command.add(String.valueOf(target.sampleRate));
+                }
+                if (target.channels > 0) {
+                    command.add("-ac");
+                    command.add(String.valueOf(target.channels));
+                }
+            }
+            if (video && (target.format.equals("mp4") || target.format.equals("mov"))) {
+                command.add("-movflags");
+                command.add("+faststart");
+            }
+            command.add("-avoid_negative_ts");
+            command.add("make_zero");
+            command.add(target.outputPath);
+        }
+        return command;
+    }
+
+    private static String formatFps(double fps) {
+        return fps == Math.rint(fps) ? String.valueOf((long) fps) : String.valueOf(fps);
+    }
+}
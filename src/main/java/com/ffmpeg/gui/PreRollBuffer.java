@@ -0,0 +1,191 @@
+package com.ffmpeg.gui;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Son birkaç saniyelik encode edilmiş MPEG-TS akışını heap dışında (direct ByteBuffer) tutan
+ * sabit boyutlu ring buffer. Anlık tekrar ve pre-roll'lu kayıt için kullanılır.
+ *
+ * Bellek tek seferde chunk'lar halinde ayrılır ve yeniden kullanılır; yazma sırasında heap
+ * allocation yapılmaz. Chunk boyutu 188 byte'lık TS paketinin katıdır, bu yüzden her chunk
+ * paket sınırında başlar ve kesilen akış oynatıcılar tarafından okunabilir.
+ * Diske yazma FileChannel'a direct buffer view'larıyla yapılır (heap kopyası yok).
+ */
+public class PreRollBuffer {
+
+    public static final int TS_PACKET_SIZE = 188;
+
+    private final ByteBuffer[] chunks;
+    private final long[] chunkStartTimes;
+    private final int[] committed; // Snapshot'ın görebileceği, yazımı tamamlanmış byte sayısı
+    private final int chunkSize;
+    private int head = 0;
+    private int filledChunks = 1;
+    private long totalBytesWritten = 0;
+
+    /**
+     * @param capacityBytes toplam bellek üst sınırı
+     * @param chunkSize     chunk boyutu - TS paket boyutunun katına yuvarlanır
+     */
+    public PreRollBuffer(long capacityBytes, int chunkSize) {
+        int alignedChunk = Math.max(TS_PACKET_SIZE, chunkSize - chunkSize % TS_PACKET_SIZE);
+        int count = (int) Math.max(2, capacityBytes / alignedChunk);
+        this.chunkSize = alignedChunk;
+        this.chunks = new ByteBuffer[count];
+        this.chunkStartTimes = new long[count];
+        this.committed = new int[count];
+        for (int i = 0; i < count; i++) {
+            chunks[i] = ByteBuffer.allocateDirect(alignedChunk);
+        }
+    }
+
+    /**
+     * Kanaldan mevcut chunk'a doğrudan okur (socket -> direct buffer, ara kopya yok).
+     * @return okunan byte sayısı, kanal kapandıysa -1
+     */
+    public int readFrom(ReadableByteChannel channel) throws IOException {
+        ByteBuffer target;
+        int index;
+        synchronized (this) {
+            target = writableChunk(System.currentTimeMillis());
+            index = head;
+        }
+        // Okuma lock dışında - snapshot sadece commit edilmiş aralığı görür
+        int read = channel.read(target);
+        if (read > 0) {
+            synchronized (this) {
+                committed[index] = target.position();
+                totalBytesWritten += read;
+            }
+        }
+        return read;
+    }
+
+    /**
+     * Veriyi buffer'a kopyalar (kanal dışı kaynaklar için)
+     */
+    public synchronized void write(ByteBuffer data, long now) {
+        while (data.hasRemaining()) {
+            ByteBuffer target = writableChunk(now);
+            int n = Math.min(target.remaining(), data.remaining());
+            ByteBuffer slice = data.duplicate();
+            slice.limit(slice.position() + n);
+            target.put(slice);
+            committed[head] = target.position();
+            data.position(data.position() + n);
+            totalBytesWritten += n;
+        }
+    }
+
+    /**
+     * Yazılabilir chunk'ı döndürür; mevcut chunk doluysa en eski chunk'ın üzerine yazmaya geçer
+     */
+    private ByteBuffer writableChunk(long now) {
+        ByteBuffer current = chunks[head];
+        if (!current.hasRemaining()) {
+            head = (head + 1) % chunks.length;
+            filledChunks = Math.min(filledChunks + 1, chunks.length);
+            current = chunks[head];
+            current.clear();
+            committed[head] = 0;
+        }
+        if (current.position() == 0) {
+            chunkStartTimes[head] = now;
+        }
+        return current;
+    }
+
+    /**
+     * Son {@code millis} süreyi kapsayan chunk'ları dosyaya yazar.
+     * @return yazılan byte sayısı
+     */
+    public long saveLast(long millis, Path target) throws IOException {
+        try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            return writeLast(millis, System.currentTimeMillis(), out);
+        }
+    }
+
+    /**
+     * Zero-copy yazım: chunk'ların read-only view'ları gathering write ile kanala aktarılır.
+     * Yazım sırasında ring'in üzerine yazılmaması için lock tutulur (birkaç MB page cache'e yazım).
+     */
+    public synchronized long writeLast(long millis, long now, FileChannel out) throws IOException {
+        List<ByteBuffer> views = new ArrayList<>();
+        long cutoff = now - millis;
+        int oldest = (head - filledChunks + 1 + chunks.length) % chunks.length;
+
+        for (int i = 0; i < filledChunks; i++) {
+            int index = (oldest + i) % chunks.length;
+            long chunkEnd = index == head ? now : chunkStartTimes[(index + 1) % chunks.length];
+            if (chunkEnd < cutoff) {
+                continue; // Tamamı istenen aralıktan eski
+            }
+
+            ByteBuffer view = chunks[index].asReadOnlyBuffer();
+            view.limit(committed[index]).position(0);
+            if (view.hasRemaining()) {
+                views.add(view);
+            }
+        }
+
+        ByteBuffer[] array = views.toArray(new ByteBuffer[0]);
+        long written = 0;
+        long expected = 0;
+        for (ByteBuffer view : array) {
+            expected += view.remaining();
+        }
+        while (written < expected) {
+            written += out.write(array);
+        }
+        return written;
+    }
+
+    /**
+     * Buffer'daki en eski verinin yaşı (ms)
+     */
+    public synchronized long getBufferedMillis(long now) {
+        int oldest = (head - filledChunks + 1 + chunks.length) % chunks.length;
+        if (totalBytesWritten == 0) {
+            return 0;
+        }
+        return now - chunkStartTimes[oldest];
+    }
+
+    public synchronized long getBufferedBytes() {
+        long bytes = 0;
+        int oldest = (head - filledChunks + 1 + chunks.length) % chunks.length;
+        for (int i = 0; i < filledChunks; i++) {
+            bytes += committed[(oldest + i) % chunks.length];
+        }
+        return bytes;
+    }
+
+    public long getCapacity() {
+        return (long) chunkSize * chunks.length;
+    }
+
+    public synchronized long getTotalBytesWritten() {
+        return totalBytesWritten;
+    }
+
+    /**
+     * İçeriği boşaltır - bellek serbest bırakılmaz, bir sonraki oturumda yeniden kullanılır
+     */
+    public synchronized void clear() {
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i].clear();
+            committed[i] = 0;
+        }
+        head = 0;
+        filledChunks = 1;
+        totalBytesWritten = 0;
+    }
+}
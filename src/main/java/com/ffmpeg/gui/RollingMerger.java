@@ -0,0 +1,315 @@
+package com.ffmpeg.gui;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kayıt sürerken kapanan segmentleri tek bir ana dosyaya ekler ("rolling merge").
+ *
+ * Ana dosyayı uzun ömürlü bir FFmpeg process'i yazar: stdin'den MPEG-TS okur ve stream copy ile
+ * fragmented MP4'e yazar. Her kapanan segment ayrı bir FFmpeg ile (yine stream copy) manifestodaki
+ * başlangıç zamanına kaydırılmış TS olarak bu stdin'e aktarılır. Kayıt durduğunda sadece son segment
+ * eklenir ve dosya kapatılır; birleştirme için kayıt sonrası bekleme olmaz.
+ *
+ * Segment parametreleri ilk segmentten farklılaşırsa (ör. adaptif kalite çözünürlüğü düşürdü)
+ * stream copy mümkün değildir; rolling merge bırakılır ve normal birleştirme kullanılır.
+ * Segment dosyaları hiçbir durumda silinmez.
+ */
+public class RollingMerger {
+
+    private static final Logger logger = LoggerFactory.getLogger(RollingMerger.class);
+
+    private static final long APPEND_TIMEOUT_SECONDS = 60;
+    private static final long FINISH_TIMEOUT_SECONDS = 30;
+
+    /**
+     * Birleştirme sonucu bildirimi - merge thread'inden çağrılır
+     */
+    public interface Listener {
+        void onCompleted(Path output, double durationSeconds);
+        void onAbandoned(String reason);
+    }
+
+    private final String ffmpegPath;
+    private final String ffprobePath;
+    private final Path output;
+    private final Listener listener;
+    private final ExecutorService executor;
+
+    // Sadece merge thread'inden erişilir
+    private volatile Process master;
+    private OutputStream masterInput;
+    private MediaProbeCache.ProbeInfo reference;
+    private SegmentManifest.Entry pendingLeadIn;
+    private double timelineStart;
+    private double mergedEnd;
+    private int appendedCount = 0;
+
+    private volatile boolean abandoned = false;
+
+    public RollingMerger(String ffmpegPath, String ffprobePath, Path output, Listener listener) {
+        this.ffmpegPath = ffmpegPath;
+        this.ffprobePath = ffprobePath;
+        this.output = output;
+        this.listener = listener;
+        // Tek thread - segmentler geliş sırasıyla eklenir
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "RollingMerge");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Kaydın başındaki parça (pre-roll). Parametreleri ilk segmentle aynıysa onun önüne eklenir.
+     */
+    public void addLeadIn(SegmentManifest.Entry entry) {
+        submit(() -> pendingLeadIn = entry);
+    }
+
+    /**
+     * Kapanmış segmenti sıraya alır
+     */
+    public void append(SegmentManifest.Entry entry) {
+        submit(() -> appendSegment(entry));
+    }
+
+    /**
+     * Kuyruktaki segmentler eklendikten sonra ana dosyayı kapatır; çağıran thread'i bekletmez
+     */
+    public void finish() {
+        submit(this::finishMaster);
+        executor.shutdown();
+    }
+
+    /**
+     * Ana dosyayı bırakır (oturum kapanıyor)
+     */
+    public void cancel() {
+        abandoned = true;
+        executor.shutdownNow();
+        Process process = master;
+        if (process != null) {
+            process.destroyForcibly();
+        }
+    }
+
+    public Path getOutput() {
+        return output;
+    }
+
+    public boolean isAbandoned() {
+        return abandoned;
+    }
+
+    private void submit(Runnable task) {
+        try {
+            executor.execute(() -> {
+                if (abandoned) {
+                    return;
+                }
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    abandon(e.getMessage());
+                }
+            });
+        } catch (java.util.concurrent.RejectedExecutionException e) {
+            logger.debug("Rolling merge already finished, ignoring task");
+        }
+    }
+
+    private void appendSegment(SegmentManifest.Entry entry) {
+        MediaProbeCache.ProbeInfo info = probe(entry.getPath());
+
+        if (reference == null) {
+            reference = info;
+            timelineStart = entry.getStart();
+            SegmentManifest.Entry leadIn = pendingLeadIn;
+            pendingLeadIn = null;
+            if (leadIn != null) {
+                if (isCompatibleLeadIn(leadIn, info)) {
+                    timelineStart = leadIn.getStart();
+                    startMaster();
+                    remuxInto(leadIn);
+                } else {
+                    logger.info("Pre-roll {} has different stream parameters, kept as a separate file",
+                               leadIn.getPath().getFileName());
+                }
+            }
+            if (master == null) {
+                startMaster();
+            }
+        } else if (!info.isCopyCompatible(reference)) {
+            abandon("Segment " + entry.getPath().getFileName() + " parameters changed: " + info);
+            return;
+        }
+
+        remuxInto(entry);
+    }
+
+    private boolean isCompatibleLeadIn(SegmentManifest.Entry leadIn, MediaProbeCache.ProbeInfo first) {
+        try {
+            return probe(leadIn.getPath()).isCopyCompatible(first);
+        } catch (IllegalStateException e) {
+            logger.debug("Could not probe pre-roll: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private MediaProbeCache.ProbeInfo probe(Path file) {
+        try {
+            return MediaProbeCache.shared().probe(ffprobePath, file);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not probe " + file.getFileName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    private void startMaster() {
+        List<String> command = new ArrayList<>();
+        command.add(ffmpegPath);
+        command.add("-y");
+        command.add("-v");
+        command.add("error");
+        command.add("-f");
+        command.add("mpegts");
+        command.add("-i");
+        command.add("pipe:0");
+        command.add("-map");
+        command.add("0");
+        command.add("-c");
+        command.add("copy");
+        command.add("-f");
+        command.add("mp4");
+        // Fragmented - her eklenen segment hemen diske iner, çökme halinde bile dosya oynatılabilir
+        command.add("-movflags");
+        command.add("+frag_keyframe+empty_moov+default_base_moof");
+        command.add(output.toString());
+
+        try {
+            master = new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not start master ffmpeg: " + e.getMessage(), e);
+        }
+        masterInput = master.getOutputStream();
+        logger.info("Rolling merge started: {}", output);
+    }
+
+    /**
+     * Segmenti kayıt zaman çizelgesindeki yerine kaydırılmış TS olarak ana process'e aktarır
+     */
+    private void remuxInto(SegmentManifest.Entry entry) {
+        List<String> command = new ArrayList<>();
+        command.add(ffmpegPath);
+        command.add("-v");
+        command.add("error");
+        command.add("-i");
+        command.add(entry.getPath().toString());
+        command.add("-map");
+        command.add("0:v");
+        command.add("-map");
+        command.add("0:a?");
+        command.add("-c");
+        command.add("copy");
+        command.add("-output_ts_offset");
+        command.add(String.format(Locale.ROOT, "%.6f", entry.getStart() - timelineStart));
+        command.add("-f");
+        command.add("mpegts");
+        command.add("pipe:1");
+
+        Process remux;
+        try {
+            remux = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.DISCARD).start();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not start segment remux: " + e.getMessage(), e);
+        }
+
+        try (InputStream in = remux.getInputStream()) {
+            in.transferTo(masterInput);
+            masterInput.flush();
+            if (!remux.waitFor(APPEND_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                remux.destroyForcibly();
+                throw new IllegalStateException("Segment remux timed out: " + entry.getPath().getFileName());
+            }
+        } catch (IOException e) {
+            remux.destroyForcibly();
+            throw new IllegalStateException("Master ffmpeg stopped accepting data: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            remux.destroyForcibly();
+            throw new IllegalStateException("Interrupted while appending " + entry.getPath().getFileName());
+        }
+        if (remux.exitValue() != 0) {
+            throw new IllegalStateException("Segment remux failed for " + entry.getPath().getFileName());
+        }
+
+        appendedCount++;
+        mergedEnd = entry.getEnd();
+        logger.debug("Rolling merge appended {} ({} segments, {}s)", entry.getPath().getFileName(),
+                    appendedCount, String.format("%.2f", mergedEnd - timelineStart));
+    }
+
+    private void finishMaster() {
+        if (master == null) {
+            abandon("No segments were recorded");
+            return;
+        }
+        try {
+            masterInput.close();
+            if (!master.waitFor(FINISH_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                abandon("Master ffmpeg did not finish in time");
+                return;
+            }
+        } catch (IOException e) {
+            abandon("Could not close master input: " + e.getMessage());
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abandon("Interrupted while finishing rolling merge");
+            return;
+        }
+        if (master.exitValue() != 0) {
+            abandon("Master ffmpeg exited with code " + master.exitValue());
+            return;
+        }
+
+        double duration = mergedEnd - timelineStart;
+        logger.info("Rolling merge completed: {} ({} segments, {}s)", output, appendedCount,
+                   String.format("%.2f", duration));
+        listener.onCompleted(output, duration);
+    }
+
+    private void abandon(String reason) {
+        if (abandoned) {
+            return;
+        }
+        abandoned = true;
+        logger.warn("Rolling merge abandoned: {}", reason);
+        Process process = master;
+        if (process != null) {
+            process.destroyForcibly();
+        }
+        try {
+            Files.deleteIfExists(output);
+        } catch (IOException e) {
+            logger.debug("Could not delete partial rolling merge output {}", output);
+        }
+        executor.shutdownNow();
+        listener.onAbandoned(reason);
+    }
+}
@@ -0,0 +1,428 @@
+package com.ffmpeg.gui;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bir kaydın segment manifestosu: her segmentin kayıt zaman çizelgesindeki başlangıç/bitişi,
+ * byte boyutu ve keyframe ile başlayıp başlamadığı. Değerler FFmpeg segment muxer'ının
+ * "-segment_list" çıktısından gelir; dosyalar probe edilmez.
+ *
+ * Manifesto bellekte tutulur ve her yeni segmentte diske eklenir (csv), böylece birleştirme,
+ * ilerleme hesabı ve zaman aralığı aramaları kayıt bittikten sonra da dosyaları açmadan yapılabilir.
+ *
+ * Fragmented MP4 segmentlerde dosya başındaki init (ftyp+moov) uzunluğu da tutulur; medya
+ * fragmanları bu ofsetten başlar. Segmentler sadece sona eklenerek yazıldığı için (faststart yok)
+ * bu değer segment kapanınca değişmez. MPEG-TS segmentlerde 0'dır.
+ *
+ * Process yeniden başlatıldığında (ör. adaptif kalite) FFmpeg zamanları sıfırdan başlar;
+ * {@link #startNewTimeline()} sonrası gelen segmentler bir öncekinin bitişine eklenir.
+ */
+public class SegmentManifest {
+
+    private static final Logger logger = LoggerFactory.getLogger(SegmentManifest.class);
+
+    static final String HEADER = "file,start,end,size,keyframe,init";
+
+    /**
+     * Tek segment kaydı - zamanlar saniye cinsinden kayıt başına göre
+     */
+    public static class Entry {
+        private final Path path;
+        private final double start;
+        private final double end;
+        private final long size;
+        private final boolean keyframeStart;
+        private final long initSize;
+
+        public Entry(Path path, double start, double end, long size, boolean keyframeStart) {
+            this(path, start, end, size, keyframeStart, 0);
+        }
+
+        public Entry(Path path, double start, double end, long size, boolean keyframeStart, long initSize) {
+            this.path = path;
+            this.start = start;
+            this.end = end;
+            this.size = size;
+            this.keyframeStart = keyframeStart;
+            this.initSize = initSize;
+        }
+
+        public Path getPath() { return path; }
+        public double getStart() { return start; }
+        public double getEnd() { return end; }
+        public double getDuration() { return end - start; }
+        public long getSize() { return size; }
+        public boolean isKeyframeStart() { return keyframeStart; }
+        /** ftyp+moov uzunluğu - medya fragmanlarının başladığı ofset; TS ya da bilinmiyorsa 0 */
+        public long getInitSize() { return initSize; }
+
+        public boolean contains(double seconds) {
+            return seconds >= start && seconds < end;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s [%.3f-%.3f] %d bytes%s", path.getFileName(), start, end, size,
+                                 keyframeStart ? "" : " (no keyframe start)");
+        }
+    }
+
+    private final List<Entry> entries = new ArrayList<>();
+    /** Normalize edilmiş yol -> kayıt; {@link #get(Path)} listeyi taramasın */
+    private final Map<Path, Entry> byPath = new HashMap<>();
+    /** Normalize edilmiş yol -> segment kapanınca probe edilen stream imzaları (yalnızca bellekte) */
+    private final Map<Path, List<String>> signatures = new HashMap<>();
+    private final Path file;
+    // Dosyaya ekleme ve yeniden yazma sırası - bellekteki aramalar bu kilidi beklemez
+    private final Object fileLock = new Object();
+    private double timeOffset = 0;
+    private boolean newTimeline = false;
+
+    /**
+     * @param file manifestonun yazılacağı dosya, null ise sadece bellekte tutulur
+     */
+    public SegmentManifest(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Muxer'ın bildirdiği kapanmış segmenti ekler. Zamanlar aktif process'in zaman çizelgesindedir.
+     */
+    public Entry addSegment(Path path, double start, double end, long size, boolean keyframeStart) {
+        return addSegment(path, start, end, size, keyframeStart, 0);
+    }
+
+    /**
+     * @param initSize fragmented MP4 init uzunluğu, TS için 0
+     */
+    public Entry addSegment(Path path, double start, double end, long size, boolean keyframeStart, long initSize) {
+        synchronized (fileLock) {
+            Entry entry;
+            synchronized (this) {
+                if (newTimeline) {
+                    // Yeni process'in ilk segmenti bir öncekinin bittiği yerden devam eder
+                    timeOffset = getEnd() - start;
+                    newTimeline = false;
+                }
+                entry = new Entry(path, start + timeOffset, end + timeOffset, size, keyframeStart, initSize);
+                insert(entry);
+            }
+            append(entry);
+            return entry;
+        }
+    }
+
+    /**
+     * Kaydın başına eklenen parça (ör. pre-roll) - zaman çizelgesinde 0'dan önce yer alır
+     */
+    public Entry addLeadIn(Path path, double duration, long size) {
+        return addLeadIn(path, duration, size, 0);
+    }
+
+    /**
+     * @param initSize lead-in fragmented MP4'e dönüştürüldüyse init uzunluğu, TS için 0
+     */
+    public Entry addLeadIn(Path path, double duration, long size, long initSize) {
+        Entry entry = new Entry(path, -duration, 0, size, false, initSize);
+        synchronized (fileLock) {
+            synchronized (this) {
+                insert(entry);
+            }
+            append(entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Silinen/arşivlenen segmentleri manifestodan çıkarır ve dosyayı yeniden yazar
+     *
+     * @return çıkarılan kayıt sayısı
+     */
+    public int remove(Collection<Path> paths) {
+        Set<Path> keys = new HashSet<>();
+        for (Path path : paths) {
+            keys.add(key(path));
+        }
+        synchronized (fileLock) {
+            List<Entry> remaining;
+            int removed;
+            synchronized (this) {
+                int before = entries.size();
+                entries.removeIf(entry -> keys.contains(key(entry.getPath())));
+                removed = before - entries.size();
+                byPath.keySet().removeAll(keys);
+                signatures.keySet().removeAll(keys);
+                remaining = new ArrayList<>(entries);
+            }
+            if (removed > 0 && file != null) {
+                try {
+                    rewrite(file, remaining);
+                } catch (IOException e) {
+                    logger.warn("Could not rewrite segment manifest {}: {}", file, e.getMessage());
+                }
+            }
+            return removed;
+        }
+    }
+
+    /**
+     * Bir sonraki segmentin zamanları yeni bir FFmpeg process'inden gelecek
+     */
+    public synchronized void startNewTimeline() {
+        if (!entries.isEmpty()) {
+            newTimeline = true;
+        }
+    }
+
+    private void insert(Entry entry) {
+        // Segmentler neredeyse her zaman sırayla gelir - sondan geriye doğru yer bul
+        int index = entries.size();
+        while (index > 0 && entries.get(index - 1).getStart() > entry.getStart()) {
+            index--;
+        }
+        entries.add(index, entry);
+        byPath.put(key(entry.getPath()), entry);
+    }
+
+    private static Path key(Path path) {
+        return path.toAbsolutePath().normalize();
+    }
+
+    private void append(Entry entry) {
+        if (file == null) {
+            return;
+        }
+        try {
+            boolean writeHeader = !Files.exists(file) || Files.size(file) == 0;
+            try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                if (writeHeader) {
+                    writer.write(HEADER);
+                    writer.newLine();
+                }
+                writer.write(formatLine(entry));
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            logger.warn("Could not append to segment manifest {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Manifestoyu verilen kayıtlarla baştan yazar (ör. kurtarma araya eksik bir segment eklediğinde).
+     * Önce geçici dosyaya yazılıp yerine taşınır; yarıda kalan yazma eski manifestoyu bozmaz.
+     */
+    static void rewrite(Path file, List<Entry> entries) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.newLine();
+            for (Entry entry : entries) {
+                writer.write(formatLine(entry));
+                writer.newLine();
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static String formatLine(Entry entry) {
+        String name = entry.getPath().getFileName().toString();
+        if (name.indexOf(',') >= 0 || name.indexOf('"') >= 0) {
+            name = "\"" + name.replace("\"", "\"\"") + "\"";
+        }
+        return String.format(java.util.Locale.ROOT, "%s,%.6f,%.6f,%d,%d,%d", name, entry.getStart(), entry.getEnd(),
+                             entry.getSize(), entry.isKeyframeStart() ? 1 : 0, entry.getInitSize());
+    }
+
+    /**
+     * Diskteki manifestoyu okur; dosya adları manifestonun bulunduğu klasöre göre çözülür
+     */
+    public static SegmentManifest load(Path file) throws IOException {
+        SegmentManifest manifest = new SegmentManifest(null);
+        Path directory = file.toAbsolutePath().getParent();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("file,start,")) {
+                continue;
+            }
+            Entry entry = parseLine(line, directory);
+            if (entry != null) {
+                manifest.insert(entry);
+            } else {
+                logger.debug("Skipping malformed manifest line: {}", line);
+            }
+        }
+        return manifest;
+    }
+
+    /**
+     * Diskteki (ör. önceki kayda ait) manifestodan verilen segmentleri çıkarır
+     *
+     * @return çıkarılan kayıt sayısı
+     */
+    public static int removeFromFile(Path file, Collection<Path> paths) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        SegmentManifest loaded = load(file);
+        int removed = loaded.remove(paths);
+        if (removed > 0) {
+            rewrite(file, loaded.getEntries());
+        }
+        return removed;
+    }
+
+    static Entry parseLine(String line, Path directory) {
+        // Eski manifestolarda "init" sütunu yok - önce yeni biçim denenir
+        Entry entry = parseLine(line, directory, 5);
+        return entry != null ? entry : parseLine(line, directory, 4);
+    }
+
+    private static Entry parseLine(String line, Path directory, int numericFields) {
+        // Son alanlar sayısal; dosya adı tırnaklı olabilir ve virgül içerebilir
+        int[] commas = new int[numericFields];
+        int position = line.length();
+        for (int i = numericFields - 1; i >= 0; i--) {
+            position = line.lastIndexOf(',', position - 1);
+            if (position <= 0) {
+                return null;
+            }
+            commas[i] = position;
+        }
+
+        String name = line.substring(0, commas[0]);
+        if (name.length() > 1 && name.startsWith("\"") && name.endsWith("\"")) {
+            name = name.substring(1, name.length() - 1).replace("\"\"", "\"");
+        } else if (name.indexOf('"') >= 0) {
+            return null; // Tırnaklı adın içindeki virgülden bölünmüş
+        }
+        try {
+            double start = Double.parseDouble(line.substring(commas[0] + 1, commas[1]));
+            double end = Double.parseDouble(line.substring(commas[1] + 1, commas[2]));
+            long size = Long.parseLong(line.substring(commas[2] + 1, commas[3]));
+            String keyframe = numericFields > 4 ? line.substring(commas[3] + 1, commas[4]) : line.substring(commas[3] + 1);
+            long initSize = numericFields > 4 ? Long.parseLong(line.substring(commas[4] + 1).trim()) : 0;
+            return new Entry(directory.resolve(name), start, end, size, keyframe.trim().equals("1"), initSize);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Verilen andaki segment, yoksa null (ikili arama)
+     */
+    public synchronized Entry findAt(double seconds) {
+        int low = 0;
+        int high = entries.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            Entry entry = entries.get(mid);
+            if (seconds < entry.getStart()) {
+                high = mid - 1;
+            } else if (seconds >= entry.getEnd()) {
+                low = mid + 1;
+            } else {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * [start, end) aralığıyla kesişen segmentler, sıralı. İlk segment ikili aramayla bulunur;
+     * maliyet kaydın değil aralığın uzunluğuyla orantılıdır.
+     */
+    public synchronized List<Entry> findRange(double start, double end) {
+        // Segmentler çakışmaz - bitişler de başlangıçlar gibi sıralı
+        int low = 0;
+        int high = entries.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (entries.get(mid).getEnd() > start) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        List<Entry> result = new ArrayList<>();
+        for (int i = low; i < entries.size() && entries.get(i).getStart() < end; i++) {
+            result.add(entries.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Yola göre kayıt, manifestoda yoksa null
+     */
+    public synchronized Entry get(Path path) {
+        return byPath.get(key(path));
+    }
+
+    /**
+     * Segmentin stream imzalarını ({@link MediaProbeCache.ProbeInfo#getStreamSignatures}) saklar;
+     * birleştirme uyumluluk kontrolü segmentleri yeniden probe etmeden bunları karşılaştırır
+     */
+    public synchronized void setStreamSignatures(Path path, List<String> streamSignatures) {
+        signatures.put(key(path), List.copyOf(streamSignatures));
+    }
+
+    /**
+     * Saklanmış stream imzaları, segment henüz probe edilmediyse null
+     */
+    public synchronized List<String> getStreamSignatures(Path path) {
+        return signatures.get(key(path));
+    }
+
+    public synchronized List<Entry> getEntries() {
+        return Collections.unmodifiableList(new ArrayList<>(entries));
+    }
+
+    public synchronized double getStart() {
+        return entries.isEmpty() ? 0 : entries.get(0).getStart();
+    }
+
+    public synchronized double getEnd() {
+        return entries.isEmpty() ? 0 : entries.get(entries.size() - 1).getEnd();
+    }
+
+    public synchronized double getTotalDuration() {
+        double total = 0;
+        for (Entry entry : entries) {
+            total += entry.getDuration();
+        }
+        return total;
+    }
+
+    public synchronized long getTotalBytes() {
+        long total = 0;
+        for (Entry entry : entries) {
+            total += entry.getSize();
+        }
+        return total;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public Path getFile() {
+        return file;
+    }
+}
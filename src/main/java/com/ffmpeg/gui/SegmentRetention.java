@@ -0,0 +1,392 @@
+package com.ffmpeg.gui;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sürekli (7/24) kayıt için disk kotası: kapanan segmentler kapanış zamanına göre sıralı bir
+ * katalogda tutulur, politika aşıldığında en eskiler silinir ya da arşiv klasörüne taşınır.
+ *
+ * Katalog segment kapandıkça beslenir; klasör taranmaz (yalnızca etkinleştirilirken önceki
+ * kayıtların manifestoları bir kez okunur). Silme işlemleri tek arka plan thread'inde, kısa
+ * bir gecikmeyle toplanarak yapılır - art arda kapanan segmentler tek turda temizlenir.
+ * Yaş sınırı varsa kayıt dursa da periyodik tur çalışır; silinemeyen segment için tur tekrar planlanır.
+ */
+public class SegmentRetention {
+
+    private static final Logger logger = LoggerFactory.getLogger(SegmentRetention.class);
+
+    private static final long SWEEP_DELAY_MS = 1000;
+    private static final long RETRY_DELAY_MS = 10_000;
+    private static final long MAX_AGE_CHECK_MS = 60_000;
+    private static final long RATE_WINDOW_MS = 60_000;
+
+    // Bütün kameraların temizliği için tek daemon thread
+    private static final ScheduledExecutorService SWEEPER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "SegmentRetention");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Saklama politikası - 0 olan sınır uygulanmaz
+     */
+    public static class Policy {
+        private final long maxBytes;
+        private final long maxAgeMillis;
+        private final int maxSegments;
+        private final Path archiveDirectory;
+
+        /**
+         * @param archiveDirectory null ise süresi dolan segmentler silinir, değilse buraya taşınır
+         */
+        public Policy(long maxBytes, long maxAgeMillis, int maxSegments, Path archiveDirectory) {
+            this.maxBytes = maxBytes;
+            this.maxAgeMillis = maxAgeMillis;
+            this.maxSegments = maxSegments;
+            this.archiveDirectory = archiveDirectory;
+        }
+
+        public long getMaxBytes() { return maxBytes; }
+        public long getMaxAgeMillis() { return maxAgeMillis; }
+        public int getMaxSegments() { return maxSegments; }
+        public Path getArchiveDirectory() { return archiveDirectory; }
+
+        @Override
+        public String toString() {
+            return String.format("maxBytes=%d, maxAge=%ds, maxSegments=%d, %s", maxBytes, maxAgeMillis / 1000,
+                                 maxSegments, archiveDirectory != null ? "archive to " + archiveDirectory : "delete");
+        }
+    }
+
+    /**
+     * Temizlik turu sonunda, silme/taşıma thread'inden çağrılır
+     */
+    public interface Listener {
+        void onSegmentsExpired(List<Path> segments, long reclaimedBytes);
+    }
+
+    /**
+     * Katalogdaki tek segment
+     */
+    public static class Item implements Comparable<Item> {
+        private final Path path;
+        private final long size;
+        private final long closedAtMillis;
+        private final long sequence;
+
+        Item(Path path, long size, long closedAtMillis, long sequence) {
+            this.path = path;
+            this.size = size;
+            this.closedAtMillis = closedAtMillis;
+            this.sequence = sequence;
+        }
+
+        public Path getPath() { return path; }
+        public long getSize() { return size; }
+        public long getClosedAtMillis() { return closedAtMillis; }
+
+        @Override
+        public int compareTo(Item other) {
+            int byTime = Long.compare(closedAtMillis, other.closedAtMillis);
+            return byTime != 0 ? byTime : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private final String name;
+    private final Listener listener;
+    private volatile Policy policy;
+
+    private final Object lock = new Object();
+    private final NavigableSet<Item> catalog = new TreeSet<>();
+    private final Set<Path> cataloged = new HashSet<>();
+    private final Set<Path> seededDirectories = new HashSet<>();
+    private final Deque<long[]> recentWrites = new ArrayDeque<>(); // {kapanış zamanı, boyut}
+    private final long createdAtMillis = System.currentTimeMillis();
+    private long footprintBytes;
+    private long recentBytes;
+    private long nextSequence;
+
+    private final AtomicBoolean sweepScheduled = new AtomicBoolean();
+    private ScheduledFuture<?> ageCheck; // lock ile korunur
+    private volatile long expiredCount;
+    private volatile long reclaimedBytes;
+    private volatile boolean closed;
+
+    public SegmentRetention(String name, Policy policy, Listener listener) {
+        this.name = name;
+        this.policy = policy;
+        this.listener = listener;
+        updateAgeCheck();
+    }
+
+    /**
+     * Önceki kayıtların segmentlerini manifestolarından kataloğa ekler (klasör başına bir kez).
+     * Kapanış zamanı olarak dosyanın değişiklik zamanı kullanılır.
+     */
+    public void seed(Path directory, String manifestGlob) {
+        synchronized (lock) {
+            if (!seededDirectories.add(directory.toAbsolutePath().normalize())) {
+                return;
+            }
+        }
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        int added = 0;
+        try (DirectoryStream<Path> manifests = Files.newDirectoryStream(directory, manifestGlob)) {
+            for (Path manifestFile : manifests) {
+                for (SegmentManifest.Entry entry : SegmentManifest.load(manifestFile).getEntries()) {
+                    try {
+                        add(entry.getPath(), Files.size(entry.getPath()),
+                            Files.getLastModifiedTime(entry.getPath()).toMillis(), false);
+                        added++;
+                    } catch (NoSuchFileException e) {
+                        // Daha önce silinmiş/taşınmış
+                    }
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("[{}] Could not read previous manifests in {}: {}", name, directory, e.getMessage());
+        }
+        logger.info("[{}] Retention catalog seeded with {} segments ({} MB)", name, added, getFootprintBytes() / (1024 * 1024));
+        scheduleSweep();
+    }
+
+    /**
+     * Kapanan segmenti kataloğa ekler ve gerekirse temizlik turu planlar
+     */
+    public void segmentClosed(Path path, long size) {
+        add(path, size, System.currentTimeMillis(), true);
+        scheduleSweep();
+    }
+
+    private void add(Path segment, long size, long closedAtMillis, boolean countAsWrite) {
+        Path path = segment.toAbsolutePath().normalize();
+        synchronized (lock) {
+            if (!cataloged.add(path)) {
+                return; // Etkinleştirme sırasında hem manifestodan hem olaydan gelebilir
+            }
+            catalog.add(new Item(path, size, closedAtMillis, nextSequence++));
+            footprintBytes += size;
+            if (countAsWrite) {
+                recentWrites.addLast(new long[] {closedAtMillis, size});
+                recentBytes += size;
+                pruneRecentWrites(closedAtMillis);
+            }
+        }
+    }
+
+    public void setPolicy(Policy policy) {
+        this.policy = policy;
+        updateAgeCheck();
+        scheduleSweep();
+    }
+
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    private void scheduleSweep() {
+        scheduleSweep(SWEEP_DELAY_MS);
+    }
+
+    private void scheduleSweep(long delayMillis) {
+        if (!closed && sweepScheduled.compareAndSet(false, true)) {
+            SWEEPER.schedule(this::sweep, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Yaş sınırı segment kapanmasa da dolar - sınır varken periyodik tur planlar (sınırın onda biri, en çok dakikada bir)
+     */
+    private void updateAgeCheck() {
+        Policy current = policy;
+        synchronized (lock) {
+            if (ageCheck != null) {
+                ageCheck.cancel(false);
+                ageCheck = null;
+            }
+            if (!closed && current != null && current.maxAgeMillis > 0) {
+                long period = Math.max(SWEEP_DELAY_MS, Math.min(MAX_AGE_CHECK_MS, current.maxAgeMillis / 10));
+                ageCheck = SWEEPER.scheduleAtFixedRate(this::scheduleSweep, period, period, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Politikayı aşan en eski segmentleri katalogdan çıkarır - silme kilit dışında yapılır
+     */
+    List<Item> selectExpired(long now) {
+        Policy current = policy;
+        List<Item> expired = new ArrayList<>();
+        synchronized (lock) {
+            while (!catalog.isEmpty()) {
+                Item oldest = catalog.first();
+                boolean overCount = current.maxSegments > 0 && catalog.size() > current.maxSegments;
+                boolean overBytes = current.maxBytes > 0 && footprintBytes > current.maxBytes;
+                boolean overAge = current.maxAgeMillis > 0 && now - oldest.closedAtMillis > current.maxAgeMillis;
+                if (!overCount && !overBytes && !overAge) {
+                    break;
+                }
+                catalog.pollFirst();
+                cataloged.remove(oldest.path);
+                footprintBytes -= oldest.size;
+                expired.add(oldest);
+            }
+        }
+        return expired;
+    }
+
+    void sweep() {
+        sweepScheduled.set(false);
+        if (closed) {
+            return;
+        }
+        List<Item> expired = selectExpired(System.currentTimeMillis());
+        if (expired.isEmpty()) {
+            return;
+        }
+        Path archive = policy.archiveDirectory;
+        List<Path> removed = new ArrayList<>(expired.size());
+        long reclaimed = 0;
+        boolean retry = false;
+        try {
+            if (archive != null) {
+                Files.createDirectories(archive);
+            }
+        } catch (IOException e) {
+            logger.warn("[{}] Archive directory unavailable, deleting instead: {}", name, e.getMessage());
+            archive = null;
+        }
+        for (Item item : expired) {
+            try {
+                if (archive != null) {
+                    Files.move(item.path, archive.resolve(item.path.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+                } else {
+                    Files.delete(item.path);
+                }
+                removed.add(item.path);
+                reclaimed += item.size;
+            } catch (NoSuchFileException e) {
+                removed.add(item.path); // Kullanıcı elle silmiş
+            } catch (IOException e) {
+                // Oynatıcı açık tutuyor olabilir - sonraki turda tekrar denenir
+                logger.debug("[{}] Could not expire {}: {}", name, item.path.getFileName(), e.getMessage());
+                retry = true;
+                synchronized (lock) {
+                    if (cataloged.add(item.path)) {
+                        catalog.add(item);
+                        footprintBytes += item.size;
+                    }
+                }
+            }
+        }
+        if (retry) {
+            scheduleSweep(RETRY_DELAY_MS);
+        }
+        expiredCount += removed.size();
+        reclaimedBytes += reclaimed;
+        logger.info("[{}] Retention {} {} segments, reclaimed {} MB, footprint {} MB", name,
+                   archive != null ? "archived" : "deleted", removed.size(), reclaimed / (1024 * 1024),
+                   getFootprintBytes() / (1024 * 1024));
+        if (!removed.isEmpty() && listener != null) {
+            listener.onSegmentsExpired(Collections.unmodifiableList(removed), reclaimed);
+        }
+    }
+
+    private void pruneRecentWrites(long now) {
+        while (!recentWrites.isEmpty() && now - recentWrites.peekFirst()[0] > RATE_WINDOW_MS) {
+            recentBytes -= recentWrites.pollFirst()[1];
+        }
+    }
+
+    /**
+     * Verilen kapanış zamanı aralığındaki segmentler (zaman sıralı)
+     */
+    public List<Item> getSegmentsBetween(long fromMillis, long toMillis) {
+        synchronized (lock) {
+            List<Item> result = new ArrayList<>();
+            for (Item item : catalog.tailSet(new Item(null, 0, fromMillis, Long.MIN_VALUE), true)) {
+                if (item.closedAtMillis > toMillis) {
+                    break;
+                }
+                result.add(item);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Katalogdaki segmentlerin toplam boyutu
+     */
+    public long getFootprintBytes() {
+        synchronized (lock) {
+            return footprintBytes;
+        }
+    }
+
+    public int getSegmentCount() {
+        synchronized (lock) {
+            return catalog.size();
+        }
+    }
+
+    /**
+     * Son bir dakikada kapanan segmentlerden yazma hızı (byte/sn)
+     */
+    public double getWriteRateBytesPerSecond() {
+        long now = System.currentTimeMillis();
+        synchronized (lock) {
+            pruneRecentWrites(now);
+            long span = Math.min(RATE_WINDOW_MS, Math.max(1000, now - createdAtMillis));
+            return recentBytes * 1000.0 / span;
+        }
+    }
+
+    /**
+     * Katalogdaki en eski segmentin kapanış zamanı, boşsa -1
+     */
+    public long getOldestMillis() {
+        synchronized (lock) {
+            return catalog.isEmpty() ? -1 : catalog.first().closedAtMillis;
+        }
+    }
+
+    public long getExpiredCount() {
+        return expiredCount;
+    }
+
+    public long getReclaimedBytes() {
+        return reclaimedBytes;
+    }
+
+    /**
+     * Temizliği durdurur - planlanmış tur da çalışmaz, dosyalara dokunulmaz
+     */
+    public void close() {
+        closed = true;
+        updateAgeCheck();
+    }
+}
@@ -0,0 +1,339 @@
+package com.ffmpeg.gui;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Segment dosyalarının yapısal bütünlük kontrolü. Dosya içeriği okunmaz, sadece box/paket
+ * başlıkları FileChannel ile konumsal okunur; segment başına milisaniyeler sürer.
+ *
+ * MP4: top-level box boyutları dosya boyutuyla birebir örtüşmeli (yarım yazılmış box yok),
+ * ftyp ve moov bulunmalı; fragmented dosyada en az bir moof+mdat olmalı.
+ * MPEG-TS: boyut 188'in katı ve ilk/son paket sync byte (0x47) ile başlamalı.
+ */
+public class SegmentValidator {
+
+    private static final Logger logger = LoggerFactory.getLogger(SegmentValidator.class);
+
+    private static final int TS_PACKET_SIZE = 188;
+    private static final byte TS_SYNC_BYTE = 0x47;
+    private static final int TS_SCAN_BYTES = 2560 * TS_PACKET_SIZE; // baştan/sondan en fazla ~470 KB
+    private static final long PTS_WRAP = 1L << 33;
+
+    /**
+     * Kontrol sonucu - geçersizse sebebi
+     */
+    public static class Result {
+        private final Path path;
+        private final String problem;
+
+        Result(Path path, String problem) {
+            this.path = path;
+            this.problem = problem;
+        }
+
+        public Path getPath() { return path; }
+        public boolean isValid() { return problem == null; }
+        /** Geçerliyse null */
+        public String getProblem() { return problem; }
+    }
+
+    /**
+     * Segmentleri paralel kontrol eder; sonuçlar giriş sırasıyla döner
+     */
+    public static List<Result> validateAll(List<Path> segments) throws InterruptedException {
+        int threads = Math.max(1, Math.min(segments.size(), Runtime.getRuntime().availableProcessors()));
+        if (threads == 1) {
+            List<Result> results = new ArrayList<>();
+            for (Path segment : segments) {
+                results.add(validate(segment));
+            }
+            return results;
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "SegmentValidator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<Result>> futures = new ArrayList<>();
+            for (Path segment : segments) {
+                futures.add(pool.submit(() -> validate(segment)));
+            }
+            List<Result> results = new ArrayList<>();
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    results.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    results.add(new Result(segments.get(i), "validation failed: " + e.getCause()));
+                }
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Tek segmentin yapısını kontrol eder
+     */
+    public static Result validate(Path segment) {
+        String name = segment.getFileName().toString().toLowerCase();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            String problem;
+            if (name.endsWith(".mp4") || name.endsWith(".m4s") || name.endsWith(".mov")) {
+                problem = checkMp4(channel);
+            } else if (name.endsWith(".ts")) {
+                problem = checkTransportStream(channel);
+            } else {
+                problem = channel.size() > 0 ? null : "empty file";
+            }
+            if (problem != null) {
+                logger.debug("Segment {} failed validation: {}", segment.getFileName(), problem);
+            }
+            return new Result(segment, problem);
+        } catch (IOException e) {
+            return new Result(segment, "unreadable: " + e.getMessage());
+        }
+    }
+
+    static String checkMp4(FileChannel channel) throws IOException {
+        long fileSize = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(16);
+        long position = 0;
+        boolean ftyp = false;
+        boolean moov = false;
+        int moofs = 0;
+        int mdats = 0;
+
+        while (position < fileSize) {
+            if (fileSize - position < 8) {
+                return "trailing " + (fileSize - position) + " bytes after last box";
+            }
+            header.clear().limit(8);
+            readFully(channel, header, position);
+            long size = header.getInt(0) & 0xFFFFFFFFL;
+            String type = new String(header.array(), 4, 4, java.nio.charset.StandardCharsets.ISO_8859_1);
+            int headerSize = 8;
+            if (size == 1) {
+                header.clear().limit(8);
+                readFully(channel, header, position + 8);
+                size = header.getLong(0);
+                headerSize = 16;
+            } else if (size == 0) {
+                size = fileSize - position;
+            }
+            if (size < headerSize) {
+                return "invalid " + type + " box size " + size + " at " + position;
+            }
+            if (position + size > fileSize) {
+                return "truncated " + type + " box at " + position + " (" + size + " bytes, "
+                       + (fileSize - position) + " present)";
+            }
+            switch (type) {
+                case "ftyp": ftyp = true; break;
+                case "moov": moov = true; break;
+                case "moof": moofs++; break;
+                case "mdat": mdats++; break;
+                default: break;
+            }
+            position += size;
+        }
+
+        if (!ftyp) {
+            return "missing ftyp";
+        }
+        if (!moov) {
+            return "missing moov";
+        }
+        if (moofs > 0 && mdats < moofs) {
+            return "fragment without media data";
+        }
+        if (mdats == 0) {
+            return "no media data";
+        }
+        return null;
+    }
+
+    static String checkTransportStream(FileChannel channel) throws IOException {
+        long fileSize = channel.size();
+        if (fileSize == 0) {
+            return "empty file";
+        }
+        if (fileSize % TS_PACKET_SIZE != 0) {
+            return "size " + fileSize + " is not a multiple of " + TS_PACKET_SIZE;
+        }
+        ByteBuffer sync = ByteBuffer.allocate(1);
+        for (long position : new long[] {0, fileSize - TS_PACKET_SIZE}) {
+            sync.clear();
+            readFully(channel, sync, position);
+            if (sync.get(0) != TS_SYNC_BYTE) {
+                return "missing sync byte at " + position;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Fragmented MP4'ün sağlam kısmının uzunluğu: son eksiksiz moof+mdat çiftinin bittiği ofset.
+     * Hiç eksiksiz fragman yoksa (ya da init bozuksa) 0.
+     */
+    static long completeMp4Length(FileChannel channel) throws IOException {
+        long fileSize = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(16);
+        long position = 0;
+        long complete = 0;
+        boolean init = false;
+        boolean pendingMoof = false;
+
+        while (position + 8 <= fileSize) {
+            header.clear().limit(8);
+            readFully(channel, header, position);
+            long size = header.getInt(0) & 0xFFFFFFFFL;
+            String type = new String(header.array(), 4, 4, java.nio.charset.StandardCharsets.ISO_8859_1);
+            int headerSize = 8;
+            if (size == 1) {
+                if (position + 16 > fileSize) {
+                    break;
+                }
+                header.clear().limit(8);
+                readFully(channel, header, position + 8);
+                size = header.getLong(0);
+                headerSize = 16;
+            } else if (size == 0) {
+                break; // "Dosya sonuna kadar" box - kesintide sonu belirsiz
+            }
+            if (size < headerSize || position + size > fileSize) {
+                break;
+            }
+            switch (type) {
+                case "moov":
+                    init = true;
+                    break;
+                case "moof":
+                    pendingMoof = true;
+                    break;
+                case "mdat":
+                    if (init && pendingMoof) {
+                        complete = position + size;
+                    }
+                    pendingMoof = false;
+                    break;
+                default:
+                    break;
+            }
+            position += size;
+        }
+        return complete;
+    }
+
+    /**
+     * MPEG-TS'in sağlam kısmı: tam paketler
+     */
+    static long completeTransportStreamLength(FileChannel channel) throws IOException {
+        return channel.size() - channel.size() % TS_PACKET_SIZE;
+    }
+
+    /**
+     * MPEG-TS'teki ilk ve en son PES PTS değerleri (90 kHz): {ilk, son}. Bulunamazsa null.
+     * İlk PTS taşıyan PID izlenir; dosyanın yalnızca başı ve sonu okunur.
+     */
+    static long[] transportStreamPtsRange(FileChannel channel) throws IOException {
+        long length = completeTransportStreamLength(channel);
+        if (length == 0) {
+            return null;
+        }
+        int headLength = (int) Math.min(length, TS_SCAN_BYTES);
+        ByteBuffer head = ByteBuffer.allocate(headLength);
+        readFully(channel, head, 0);
+        int pid = -1;
+        long first = -1;
+        for (int offset = 0; offset + TS_PACKET_SIZE <= headLength && first < 0; offset += TS_PACKET_SIZE) {
+            long pts = packetPts(head.array(), offset, -1);
+            if (pts >= 0) {
+                first = pts;
+                pid = packetPid(head.array(), offset);
+            }
+        }
+        if (first < 0) {
+            return null;
+        }
+
+        int tailLength = (int) Math.min(length, TS_SCAN_BYTES);
+        ByteBuffer tail = ByteBuffer.allocate(tailLength);
+        readFully(channel, tail, length - tailLength);
+        long last = first;
+        for (int offset = 0; offset + TS_PACKET_SIZE <= tailLength; offset += TS_PACKET_SIZE) {
+            long pts = packetPts(tail.array(), offset, pid);
+            if (pts >= 0) {
+                if (pts < first) {
+                    pts += PTS_WRAP; // 33 bit sayaç taştı
+                }
+                last = Math.max(last, pts);
+            }
+        }
+        return new long[] {first, last};
+    }
+
+    private static int packetPid(byte[] data, int offset) {
+        return ((data[offset + 1] & 0x1F) << 8) | (data[offset + 2] & 0xFF);
+    }
+
+    /**
+     * PES başlatan paketin PTS'i; paket PES başlangıcı değilse, PTS yoksa ya da PID uymuyorsa -1
+     */
+    private static long packetPts(byte[] data, int offset, int pid) {
+        if (data[offset] != TS_SYNC_BYTE || (data[offset + 1] & 0x40) == 0) {
+            return -1;
+        }
+        if (pid >= 0 && packetPid(data, offset) != pid) {
+            return -1;
+        }
+        int adaptation = (data[offset + 3] >> 4) & 0x03;
+        int payload = offset + 4;
+        if (adaptation == 2) {
+            return -1;
+        }
+        if (adaptation == 3) {
+            payload += 1 + (data[offset + 4] & 0xFF);
+        }
+        int end = offset + TS_PACKET_SIZE;
+        if (payload + 14 > end || data[payload] != 0 || data[payload + 1] != 0 || data[payload + 2] != 1) {
+            return -1;
+        }
+        int streamId = data[payload + 3] & 0xFF;
+        if (streamId < 0xC0 || streamId > 0xEF || (data[payload + 7] & 0x80) == 0) {
+            return -1; // Ses/video değil ya da PTS yok
+        }
+        int p = payload + 9;
+        return ((long) (data[p] & 0x0E) << 29)
+            | ((long) (data[p + 1] & 0xFF) << 22)
+            | ((long) (data[p + 2] & 0xFE) << 14)
+            | ((long) (data[p + 3] & 0xFF) << 7)
+            | ((data[p + 4] & 0xFE) >> 1);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, offset);
+            if (read < 0) {
+                throw new IOException("Unexpected end of file");
+            }
+            offset += read;
+        }
+    }
+}
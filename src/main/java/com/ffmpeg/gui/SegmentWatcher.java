@@ -0,0 +1,262 @@
+package com.ffmpeg.gui;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kayıt oturumu başına segment olay kaynağı. Klasör taranmaz:
+ * - "Segment açıldı": WatchService ENTRY_CREATE (dosya adı öneki eşleşen yeni dosya)
+ * - "Segment kapandı": FFmpeg segment muxer'ının "-segment_list ... -segment_list_type csv" çıktısı.
+ *   Muxer her segmenti kapattığında listeye "dosya,başlangıç,bitiş" satırı ekler; dosyanın sadece
+ *   yeni eklenen kısmı okunur.
+ *
+ * WatchService'in polling ile çalıştığı platformlar ve kaçan olaylar (OVERFLOW) için
+ * liste dosyası bekleme zaman aşımında da kontrol edilir; OVERFLOW'da klasör bir kez taranır.
+ */
+public class SegmentWatcher implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SegmentWatcher.class);
+
+    private static final long POLL_TIMEOUT_MS = 500;
+
+    public interface Listener {
+        /** FFmpeg yeni segment dosyasını açtı (yazım devam ediyor) */
+        void onSegmentOpened(Path segment);
+
+        /** Segment kapandı; zamanlar saniye cinsinden kayıt başından itibaren */
+        void onSegmentClosed(Path segment, double startSeconds, double endSeconds);
+    }
+
+    private final Path directory;
+    private final String filePrefix;
+    private final Path listFile;
+    private final Listener listener;
+
+    private final Set<String> opened = new HashSet<>();
+    private final Set<String> closed = new HashSet<>();
+    private final StringBuilder partialLine = new StringBuilder();
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(8192);
+    private long listOffset = 0;
+
+    private WatchService watchService;
+    private Future<?> watchTask;
+    private volatile boolean running = false;
+
+    /**
+     * @param filePrefix segment dosyalarının ortak öneki (ör. "MediaShift_20240101_120000_segment_")
+     * @param listFile   FFmpeg'e "-segment_list" ile verilen csv dosyası
+     */
+    public SegmentWatcher(Path directory, String filePrefix, Path listFile, Listener listener) {
+        this.directory = directory;
+        this.filePrefix = filePrefix;
+        this.listFile = listFile;
+        this.listener = listener;
+    }
+
+    /**
+     * Klasörü izlemeye başlar. FFmpeg başlatılmadan önce çağrılmalıdır ki ilk segment kaçmasın.
+     */
+    public synchronized void start(ExecutorService executor) throws IOException {
+        if (running) {
+            return;
+        }
+        Files.createDirectories(directory);
+        watchService = directory.getFileSystem().newWatchService();
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        running = true;
+        WatchService service = watchService;
+        watchTask = executor.submit(() -> watchLoop(service));
+    }
+
+    private void watchLoop(WatchService service) {
+        try {
+            while (running) {
+                WatchKey key = service.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (key == null) {
+                    drain(); // Polling tabanlı WatchService için güvenlik ağı - tek stat
+                    continue;
+                }
+
+                boolean listChanged = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        rescan();
+                        listChanged = true;
+                        continue;
+                    }
+                    Path name = (Path) event.context();
+                    if (name == null) {
+                        continue;
+                    }
+                    if (name.equals(listFile.getFileName())) {
+                        listChanged = true;
+                    } else if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                        fileCreated(name.toString());
+                    }
+                }
+                key.reset();
+
+                if (listChanged) {
+                    drain();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Kapatıldı
+        } catch (Exception e) {
+            logger.warn("Segment watcher stopped: {}", e.getMessage());
+        }
+    }
+
+    private void fileCreated(String fileName) {
+        if (!fileName.startsWith(filePrefix)) {
+            return;
+        }
+        boolean isNew;
+        synchronized (this) {
+            isNew = opened.add(fileName);
+        }
+        if (isNew) {
+            listener.onSegmentOpened(directory.resolve(fileName));
+        }
+    }
+
+    /**
+     * OVERFLOW sonrası kaçan segmentleri bulmak için tek seferlik tarama
+     */
+    private void rescan() {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, filePrefix + "*")) {
+            java.util.List<String> names = new java.util.ArrayList<>();
+            for (Path path : stream) {
+                names.add(path.getFileName().toString());
+            }
+            java.util.Collections.sort(names);
+            for (String name : names) {
+                fileCreated(name);
+            }
+        } catch (IOException e) {
+            logger.debug("Segment rescan failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Liste dosyasına eklenen yeni satırları okur ve kapanan segmentleri bildirir.
+     * Kayıt durdurulduğunda son segmentin bildirilmesi için process kapandıktan sonra da çağrılır.
+     */
+    public synchronized void drain() {
+        try {
+            if (!Files.exists(listFile)) {
+                return;
+            }
+            try (FileChannel channel = FileChannel.open(listFile, StandardOpenOption.READ)) {
+                long size = channel.size();
+                if (size < listOffset) {
+                    // Yeni process listeyi baştan yazdı
+                    listOffset = 0;
+                    partialLine.setLength(0);
+                }
+                while (listOffset < size) {
+                    readBuffer.clear();
+                    int read = channel.read(readBuffer, listOffset);
+                    if (read <= 0) {
+                        break;
+                    }
+                    listOffset += read;
+                    partialLine.append(new String(readBuffer.array(), 0, read, StandardCharsets.UTF_8));
+                }
+            }
+        } catch (IOException e) {
+            logger.debug("Segment list read failed: {}", e.getMessage());
+            return;
+        }
+
+        int newline;
+        while ((newline = partialLine.indexOf("\n")) >= 0) {
+            String line = partialLine.substring(0, newline).trim();
+            partialLine.delete(0, newline + 1);
+            if (!line.isEmpty()) {
+                parseListLine(line);
+            }
+        }
+    }
+
+    private void parseListLine(String line) {
+        // csv: dosya,başlangıç,bitiş - dosya adı virgül içerirse tırnaklanır, son iki alan sayıdır
+        int lastComma = line.lastIndexOf(',');
+        int secondComma = lastComma > 0 ? line.lastIndexOf(',', lastComma - 1) : -1;
+        if (secondComma <= 0) {
+            logger.debug("Unrecognized segment list line: {}", line);
+            return;
+        }
+
+        String fileName = line.substring(0, secondComma);
+        if (fileName.length() > 1 && fileName.startsWith("\"") && fileName.endsWith("\"")) {
+            fileName = fileName.substring(1, fileName.length() - 1).replace("\"\"", "\"");
+        }
+        fileName = Path.of(fileName).getFileName().toString();
+
+        double start;
+        double end;
+        try {
+            start = Double.parseDouble(line.substring(secondComma + 1, lastComma));
+            end = Double.parseDouble(line.substring(lastComma + 1));
+        } catch (NumberFormatException e) {
+            logger.debug("Unrecognized segment list line: {}", line);
+            return;
+        }
+
+        // Açılış olayı kaçtıysa (ör. polling gecikmesi) önce onu bildir
+        fileCreated(fileName);
+        if (closed.add(fileName)) {
+            listener.onSegmentClosed(directory.resolve(fileName), start, end);
+        }
+    }
+
+    /**
+     * Process yeniden başlatılırken çağrılır - yeni FFmpeg liste dosyasını baştan yazar
+     */
+    public synchronized void resetList() {
+        listOffset = 0;
+        partialLine.setLength(0);
+    }
+
+    public Path getListFile() {
+        return listFile;
+    }
+
+    @Override
+    public synchronized void close() {
+        running = false;
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                logger.debug("Error closing watch service", e);
+            }
+            watchService = null;
+        }
+        if (watchTask != null) {
+            watchTask.cancel(true);
+            watchTask = null;
+        }
+    }
+}
@@ -0,0 +1,378 @@
+package com.ffmpeg.gui;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Uygulama ya da makine kayıt sırasında çöktüğünde yarım kalan oturumları bulur ve onarır.
+ *
+ * Kapanan her segment manifestoya yazıldığı için çökmüş oturum, diskte olup manifestoda olmayan
+ * segmentlerden anlaşılır (genellikle yalnızca yazılmakta olan son segment). Bu segmentler
+ * son eksiksiz moof+mdat çiftinde (MPEG-TS'te son tam pakette) kesilir (yeniden encode yok),
+ * süreleri tfdt/trun'dan (TS'te PES PTS'lerinden) okunur ve manifestoya eklenir; oturum böylece birleştirme ya da paketleme için hazır olur.
+ * Eksik segment manifestonun son segmentinden önce geliyorsa manifesto numara sırasıyla yeniden yazılır.
+ * Son birkaç saniyede değişmiş segmentlere dokunulmaz; başka bir örnek hâlâ kayıt yapıyor olabilir.
+ *
+ * Klasör bir kez listelenir, yalnızca manifestoda olmayan segmentler paralel olarak açılır ve
+ * sadece box başlıkları okunur - binlerce segmentlik klasör saniyeler içinde taranır.
+ */
+public class SessionRecovery {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionRecovery.class);
+
+    // "MediaShift_20240501_120000_segment_007.mp4" (ya da .ts) veya LiveRecordingTask'in "segment_007.mp4"
+    private static final Pattern SEGMENT_NAME = Pattern.compile("^(?:(.+)_)?segment_(\\d+)\\.(?:mp4|ts)$");
+
+    /** Bu süreden yeni değişmiş segmentler atlanır - başka bir örnek kayıt yapıyor olabilir */
+    static final long ACTIVE_WRITE_GRACE_MS = 5000;
+
+    /**
+     * Onarılan oturum
+     */
+    public static class Session {
+        private final String name;
+        private final Path manifestFile;
+        private final SegmentManifest manifest;
+        private final int recoveredCount;
+        private final long truncatedBytes;
+        private final List<Path> unrecoverable;
+
+        Session(String name, Path manifestFile, SegmentManifest manifest, int recoveredCount,
+                long truncatedBytes, List<Path> unrecoverable) {
+            this.name = name;
+            this.manifestFile = manifestFile;
+            this.manifest = manifest;
+            this.recoveredCount = recoveredCount;
+            this.truncatedBytes = truncatedBytes;
+            this.unrecoverable = unrecoverable;
+        }
+
+        public String getName() { return name; }
+        public Path getManifestFile() { return manifestFile; }
+        /** Onarımdan sonra diskten yeniden okunan manifesto */
+        public SegmentManifest getManifest() { return manifest; }
+        /** Manifestoya eklenen segment sayısı */
+        public int getRecoveredCount() { return recoveredCount; }
+        /** Yarım fragmanlardan kesilen toplam byte */
+        public long getTruncatedBytes() { return truncatedBytes; }
+        /** Hiç eksiksiz fragmanı olmayan, dokunulmadan bırakılan segmentler */
+        public List<Path> getUnrecoverable() { return unrecoverable; }
+
+        public List<Path> getSegments() {
+            List<Path> segments = new ArrayList<>();
+            for (SegmentManifest.Entry entry : manifest.getEntries()) {
+                segments.add(entry.getPath());
+            }
+            return segments;
+        }
+    }
+
+    /**
+     * Manifestoda olmayan tek segmentin onarım sonucu
+     */
+    private static class Repair {
+        final long truncated;
+        final double duration;
+        final long size;
+        final long initSize;
+
+        Repair(long truncated, double duration, long size, long initSize) {
+            this.truncated = truncated;
+            this.duration = duration;
+            this.size = size;
+            this.initSize = initSize;
+        }
+    }
+
+    /**
+     * Kayıt klasörü ve bir alt seviyedeki oturum klasörleri (ör. LiveRecordingTask'in "previous_*" klasörleri)
+     */
+    public static List<Session> scanAll(Path root) throws IOException, InterruptedException {
+        List<Session> recovered = new ArrayList<>(scan(root));
+        if (Files.isDirectory(root)) {
+            try (DirectoryStream<Path> children = Files.newDirectoryStream(root, Files::isDirectory)) {
+                for (Path child : children) {
+                    recovered.addAll(scan(child));
+                }
+            }
+        }
+        return recovered;
+    }
+
+    /**
+     * Klasördeki yarım kalmış oturumları onarır; temiz oturumlar listede yer almaz
+     */
+    public static List<Session> scan(Path directory) throws IOException, InterruptedException {
+        long startNanos = System.nanoTime();
+        if (!Files.isDirectory(directory)) {
+            return Collections.emptyList();
+        }
+
+        // Oturum öneki -> segment numarası -> dosya
+        Map<String, TreeMap<Integer, Path>> sessions = new TreeMap<>();
+        int segmentCount = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*segment_*.{mp4,ts}")) {
+            for (Path file : files) {
+                Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    String prefix = matcher.group(1) != null ? matcher.group(1) : "";
+                    sessions.computeIfAbsent(prefix, key -> new TreeMap<>())
+                            .put(Integer.parseInt(matcher.group(2)), file);
+                    segmentCount++;
+                }
+            }
+        }
+
+        // Manifestoda olmayan segmentler - onarılacaklar
+        Map<String, TreeMap<Integer, Path>> unknown = new TreeMap<>();
+        List<Path> toRepair = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, TreeMap<Integer, Path>> session : sessions.entrySet()) {
+            Set<Path> known = knownSegments(manifestFile(directory, session.getKey()));
+            TreeMap<Integer, Path> missing = new TreeMap<>();
+            for (Map.Entry<Integer, Path> segment : session.getValue().entrySet()) {
+                if (known.contains(segment.getValue().toAbsolutePath().normalize())) {
+                    continue;
+                }
+                if (isBeingWritten(segment.getValue(), now)) {
+                    logger.info("Skipping {} - modified within {} ms, may still be recording",
+                                segment.getValue().getFileName(), ACTIVE_WRITE_GRACE_MS);
+                    continue;
+                }
+                missing.put(segment.getKey(), segment.getValue());
+            }
+            if (!missing.isEmpty()) {
+                unknown.put(session.getKey(), missing);
+                toRepair.addAll(missing.values());
+            }
+        }
+
+        Map<Path, Repair> repairs = repairAll(toRepair);
+
+        List<Session> recovered = new ArrayList<>();
+        for (Map.Entry<String, TreeMap<Integer, Path>> session : unknown.entrySet()) {
+            Path manifestFile = manifestFile(directory, session.getKey());
+            SegmentManifest existing = Files.exists(manifestFile) ? SegmentManifest.load(manifestFile) : null;
+            String name = session.getKey().isEmpty() ? directory.getFileName().toString() : session.getKey();
+            TreeMap<Integer, Repair> repaired = new TreeMap<>();
+            long truncated = 0;
+            List<Path> unrecoverable = new ArrayList<>();
+            for (Map.Entry<Integer, Path> segment : session.getValue().entrySet()) {
+                Repair repair = repairs.get(segment.getValue());
+                if (repair == null) {
+                    unrecoverable.add(segment.getValue());
+                    continue;
+                }
+                repaired.put(segment.getKey(), repair);
+                truncated += repair.truncated;
+            }
+            if (repaired.isEmpty()) {
+                logger.warn("Session {} has {} segments without complete fragments", name, unrecoverable.size());
+                continue;
+            }
+
+            // Manifestodaki kayıtlar segment numarasına göre; numarasızlar (pre-roll) olduğu gibi kalır
+            TreeMap<Integer, SegmentManifest.Entry> knownByNumber = new TreeMap<>();
+            List<SegmentManifest.Entry> unnumbered = new ArrayList<>();
+            if (existing != null) {
+                for (SegmentManifest.Entry entry : existing.getEntries()) {
+                    int number = segmentNumber(entry.getPath());
+                    if (number >= 0) {
+                        knownByNumber.put(number, entry);
+                    } else {
+                        unnumbered.add(entry);
+                    }
+                }
+            }
+
+            if (knownByNumber.isEmpty() || repaired.firstKey() > knownByNumber.lastKey()) {
+                // Eksikler manifestonun sonundan sonra - sona eklemek sırayı korur
+                double cursor = existing != null ? existing.getEnd() : 0;
+                SegmentManifest appender = new SegmentManifest(manifestFile);
+                for (Map.Entry<Integer, Repair> entry : repaired.entrySet()) {
+                    Repair repair = entry.getValue();
+                    appender.addSegment(session.getValue().get(entry.getKey()), cursor, cursor + repair.duration,
+                                        repair.size, true, repair.initSize);
+                    cursor += repair.duration;
+                }
+            } else {
+                logger.warn("Session {}: recovered segment {} precedes manifest's last segment {}, "
+                            + "rebuilding manifest in segment order", name, repaired.firstKey(), knownByNumber.lastKey());
+                SegmentManifest.rewrite(manifestFile,
+                                        inSegmentOrder(unnumbered, knownByNumber, session.getValue(), repaired));
+            }
+
+            recovered.add(new Session(name, manifestFile, SegmentManifest.load(manifestFile), repaired.size(),
+                                      truncated, unrecoverable));
+            logger.info("Recovered session {}: {} segments added to manifest, {} bytes of partial fragments cut, "
+                        + "{} unrecoverable", name, repaired.size(), truncated, unrecoverable.size());
+        }
+
+        logger.info("Recovery scan of {} ({} segments, {} sessions) took {} ms", directory, segmentCount,
+                   sessions.size(), (System.nanoTime() - startNanos) / 1_000_000);
+        return recovered;
+    }
+
+    /**
+     * Son değişikliği grace süresi içinde olan segment - başka bir örnek hâlâ yazıyor olabilir
+     */
+    private static boolean isBeingWritten(Path segment, long now) {
+        try {
+            return now - Files.getLastModifiedTime(segment).toMillis() < ACTIVE_WRITE_GRACE_MS;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static int segmentNumber(Path path) {
+        Matcher matcher = SEGMENT_NAME.matcher(path.getFileName().toString());
+        return matcher.matches() ? Integer.parseInt(matcher.group(2)) : -1;
+    }
+
+    /**
+     * Bilinen ve onarılan segmentleri numara sırasıyla art arda dizer. İlk bilinen segment yerinde
+     * kalır, ondan önceki onarılanlar onun önüne yerleşir; sonrakiler birer birer kaydırılır.
+     */
+    private static List<SegmentManifest.Entry> inSegmentOrder(List<SegmentManifest.Entry> unnumbered,
+                                                              TreeMap<Integer, SegmentManifest.Entry> known,
+                                                              TreeMap<Integer, Path> paths,
+                                                              TreeMap<Integer, Repair> repaired) {
+        double cursor = known.firstEntry().getValue().getStart();
+        for (Repair repair : repaired.headMap(known.firstKey()).values()) {
+            cursor -= repair.duration;
+        }
+
+        TreeMap<Integer, SegmentManifest.Entry> ordered = new TreeMap<>();
+        Set<Integer> numbers = new TreeSet<>(known.keySet());
+        numbers.addAll(repaired.keySet());
+        for (int number : numbers) {
+            SegmentManifest.Entry entry = known.get(number);
+            if (entry != null) {
+                ordered.put(number, new SegmentManifest.Entry(entry.getPath(), cursor, cursor + entry.getDuration(),
+                                                              entry.getSize(), entry.isKeyframeStart(),
+                                                              entry.getInitSize()));
+                cursor += entry.getDuration();
+            } else {
+                Repair repair = repaired.get(number);
+                ordered.put(number, new SegmentManifest.Entry(paths.get(number), cursor, cursor + repair.duration,
+                                                              repair.size, true, repair.initSize));
+                cursor += repair.duration;
+            }
+        }
+        List<SegmentManifest.Entry> entries = new ArrayList<>(unnumbered);
+        entries.addAll(ordered.values());
+        return entries;
+    }
+
+    private static Path manifestFile(Path directory, String prefix) {
+        return directory.resolve(prefix.isEmpty() ? "manifest.csv" : prefix + "_manifest.csv");
+    }
+
+    private static Set<Path> knownSegments(Path manifestFile) {
+        Set<Path> known = new HashSet<>();
+        if (!Files.exists(manifestFile)) {
+            return known;
+        }
+        try {
+            for (SegmentManifest.Entry entry : SegmentManifest.load(manifestFile).getEntries()) {
+                known.add(entry.getPath().toAbsolutePath().normalize());
+            }
+        } catch (IOException e) {
+            logger.warn("Could not read manifest {}: {}", manifestFile, e.getMessage());
+        }
+        return known;
+    }
+
+    /**
+     * Segmentleri paralel onarır; eksiksiz fragmanı olmayanlar sonuçta yer almaz
+     */
+    private static Map<Path, Repair> repairAll(List<Path> segments) throws InterruptedException {
+        Map<Path, Repair> repairs = new HashMap<>();
+        if (segments.isEmpty()) {
+            return repairs;
+        }
+        int threads = Math.max(1, Math.min(segments.size(), Runtime.getRuntime().availableProcessors()));
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "SessionRecovery");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<Repair>> futures = new ArrayList<>();
+            for (Path segment : segments) {
+                futures.add(pool.submit(() -> repair(segment)));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    Repair repair = futures.get(i).get();
+                    if (repair != null) {
+                        repairs.put(segments.get(i), repair);
+                    }
+                } catch (ExecutionException e) {
+                    logger.warn("Could not repair {}: {}", segments.get(i).getFileName(), e.getCause().getMessage());
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return repairs;
+    }
+
+    /**
+     * Segmenti son eksiksiz moof+mdat çiftinde (TS'te son tam pakette) keser; kurtarılacak veri yoksa null
+     */
+    private static Repair repair(Path segment) throws IOException {
+        boolean transportStream = segment.getFileName().toString().endsWith(".ts");
+        long truncated;
+        long size;
+        long[] pts = null;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long complete = transportStream ? SegmentValidator.completeTransportStreamLength(channel)
+                                            : SegmentValidator.completeMp4Length(channel);
+            if (complete == 0) {
+                return null;
+            }
+            truncated = channel.size() - complete;
+            if (truncated > 0) {
+                channel.truncate(complete);
+                channel.force(true);
+                logger.info("Truncated {} at {} ({} bytes of partial {} removed)", segment.getFileName(),
+                            complete, truncated, transportStream ? "packet" : "fragment");
+            }
+            size = complete;
+            if (transportStream) {
+                pts = SegmentValidator.transportStreamPtsRange(channel);
+                if (pts == null) {
+                    return null;
+                }
+            }
+        }
+        if (transportStream) {
+            return new Repair(truncated, (pts[1] - pts[0]) / 90000.0, size, 0);
+        }
+        Fmp4Stitcher.Layout layout = Fmp4Stitcher.readLayout(segment);
+        return new Repair(truncated, layout.getDurationSeconds(), size, layout.getInitLength());
+    }
+}
@@ -13,6 +13,10 @@ public class VideoConversionTask extends Task<Void> {
     
     private static final Logger logger = LoggerFactory.getLogger(VideoConversionTask.class);
     
+    // Format listesindeki "ABR" seçeneği - tek dosya yerine uyarlanabilir bitrate merdiveni üretilir
+    static final String ABR_FORMAT = "ABR";
+    private static final int ABR_SEGMENT_SECONDS = 4;
+    
     private final VideoConversionParams params;
     private final FFmpegService ffmpegService;
     private javafx.scene.control.ProgressBar logProgressBar;
@@ -118,7 +122,15 @@ public class VideoConversionTask extends Task<Void> {
                 }
             };
             
-            ffmpegService.convertVideo(params, callback).get();
+            if (params.getFormat().equalsIgnoreCase(ABR_FORMAT)) {
+                // ABR merdiveni: çıktı yolunun adıyla bir klasöre DASH + HLS master playlist
+                String outputPath = params.getOutputPath();
+                java.nio.file.Path directory = java.nio.file.Paths.get(outputPath.substring(0, outputPath.lastIndexOf('.')));
+                ffmpegService.convertAbrLadder(params.getInputPath(), directory, AbrLadderJob.defaultLadder(),
+                                               ABR_SEGMENT_SECONDS, callback).get();
+            } else {
+                ffmpegService.convertVideo(params, callback).get();
+            }
             
             // Dönüştürme tamamlandı, counterı durdur
             isRunning = false;
@@ -13,8 +13,6 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Video segmentlerini birleştiren sınıf
@@ -23,13 +21,25 @@ public class VideoSegmentMerger extends Task<String> {
     
     private static final Logger logger = LoggerFactory.getLogger(VideoSegmentMerger.class);
     
+    private static final int MAX_RECENT_OUTPUT_LINES = 50;
+    private static final String[] ERROR_KEYWORDS = {
+        "error", "invalid", "failed", "no such file", "moov atom not found", "does not contain any stream"
+    };
+    
     private final List<String> segmentPaths;
     private final String outputPath;
     private final MergeCallback callback;
     
     private Process ffmpegProcess;
+    private SegmentManifest manifest;
+    private final List<String> includedSegments = new ArrayList<>();
+    private final List<String> skippedSegments = new ArrayList<>(); // Yapısal kontrolden geçemeyenler - silinmez
+    private String ffmpegExe;
+    private String ffprobeExe;
     private double totalDuration = 0;
     private double currentProgress = 0;
+    private long progressStartNanos = 0;
+    private int lastReportedPercent = -1;
     
     // Callback arayüzü
     public interface MergeCallback {
@@ -47,6 +57,13 @@ public class VideoSegmentMerger extends Task<String> {
         this.callback = callback;
     }
     
+    /**
+     * Kaydın segment manifestosu verilirse süreler ve segment durumu dosyalar açılmadan oradan alınır
+     */
+    public void setManifest(SegmentManifest manifest) {
+        this.manifest = manifest;
+    }
+    
     @Override
     protected String call() throws Exception {
         try {
@@ -57,9 +74,6 @@ public class VideoSegmentMerger extends Task<String> {
                 throw new IllegalArgumentException("No segments to merge");
             }
             
-            // Toplam süreyi hesapla
-            calculateTotalDuration();
-            
             if (callback != null) {
                 Platform.runLater(() -> callback.onMergeStarted());
             }
@@ -67,6 +81,9 @@ public class VideoSegmentMerger extends Task<String> {
             // Geçici concat dosyası oluştur
             String concatFilePath = createConcatFile();
             
+            // Toplam süreyi hesapla - sadece birleştirmeye giren segmentler
+            calculateTotalDuration();
+            
             try {
                 // FFmpeg ile birleştirme işlemi
                 String finalOutputPath = mergeSegments(concatFilePath);
@@ -101,19 +118,69 @@ public class VideoSegmentMerger extends Task<String> {
     /**
      * Toplam süreyi hesaplar
      */
-    private void calculateTotalDuration() {
-        // Süre tahmini: dosya adından hesaplayamıyoruz basitçe parça sayısına göre tahmin etmiyoruz.
-        // İstenirse burada ffprobe ile süre toplanabilir şimdilik toplam süreyi bilinmiyor şeklinde
+    private void calculateTotalDuration() throws InterruptedException {
+        // Manifestodaki segmentlerin süreleri muxer'dan geldi - probe gerekmez
         totalDuration = 0;
+        List<String> unknown = new ArrayList<>();
+        for (String segmentPath : includedSegments) {
+            SegmentManifest.Entry entry = manifest != null ? manifest.get(Paths.get(segmentPath)) : null;
+            if (entry != null) {
+                totalDuration += entry.getDuration();
+            } else {
+                unknown.add(segmentPath);
+            }
+        }
+        
+        // Diğerleri paylaşılan cache üzerinden paralel probe edilir; parametre kontrolü de aynı sonuçları kullanır
+        if (!unknown.isEmpty()) {
+            resolveToolPaths();
+            long probeStart = System.nanoTime();
+            totalDuration += probeDurations(unknown);
+            logger.info("Probed {} segments without manifest entries in {} ms", unknown.size(),
+                       (System.nanoTime() - probeStart) / 1_000_000);
+        }
         
         logger.info("Total duration to merge: {} seconds", totalDuration);
         logMessage(String.format("Toplam birleştirilecek süre: %.1f saniye", totalDuration));
     }
     
+    private double probeDurations(List<String> segments) throws InterruptedException {
+        int threads = Math.max(1, Math.min(segments.size(), Runtime.getRuntime().availableProcessors()));
+        java.util.concurrent.ExecutorService pool = java.util.concurrent.Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "SegmentProbe");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<java.util.concurrent.Future<Double>> durations = new ArrayList<>();
+            for (String segment : segments) {
+                durations.add(pool.submit(() -> {
+                    try {
+                        return MediaProbeCache.shared().probe(ffprobeExe, Paths.get(segment)).getDuration();
+                    } catch (IOException e) {
+                        logger.debug("Could not probe duration of {}: {}", segment, e.getMessage());
+                        return 0.0;
+                    }
+                }));
+            }
+            double total = 0;
+            for (java.util.concurrent.Future<Double> duration : durations) {
+                try {
+                    total += duration.get();
+                } catch (java.util.concurrent.ExecutionException e) {
+                    logger.debug("Segment probe failed", e.getCause());
+                }
+            }
+            return total;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+    
     /**
      * FFmpeg concat dosyası oluşturur
      */
-    private String createConcatFile() throws IOException {
+    private String createConcatFile() throws IOException, InterruptedException {
         // Geçici concat dosyası
         Path tempDir = Paths.get(System.getProperty("java.io.tmpdir"));
         String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
@@ -122,53 +189,49 @@ public class VideoSegmentMerger extends Task<String> {
         logger.info("Creating concat file: {}", concatFilePath);
         logMessage("Geçici birleştirme dosyası oluşturuluyor...");
         
+        // Varlık kontrolü sırayla, yapısal kontrol paralel (segment başına birkaç header okuması)
+        List<Path> paths = new ArrayList<>();
+        for (String segmentFullPath : segmentPaths) {
+            Path segmentPath = Paths.get(segmentFullPath);
+            if (!Files.exists(segmentPath)) {
+                throw new FileNotFoundException("Segment file not found: " + segmentFullPath);
+            }
+            paths.add(segmentPath);
+        }
+        long validationStart = System.nanoTime();
+        List<SegmentValidator.Result> results = SegmentValidator.validateAll(paths);
+        logger.info("Validated {} segments in {} ms", paths.size(), (System.nanoTime() - validationStart) / 1_000_000);
+        
         int added = 0;
+        includedSegments.clear();
+        skippedSegments.clear();
         try (BufferedWriter writer = Files.newBufferedWriter(concatFilePath, java.nio.charset.StandardCharsets.UTF_8)) {
-            for (String segmentFullPath : segmentPaths) {
-                // Dosya yolunu kontrol et
-                Path segmentPath = Paths.get(segmentFullPath);
-                if (!Files.exists(segmentPath)) {
-                    throw new FileNotFoundException("Segment file not found: " + segmentFullPath);
-                }
+            for (int i = 0; i < paths.size(); i++) {
+                String segmentFullPath = segmentPaths.get(i);
+                Path segmentPath = paths.get(i);
+                SegmentValidator.Result result = results.get(i);
                 
-                // Dosya hala yazılıyor olabilir; boyut stabilize olana kadar bekle,kontrol et
-                // Ayrıca MP4 dosyası için moov atom kontrolü yap
-                try {
-                    long size1 = Files.size(segmentPath);
-                    try { Thread.sleep(500); } catch (InterruptedException ie) { Thread.currentThread().interrupt(); }
-                    long size2 = Files.size(segmentPath);
-                    
-                    // Dosya boyutu büyüyorsa hala yazılıyor
-                    if (size2 > size1) {
-                        logger.warn("Segment still growing, skipping: {} ({} -> {} bytes)", segmentFullPath, size1, size2);
-                        logMessage("Segment dosyası henüz yazılıyor, atlanıyor: " + segmentPath.getFileName());
-                        continue;
-                    }
-                    
-                    // Dosya boyutu çok küçükse geçersiz (minimum 10KB)
-                    if (size2 < 10240) { // 10KB
-                        logger.warn("Segment file too small ({} bytes), skipping: {}", size2, segmentFullPath);
-                        logMessage("Segment dosyası çok küçük (" + size2 + " bytes), atlanıyor: " + segmentPath.getFileName());
-                        continue;
-                    }
-                    
-                    // MP4 segmentler için basit boyut kontrolü
-                    if (segmentFullPath.toLowerCase().endsWith(".mp4")) {
-                        logger.debug("MP4 segment found, using basic validation: {}", segmentPath.getFileName());
-                    }
-                    
-                } catch (IOException io) {
-                    logger.warn("Couldn't stat segment file, skipping: {}", segmentFullPath, io);
-                    logMessage("Segment dosyası okunamıyor, atlanıyor: " + segmentPath.getFileName());
+                // Manifestodaki segmentleri muxer kapattı; yine de yarım/bozuk dosya birleştirmeye girmez.
+                // Manifestoda olmayan (hala açık olabilecek) segmentte yarım box burada yakalanır.
+                if (!result.isValid()) {
+                    logger.warn("Segment failed structural check, skipping: {} ({})", segmentFullPath, result.getProblem());
+                    logMessage("Segment dosyası eksik/bozuk, atlanıyor: " + segmentPath.getFileName() + " - " + result.getProblem());
+                    skippedSegments.add(segmentFullPath);
                     continue;
                 }
                 
                 // FFmpeg concat format: file 'path/to/file.mp4'
                 writer.write("file '" + segmentFullPath.replace("\\", "/") + "'");
                 writer.newLine();
+                SegmentManifest.Entry entry = manifest != null ? manifest.get(segmentPath) : null;
+                if (entry != null) {
+                    writer.write(String.format(java.util.Locale.ROOT, "duration %.6f", entry.getDuration()));
+                    writer.newLine();
+                }
+                includedSegments.add(segmentFullPath);
                 added++;
                 
-                logger.debug("Added to concat file: {}", segmentFullPath);
+                logger.debug("Added to concat file: {}", entry != null ? entry : segmentFullPath);
             }
         }
         
@@ -193,17 +256,43 @@ public class VideoSegmentMerger extends Task<String> {
             finalOutputPath = base + ".mp4";
         }
         
-        // GÜVENLİ ÇÖZÜM: MP4 → MP4 RE-ENCODE (seek ve timestamp sorunlarını çözümle)
-        // NOT: Re-encode kullanıyor, keyframe optimizasyonu ile seek desteği
-        logger.info("=== BAŞLATILIYOR: MP4 → MP4 RE-ENCODE (SEEK OPTİMİZASYONU İÇİN) ===");
-        List<String> commandReencode = buildMp4CopyCommand(concatFilePath, finalOutputPath);
-        logger.info("FFmpeg MP4 seekable re-encode command: {}", String.join(" ", commandReencode));
-        logMessage("=== FFmpeg MP4 → MP4 re-encode komutu çalıştırılıyor (seek desteği için) ===");
-
-        int exitCode = runFfmpegAndWait(commandReencode);
-        logger.info("=== MP4 SEEKABLE RE-ENCODE BİTTİ, EXIT CODE: {} ===", exitCode);
+        // Segmentler aynı encoder ayarlarından geliyorsa stream copy - süre disk hızıyla sınırlı.
+        // Codec/çözünürlük/timebase/extradata farklıysa (ör. pre-roll, adaptif kalite) re-encode.
+        resolveToolPaths();
+        String mismatch = findParameterMismatch(includedSegments);
+        int exitCode = -1;
+        if (mismatch == null && isFragmentedMp4Input(includedSegments)) {
+            exitCode = stitchFragmentedMp4(finalOutputPath);
+        }
+        if (mismatch == null && exitCode != 0) {
+            long copyStart = System.nanoTime();
+            List<String> copyCommand = buildStreamCopyCommand(concatFilePath, finalOutputPath);
+            logger.info("Segments share identical stream parameters, merging with stream copy");
+            logMessage("Segment parametreleri aynı - yeniden kodlamadan birleştiriliyor (stream copy)");
+            exitCode = runFfmpegAndWait(copyCommand);
+            if (exitCode != 0) {
+                logger.warn("Stream copy merge failed with exit code {}, falling back to re-encode", exitCode);
+                logMessage("Stream copy başarısız oldu, yeniden kodlama ile deneniyor...");
+                Files.deleteIfExists(Paths.get(finalOutputPath));
+            } else {
+                logger.info("FFmpeg stream copy merge took {} ms", (System.nanoTime() - copyStart) / 1_000_000);
+            }
+        } else if (mismatch != null) {
+            logger.info("Segment parameters differ, re-encoding: {}", mismatch);
+            logMessage("Segment parametreleri farklı, yeniden kodlanacak: " + mismatch);
+        }
+        
         if (exitCode != 0) {
-            throw new RuntimeException("FFmpeg exited with code: " + exitCode);
+            // MP4 → MP4 RE-ENCODE (seek ve timestamp sorunlarını çözümle)
+            List<String> commandReencode = buildReencodeCommand(concatFilePath, finalOutputPath);
+            logger.info("FFmpeg MP4 seekable re-encode command: {}", String.join(" ", commandReencode));
+            logMessage("=== FFmpeg MP4 → MP4 re-encode komutu çalıştırılıyor (seek desteği için) ===");
+
+            exitCode = runFfmpegAndWait(commandReencode);
+            logger.info("=== MP4 SEEKABLE RE-ENCODE BİTTİ, EXIT CODE: {} ===", exitCode);
+            if (exitCode != 0) {
+                throw new RuntimeException("FFmpeg exited with code: " + exitCode);
+            }
         }
         
         // Çıkış dosyasının oluştuğunu kontrol et
@@ -215,12 +304,63 @@ public class VideoSegmentMerger extends Task<String> {
         long outputSize = Files.size(outputFile);
         logMessage(String.format("Birleştirme tamamlandı! Dosya boyutu: %s", formatFileSize(outputSize)));
         
-        // BİRLEŞTİRME BAŞARILI - SEGMENTLERİ SİL
-        deleteSegmentFiles(segmentPaths);
+        // BİRLEŞTİRME BAŞARILI - SADECE BİRLEŞTİRMEYE GİREN SEGMENTLERİ SİL.
+        // Atlanan (yarım/bozuk) segmentler diskte kalır: SessionRecovery yarım fragmanları kesip kurtarabilir.
+        deleteSegmentFiles(includedSegments);
+        if (!skippedSegments.isEmpty()) {
+            logger.warn("Kept {} segments that failed the structural check: {}", skippedSegments.size(), skippedSegments);
+            logMessage(String.format("⚠️ %d eksik/bozuk segment silinmedi (kurtarma için diskte bırakıldı):", skippedSegments.size()));
+            for (String skipped : skippedSegments) {
+                logMessage("   " + new File(skipped).getName());
+            }
+        }
         
         return finalOutputPath;
     }
     
+    /**
+     * Kayıt segmentleri fragmented MP4 olarak yazılır; diğer formatlar FFmpeg ile birleştirilir
+     */
+    private boolean isFragmentedMp4Input(List<String> segments) {
+        for (String segment : segments) {
+            if (!getFileExtension(segment).equalsIgnoreCase("mp4")) {
+                return false;
+            }
+        }
+        return !segments.isEmpty();
+    }
+    
+    /**
+     * FFmpeg process'i olmadan box seviyesinde birleştirme.
+     * @return başarılıysa 0, FFmpeg'e dönülmesi gerekiyorsa -1
+     */
+    private int stitchFragmentedMp4(String finalOutputPath) throws IOException {
+        List<Path> inputs = new ArrayList<>();
+        for (String segment : includedSegments) {
+            inputs.add(Paths.get(segment));
+        }
+        long start = System.nanoTime();
+        try {
+            Fmp4Stitcher.Result result = new Fmp4Stitcher().stitch(inputs, Paths.get(finalOutputPath));
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            logger.info("Fragmented MP4 stitch took {} ms ({} fragments, {} bytes)",
+                       elapsedMillis, result.getFragmentCount(), result.getBytesWritten());
+            logMessage(String.format("Segmentler doğrudan birleştirildi (%d parça, %.1f sn, %d ms)",
+                                     result.getFragmentCount(), result.getDurationSeconds(), elapsedMillis));
+            currentProgress = 100;
+            updateProgress(100, 100);
+            if (callback != null) {
+                Platform.runLater(() -> callback.onMergeProgress(100));
+            }
+            return 0;
+        } catch (IOException e) {
+            logger.warn("Fragmented MP4 stitch failed, falling back to ffmpeg: {}", e.getMessage());
+            logMessage("Doğrudan birleştirme yapılamadı, FFmpeg kullanılıyor: " + e.getMessage());
+            Files.deleteIfExists(Paths.get(finalOutputPath));
+            return -1;
+        }
+    }
+    
     /**
      * Çıkış dosyası yolunu düzenler ve kontrol eder
      */
@@ -282,21 +422,107 @@ public class VideoSegmentMerger extends Task<String> {
     }
     
     /**
-     * MP4 → MP4 copy komutu - güvenli birleştirme ve seek optimizasyonu
+     * FFmpeg/ffprobe yollarını bir kez çözer
      */
-    private List<String> buildMp4CopyCommand(String concatFilePath, String outputPath) {
-        List<String> command = new ArrayList<>();
-        
-        // FFmpegin tam yolunu kullan
-        String ffmpegExe = "ffmpeg";
+    private void resolveToolPaths() {
+        if (ffmpegExe != null) {
+            return;
+        }
+        ffmpegExe = "ffmpeg";
+        ffprobeExe = "ffprobe";
+        FFmpegService svc = null;
         try {
-            FFmpegService svc = new FFmpegService();
-            String p = svc.getFfmpegPath();
-            if (p != null && !p.isBlank()) {
-                ffmpegExe = p;
+            svc = new FFmpegService();
+            if (svc.getFfmpegPath() != null && !svc.getFfmpegPath().isBlank()) {
+                ffmpegExe = svc.getFfmpegPath();
             }
-        } catch (Exception ignored) {}
-
+            if (svc.getFfprobePath() != null && !svc.getFfprobePath().isBlank()) {
+                ffprobeExe = svc.getFfprobePath();
+            }
+        } catch (Exception ignored) {
+        } finally {
+            if (svc != null) {
+                svc.shutdown();
+            }
+        }
+    }
+    
+    /**
+     * Tüm segmentlerin stream imzalarını ilk segmentle karşılaştırır. İmzalar segment kapanırken
+     * manifestoya yazılmışsa oradan alınır; yalnızca imzası olmayan segmentler probe edilir.
+     * @return uyumluysa null, değilse farkın açıklaması
+     */
+    private String findParameterMismatch(List<String> segments) {
+        List<String> reference = null;
+        String referencePath = null;
+        int probed = 0;
+        for (String segment : segments) {
+            Path path = Paths.get(segment);
+            List<String> signatures = manifest != null ? manifest.getStreamSignatures(path) : null;
+            if (signatures == null) {
+                try {
+                    signatures = MediaProbeCache.shared().probe(ffprobeExe, path).getStreamSignatures();
+                    probed++;
+                } catch (IOException e) {
+                    logger.warn("Could not probe segment {}: {}", segment, e.getMessage());
+                    return "probe failed for " + path.getFileName();
+                }
+            }
+            if (signatures.isEmpty()) {
+                return "no streams in " + path.getFileName();
+            }
+            if (reference == null) {
+                reference = signatures;
+                referencePath = segment;
+            } else if (!reference.equals(signatures)) {
+                return path.getFileName() + " " + signatures
+                       + " != " + Paths.get(referencePath).getFileName() + " " + reference;
+            }
+        }
+        logger.debug("Parameter check: {} of {} segments probed, rest from manifest", probed, segments.size());
+        return null;
+    }
+    
+    /**
+     * Stream copy ile birleştirme - paketler yeniden kodlanmadan yeni MP4'e yazılır
+     */
+    private List<String> buildStreamCopyCommand(String concatFilePath, String outputPath) {
+        List<String> command = new ArrayList<>();
+        command.add(ffmpegExe);
+        command.add("-y");
+        command.add("-f");
+        command.add("concat");
+        command.add("-safe");
+        command.add("0");
+        command.add("-i");
+        command.add(concatFilePath);
+        command.add("-map");
+        command.add("0:v");
+        command.add("-map");
+        command.add("0:a?");
+        command.add("-c");
+        command.add("copy");
+        command.add("-avoid_negative_ts");
+        command.add("make_zero");
+        command.add("-movflags");
+        command.add("+faststart"); // Seek için index başta
+        command.add("-map_metadata");
+        command.add("0");
+        command.add("-metadata");
+        command.add("title=MediaShift Merged Video");
+        command.add("-progress");
+        command.add("pipe:1");
+        command.add("-nostats");
+        command.add(outputPath);
+        return command;
+    }
+    
+    /**
+     * MP4 → MP4 re-encode komutu - segment parametreleri farklı olduğunda güvenli birleştirme
+     */
+    private List<String> buildReencodeCommand(String concatFilePath, String outputPath) {
+        List<String> command = new ArrayList<>();
+        
         command.add(ffmpegExe);
         command.add("-y"); // Dosya üzerine yaz
         command.add("-f");
@@ -360,81 +586,12 @@ public class VideoSegmentMerger extends Task<String> {
         command.add("-metadata");
         command.add("comment=Seekable merged segments with keyframe optimization");
         
-        // Çıkış dosyası
-        command.add(outputPath);
-        
-        return command;
-    }
-    
-    /**
-     * FFmpeg komutunu oluşturur (kullanılmıyor artık)
-     */
-    private List<String> buildFFmpegCommand(String concatFilePath, String outputPath, boolean reencode) {
-        List<String> command = new ArrayList<>();
-        
-        // FFmpegin tam yolunu kullan
-        String ffmpegExe = "ffmpeg";
-        try {
-            FFmpegService svc = new FFmpegService();
-            String p = svc.getFfmpegPath();
-            if (p != null && !p.isBlank()) {
-                ffmpegExe = p;
-            }
-        } catch (Exception ignored) {}
-
-        command.add(ffmpegExe);
-        command.add("-y"); // Dosya üzerine yaz
-        command.add("-f");
-        command.add("concat");
-        command.add("-safe");
-        command.add("0");
-        command.add("-i");
-        command.add(concatFilePath);
-        // Basit input ayarları
-        command.add("-avoid_negative_ts");
-        command.add("make_zero");
-        
-        if (reencode) {
-            // BASİT VE GÜVENİLİR AYARLAR
-            command.add("-c:v");
-            command.add("libx264");
-            command.add("-preset");
-            command.add("medium"); // Güvenilir preset
-            command.add("-crf");
-            command.add("18"); // Yüksek kalite
-            command.add("-pix_fmt");
-            command.add("yuv420p");
-            
-            // Audio - AAC codec
-            command.add("-c:a");
-            command.add("aac");
-            command.add("-b:a");
-            command.add("128k");
-            command.add("-ar");
-            command.add("44100");
-            
-            // MP4 format
-            command.add("-f");
-            command.add("mp4");
-            command.add("-movflags");
-            command.add("+faststart");
-        } else {
-            // Copy modu - kullanılmıyor (güvenilirlik için her zaman re-encode)
-            throw new IllegalArgumentException("Copy mode disabled for reliability");
-        }
-        
-        // Metadata ekle
-        command.add("-metadata");
-        command.add("title=MediaShift Merged Video");
-        command.add("-metadata");
-        command.add("comment=Merged from " + segmentPaths.size() + " segments");
-        command.add("-metadata");
-        command.add("creation_time=" + LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
-        
         // Progress tracking için
         command.add("-progress");
         command.add("pipe:1");
+        command.add("-nostats");
         
+        // Çıkış dosyası
         command.add(outputPath);
         
         return command;
@@ -509,90 +666,103 @@ public class VideoSegmentMerger extends Task<String> {
         logger.info("Working directory: {}", System.getProperty("user.dir"));
         logMessage("FFmpeg komutu çalıştırılıyor...");
         
+        // Fallback ile ikinci kez çalışırsa ilerleme baştan hesaplanır
+        progressStartNanos = 0;
+        lastReportedPercent = -1;
         ffmpegProcess = processBuilder.start();
         
-        // FFmpeg çıktısını yakalayıp logla
-        StringBuilder errorOutput = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(ffmpegProcess.getInputStream()))) {
-            String line;
-            while ((line = reader.readLine()) != null && !isCancelled()) {
-                logger.debug("FFmpeg output: {}", line);
-                errorOutput.append(line).append("\n");
-                
-                // Hata mesajlarını özellikle logla
-                if (line.toLowerCase().contains("error") || 
-                    line.toLowerCase().contains("invalid") ||
-                    line.toLowerCase().contains("failed") ||
-                    line.toLowerCase().contains("no such file") ||
-                    line.toLowerCase().contains("moov atom not found") ||
-                    line.toLowerCase().contains("does not contain any stream")) {
-                    logger.error("FFmpeg error detected: {}", line);
-                    logMessage("FFmpeg hata: " + line);
-                }
-                
-                // Progress güncelleme
-                if (line.contains("out_time=") || line.contains("progress=")) {
-                    parseProgressLine(line);
-                }
+        // FFmpeg çıktısını yakalayıp logla - sadece son satırlar hata raporu için tutulur
+        java.util.ArrayDeque<String> recentOutput = new java.util.ArrayDeque<>();
+        FFmpegProgressParser parser = new FFmpegProgressParser();
+        FFmpegProgressParser.LineHandler handler = (type, line) -> {
+            if (type == FFmpegProgressParser.LineType.REPORT_END) {
+                FFmpegProgressParser.Progress progress = parser.getProgress();
+                reportProgress(progress.isEnd() ? totalDuration : progress.getOutTimeSeconds());
+                return;
+            }
+            if (type != FFmpegProgressParser.LineType.OTHER) {
+                return;
+            }
+            String text = line.toString();
+            logger.debug("FFmpeg output: {}", text);
+            recentOutput.addLast(text);
+            if (recentOutput.size() > MAX_RECENT_OUTPUT_LINES) {
+                recentOutput.removeFirst();
+            }
+            
+            // Hata mesajlarını özellikle logla
+            if (isErrorLine(line)) {
+                logger.error("FFmpeg error detected: {}", text);
+                logMessage("FFmpeg hata: " + text);
             }
+        };
+        try (InputStream output = ffmpegProcess.getInputStream()) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while (!isCancelled() && (read = output.read(buffer)) > 0) {
+                parser.feed(buffer, 0, read, handler);
+            }
+            parser.flush(handler);
         }
         
         int exitCode = ffmpegProcess.waitFor();
         logger.info("FFmpeg process finished with exit code: {}", exitCode);
         
         if (exitCode != 0) {
-            logger.error("FFmpeg failed! Full output:\n{}", errorOutput.toString());
+            logger.error("FFmpeg failed! Last output lines:\n{}", String.join("\n", recentOutput));
             logMessage("FFmpeg başarısız oldu, tam çıktı log'a kaydedildi.");
         }
         
         return exitCode;
     }
     
-    /**
-     * Progress satırını parse eder
-     */
-    private void parseProgressLine(String line) {
-        Pattern timePattern = Pattern.compile("out_time=(\\d+):(\\d+):(\\d+)\\.(\\d+)");
-        Pattern progressPattern = Pattern.compile("progress=(\\w+)");
-                
-                // Progress güncelleme
-                Matcher timeMatcher = timePattern.matcher(line);
-                if (timeMatcher.find()) {
-                    int hours = Integer.parseInt(timeMatcher.group(1));
-                    int minutes = Integer.parseInt(timeMatcher.group(2));
-                    int seconds = Integer.parseInt(timeMatcher.group(3));
-                    int milliseconds = Integer.parseInt(timeMatcher.group(4));
-                    
-                    double currentTime = hours * 3600 + minutes * 60 + seconds + milliseconds / 1000.0;
-            currentProgress = Math.min((currentTime / Math.max(totalDuration, 1)) * 100, 100);
-                    
-                    updateProgress(currentProgress, 100);
-                    
-                    if (callback != null) {
-                        Platform.runLater(() -> callback.onMergeProgress(currentProgress));
-                    }
-                }
-                
-                // Progress durumu
-                Matcher progressMatcher = progressPattern.matcher(line);
-                if (progressMatcher.find()) {
-                    String progress = progressMatcher.group(1);
-                    if ("end".equals(progress)) {
-                        currentProgress = 100;
-                        updateProgress(100, 100);
-                        
-                        if (callback != null) {
-                            Platform.runLater(() -> callback.onMergeProgress(100));
-                        }
-                    }
-                }
+    private static boolean isErrorLine(CharSequence line) {
+        for (String keyword : ERROR_KEYWORDS) {
+            if (FFmpegProgressParser.containsIgnoreCase(line, keyword)) {
+                return true;
             }
-
+        }
+        return false;
+    }
+    
     /**
-     * FFmpeg progressini izler (deprecated - artık runFfmpegAndWait içinde yapılıyor)
+     * İşlenen medya süresine göre ilerlemeyi bildirir. Her tam yüzde değişiminde progress,
+     * her %10'da hız ve tahmini kalan süre loglanır.
      */
-    private void monitorFFmpegProgress() {
-        // Bu metod artık kullanılmıyor - progress monitoring runFfmpegAndWait içinde yapılıyor
+    private void reportProgress(double processedSeconds) {
+        if (totalDuration <= 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (progressStartNanos == 0) {
+            progressStartNanos = now;
+        }
+        double percent = Math.min(processedSeconds / totalDuration * 100, 100);
+        int wholePercent = (int) percent;
+        if (wholePercent <= lastReportedPercent) {
+            return;
+        }
+        lastReportedPercent = wholePercent;
+        currentProgress = percent;
+        updateProgress(percent, 100);
+        
+        double elapsed = (now - progressStartNanos) / 1e9;
+        double speed = elapsed > 0 ? processedSeconds / elapsed : 0;
+        double remaining = speed > 0 ? (totalDuration - processedSeconds) / speed : 0;
+        String status = String.format("%%%d - %.1fx - kalan ~%s", wholePercent, speed, formatDuration(remaining));
+        updateMessage(status);
+        
+        if (callback != null) {
+            Platform.runLater(() -> callback.onMergeProgress(percent));
+        }
+        if (wholePercent % 10 == 0) {
+            logMessage("Birleştirme " + status);
+        }
+    }
+    
+    private static String formatDuration(double seconds) {
+        long total = Math.max(0, Math.round(seconds));
+        return String.format("%02d:%02d:%02d", total / 3600, (total % 3600) / 60, total % 60);
     }
     
     /**
@@ -0,0 +1,377 @@
+package com.ffmpeg.gui;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Kaydedilmiş segmentleri yeniden encode etmeden ve kopyalamadan HLS (isteğe bağlı DASH) VOD
+ * olarak paketler.
+ *
+ * Segmentler zaten keyframe ile başlayan fragmented MP4 dosyalarıdır: her dosyanın başındaki
+ * ftyp+moov init, kalanı moof+mdat medya verisidir. Playlist bu iki bölgeyi byte aralığıyla
+ * gösterir (EXT-X-MAP BYTERANGE / EXT-X-BYTERANGE), böylece iş segment başına birkaç box
+ * başlığı okumaktan ibarettir; kayıt uzunluğundan bağımsız olarak saniyeler içinde biter.
+ *
+ * MPEG-TS ile kaydedilmiş oturumlarda segmentler playlist'e doğrudan girer (init/byte aralığı yok);
+ * zaman sıfırlanması PES PTS'lerinden anlaşılır. Playlist ilk segmentin biçimindedir, diğer biçimdeki
+ * dosyalar (ör. fMP4 kayıttaki pre-roll .ts) atlanır. DASH MPD yalnızca fMP4'te, bütün segmentlerin
+ * init'i aynıysa ve zaman çizelgesi kesintisizse yazılır.
+ */
+public class VodPackager {
+
+    private static final Logger logger = LoggerFactory.getLogger(VodPackager.class);
+
+    private static final int HLS_VERSION = 7;
+    private static final int HLS_VERSION_TS = 3;
+
+    /**
+     * Paketleme özeti
+     */
+    public static class Result {
+        private final Path playlist;
+        private final Path mpd;
+        private final int segmentCount;
+        private final int skippedCount;
+        private final double durationSeconds;
+
+        Result(Path playlist, Path mpd, int segmentCount, int skippedCount, double durationSeconds) {
+            this.playlist = playlist;
+            this.mpd = mpd;
+            this.segmentCount = segmentCount;
+            this.skippedCount = skippedCount;
+            this.durationSeconds = durationSeconds;
+        }
+
+        public Path getPlaylist() { return playlist; }
+        /** DASH yazılmadıysa null */
+        public Path getMpd() { return mpd; }
+        public int getSegmentCount() { return segmentCount; }
+        public int getSkippedCount() { return skippedCount; }
+        public double getDurationSeconds() { return durationSeconds; }
+    }
+
+    /**
+     * Playlist'e girecek tek segment
+     */
+    private static class Item {
+        final Path path;
+        final Fmp4Stitcher.Layout layout; // TS için null
+        final byte[] init;
+        final long[] pts;                 // TS: {ilk, son} PES PTS
+        final double duration;
+        boolean newInit;
+        boolean discontinuity;
+
+        Item(Path path, Fmp4Stitcher.Layout layout, byte[] init, double duration) {
+            this.path = path;
+            this.layout = layout;
+            this.init = init;
+            this.pts = null;
+            this.duration = duration;
+        }
+
+        Item(Path path, long[] pts, double duration) {
+            this.path = path;
+            this.layout = null;
+            this.init = null;
+            this.pts = pts;
+            this.duration = duration;
+        }
+
+        boolean isTransportStream() {
+            return layout == null;
+        }
+    }
+
+    private final SegmentManifest manifest;
+
+    /**
+     * @param manifest segment süreleri için kayıt manifestosu; null ise süreler tfdt/trun'dan okunur
+     */
+    public VodPackager(SegmentManifest manifest) {
+        this.manifest = manifest;
+    }
+
+    /**
+     * Segmentleri verilen klasörde &lt;baseName&gt;.m3u8 (ve dash ise &lt;baseName&gt;.mpd) olarak paketler.
+     * Playlist segmentlere göreli yollarla başvurur; segmentler taşınmaz.
+     */
+    public Result packageSegments(List<Path> segments, Path directory, String baseName, boolean dash) throws IOException {
+        long startNanos = System.nanoTime();
+        List<Item> items = new ArrayList<>();
+        int skipped = 0;
+        for (Path path : segments) {
+            Item item = readItem(path);
+            if (item == null || (!items.isEmpty() && item.isTransportStream() != items.get(0).isTransportStream())) {
+                skipped++;
+            } else {
+                items.add(item);
+            }
+        }
+        if (items.isEmpty()) {
+            throw new IOException("No fragmented MP4 or MPEG-TS segments to package");
+        }
+        boolean transportStream = items.get(0).isTransportStream();
+        markBoundaries(items);
+
+        Path playlist = directory.resolve(baseName + ".m3u8");
+        Files.writeString(playlist, buildPlaylist(items, directory), StandardCharsets.UTF_8);
+
+        Path mpd = null;
+        if (dash && transportStream) {
+            logger.info("Skipping DASH manifest: MPEG-TS segments");
+        } else if (dash) {
+            String manifestXml = buildMpd(items, directory);
+            if (manifestXml != null) {
+                mpd = directory.resolve(baseName + ".mpd");
+                Files.writeString(mpd, manifestXml, StandardCharsets.UTF_8);
+            } else {
+                logger.info("Skipping DASH manifest: segments do not share one init or timeline");
+            }
+        }
+
+        double duration = items.stream().mapToDouble(item -> item.duration).sum();
+        logger.info("Packaged {} segments ({} skipped, {} s) into {} in {} ms", items.size(), skipped,
+                    String.format(Locale.ROOT, "%.1f", duration), playlist,
+                    (System.nanoTime() - startNanos) / 1_000_000);
+        return new Result(playlist, mpd, items.size(), skipped, duration);
+    }
+
+    private Item readItem(Path path) {
+        if (path.getFileName().toString().endsWith(".ts")) {
+            return readTransportStreamItem(path);
+        }
+        Fmp4Stitcher.Layout layout;
+        byte[] init;
+        try {
+            layout = Fmp4Stitcher.readLayout(path);
+            init = readInit(path, layout.getInitLength());
+        } catch (IOException e) {
+            logger.info("Not packaging {}: {}", path.getFileName(), e.getMessage());
+            return null;
+        }
+        SegmentManifest.Entry entry = manifest != null ? manifest.get(path) : null;
+        double duration = entry != null && entry.getDuration() > 0 ? entry.getDuration() : layout.getDurationSeconds();
+        if (duration <= 0) {
+            logger.info("Not packaging {}: empty segment", path.getFileName());
+            return null;
+        }
+        return new Item(path, layout, init, duration);
+    }
+
+    private Item readTransportStreamItem(Path path) {
+        long[] pts;
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+            pts = SegmentValidator.transportStreamPtsRange(in);
+        } catch (IOException e) {
+            logger.info("Not packaging {}: {}", path.getFileName(), e.getMessage());
+            return null;
+        }
+        if (pts == null) {
+            logger.info("Not packaging {}: no timestamps", path.getFileName());
+            return null;
+        }
+        SegmentManifest.Entry entry = manifest != null ? manifest.get(path) : null;
+        double duration = entry != null && entry.getDuration() > 0 ? entry.getDuration() : (pts[1] - pts[0]) / 90000.0;
+        if (duration <= 0) {
+            logger.info("Not packaging {}: empty segment", path.getFileName());
+            return null;
+        }
+        return new Item(path, pts, duration);
+    }
+
+    private static byte[] readInit(Path path, long length) throws IOException {
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("init too large: " + length);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) length);
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining()) {
+                if (in.read(buffer, buffer.position()) < 0) {
+                    throw new IOException("Unexpected end of file");
+                }
+            }
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Init değişimi yeni EXT-X-MAP gerektirir; init değişimi (kodlama parametreleri) ya da zamanın
+     * geri gitmesi (process yeniden başlatıldı) ayrıca kesinti olarak işaretlenir.
+     */
+    private static void markBoundaries(List<Item> items) {
+        Item previous = null;
+        for (Item item : items) {
+            if (item.isTransportStream()) {
+                // TS segmentleri kendi PAT/PMT'sini taşır; process yeniden başladıysa PTS geri gider
+                item.discontinuity = previous != null && item.pts[0] < previous.pts[1];
+            } else if (previous == null) {
+                item.newInit = true;
+            } else {
+                boolean initChanged = !Arrays.equals(previous.init, item.init);
+                boolean timeReset = item.layout.getTimescale() != previous.layout.getTimescale()
+                    || item.layout.getFirstDecodeTime() < previous.layout.getEndDecodeTime();
+                item.newInit = initChanged;
+                item.discontinuity = initChanged || timeReset;
+            }
+            previous = item;
+        }
+    }
+
+    private static String buildPlaylist(List<Item> items, Path directory) {
+        double maxDuration = 0;
+        for (Item item : items) {
+            maxDuration = Math.max(maxDuration, item.duration);
+        }
+        boolean transportStream = items.get(0).isTransportStream();
+        StringBuilder sb = new StringBuilder();
+        sb.append("#EXTM3U\n");
+        sb.append("#EXT-X-VERSION:").append(transportStream ? HLS_VERSION_TS : HLS_VERSION).append('\n');
+        sb.append("#EXT-X-TARGETDURATION:").append((long) Math.ceil(maxDuration)).append('\n');
+        sb.append("#EXT-X-MEDIA-SEQUENCE:0\n");
+        sb.append("#EXT-X-PLAYLIST-TYPE:VOD\n");
+        sb.append("#EXT-X-INDEPENDENT-SEGMENTS\n");
+        for (Item item : items) {
+            String uri = relativeUri(directory, item.path);
+            if (item.discontinuity) {
+                sb.append("#EXT-X-DISCONTINUITY\n");
+            }
+            if (item.isTransportStream()) {
+                sb.append(String.format(Locale.ROOT, "#EXTINF:%.6f,\n", item.duration));
+                sb.append(uri).append('\n');
+                continue;
+            }
+            long initLength = item.layout.getInitLength();
+            if (item.newInit) {
+                sb.append("#EXT-X-MAP:URI=\"").append(uri).append("\",BYTERANGE=\"")
+                  .append(initLength).append("@0\"\n");
+            }
+            sb.append(String.format(Locale.ROOT, "#EXTINF:%.6f,\n", item.duration));
+            sb.append("#EXT-X-BYTERANGE:").append(item.layout.getMediaEnd() - initLength)
+              .append('@').append(initLength).append('\n');
+            sb.append(uri).append('\n');
+        }
+        sb.append("#EXT-X-ENDLIST\n");
+        return sb.toString();
+    }
+
+    /**
+     * Tek period, SegmentList + SegmentTimeline; init ilk dosyadan okunur. Koşullar sağlanmıyorsa null.
+     */
+    private static String buildMpd(List<Item> items, Path directory) {
+        for (Item item : items) {
+            if (item != items.get(0) && (item.newInit || item.discontinuity)) {
+                return null;
+            }
+        }
+        Item first = items.get(0);
+        long timescale = first.layout.getTimescale();
+        long end = items.get(items.size() - 1).layout.getEndDecodeTime();
+        double duration = (end - first.layout.getFirstDecodeTime()) / (double) timescale;
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        sb.append("<MPD xmlns=\"urn:mpeg:dash:schema:mpd:2011\" profiles=\"urn:mpeg:dash:profile:full:2011\" ")
+          .append("type=\"static\" minBufferTime=\"PT2S\" mediaPresentationDuration=\"")
+          .append(String.format(Locale.ROOT, "PT%.3fS", duration)).append("\">\n");
+        sb.append("  <Period start=\"PT0S\">\n");
+        sb.append("    <AdaptationSet mimeType=\"video/mp4\" segmentAlignment=\"true\" startWithSAP=\"1\">\n");
+        sb.append("      <Representation id=\"0\" bandwidth=\"").append(estimateBandwidth(items)).append('"');
+        String codecs = codecs(first.init);
+        if (codecs != null) {
+            sb.append(" codecs=\"").append(codecs).append('"');
+        }
+        sb.append(">\n");
+        sb.append("        <SegmentList timescale=\"").append(timescale).append("\" presentationTimeOffset=\"")
+          .append(first.layout.getFirstDecodeTime()).append("\">\n");
+        sb.append("          <Initialization sourceURL=\"").append(xml(relativeUri(directory, first.path)))
+          .append("\" range=\"0-").append(first.layout.getInitLength() - 1).append("\"/>\n");
+        sb.append("          <SegmentTimeline>\n");
+        for (Item item : items) {
+            sb.append("            <S t=\"").append(item.layout.getFirstDecodeTime()).append("\" d=\"")
+              .append(item.layout.getEndDecodeTime() - item.layout.getFirstDecodeTime()).append("\"/>\n");
+        }
+        sb.append("          </SegmentTimeline>\n");
+        for (Item item : items) {
+            sb.append("          <SegmentURL media=\"").append(xml(relativeUri(directory, item.path)))
+              .append("\" mediaRange=\"").append(item.layout.getInitLength()).append('-')
+              .append(item.layout.getMediaEnd() - 1).append("\"/>\n");
+        }
+        sb.append("        </SegmentList>\n");
+        sb.append("      </Representation>\n");
+        sb.append("    </AdaptationSet>\n");
+        sb.append("  </Period>\n");
+        sb.append("</MPD>\n");
+        return sb.toString();
+    }
+
+    private static long estimateBandwidth(List<Item> items) {
+        long bytes = 0;
+        double seconds = 0;
+        for (Item item : items) {
+            bytes += item.layout.getMediaEnd() - item.layout.getInitLength();
+            seconds += item.duration;
+        }
+        return seconds > 0 ? Math.round(bytes * 8 / seconds) : 0;
+    }
+
+    /**
+     * RFC 6381 codec dizgesi: avcC'deki profil/uyumluluk/seviye byte'ları ve varsa AAC-LC.
+     * Init birkaç KB olduğu için box ağacı yerine fourCC taraması yeterli.
+     */
+    static String codecs(byte[] init) {
+        List<String> codecs = new ArrayList<>();
+        int avcC = indexOf(init, "avcC");
+        if (avcC >= 0 && avcC + 8 <= init.length) {
+            codecs.add(String.format("avc1.%02X%02X%02X", init[avcC + 5] & 0xFF, init[avcC + 6] & 0xFF,
+                                     init[avcC + 7] & 0xFF));
+        }
+        if (indexOf(init, "mp4a") >= 0) {
+            codecs.add("mp4a.40.2");
+        }
+        return codecs.isEmpty() ? null : String.join(",", codecs);
+    }
+
+    private static int indexOf(byte[] data, String fourCC) {
+        byte[] needle = fourCC.getBytes(StandardCharsets.US_ASCII);
+        outer:
+        for (int i = 0; i + needle.length <= data.length; i++) {
+            for (int j = 0; j < needle.length; j++) {
+                if (data[i + j] != needle[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static String relativeUri(Path directory, Path file) {
+        Path absolute = file.toAbsolutePath();
+        Path base = directory.toAbsolutePath();
+        String relative;
+        try {
+            relative = base.relativize(absolute).toString();
+        } catch (IllegalArgumentException e) {
+            // Farklı sürücü (Windows) - mutlak URI
+            return absolute.toUri().toString();
+        }
+        return relative.replace('\\', '/').replace(" ", "%20");
+    }
+
+    private static String xml(String value) {
+        return value.replace("&", "&amp;").replace("\"", "&quot;").replace("<", "&lt;");
+    }
+}
@@ -0,0 +1,79 @@
+package com.ffmpeg.gui;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestAbrLadderJob {
+
+    @Test
+    public void testLadderFitsSource() {
+        List<AbrLadderJob.Rendition> ladder = AbrLadderJob.defaultLadder();
+        assertEquals(4, AbrLadderJob.fitToSource(ladder, 1080).size());
+
+        List<AbrLadderJob.Rendition> hd = AbrLadderJob.fitToSource(ladder, 720);
+        assertEquals(3, hd.size());
+        assertEquals(720, hd.get(0).getHeight());
+
+        // Kaynak en düşük basamaktan küçük - tek basamak kaynak yüksekliğinde
+        List<AbrLadderJob.Rendition> tiny = AbrLadderJob.fitToSource(ladder, 241);
+        assertEquals(1, tiny.size());
+        assertEquals(240, tiny.get(0).getHeight());
+        assertEquals(800, tiny.get(0).getVideoBitrateKbps());
+
+        // Yükseklik bilinmiyor - merdiven olduğu gibi
+        assertEquals(4, AbrLadderJob.fitToSource(ladder, 0).size());
+    }
+
+    @Test
+    public void testThreadBudgetFollowsPixels() {
+        int[] threads = AbrLadderJob.threadBudget(AbrLadderJob.defaultLadder(), 16);
+        assertEquals(4, threads.length);
+        assertTrue(threads[0] > threads[1] && threads[1] > threads[2]);
+        assertTrue(threads[3] >= 1);
+        int total = 0;
+        for (int count : threads) {
+            total += count;
+        }
+        assertTrue(total <= 17, "budget " + total); // Yuvarlama ve basamak başına en az 1
+
+        int[] single = AbrLadderJob.threadBudget(AbrLadderJob.defaultLadder(), 1);
+        for (int count : single) {
+            assertEquals(1, count);
+        }
+    }
+
+    @Test
+    public void testSingleProcessWithAlignedKeyframes() {
+        AbrLadderJob job = new AbrLadderJob("in.mp4", Paths.get("out"), AbrLadderJob.defaultLadder()).setSegmentSeconds(6);
+        List<String> command = job.buildCommand("ffmpeg", true, 8);
+
+        assertEquals(1, command.stream().filter("-i"::equals).count());
+        assertEquals("[0:v]split=4[s0][s1][s2][s3];[s0]scale=-2:1080[v0];[s1]scale=-2:720[v1];"
+                     + "[s2]scale=-2:480[v2];[s3]scale=-2:360[v3]",
+                     command.get(command.indexOf("-filter_complex") + 1));
+        assertEquals("5000k", command.get(command.indexOf("-b:v:0") + 1));
+        assertEquals("800k", command.get(command.indexOf("-b:v:3") + 1));
+        assertEquals("expr:gte(t,n_forced*6)", command.get(command.indexOf("-force_key_frames") + 1));
+        assertEquals("0", command.get(command.indexOf("-sc_threshold") + 1));
+        assertEquals("6", command.get(command.indexOf("-seg_duration") + 1));
+
+        // Ses bir kez encode edilir
+        assertEquals(1, command.stream().filter("0:a:0"::equals).count());
+        assertEquals("id=0,streams=v id=1,streams=a", command.get(command.indexOf("-adaptation_sets") + 1));
+
+        // DASH MPD + HLS master aynı çıktıdan
+        assertEquals("dash", command.get(command.indexOf("-f") + 1));
+        assertEquals("1", command.get(command.indexOf("-hls_playlist") + 1));
+        assertEquals(AbrLadderJob.MASTER_PLAYLIST_NAME, command.get(command.indexOf("-hls_master_name") + 1));
+        assertEquals(job.getMpd().toString(), command.get(command.size() - 1));
+
+        List<String> silent = job.buildCommand("ffmpeg", false, 8);
+        assertFalse(silent.contains("0:a:0"));
+        assertFalse(silent.contains("-c:a"));
+        assertEquals("id=0,streams=v", silent.get(silent.indexOf("-adaptation_sets") + 1));
+    }
+}
@@ -0,0 +1,83 @@
+package com.ffmpeg.gui;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestAdaptiveQualityController {
+
+    private static EncoderTelemetry.Event pressure() {
+        return new EncoderTelemetry.Event("cam", EncoderTelemetry.EventType.SPEED_LOW, "speed 0.7x", null);
+    }
+
+    private static AdaptiveQualityController controller() {
+        return new AdaptiveQualityController(
+            AdaptiveQualityController.buildLadder("fast", 1280, 720, 30), 5_000, 30_000, 0);
+    }
+
+    @Test
+    public void testLadderGetsCheaperInOrder() {
+        List<AdaptiveQualityController.Level> ladder = AdaptiveQualityController.buildLadder("fast", 1280, 720, 30);
+
+        assertEquals("fast 1280x720@30", ladder.get(0).describe());
+        assertEquals("veryfast 1280x720@30", ladder.get(1).describe());
+        assertEquals("ultrafast 1280x720@30", ladder.get(2).describe());
+        assertEquals("ultrafast 960x540@30", ladder.get(3).describe());
+        assertEquals("ultrafast 640x360@30", ladder.get(4).describe());
+        assertEquals("ultrafast 640x360@20", ladder.get(5).describe());
+        assertEquals("ultrafast 640x360@15", ladder.get(6).describe());
+        assertEquals(7, ladder.size());
+    }
+
+    @Test
+    public void testStepsDownOnlyAtBoundaryAfterPressure() {
+        AdaptiveQualityController controller = controller();
+
+        assertNull(controller.evaluate(10_000, false));
+
+        controller.onTelemetryEvent(pressure(), 12_000);
+        assertEquals(0, controller.getCurrentLevel().getIndex());
+
+        AdaptiveQualityController.Decision decision = controller.evaluate(15_000, false);
+        assertNotNull(decision);
+        assertTrue(decision.isStepDown());
+        assertEquals("veryfast", decision.getTo().getPreset());
+        assertEquals(1, controller.getCurrentLevel().getIndex());
+    }
+
+    @Test
+    public void testEventsDuringSettleAreIgnored() {
+        AdaptiveQualityController controller = controller();
+        controller.onTelemetryEvent(pressure(), 1_000);
+        assertNull(controller.evaluate(6_000, false));
+    }
+
+    @Test
+    public void testStepsUpAfterCalmPeriodWithHysteresis() {
+        AdaptiveQualityController controller = controller();
+        controller.onTelemetryEvent(pressure(), 10_000);
+        assertNotNull(controller.evaluate(10_000, false));
+
+        assertNull(controller.evaluate(30_000, false));
+        AdaptiveQualityController.Decision up = controller.evaluate(40_000, false);
+        assertNotNull(up);
+        assertFalse(up.isStepDown());
+        assertEquals(0, controller.getCurrentLevel().getIndex());
+
+        // Yukarı çıkış tutmadı - bir sonraki deneme için bekleme iki katına çıkar
+        controller.onTelemetryEvent(pressure(), 46_000);
+        assertNotNull(controller.evaluate(50_000, false));
+        assertEquals(60_000, controller.getUpHoldMillis());
+        assertNull(controller.evaluate(85_000, false));
+        assertNotNull(controller.evaluate(110_000, false));
+    }
+
+    @Test
+    public void testDegradedEncoderStepsDownWithoutNewEvent() {
+        AdaptiveQualityController controller = controller();
+        assertNotNull(controller.evaluate(10_000, true));
+        assertEquals(1, controller.getCurrentLevel().getIndex());
+    }
+}
@@ -0,0 +1,142 @@
+package com.ffmpeg.gui;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestCameraCapabilities {
+    
+    private static final List<String> DSHOW_OUTPUT = Arrays.asList(
+        "[dshow @ 000001c5] DirectShow video device options (from video devices)",
+        "[dshow @ 000001c5]  Pin \"Capture\" (alternative pin name \"0\")",
+        "[dshow @ 000001c5]   vcodec=mjpeg  min s=1280x720 fps=30 max s=1280x720 fps=30",
+        "[dshow @ 000001c5]   vcodec=mjpeg  min s=640x480 fps=30 max s=640x480 fps=30 (tv, bt470bg/bt709/unknown, topleft)",
+        "[dshow @ 000001c5]   pixel_format=yuyv422  min s=640x480 fps=30 max s=640x480 fps=30",
+        "[dshow @ 000001c5]   pixel_format=yuyv422  min s=1280x720 fps=5 max s=1280x720 fps=10",
+        "dummy: Immediate exit requested"
+    );
+    
+    @Test
+    public void testParseDshowOptions() {
+        CameraCapabilities caps = CameraCapabilities.parseDshowOptions(DSHOW_OUTPUT);
+        
+        assertEquals(4, caps.getFormats().size());
+        assertTrue(caps.supportsMjpeg());
+        
+        CameraCapabilities.Format first = caps.getFormats().get(0);
+        assertTrue(first.isMjpeg());
+        assertEquals(1280, first.getWidth());
+        assertEquals(720, first.getHeight());
+        assertEquals(30.0, first.getMaxFps());
+        
+        CameraCapabilities.Format raw = caps.getFormats().get(3);
+        assertEquals("yuyv422", raw.getPixelFormat());
+        assertEquals(5.0, raw.getMinFps());
+        assertEquals(10.0, raw.getMaxFps());
+    }
+    
+    @Test
+    public void testPreviewPrefersMjpegPassthroughAtClosestSize() {
+        CameraCapabilities caps = CameraCapabilities.parseDshowOptions(DSHOW_OUTPUT);
+        
+        CameraCapabilities.Format preview = caps.selectPreviewFormat(640, 480, 30);
+        assertTrue(preview.isMjpeg());
+        assertEquals("640x480", preview.getSize());
+    }
+    
+    @Test
+    public void testCaptureAvoidsFormatsThatCannotReachFps() {
+        CameraCapabilities caps = CameraCapabilities.parseDshowOptions(DSHOW_OUTPUT);
+        
+        // Raw 720p sadece 10 fps verebiliyor - MJPEG 720p seçilmeli
+        CameraCapabilities.Format capture = caps.selectCaptureFormat(1280, 720, 30);
+        assertTrue(capture.isMjpeg());
+        assertEquals("1280x720", capture.getSize());
+        
+        // 480p'de raw tercih edilir (decode maliyeti yok)
+        CameraCapabilities.Format small = caps.selectCaptureFormat(640, 480, 30);
+        assertFalse(small.isMjpeg());
+        assertEquals(30, small.clampFps(60));
+    }
+    
+    @Test
+    public void testEmptyCapabilities() {
+        CameraCapabilities caps = CameraCapabilities.parseDshowOptions(new ArrayList<>());
+        assertTrue(caps.isEmpty());
+        assertNull(caps.selectPreviewFormat(640, 480, 30));
+    }
+    
+    @Test
+    public void testFrameAssemblerSplitsChunkedStream() throws Exception {
+        byte[] jpeg = createJpeg();
+        byte[] stream = new byte[jpeg.length * 2 + 3];
+        stream[0] = 0x12; // Frame öncesi çöp veri
+        System.arraycopy(jpeg, 0, stream, 1, jpeg.length);
+        System.arraycopy(jpeg, 0, stream, 1 + jpeg.length, jpeg.length);
+        
+        List<byte[]> frames = new ArrayList<>();
+        MjpegFrameAssembler assembler = new MjpegFrameAssembler(1024 * 1024);
+        // Marker'ların chunk sınırına denk gelmesi için küçük parçalar
+        for (int i = 0; i < stream.length; i += 7) {
+            assembler.feed(stream, i, Math.min(7, stream.length - i), frames::add);
+        }
+        
+        assertEquals(2, frames.size());
+        assertArrayEquals(jpeg, frames.get(0));
+        assertArrayEquals(jpeg, frames.get(1));
+    }
+    
+    @Test
+    public void testDefaultHuffmanTablesAreDecodable() throws Exception {
+        byte[] jpeg = createJpeg();
+        byte[] stripped = stripHuffmanTables(jpeg);
+        assertNotEquals(jpeg.length, stripped.length);
+        
+        byte[] fixed = MjpegFrameAssembler.ensureHuffmanTables(stripped);
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(fixed));
+        assertNotNull(image);
+        assertEquals(64, image.getWidth());
+        
+        // DHT içeren frame değişmemeli
+        assertSame(jpeg, MjpegFrameAssembler.ensureHuffmanTables(jpeg));
+    }
+    
+    private static byte[] createJpeg() throws Exception {
+        BufferedImage image = new BufferedImage(64, 48, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < 48; y++) {
+            for (int x = 0; x < 64; x++) {
+                image.setRGB(x, y, (x * 4) << 16 | (y * 5) << 8 | 0x40);
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", out);
+        return out.toByteArray();
+    }
+    
+    private static byte[] stripHuffmanTables(byte[] jpeg) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(jpeg, 0, 2);
+        int pos = 2;
+        while (pos < jpeg.length) {
+            int marker = jpeg[pos + 1] & 0xFF;
+            if (marker == 0xDA) {
+                out.write(jpeg, pos, jpeg.length - pos);
+                break;
+            }
+            int length = ((jpeg[pos + 2] & 0xFF) << 8) | (jpeg[pos + 3] & 0xFF);
+            if (marker != 0xC4) {
+                out.write(jpeg, pos, 2 + length);
+            }
+            pos += 2 + length;
+        }
+        return out.toByteArray();
+    }
+}
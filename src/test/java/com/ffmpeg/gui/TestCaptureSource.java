@@ -0,0 +1,68 @@
+package com.ffmpeg.gui;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestCaptureSource {
+    
+    @Test
+    public void testSyntheticDeviceRoundTrip() {
+        CaptureSource.SyntheticSource source = new CaptureSource.SyntheticSource(640, 360, 15, true, true);
+        String deviceId = source.toDevice().getDeviceId();
+        
+        CaptureSource resolved = CaptureSource.forDevice(deviceId);
+        assertTrue(resolved instanceof CaptureSource.SyntheticSource);
+        assertEquals("lavfi", resolved.getFormatName());
+        assertTrue(resolved.providesAudio(deviceId));
+        
+        List<String> args = resolved.buildInputArguments(deviceId, null, CaptureSource.InputSettings.preview(1280, 720, 30));
+        assertEquals("-re", args.get(0));
+        assertTrue(args.contains("testsrc2=size=640x360:rate=15"));
+        assertTrue(args.contains("sine=frequency=1000:sample_rate=48000"));
+        assertEquals(2, args.stream().filter("-i"::equals).count());
+        
+        CameraCapabilities caps = resolved.probeCapabilities("ffmpeg", deviceId);
+        assertEquals("640x360", caps.selectCaptureFormat(1280, 720, 30).getSize());
+    }
+    
+    @Test
+    public void testDirectShowInputUsesNegotiatedFormat() {
+        CaptureSource source = new CaptureSource.DirectShowSource();
+        CameraCapabilities.Format mjpeg = new CameraCapabilities.Format("mjpeg", null, 1280, 720, 5, 30);
+        
+        List<String> args = source.buildInputArguments("USB Camera", mjpeg, CaptureSource.InputSettings.preview(640, 480, 60));
+        assertEquals(Arrays.asList("-f", "dshow", "-rtbufsize", "512K", "-thread_queue_size", "16",
+                                   "-fflags", "nobuffer", "-vcodec", "mjpeg", "-video_size", "1280x720",
+                                   "-framerate", "30", "-i", "video=USB Camera"), args);
+    }
+    
+    @Test
+    public void testV4l2InputAndFormatParsing() {
+        List<String> output = Arrays.asList(
+            "[video4linux2,v4l2 @ 0x55d] Raw       :     yuyv422 :           YUYV 4:2:2 : 640x480 1280x720",
+            "[video4linux2,v4l2 @ 0x55d] Compressed:       mjpeg :          Motion-JPEG : 640x480 1920x1080",
+            "[video4linux2,v4l2 @ 0x55d] Raw       :     nv12 :     Y/CbCr 4:2:0 : {32-4096, 2}x{32-2160, 2}"
+        );
+        CameraCapabilities caps = CameraCapabilities.parseV4l2Formats(output);
+        assertEquals(4, caps.getFormats().size());
+        
+        CameraCapabilities.Format preview = caps.selectPreviewFormat(640, 480, 30);
+        assertTrue(preview.isMjpeg());
+        
+        List<String> args = new CaptureSource.V4l2Source().buildInputArguments(
+            "/dev/video0", preview, CaptureSource.InputSettings.recording(640, 480, 30));
+        assertTrue(args.containsAll(Arrays.asList("-input_format", "mjpeg", "-video_size", "640x480", "-framerate", "30")));
+        assertEquals("/dev/video0", args.get(args.size() - 1));
+    }
+    
+    @Test
+    public void testAVFoundationIndex() {
+        assertEquals("1", CaptureSource.AVFoundationSource.toIndex("video=1"));
+        assertEquals("2", CaptureSource.AVFoundationSource.toIndex("2"));
+        assertEquals("0", CaptureSource.AVFoundationSource.toIndex("video=FaceTime HD Camera"));
+    }
+}
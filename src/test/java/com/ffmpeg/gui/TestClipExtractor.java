@@ -0,0 +1,90 @@
+package com.ffmpeg.gui;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestClipExtractor {
+
+    private static SegmentManifest hourOfSegments() {
+        SegmentManifest manifest = new SegmentManifest(null);
+        for (int i = 0; i < 720; i++) {
+            manifest.addSegment(Path.of(String.format("segment_%03d.mp4", i)), i * 5.0, i * 5.0 + 5.0, 1000, true);
+        }
+        return manifest;
+    }
+
+    @Test
+    public void testFrameAccuratePlanTrimsOnlyBoundaries() {
+        SegmentManifest manifest = hourOfSegments();
+        List<SegmentManifest.Entry> covering = manifest.findRange(2222.5, 2251.0);
+        assertEquals(7, covering.size());
+        assertEquals(Path.of("segment_444.mp4"), covering.get(0).getPath());
+
+        List<ClipExtractor.Piece> pieces = ClipExtractor.plan(covering, 2222.5, 2251.0, true);
+        assertEquals(7, pieces.size());
+        assertTrue(pieces.get(0).reencode);
+        assertEquals(2.5, pieces.get(0).from, 1e-9);
+        assertEquals(5.0, pieces.get(0).to, 1e-9);
+        for (int i = 1; i < 6; i++) {
+            assertFalse(pieces.get(i).reencode);
+            assertTrue(pieces.get(i).isWhole());
+        }
+        assertTrue(pieces.get(6).reencode);
+        assertEquals(1.0, pieces.get(6).to, 1e-9);
+    }
+
+    @Test
+    public void testCopyPlanSnapsToSegmentStart() {
+        SegmentManifest manifest = hourOfSegments();
+        List<ClipExtractor.Piece> pieces = ClipExtractor.plan(manifest.findRange(12.0, 13.0), 12.0, 13.0, false);
+        assertEquals(1, pieces.size());
+        assertFalse(pieces.get(0).reencode);
+        assertEquals(0.0, pieces.get(0).from, 1e-9);
+        assertEquals(3.0, pieces.get(0).to, 1e-9);
+        assertTrue(manifest.findRange(3600, 3700).isEmpty());
+    }
+
+    @Test
+    public void testTimeParsing() {
+        assertEquals(2220.0, ClipExtractor.parseTime("00:37:00"), 1e-9);
+        assertEquals(2220.0, ClipExtractor.parseTime("37:00"), 1e-9);
+        assertEquals(12.5, ClipExtractor.parseTime(" 12.5 "), 1e-9);
+        assertEquals(-1, ClipExtractor.parseTime("abc"), 1e-9);
+
+        LocalDateTime start = ClipExtractor.recordingStart(Path.of("rec", "MediaShift_20240501_233000_manifest.csv"));
+        assertEquals(LocalDateTime.of(2024, 5, 1, 23, 30, 0), start);
+        assertNull(ClipExtractor.recordingStart(Path.of("manifest.csv")));
+        assertEquals(600.0, ClipExtractor.mediaSecondsAt(start, LocalTime.of(23, 40)), 1e-9);
+        // Gece yarısını geçen kayıt
+        assertEquals(3600.0, ClipExtractor.mediaSecondsAt(start, LocalTime.of(0, 30)), 1e-9);
+    }
+
+    @Test
+    public void testBoundaryEncoderMatchesSource() {
+        MediaProbeCache.ProbeInfo source = MediaProbeCache.parse(List.of(
+            "stream|codec_name=h264|profile=Constrained Baseline|codec_type=video|width=1280|height=720|"
+                + "pix_fmt=yuv420p|time_base=1/90000|extradata_hash=CRC32:0a1b2c3d",
+            "stream|codec_name=aac|profile=LC|codec_type=audio|sample_rate=48000|channels=1|"
+                + "time_base=1/48000|extradata_hash=CRC32:11223344",
+            "format|duration=5.000000"));
+        List<String> args = ClipExtractor.boundaryEncoderArgs(source);
+        assertEquals("libx264", args.get(args.indexOf("-c:v") + 1));
+        assertEquals("baseline", args.get(args.indexOf("-profile:v") + 1));
+        assertEquals("zerolatency", args.get(args.indexOf("-tune") + 1));
+        assertEquals("yuv420p", args.get(args.indexOf("-pix_fmt") + 1));
+        assertEquals("48000", args.get(args.indexOf("-ar") + 1));
+        assertEquals("1", args.get(args.indexOf("-ac") + 1));
+
+        // Kaynak okunamadı - kayıt ayarları, profil zorlanmaz
+        List<String> defaults = ClipExtractor.boundaryEncoderArgs(null);
+        assertEquals("libx264", defaults.get(defaults.indexOf("-c:v") + 1));
+        assertFalse(defaults.contains("-profile:v"));
+        assertFalse(defaults.contains("-ar"));
+    }
+}
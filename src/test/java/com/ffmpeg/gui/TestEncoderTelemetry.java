@@ -0,0 +1,79 @@
+package com.ffmpeg.gui;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestEncoderTelemetry {
+
+    private static void report(EncoderTelemetry telemetry, long now, long frame, double fps, long drop, String speed, long size) {
+        telemetry.acceptLine("frame=" + frame);
+        telemetry.acceptLine("fps=" + fps);
+        telemetry.acceptLine("stream_0_0_q=23.0");
+        telemetry.acceptLine("bitrate=2000.5kbits/s");
+        telemetry.acceptLine("total_size=" + size);
+        telemetry.acceptLine("out_time_us=" + frame * 33_333);
+        telemetry.acceptLine("dup_frames=0");
+        telemetry.acceptLine("drop_frames=" + drop);
+        telemetry.acceptLine("speed=" + speed);
+        telemetry.completeReport(now);
+    }
+
+    @Test
+    public void testSnapshotValues() {
+        EncoderTelemetry telemetry = new EncoderTelemetry("cam", 30);
+        report(telemetry, 1000, 30, 30.0, 0, "1.00x", 100_000);
+        report(telemetry, 2000, 60, 30.0, 0, "1.01x", 350_000);
+
+        EncoderTelemetry.Snapshot snapshot = telemetry.getLatest();
+        assertEquals(60, snapshot.getFrame());
+        assertEquals(1.01, snapshot.getSpeed(), 0.001);
+        assertEquals(2000.5, snapshot.getBitrateKbps(), 0.001);
+        assertEquals(250_000, snapshot.getOutputBytesPerSecond(), 0.001);
+        assertEquals(2, telemetry.getReportCount());
+    }
+
+    @Test
+    public void testLogLinesAreNotProgress() {
+        EncoderTelemetry telemetry = new EncoderTelemetry("cam", 30);
+        assertTrue(telemetry.acceptLine("speed=N/A"));
+        assertFalse(telemetry.acceptLine("[dshow @ 0x1] real-time buffer [cam] too full or near too full"));
+        assertFalse(telemetry.acceptLine("Input #0, dshow, from 'video=cam':"));
+    }
+
+    @Test
+    public void testSpeedAlertIsEdgeTriggered() {
+        EncoderTelemetry telemetry = new EncoderTelemetry("cam", 30);
+        List<EncoderTelemetry.EventType> events = new ArrayList<>();
+        telemetry.addListener(event -> events.add(event.getType()));
+
+        report(telemetry, 1000, 30, 30, 0, "1.0x", 0);
+        report(telemetry, 2000, 50, 30, 0, "0.7x", 0);
+        report(telemetry, 3000, 70, 30, 0, "0.7x", 0);
+        report(telemetry, 4000, 90, 30, 0, "0.7x", 0);
+        assertEquals(List.of(EncoderTelemetry.EventType.SPEED_LOW), events);
+        assertTrue(telemetry.isDegraded());
+
+        report(telemetry, 5000, 120, 30, 0, "1.0x", 0);
+        assertEquals(EncoderTelemetry.EventType.RECOVERED, events.get(events.size() - 1));
+        assertFalse(telemetry.isDegraded());
+    }
+
+    @Test
+    public void testNewDropsFireEvent() {
+        EncoderTelemetry telemetry = new EncoderTelemetry("cam", 30);
+        List<EncoderTelemetry.Event> events = new ArrayList<>();
+        telemetry.addListener(events::add);
+
+        report(telemetry, 1000, 30, 30, 0, "1.0x", 0);
+        report(telemetry, 2000, 60, 30, 4, "1.0x", 0);
+        report(telemetry, 3000, 90, 30, 4, "1.0x", 0);
+
+        assertEquals(1, events.size());
+        assertEquals(EncoderTelemetry.EventType.FRAMES_DROPPED, events.get(0).getType());
+        assertEquals(4, events.get(0).getSnapshot().getDropFrames());
+    }
+}
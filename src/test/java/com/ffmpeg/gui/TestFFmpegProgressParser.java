@@ -0,0 +1,95 @@
+package com.ffmpeg.gui;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestFFmpegProgressParser {
+
+    private static final String BLOCK = "frame=120\nfps=29.97\nstream_0_0_q=23.0\nbitrate=2046.3kbits/s\n"
+        + "total_size=1048576\nout_time_us=4004000\nout_time=00:00:04.004000\ndup_frames=1\ndrop_frames=2\n"
+        + "speed=1.01x\nprogress=continue\n";
+
+    @Test
+    public void testProgressBlockFromByteStream() {
+        FFmpegProgressParser parser = new FFmpegProgressParser();
+        List<FFmpegProgressParser.LineType> types = new ArrayList<>();
+        byte[] bytes = BLOCK.getBytes(StandardCharsets.US_ASCII);
+
+        // Satırlar okuma sınırlarında bölünür
+        parser.feed(bytes, 0, 7, (type, line) -> types.add(type));
+        parser.feed(bytes, 7, bytes.length - 7, (type, line) -> types.add(type));
+
+        FFmpegProgressParser.Progress progress = parser.getProgress();
+        assertEquals(120, progress.getFrame());
+        assertEquals(29.97, progress.getFps(), 1e-9);
+        assertEquals(2046.3, progress.getBitrateKbps(), 1e-9);
+        assertEquals(1048576, progress.getTotalSize());
+        assertEquals(4.004, progress.getOutTimeSeconds(), 1e-9);
+        assertEquals(1, progress.getDupFrames());
+        assertEquals(2, progress.getDropFrames());
+        assertEquals(1.01, progress.getSpeed(), 1e-9);
+        assertFalse(progress.isEnd());
+        assertEquals(11, types.size());
+        assertEquals(FFmpegProgressParser.LineType.REPORT_END, types.get(10));
+    }
+
+    @Test
+    public void testStatsLineAndUnavailableValues() {
+        FFmpegProgressParser parser = new FFmpegProgressParser();
+        assertEquals(FFmpegProgressParser.LineType.STATS, parser.accept(
+            "frame=  250 fps= 25 q=28.0 size=    2048kB time=00:01:02.50 bitrate= 268.4kbits/s dup=3 drop=0 speed=0.98x"));
+
+        FFmpegProgressParser.Progress progress = parser.getProgress();
+        assertEquals(250, progress.getFrame());
+        assertEquals(2048 * 1024, progress.getTotalSize());
+        assertEquals(62.5, progress.getOutTimeSeconds(), 1e-9);
+        assertEquals(3, progress.getDupFrames());
+        assertEquals(0.98, progress.getSpeed(), 1e-9);
+
+        assertEquals(FFmpegProgressParser.LineType.PROGRESS, parser.accept("speed=N/A"));
+        assertEquals(0.98, progress.getSpeed(), 1e-9);
+        assertEquals(FFmpegProgressParser.LineType.REPORT_END, parser.accept("progress=end"));
+        assertTrue(progress.isEnd());
+    }
+
+    @Test
+    public void testLogLinesAreOther() {
+        FFmpegProgressParser parser = new FFmpegProgressParser();
+        List<String> logged = new ArrayList<>();
+        byte[] bytes = ("Input #0, dshow, from 'video=Kamera Ön':\r\n" + BLOCK + "encoder=Lavf58\n")
+            .getBytes(StandardCharsets.UTF_8);
+
+        parser.feed(bytes, 0, bytes.length, (type, line) -> {
+            if (type == FFmpegProgressParser.LineType.OTHER) {
+                logged.add(line.toString());
+            }
+        });
+
+        assertEquals(List.of("Input #0, dshow, from 'video=Kamera Ön':", "encoder=Lavf58"), logged);
+        assertTrue(FFmpegProgressParser.containsIgnoreCase("Moov Atom NOT found", "moov atom not found"));
+        assertFalse(FFmpegProgressParser.containsIgnoreCase("all good", "error"));
+    }
+
+    @Test
+    public void testSustainedHighRateInput() {
+        // Onlarca process'in dakikalarca ürettiği progress hacmi, tek parser üzerinde
+        FFmpegProgressParser parser = new FFmpegProgressParser();
+        byte[] bytes = BLOCK.getBytes(StandardCharsets.US_ASCII);
+        int[] reports = {0};
+        FFmpegProgressParser.LineHandler handler = (type, line) -> {
+            if (type == FFmpegProgressParser.LineType.REPORT_END) {
+                reports[0]++;
+            }
+        };
+        for (int i = 0; i < 100_000; i++) {
+            parser.feed(bytes, 0, bytes.length, handler);
+        }
+        assertEquals(100_000, reports[0]);
+        assertEquals(1_100_000, parser.getParsedLines());
+    }
+}
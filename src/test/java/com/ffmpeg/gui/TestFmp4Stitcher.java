@@ -0,0 +1,156 @@
+package com.ffmpeg.gui;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestFmp4Stitcher {
+
+    @TempDir
+    Path tempDir;
+
+    private static byte[] box(String type, byte[]... children) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        for (byte[] child : children) {
+            body.writeBytes(child);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(8 + body.size());
+        buffer.putInt(8 + body.size()).put(type.getBytes(StandardCharsets.US_ASCII)).put(body.toByteArray());
+        return buffer.array();
+    }
+
+    private static byte[] ints(int... values) {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * 4);
+        for (int value : values) {
+            buffer.putInt(value);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Tek video track'li segment: her fragman iki örnek (512 tick), timescale 15360
+     */
+    private Path segment(String name, int timescale, int... fragmentStarts) throws IOException {
+        Path path = tempDir.resolve(name);
+        Files.write(path, segmentBytes(0x020000, timescale, fragmentStarts));
+        return path;
+    }
+
+    private static byte[] segmentBytes(int tfhdFlags, int timescale, int... fragmentStarts) {
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        file.writeBytes(box("ftyp", "isom".getBytes(StandardCharsets.US_ASCII), ints(512)));
+        file.writeBytes(box("moov",
+            box("trak",
+                box("tkhd", ints(0, 0, 0, 1)),
+                box("mdia", box("mdhd", ints(0, 0, 0, timescale, 0)))),
+            box("mvex", box("trex", ints(0, 1, 1, 512, 0, 0)))));
+        for (int i = 0; i < fragmentStarts.length; i++) {
+            file.writeBytes(box("moof",
+                box("mfhd", ints(0, 100 + i)),
+                box("traf",
+                    box("tfhd", ints(tfhdFlags, 1)),
+                    box("tfdt", ints(0, fragmentStarts[i])),
+                    box("trun", ints(0x000001, 2, 0)))));
+            file.writeBytes(box("mdat", new byte[] {(byte) i, 1, 2, 3}));
+        }
+        return file.toByteArray();
+    }
+
+    /**
+     * Çıkıştaki moof'ların (sıra numarası, tfdt) çiftleri ve top-level box tipleri
+     */
+    private static List<String> describe(Path file) throws IOException {
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(file));
+        List<String> result = new ArrayList<>();
+        int position = 0;
+        while (position < data.limit()) {
+            int size = data.getInt(position);
+            String type = new String(data.array(), position + 4, 4, StandardCharsets.US_ASCII);
+            if (type.equals("moof")) {
+                // moof(8) + mfhd(8 + 4) -> sıra; mfhd(16) + traf(8) + tfhd(16) + tfdt(8 + 4) -> zaman
+                int sequence = data.getInt(position + 8 + 12);
+                int tfdt = data.getInt(position + 8 + 16 + 8 + 16 + 12);
+                result.add("moof " + sequence + " " + tfdt);
+            } else {
+                result.add(type);
+            }
+            position += size;
+        }
+        return result;
+    }
+
+    @Test
+    public void testRewritesSequenceAndDecodeTimes() throws Exception {
+        // İkinci segment zamanları sıfırdan başlıyor (yeniden başlatılmış process)
+        Path first = segment("seg_000.mp4", 15360, 0, 1024);
+        Path second = segment("seg_001.mp4", 15360, 0, 1024);
+        Path output = tempDir.resolve("merged.mp4");
+
+        Fmp4Stitcher.Result result = new Fmp4Stitcher().stitch(List.of(first, second), output);
+
+        assertEquals(List.of("ftyp", "moov",
+                             "moof 1 0", "mdat", "moof 2 1024", "mdat",
+                             "moof 3 2048", "mdat", "moof 4 3072", "mdat"), describe(output));
+        assertEquals(4, result.getFragmentCount());
+        assertEquals(4096 / 15360.0, result.getDurationSeconds(), 1e-9);
+        assertEquals(Files.size(output), result.getBytesWritten());
+    }
+
+    @Test
+    public void testContinuousTimestampsAreKept() throws Exception {
+        Path first = segment("seg_000.mp4", 15360, 0, 1024);
+        Path second = segment("seg_001.mp4", 15360, 2048);
+        Path output = tempDir.resolve("merged.mp4");
+
+        new Fmp4Stitcher().stitch(List.of(first, second), output);
+
+        assertEquals("moof 3 2048", describe(output).get(6));
+    }
+
+    @Test
+    public void testDifferentTimescaleIsRejected() throws Exception {
+        Path first = segment("seg_000.mp4", 15360, 0);
+        Path second = segment("seg_001.mp4", 90000, 0);
+
+        assertThrows(IOException.class,
+            () -> new Fmp4Stitcher().stitch(List.of(first, second), tempDir.resolve("merged.mp4")));
+    }
+
+    @Test
+    public void testFileRelativeDataOffsetsAreRejected() throws Exception {
+        Path first = segment("seg_000.mp4", 15360, 0);
+        Path second = tempDir.resolve("seg_001.mp4");
+        Files.write(second, segmentBytes(0, 15360, 0)); // default-base-is-moof yok
+
+        assertThrows(IOException.class,
+            () -> new Fmp4Stitcher().stitch(List.of(first, second), tempDir.resolve("merged.mp4")));
+    }
+
+    @Test
+    public void testFragmentWithoutCompleteMdatIsDropped() throws Exception {
+        Path first = segment("seg_000.mp4", 15360, 0, 1024);
+        // Son mdat yarım yazılmış: moof tam, mdat'ın 2 byte'ı eksik
+        byte[] full = segmentBytes(0x020000, 15360, 2048, 3072);
+        Path second = tempDir.resolve("seg_001.mp4");
+        Files.write(second, Arrays.copyOf(full, full.length - 2));
+        Path output = tempDir.resolve("merged.mp4");
+
+        Fmp4Stitcher.Result result = new Fmp4Stitcher().stitch(List.of(first, second), output);
+
+        assertEquals(List.of("ftyp", "moov", "moof 1 0", "mdat", "moof 2 1024", "mdat", "moof 3 2048", "mdat"),
+                     describe(output));
+        assertEquals(3, result.getFragmentCount());
+        assertEquals(3072 / 15360.0, result.getDurationSeconds(), 1e-9);
+    }
+}
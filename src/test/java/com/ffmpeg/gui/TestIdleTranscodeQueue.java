@@ -0,0 +1,82 @@
+package com.ffmpeg.gui;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestIdleTranscodeQueue {
+
+    @Test
+    public void testTimeWindow() {
+        LocalTime night = LocalTime.of(22, 0);
+        LocalTime morning = LocalTime.of(6, 0);
+        // Gece yarısını geçen aralık
+        assertTrue(IdleTranscodeQueue.inWindow(LocalTime.of(23, 30), night, morning));
+        assertTrue(IdleTranscodeQueue.inWindow(LocalTime.of(3, 0), night, morning));
+        assertFalse(IdleTranscodeQueue.inWindow(LocalTime.of(12, 0), night, morning));
+        assertFalse(IdleTranscodeQueue.inWindow(morning, night, morning));
+        // Aynı gün içindeki aralık
+        assertTrue(IdleTranscodeQueue.inWindow(LocalTime.of(13, 0), LocalTime.of(12, 0), LocalTime.of(14, 0)));
+        assertFalse(IdleTranscodeQueue.inWindow(LocalTime.of(15, 0), LocalTime.of(12, 0), LocalTime.of(14, 0)));
+        // Başlangıç == bitiş: sınır yok
+        assertTrue(IdleTranscodeQueue.inWindow(LocalTime.of(9, 0), LocalTime.MIDNIGHT, LocalTime.MIDNIGHT));
+    }
+
+    @Test
+    public void testVerificationTolerance() {
+        assertTrue(IdleTranscodeQueue.durationsMatch(10.0, 10.04));
+        assertTrue(IdleTranscodeQueue.durationsMatch(600.0, 590.0));
+        assertFalse(IdleTranscodeQueue.durationsMatch(10.0, 8.0));
+        assertFalse(IdleTranscodeQueue.durationsMatch(600.0, 300.0));
+        assertFalse(IdleTranscodeQueue.durationsMatch(0, 0)); // Kaynak okunamadı - doğrulanmış sayılmaz
+    }
+
+    @Test
+    public void testArchivePathAndCommand() {
+        Path archiveDir = Paths.get("rec", "archive");
+        Path source = Paths.get("rec", "MediaShift_20240501_120000_segment_007.ts");
+        Path archive = IdleTranscodeQueue.archivePathFor(source, archiveDir);
+        assertEquals(archiveDir.resolve("MediaShift_20240501_120000_segment_007_archive.mp4"), archive);
+
+        IdleTranscodeQueue.Settings settings = IdleTranscodeQueue.Settings.defaults(archiveDir);
+        List<String> command = IdleTranscodeQueue.buildCommand("ffmpeg", source, archive, settings);
+        assertEquals("ffmpeg", command.get(0));
+        assertEquals("slow", command.get(command.indexOf("-preset") + 1));
+        assertEquals("23", command.get(command.indexOf("-crf") + 1));
+        assertEquals("copy", command.get(command.indexOf("-c:a") + 1));
+        assertEquals(source.toString(), command.get(command.indexOf("-i") + 1));
+        assertEquals(archive.toString(), command.get(command.size() - 1));
+        assertFalse(settings.isReplaceOriginals());
+    }
+
+    @Test
+    public void testEnqueueSkipsDuplicatesAndArchived(@TempDir Path dir) throws Exception {
+        Path archiveDir = dir.resolve("archive");
+        Files.createDirectories(archiveDir);
+        Path first = Files.createFile(dir.resolve("cam_segment_000.mp4"));
+        Path second = Files.createFile(dir.resolve("cam_segment_001.mp4"));
+        Files.createFile(IdleTranscodeQueue.archivePathFor(second, archiveDir));
+
+        // Hep meşgul - kuyruk hiçbir işi başlatmaz
+        IdleTranscodeQueue queue = new IdleTranscodeQueue("ffmpeg", "ffprobe",
+            IdleTranscodeQueue.Settings.defaults(archiveDir), () -> true, null);
+        try {
+            assertTrue(queue.enqueue(first));
+            assertFalse(queue.enqueue(first));
+            assertFalse(queue.enqueue(second));
+            Thread.sleep(600);
+            assertEquals(1, queue.getQueuedCount());
+            assertFalse(queue.isWorking());
+            assertEquals("capture or conversion active", queue.busyReason(LocalTime.NOON));
+        } finally {
+            queue.close();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.ffmpeg.gui;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestLiveHlsServer {
+
+    @TempDir
+    Path tempDir;
+
+    private final LiveHlsServer server = new LiveHlsServer();
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @AfterEach
+    public void stopServer() {
+        server.stop();
+    }
+
+    private static String playlist(int firstSequence, int segments) {
+        StringBuilder sb = new StringBuilder("#EXTM3U\n#EXT-X-VERSION:7\n#EXT-X-TARGETDURATION:1\n");
+        sb.append("#EXT-X-MEDIA-SEQUENCE:").append(firstSequence).append('\n');
+        sb.append("#EXT-X-MAP:URI=\"init.mp4\"\n");
+        for (int i = 0; i < segments; i++) {
+            sb.append("#EXTINF:1.000000,\n").append(String.format("part_%06d.m4s", firstSequence + i)).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        URI uri = URI.create("http://localhost:" + server.getPort() + path);
+        return client.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    public void testBlockingPlaylistReload() throws Exception {
+        Files.writeString(tempDir.resolve("index.m3u8"), playlist(10, 2));
+        server.register("cam", tempDir);
+        server.start(0);
+
+        HttpResponse<String> current = get("/live/cam/index.m3u8");
+        assertEquals(200, current.statusCode());
+        assertTrue(current.body().contains("#EXT-X-SERVER-CONTROL:CAN-BLOCK-RELOAD=YES"));
+        assertEquals("no-cache, no-store", current.headers().firstValue("Cache-Control").orElse(""));
+
+        // Segment 12 henüz yok - yanıt segment yazılana kadar bekler
+        long start = System.nanoTime();
+        CompletableFuture<HttpResponse<String>> blocked = CompletableFuture.supplyAsync(() -> {
+            try {
+                return get("/live/cam/index.m3u8?_HLS_msn=12");
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        Thread.sleep(300);
+        assertFalse(blocked.isDone());
+        Files.writeString(tempDir.resolve("index.m3u8"), playlist(10, 3));
+
+        HttpResponse<String> response = blocked.get();
+        long waitedMillis = (System.nanoTime() - start) / 1_000_000;
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().contains("part_000012.m4s"));
+        assertTrue(waitedMillis >= 300 && waitedMillis < 2000, "waited " + waitedMillis);
+        assertEquals(1, server.getBlockedReloadCount());
+
+        assertEquals(400, get("/live/cam/index.m3u8?_HLS_msn=20").statusCode());
+    }
+
+    @Test
+    public void testBlockedReloadsWokenByPlaylistRename() throws Exception {
+        Files.writeString(tempDir.resolve("index.m3u8"), playlist(10, 2));
+        server.register("cam", tempDir);
+        server.start(0);
+        assertEquals(200, get("/live/cam/index.m3u8").statusCode());
+
+        List<CompletableFuture<HttpResponse<String>>> blocked = new java.util.ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            blocked.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return get("/live/cam/index.m3u8?_HLS_msn=12");
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }));
+        }
+        Thread.sleep(300);
+        // FFmpeg temp_file: liste .tmp'ye yazılıp yerine taşınır
+        Path tmp = tempDir.resolve("index.m3u8.tmp");
+        Files.writeString(tmp, playlist(10, 3));
+        Files.move(tmp, tempDir.resolve("index.m3u8"), java.nio.file.StandardCopyOption.REPLACE_EXISTING,
+                   java.nio.file.StandardCopyOption.ATOMIC_MOVE);
+
+        for (CompletableFuture<HttpResponse<String>> request : blocked) {
+            HttpResponse<String> response = request.get(2, java.util.concurrent.TimeUnit.SECONDS);
+            assertEquals(200, response.statusCode());
+            assertTrue(response.body().contains("part_000012.m4s"));
+        }
+        assertEquals(4, server.getBlockedReloadCount());
+    }
+
+    @Test
+    public void testSegmentsAndUnknownPaths() throws Exception {
+        Files.write(tempDir.resolve("part_000010.m4s"), new byte[1000]);
+        server.register("cam", tempDir);
+        server.start(0);
+
+        for (int i = 0; i < 50; i++) {
+            HttpResponse<String> segment = get("/live/cam/part_000010.m4s");
+            assertEquals(200, segment.statusCode());
+            assertEquals("video/iso.segment", segment.headers().firstValue("Content-Type").orElse(""));
+        }
+        assertEquals(50_000, server.getBytesServed());
+
+        assertEquals(404, get("/live/cam/part_000011.m4s").statusCode());
+        assertEquals(404, get("/live/other/index.m3u8").statusCode());
+        assertEquals(404, get("/live/cam/..%2Fsecret.m4s").statusCode());
+    }
+
+    @Test
+    public void testLatencyFromProgramDateTime() {
+        long start = OffsetDateTime.parse("2024-05-01T12:00:00.000+03:00").toInstant().toEpochMilli();
+        List<String> lines = List.of("#EXTM3U",
+            "#EXT-X-PROGRAM-DATE-TIME:2024-05-01T12:00:00.000+0300", "#EXTINF:1.000000,", "part_000001.m4s");
+
+        assertEquals(750, LiveHlsOutput.latencyMillis(lines, start + 1750));
+        assertEquals("usb-kamera-2", LiveHlsOutput.streamName("USB Kamera (2)"));
+    }
+}
@@ -0,0 +1,47 @@
+package com.ffmpeg.gui;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestMediaProbeCache {
+
+    private static List<String> probeOutput(String videoExtradata, String width, String timeBase) {
+        return List.of(
+            "stream|codec_name=h264|profile=High|codec_type=video|width=" + width + "|height=720|pix_fmt=yuv420p"
+                + "|time_base=" + timeBase + "|extradata_hash=CRC32:" + videoExtradata,
+            "stream|codec_name=aac|profile=LC|codec_type=audio|sample_rate=48000|channels=2|time_base=1/48000"
+                + "|extradata_hash=CRC32:1190a8e0",
+            "format|duration=5.005000");
+    }
+
+    @Test
+    public void testParsesDurationAndSignatures() {
+        MediaProbeCache.ProbeInfo info = MediaProbeCache.parse(probeOutput("3a5c1f0b", "1280", "1/15360"));
+
+        assertEquals(5.005, info.getDuration(), 1e-9);
+        assertEquals(2, info.getStreamSignatures().size());
+        assertEquals("video:h264:High:1280x720:yuv420p:1/15360:CRC32:3a5c1f0b", info.getStreamSignatures().get(0));
+        assertTrue(info.getStreamSignatures().get(1).startsWith("audio:aac:48000:2:"));
+    }
+
+    @Test
+    public void testCopyCompatibilityRequiresIdenticalParameters() {
+        MediaProbeCache.ProbeInfo first = MediaProbeCache.parse(probeOutput("3a5c1f0b", "1280", "1/15360"));
+        MediaProbeCache.ProbeInfo same = MediaProbeCache.parse(probeOutput("3a5c1f0b", "1280", "1/15360"));
+
+        assertTrue(first.isCopyCompatible(same));
+        assertFalse(first.isCopyCompatible(MediaProbeCache.parse(probeOutput("77aa0011", "1280", "1/15360"))));
+        assertFalse(first.isCopyCompatible(MediaProbeCache.parse(probeOutput("3a5c1f0b", "960", "1/15360"))));
+        assertFalse(first.isCopyCompatible(MediaProbeCache.parse(probeOutput("3a5c1f0b", "1280", "1/90000"))));
+    }
+
+    @Test
+    public void testUnknownDuration() {
+        MediaProbeCache.ProbeInfo info = MediaProbeCache.parse(List.of("format|duration=N/A"));
+        assertEquals(0, info.getDuration());
+        assertTrue(info.getStreamSignatures().isEmpty());
+    }
+}
@@ -0,0 +1,113 @@
+package com.ffmpeg.gui;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestMotionDetector {
+
+    private static byte[] frame(int value, int changedPixels) {
+        byte[] luma = new byte[80 * 45];
+        Arrays.fill(luma, (byte) value);
+        for (int i = 0; i < changedPixels; i++) {
+            luma[i] = (byte) (value + 100);
+        }
+        return luma;
+    }
+
+    @Test
+    public void testHysteresisTriggerAndPostRoll() {
+        List<String> events = new ArrayList<>();
+        MotionDetector detector = new MotionDetector("test", new MotionDetector.Settings(0.02, 0.005, 500, 2000),
+            new MotionDetector.Listener() {
+                @Override
+                public void onMotionStarted(double score) {
+                    events.add("start");
+                }
+
+                @Override
+                public void onMotionStopped(long activeMillis) {
+                    events.add("stop " + activeMillis);
+                }
+            });
+
+        int changing = 360; // %10 - başlama eşiğinin üstünde
+        assertFalse(detector.update(frame(50, 0), 0));
+        assertFalse(detector.update(frame(50, changing), 250)); // Tek örnek tetiklemez
+        assertFalse(detector.update(frame(50, changing), 500)); // Sahne durdu - sayaç sıfırlanır
+        assertFalse(detector.update(frame(50, 0), 750));
+        assertFalse(detector.update(frame(50, changing), 1000));
+        assertTrue(detector.update(frame(50, 0), 1250));        // 500 ms boyunca eşik üstü
+        assertEquals(List.of("start"), events);
+
+        // Başlama eşiğinin altında ama durma eşiğinin üstünde - hareket sürer
+        byte[] previous = frame(50, 0);
+        long now = 1250;
+        for (int i = 0; i < 20; i++) {
+            now += 250;
+            byte[] next = previous.clone();
+            for (int p = 0; p < 36; p++) { // %1
+                next[1000 + i * 36 + p] = (byte) ((next[1000 + i * 36 + p] & 0xFF) + 60);
+            }
+            assertTrue(detector.update(next, now));
+            previous = next;
+        }
+
+        // Sahne durgun - post-roll dolana kadar sürer
+        assertTrue(detector.update(previous, now + 250));
+        assertTrue(detector.update(previous, now + 1750));
+        assertFalse(detector.update(previous, now + 2000));
+        assertEquals(2, events.size());
+        assertEquals("stop " + (now + 2000 - 1250), events.get(1));
+    }
+
+    @Test
+    public void testScoreCountsOnlySignificantChanges() {
+        byte[] base = frame(100, 0);
+        byte[] noisy = base.clone();
+        for (int i = 0; i < noisy.length; i++) {
+            noisy[i] = (byte) (100 + (i % 2 == 0 ? 10 : -10)); // Sensör gürültüsü
+        }
+        assertEquals(0.0, MotionDetector.score(base, noisy), 1e-9);
+        assertEquals(0.5, MotionDetector.score(base, frame(100, base.length / 2)), 1e-9);
+    }
+
+    private static byte[] jpeg(int boxX) throws Exception {
+        BufferedImage image = new BufferedImage(640, 360, BufferedImage.TYPE_3BYTE_BGR);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.DARK_GRAY);
+        g.fillRect(0, 0, 640, 360);
+        g.setColor(Color.WHITE);
+        g.fillRect(boxX, 100, 160, 160);
+        g.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpeg", out);
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testPreviewFramesAreDecodedOffThread() throws Exception {
+        MotionDetector detector = new MotionDetector("test", new MotionDetector.Settings(0.02, 0.005, 0, 1000), null);
+        detector.offer(jpeg(0), 0);
+        detector.offer(jpeg(0), 100); // Örnekleme aralığı dolmadı - atlanır
+        Thread.sleep(200);
+        detector.offer(jpeg(400), 300);
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!detector.isActive() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(detector.isActive());
+        assertTrue(detector.getLastScore() > 0.1, "score " + detector.getLastScore());
+        detector.close();
+    }
+}
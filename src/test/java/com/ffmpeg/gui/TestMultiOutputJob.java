@@ -0,0 +1,78 @@
+package com.ffmpeg.gui;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestMultiOutputJob {
+
+    private static MultiOutputJob mp4WebmMp3() {
+        return new MultiOutputJob("in.mov")
+            .addVideo(new VideoConversionParams("in.mov", "out/clip.mp4", "MP4", "H.264", 2000, 1280, 720, 30))
+            .addVideo(new VideoConversionParams("in.mov", "out/clip.webm", "WebM", "VP9", 2000, 854, 480, 29.97))
+            .addAudio(new AudioConversionParams("in.mov", "out/clip.mp3", "MP3", "MP3", 192, 44100, 2));
+    }
+
+    @Test
+    public void testSingleDecodeFilterGraph() {
+        MultiOutputJob job = mp4WebmMp3();
+        assertEquals("[0:v]split=2[vs0][vs1];[vs0]scale=1280:720,fps=30[v0];[vs1]scale=854:480,fps=29.97[v1];"
+                     + "[0:a]asplit=3[a0][a1][a2]", job.buildFilterGraph(true, true));
+        // Sessiz giriş: asplit yok
+        assertEquals("[0:v]split=2[vs0][vs1];[vs0]scale=1280:720,fps=30[v0];[vs1]scale=854:480,fps=29.97[v1]",
+                     job.buildFilterGraph(true, false));
+    }
+
+    @Test
+    public void testOneInvocationWithPerTargetCodecs() {
+        MultiOutputJob job = mp4WebmMp3();
+        List<String> command = job.buildCommand("ffmpeg", true, true);
+
+        assertEquals(1, command.stream().filter("-i"::equals).count());
+        assertEquals(1, command.stream().filter("-filter_complex"::equals).count());
+
+        int mp4 = indexEndingWith(command, "clip.mp4");
+        int webm = indexEndingWith(command, "clip.webm");
+        int mp3 = indexEndingWith(command, "clip.mp3");
+        assertTrue(mp4 < webm && webm < mp3);
+
+        List<String> mp4Args = command.subList(command.indexOf("-filter_complex") + 2, mp4);
+        assertEquals("[v0]", mp4Args.get(mp4Args.indexOf("-map") + 1));
+        assertEquals("libx264", mp4Args.get(mp4Args.indexOf("-c:v") + 1));
+        assertEquals("aac", mp4Args.get(mp4Args.indexOf("-c:a") + 1));
+        assertTrue(mp4Args.contains("+faststart"));
+
+        List<String> webmArgs = command.subList(mp4 + 1, webm);
+        assertEquals("libvpx-vp9", webmArgs.get(webmArgs.indexOf("-c:v") + 1));
+        assertEquals("libopus", webmArgs.get(webmArgs.indexOf("-c:a") + 1));
+        assertFalse(webmArgs.contains("+faststart"));
+
+        List<String> mp3Args = command.subList(webm + 1, mp3);
+        assertFalse(mp3Args.contains("-c:v"));
+        assertEquals("[a2]", mp3Args.get(mp3Args.indexOf("-map") + 1));
+        assertEquals("libmp3lame", mp3Args.get(mp3Args.indexOf("-c:a") + 1));
+        assertEquals("44100", mp3Args.get(mp3Args.indexOf("-ar") + 1));
+    }
+
+    @Test
+    public void testTargetsNormalizeExtension() {
+        MultiOutputJob job = new MultiOutputJob("in.mp4")
+            .addVideo(new VideoConversionParams("in.mp4", "out/video_converted", "MKV", "H.265", 0, 0, 0, 0));
+        MultiOutputJob.Target target = job.getTargets().get(0);
+        assertTrue(target.getOutputPath().endsWith("video_converted.mkv"));
+        assertEquals("libx265", target.getVideoCodec());
+        // Boyut/FPS verilmemiş - grafik değiştirmeden geçirir
+        assertEquals("[0:v]split=1[vs0];[vs0]null[v0]", job.buildFilterGraph(true, false));
+    }
+
+    private static int indexEndingWith(List<String> command, String suffix) {
+        for (int i = 0; i < command.size(); i++) {
+            if (command.get(i).endsWith(suffix)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
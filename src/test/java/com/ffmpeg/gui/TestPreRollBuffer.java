@@ -0,0 +1,93 @@
+package com.ffmpeg.gui;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestPreRollBuffer {
+    
+    private static final int CHUNK = PreRollBuffer.TS_PACKET_SIZE * 4;
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    public void testChunksAreAlignedToTsPackets() {
+        PreRollBuffer buffer = new PreRollBuffer(10_000, 1000);
+        assertEquals(0, buffer.getCapacity() % PreRollBuffer.TS_PACKET_SIZE);
+        assertTrue(buffer.getCapacity() <= 10_000);
+    }
+    
+    @Test
+    public void testMemoryStaysBoundedWhenWrapping() throws Exception {
+        PreRollBuffer buffer = new PreRollBuffer(CHUNK * 3, CHUNK);
+        
+        // Her saniye bir chunk - 10 saniye yaz, sadece son 3 chunk kalmalı
+        for (int second = 0; second < 10; second++) {
+            buffer.write(ByteBuffer.wrap(packets(4, second)), second * 1000L);
+        }
+        assertEquals(CHUNK * 3, buffer.getBufferedBytes());
+        assertEquals(CHUNK * 10L, buffer.getTotalBytesWritten());
+        
+        byte[] saved = writeLast(buffer, 60_000, 9_500);
+        assertEquals(CHUNK * 3, saved.length);
+        assertEquals(7, saved[0]);                    // En eski kalan chunk
+        assertEquals(9, saved[saved.length - 1]);     // En yeni chunk
+    }
+    
+    @Test
+    public void testSaveLastSecondsSelectsRecentChunks() throws Exception {
+        PreRollBuffer buffer = new PreRollBuffer(CHUNK * 10, CHUNK);
+        for (int second = 0; second < 6; second++) {
+            buffer.write(ByteBuffer.wrap(packets(4, second)), second * 1000L);
+        }
+        // Yarım chunk - head
+        buffer.write(ByteBuffer.wrap(packets(2, 6)), 6000L);
+        
+        byte[] saved = writeLast(buffer, 2000, 6500);
+        // 4. saniyeden itibaren: chunk 4, 5 ve yarım 6
+        assertEquals(CHUNK * 2 + PreRollBuffer.TS_PACKET_SIZE * 2, saved.length);
+        assertEquals(4, saved[0]);
+        assertEquals(0x47, saved[1]);
+        assertEquals(6, saved[saved.length - 1]);
+        assertEquals(6500, buffer.getBufferedMillis(6500));
+    }
+    
+    @Test
+    public void testClearReusesMemory() throws Exception {
+        PreRollBuffer buffer = new PreRollBuffer(CHUNK * 2, CHUNK);
+        buffer.write(ByteBuffer.wrap(packets(6, 1)), 0);
+        buffer.clear();
+        assertEquals(0, buffer.getBufferedBytes());
+        assertEquals(0, writeLast(buffer, 1000, 1000).length);
+    }
+    
+    /**
+     * Her paketin ilk byte'ı işaret, ikincisi TS sync byte (0x47)
+     */
+    private static byte[] packets(int count, int marker) {
+        byte[] data = new byte[count * PreRollBuffer.TS_PACKET_SIZE];
+        for (int i = 0; i < count; i++) {
+            data[i * PreRollBuffer.TS_PACKET_SIZE] = (byte) marker;
+            data[i * PreRollBuffer.TS_PACKET_SIZE + 1] = 0x47;
+        }
+        // Son byte'ı da işaretle
+        data[data.length - 1] = (byte) marker;
+        return data;
+    }
+    
+    private byte[] writeLast(PreRollBuffer buffer, long millis, long now) throws Exception {
+        Path file = tempDir.resolve("out_" + System.nanoTime() + ".ts");
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            buffer.writeLast(millis, now, out);
+        }
+        return Files.readAllBytes(file);
+    }
+}
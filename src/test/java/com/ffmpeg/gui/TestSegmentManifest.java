@@ -0,0 +1,120 @@
+package com.ffmpeg.gui;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestSegmentManifest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testLookupsUseSegmentTimes() {
+        SegmentManifest manifest = new SegmentManifest(null);
+        manifest.addLeadIn(tempDir.resolve("preroll.ts"), 3.0, 1000);
+        manifest.addSegment(tempDir.resolve("seg_000.mp4"), 0.0, 5.0, 5000, true);
+        manifest.addSegment(tempDir.resolve("seg_001.mp4"), 5.0, 10.0, 6000, true);
+        manifest.addSegment(tempDir.resolve("seg_002.mp4"), 10.0, 12.5, 3000, true);
+
+        assertEquals(-3.0, manifest.getStart(), 1e-9);
+        assertEquals(15.5, manifest.getTotalDuration(), 1e-9);
+        assertEquals(15000, manifest.getTotalBytes());
+
+        assertEquals("preroll.ts", manifest.findAt(-1).getPath().getFileName().toString());
+        assertEquals("seg_001.mp4", manifest.findAt(5.0).getPath().getFileName().toString());
+        assertNull(manifest.findAt(12.5));
+
+        List<SegmentManifest.Entry> range = manifest.findRange(4.0, 10.5);
+        assertEquals(3, range.size());
+        assertEquals("seg_000.mp4", range.get(0).getPath().getFileName().toString());
+
+        assertEquals(2.5, manifest.get(tempDir.resolve("seg_002.mp4")).getDuration(), 1e-9);
+        // Farklı yazılmış aynı yol
+        assertEquals(5000, manifest.get(tempDir.resolve("sub").resolve("..").resolve("seg_000.mp4")).getSize());
+        assertNull(manifest.get(tempDir.resolve("seg_003.mp4")));
+
+        assertNull(manifest.getStreamSignatures(tempDir.resolve("seg_001.mp4")));
+        manifest.setStreamSignatures(tempDir.resolve("seg_001.mp4"), List.of("video:h264:High:1280x720:yuv420p"));
+        assertEquals(List.of("video:h264:High:1280x720:yuv420p"),
+                     manifest.getStreamSignatures(tempDir.resolve("sub").resolve("..").resolve("seg_001.mp4")));
+    }
+
+    @Test
+    public void testNewTimelineContinuesFromPreviousEnd() {
+        SegmentManifest manifest = new SegmentManifest(null);
+        manifest.addSegment(tempDir.resolve("seg_000.mp4"), 0.0, 5.0, 1, true);
+        manifest.addSegment(tempDir.resolve("seg_001.mp4"), 5.0, 5.4, 1, true);
+
+        manifest.startNewTimeline();
+        manifest.addSegment(tempDir.resolve("seg_002.mp4"), 0.1, 5.0, 1, true);
+        manifest.addSegment(tempDir.resolve("seg_003.mp4"), 5.0, 10.0, 1, true);
+
+        assertEquals(5.4, manifest.get(tempDir.resolve("seg_002.mp4")).getStart(), 1e-9);
+        assertEquals(15.3, manifest.getEnd(), 1e-9);
+    }
+
+    @Test
+    public void testPersistedManifestRoundTrips() throws Exception {
+        Path file = tempDir.resolve("manifest.csv");
+        SegmentManifest manifest = new SegmentManifest(file);
+        manifest.addLeadIn(tempDir.resolve("pre,roll.ts"), 2.0, 10);
+        manifest.addSegment(tempDir.resolve("seg_000.mp4"), 0.0, 4.96, 12345, true);
+
+        SegmentManifest loaded = SegmentManifest.load(file);
+        assertEquals(2, loaded.size());
+        SegmentManifest.Entry first = loaded.getEntries().get(0);
+        assertEquals("pre,roll.ts", first.getPath().getFileName().toString());
+        assertFalse(first.isKeyframeStart());
+        SegmentManifest.Entry second = loaded.getEntries().get(1);
+        assertEquals(12345, second.getSize());
+        assertEquals(4.96, second.getEnd(), 1e-9);
+        assertTrue(second.isKeyframeStart());
+    }
+
+    @Test
+    public void testInitSizeIsPersistedAndLegacyLinesStillLoad() throws Exception {
+        Path file = tempDir.resolve("manifest.csv");
+        SegmentManifest manifest = new SegmentManifest(file);
+        manifest.addSegment(tempDir.resolve("seg_000.mp4"), 0.0, 5.0, 9000, true, 812);
+        manifest.addSegment(tempDir.resolve("seg_001.ts"), 5.0, 10.0, 18800, true, 0);
+        // Önceki sürümün yazdığı "init" sütunsuz satırlar
+        java.nio.file.Files.writeString(file, "seg_002.mp4,10.000000,15.000000,7000,1\n"
+            + "\"a,b.mp4\",15.000000,20.000000,6000,0\n", java.nio.file.StandardOpenOption.APPEND);
+
+        List<SegmentManifest.Entry> entries = SegmentManifest.load(file).getEntries();
+        assertEquals(4, entries.size());
+        assertEquals(812, entries.get(0).getInitSize());
+        assertEquals(0, entries.get(1).getInitSize());
+        assertEquals(7000, entries.get(2).getSize());
+        assertEquals(0, entries.get(2).getInitSize());
+        assertEquals("a,b.mp4", entries.get(3).getPath().getFileName().toString());
+        assertFalse(entries.get(3).isKeyframeStart());
+    }
+
+    @Test
+    public void testRemoveRewritesFile() throws Exception {
+        Path file = tempDir.resolve("rec_manifest.csv");
+        SegmentManifest manifest = new SegmentManifest(file);
+        for (int i = 0; i < 4; i++) {
+            manifest.addSegment(tempDir.resolve("seg_00" + i + ".mp4"), i * 5.0, i * 5.0 + 5.0, 1000, true);
+        }
+
+        assertEquals(2, manifest.remove(List.of(tempDir.resolve("seg_000.mp4"), tempDir.resolve("seg_001.mp4"))));
+        assertNull(manifest.get(tempDir.resolve("seg_000.mp4")));
+        assertEquals(10.0, manifest.getStart(), 1e-9);
+
+        // Sonraki eklemeler yeniden yazılmış dosyaya devam eder
+        manifest.addSegment(tempDir.resolve("seg_004.mp4"), 20.0, 25.0, 1000, true);
+        SegmentManifest loaded = SegmentManifest.load(file);
+        assertEquals(3, loaded.size());
+        assertEquals(10.0, loaded.getStart(), 1e-9);
+
+        assertEquals(1, SegmentManifest.removeFromFile(file, List.of(tempDir.resolve("seg_002.mp4"))));
+        assertEquals(2, SegmentManifest.load(file).size());
+    }
+}
@@ -0,0 +1,110 @@
+package com.ffmpeg.gui;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestSegmentRetention {
+
+    @TempDir
+    Path tempDir;
+
+    private Path segment(String name, int size) throws IOException {
+        Path path = tempDir.resolve(name);
+        Files.write(path, new byte[size]);
+        return path;
+    }
+
+    @Test
+    public void testQuotaDeletesOldestInOneBatch() throws IOException {
+        List<Path> expired = new ArrayList<>();
+        SegmentRetention retention = new SegmentRetention("test",
+            new SegmentRetention.Policy(3000, 0, 0, null), (segments, reclaimed) -> expired.addAll(segments));
+        for (int i = 0; i < 5; i++) {
+            retention.segmentClosed(segment("segment_" + i + ".mp4", 1000), 1000);
+        }
+        assertEquals(5000, retention.getFootprintBytes());
+        assertTrue(retention.getWriteRateBytesPerSecond() > 0);
+
+        retention.sweep();
+
+        assertEquals(List.of(tempDir.resolve("segment_0.mp4"), tempDir.resolve("segment_1.mp4")), expired);
+        assertFalse(Files.exists(tempDir.resolve("segment_1.mp4")));
+        assertTrue(Files.exists(tempDir.resolve("segment_2.mp4")));
+        assertEquals(3000, retention.getFootprintBytes());
+        assertEquals(3, retention.getSegmentCount());
+        assertEquals(2000, retention.getReclaimedBytes());
+        retention.close();
+    }
+
+    @Test
+    public void testCountAgeAndArchive() throws IOException {
+        Path archive = tempDir.resolve("archive");
+        SegmentRetention retention = new SegmentRetention("test",
+            new SegmentRetention.Policy(0, 0, 2, archive), null);
+        for (int i = 0; i < 3; i++) {
+            retention.segmentClosed(segment("segment_" + i + ".mp4", 10), 10);
+        }
+        // Aynı segment iki kez bildirilirse bir kez sayılır
+        retention.segmentClosed(tempDir.resolve("segment_2.mp4"), 10);
+        assertEquals(3, retention.getSegmentCount());
+
+        retention.sweep();
+        assertTrue(Files.exists(archive.resolve("segment_0.mp4")));
+        assertFalse(Files.exists(tempDir.resolve("segment_0.mp4")));
+        assertEquals(2, retention.getSegmentCount());
+
+        long now = System.currentTimeMillis();
+        assertEquals(2, retention.getSegmentsBetween(now - 60_000, now + 1).size());
+        retention.setPolicy(new SegmentRetention.Policy(0, 60_000, 0, null));
+        assertTrue(retention.selectExpired(now).isEmpty());
+        assertEquals(2, retention.selectExpired(now + 120_000).size());
+        retention.close();
+    }
+
+    @Test
+    public void testSeedFromPreviousManifests() throws IOException {
+        Path old = segment("MediaShift_20240101_000000_segment_000.mp4", 500);
+        segment("MediaShift_20240101_000000_segment_001.mp4", 700);
+        Files.writeString(tempDir.resolve("MediaShift_20240101_000000_manifest.csv"), SegmentManifest.HEADER + "\n"
+            + "MediaShift_20240101_000000_segment_000.mp4,0.000000,5.000000,500,1\n"
+            + "MediaShift_20240101_000000_segment_001.mp4,5.000000,10.000000,700,1\n"
+            + "MediaShift_20240101_000000_segment_002.mp4,10.000000,15.000000,900,1\n");
+        Files.setLastModifiedTime(old, java.nio.file.attribute.FileTime.fromMillis(1000));
+
+        SegmentRetention retention = new SegmentRetention("test", new SegmentRetention.Policy(0, 0, 0, null), null);
+        retention.seed(tempDir, "MediaShift_*_manifest.csv");
+        retention.seed(tempDir, "MediaShift_*_manifest.csv");
+
+        assertEquals(2, retention.getSegmentCount());
+        assertEquals(1200, retention.getFootprintBytes());
+        assertEquals(1000, retention.getOldestMillis());
+        retention.close();
+    }
+
+    @Test
+    public void testAgeLimitEnforcedWithoutNewSegments() throws Exception {
+        Path old = segment("segment_0.mp4", 10);
+        SegmentRetention retention = new SegmentRetention("test",
+            new SegmentRetention.Policy(0, 1000, 0, null), null);
+        try {
+            retention.segmentClosed(old, 10);
+            // Başka segment kapanmıyor (kayıt durdu) - periyodik tur yine de temizler
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (Files.exists(old) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(100);
+            }
+            assertFalse(Files.exists(old));
+            assertEquals(0, retention.getSegmentCount());
+        } finally {
+            retention.close();
+        }
+    }
+}
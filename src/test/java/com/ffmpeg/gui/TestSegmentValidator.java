@@ -0,0 +1,65 @@
+package com.ffmpeg.gui;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestSegmentValidator {
+
+    @TempDir
+    Path tempDir;
+
+    private static byte[] box(String type, int bodySize) {
+        ByteBuffer buffer = ByteBuffer.allocate(8 + bodySize);
+        buffer.putInt(8 + bodySize).put(type.getBytes(StandardCharsets.US_ASCII));
+        return buffer.array();
+    }
+
+    private Path write(String name, byte[]... boxes) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] b : boxes) {
+            out.writeBytes(b);
+        }
+        Path path = tempDir.resolve(name);
+        Files.write(path, out.toByteArray());
+        return path;
+    }
+
+    @Test
+    public void testFragmentedMp4() throws Exception {
+        Path complete = write("complete.mp4", box("ftyp", 8), box("moov", 40), box("moof", 20), box("mdat", 100));
+        Path initOnly = write("init.mp4", box("ftyp", 8), box("moov", 40));
+        byte[] mdat = box("mdat", 100);
+        Path truncated = write("truncated.mp4", box("ftyp", 8), box("moov", 40), box("moof", 20),
+                               Arrays.copyOf(mdat, 50));
+
+        List<SegmentValidator.Result> results = SegmentValidator.validateAll(List.of(complete, initOnly, truncated));
+
+        assertTrue(results.get(0).isValid());
+        assertEquals("no media data", results.get(1).getProblem());
+        assertTrue(results.get(2).getProblem().startsWith("truncated mdat"));
+    }
+
+    @Test
+    public void testTransportStream() throws Exception {
+        byte[] packets = new byte[188 * 3];
+        packets[0] = 0x47;
+        packets[188 * 2] = 0x47;
+        Path valid = tempDir.resolve("valid.ts");
+        Files.write(valid, packets);
+        Path partial = tempDir.resolve("partial.ts");
+        Files.write(partial, Arrays.copyOf(packets, 188 * 2 + 10));
+
+        assertTrue(SegmentValidator.validate(valid).isValid());
+        assertFalse(SegmentValidator.validate(partial).isValid());
+    }
+}
@@ -0,0 +1,77 @@
+package com.ffmpeg.gui;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestSegmentWatcher {
+
+    @TempDir
+    Path tempDir;
+
+    private final List<String> events = new ArrayList<>();
+
+    private SegmentWatcher watcher(Path listFile) {
+        return new SegmentWatcher(tempDir, "rec_segment_", listFile, new SegmentWatcher.Listener() {
+            @Override
+            public void onSegmentOpened(Path segment) {
+                events.add("open " + segment.getFileName());
+            }
+
+            @Override
+            public void onSegmentClosed(Path segment, double startSeconds, double endSeconds) {
+                events.add("close " + segment.getFileName() + " " + startSeconds + "-" + endSeconds);
+            }
+        });
+    }
+
+    @Test
+    public void testOnlyCompleteLinesAreReported() throws Exception {
+        Path list = tempDir.resolve("list.csv");
+        SegmentWatcher watcher = watcher(list);
+
+        Files.writeString(list, "rec_segment_000.mp4,0.000000,5.000000\nrec_segment_001.mp4,5.0000");
+        watcher.drain();
+        assertEquals(List.of("open rec_segment_000.mp4", "close rec_segment_000.mp4 0.0-5.0"), events);
+
+        Files.writeString(list, "00,10.000000\n", StandardOpenOption.APPEND);
+        watcher.drain();
+        assertEquals("close rec_segment_001.mp4 5.0-10.0", events.get(events.size() - 1));
+
+        // Tekrar okuma aynı satırları bildirmez
+        watcher.drain();
+        assertEquals(4, events.size());
+    }
+
+    @Test
+    public void testRestartedListIsReadFromBeginning() throws Exception {
+        Path list = tempDir.resolve("list.csv");
+        SegmentWatcher watcher = watcher(list);
+
+        Files.writeString(list, "rec_segment_000.mp4,0.000000,5.000000\nrec_segment_001.mp4,5.000000,10.000000\n");
+        watcher.drain();
+
+        // Yeni process listeyi baştan yazar
+        Files.writeString(list, "rec_segment_002.mp4,0.000000,4.000000\n");
+        watcher.drain();
+        assertEquals("close rec_segment_002.mp4 0.0-4.0", events.get(events.size() - 1));
+        assertEquals(6, events.size());
+    }
+
+    @Test
+    public void testQuotedFileNameWithComma() throws Exception {
+        Path list = tempDir.resolve("list.csv");
+        SegmentWatcher watcher = watcher(list);
+
+        Files.writeString(list, "\"rec_segment_a,b.mp4\",1.500000,2.500000\n");
+        watcher.drain();
+        assertEquals("close rec_segment_a,b.mp4 1.5-2.5", events.get(events.size() - 1));
+    }
+}
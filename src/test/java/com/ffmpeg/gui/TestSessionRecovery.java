@@ -0,0 +1,194 @@
+package com.ffmpeg.gui;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestSessionRecovery {
+
+    @TempDir
+    Path tempDir;
+
+    private static byte[] box(String type, byte[]... children) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        for (byte[] child : children) {
+            body.writeBytes(child);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(8 + body.size());
+        buffer.putInt(8 + body.size()).put(type.getBytes(StandardCharsets.US_ASCII)).put(body.toByteArray());
+        return buffer.array();
+    }
+
+    private static byte[] ints(int... values) {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * 4);
+        for (int value : values) {
+            buffer.putInt(value);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * timescale 1024, her fragman iki örnek (1 sn)
+     */
+    private static byte[] segment(int firstFragment, int fragments) {
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        file.writeBytes(box("ftyp", "isom".getBytes(StandardCharsets.US_ASCII), ints(512)));
+        file.writeBytes(box("moov",
+            box("trak",
+                box("tkhd", ints(0, 0, 0, 1)),
+                box("mdia", box("mdhd", ints(0, 0, 0, 1024, 0)))),
+            box("mvex", box("trex", ints(0, 1, 1, 512, 0, 0)))));
+        for (int i = 0; i < fragments; i++) {
+            file.writeBytes(box("moof",
+                box("mfhd", ints(0, 1 + i)),
+                box("traf",
+                    box("tfhd", ints(0x020000, 1)),
+                    box("tfdt", ints(0, (firstFragment + i) * 1024)),
+                    box("trun", ints(0x000001, 2, 0)))));
+            file.writeBytes(box("mdat", new byte[64]));
+        }
+        return file.toByteArray();
+    }
+
+    /**
+     * Kaydı bitmiş segment - son değişiklik grace süresinden eski
+     */
+    private static void writeSegment(Path path, byte[] data) throws IOException {
+        Files.write(path, data);
+        Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis() - 60_000));
+    }
+
+    @Test
+    public void testCrashedSessionIsTruncatedAndCataloged() throws Exception {
+        String prefix = "MediaShift_20240501_120000";
+        Path first = tempDir.resolve(prefix + "_segment_000.mp4");
+        Path closed = tempDir.resolve(prefix + "_segment_001.mp4");
+        Path inFlight = tempDir.resolve(prefix + "_segment_002.mp4");
+        Path initOnly = tempDir.resolve(prefix + "_segment_003.mp4");
+        writeSegment(first, segment(0, 5));
+        writeSegment(closed, segment(5, 5));
+        byte[] partial = segment(10, 3);
+        int completeLength = segment(10, 2).length;
+        writeSegment(inFlight, Arrays.copyOf(partial, partial.length - 20)); // son mdat yarım
+        writeSegment(initOnly, Arrays.copyOf(segment(15, 0), segment(15, 0).length));
+        new SegmentManifest(tempDir.resolve(prefix + "_manifest.csv")).addSegment(first, 0, 5, Files.size(first), true);
+
+        List<SessionRecovery.Session> sessions = SessionRecovery.scan(tempDir);
+
+        assertEquals(1, sessions.size());
+        SessionRecovery.Session session = sessions.get(0);
+        assertEquals(prefix, session.getName());
+        assertEquals(2, session.getRecoveredCount());
+        assertEquals(partial.length - 20 - completeLength, session.getTruncatedBytes());
+        assertEquals(completeLength, Files.size(inFlight));
+        assertEquals(List.of(initOnly), session.getUnrecoverable());
+        assertEquals(List.of(first, closed, inFlight), session.getSegments());
+        assertEquals(12.0, session.getManifest().getTotalDuration(), 1e-6);
+        assertEquals(segment(10, 0).length, session.getManifest().get(inFlight).getInitSize());
+        assertTrue(SegmentValidator.validate(inFlight).isValid());
+
+        // Onarılan oturum bir sonraki açılışta tekrar önerilmez
+        assertTrue(SessionRecovery.scan(tempDir).isEmpty());
+    }
+
+    /**
+     * Her paket bir PES başlatır; PTS 90 kHz, paketler arası 1 sn
+     */
+    private static byte[] transportStream(int packets, long firstPts) {
+        ByteBuffer buffer = ByteBuffer.allocate(packets * 188);
+        for (int i = 0; i < packets; i++) {
+            long pts = firstPts + i * 90000L;
+            byte[] packet = new byte[188];
+            packet[0] = 0x47;
+            packet[1] = 0x41; // PES başlangıcı, PID 0x100
+            packet[2] = 0x00;
+            packet[3] = 0x10; // Sadece payload
+            byte[] pes = {0, 0, 1, (byte) 0xE0, 0, 0, (byte) 0x80, (byte) 0x80, 5,
+                (byte) (0x21 | ((pts >> 29) & 0x0E)), (byte) (pts >> 22), (byte) (0x01 | ((pts >> 14) & 0xFE)),
+                (byte) (pts >> 7), (byte) (0x01 | ((pts << 1) & 0xFE))};
+            System.arraycopy(pes, 0, packet, 4, pes.length);
+            buffer.put(packet);
+        }
+        return buffer.array();
+    }
+
+    @Test
+    public void testTransportStreamSegmentIsCutAtLastPacket() throws Exception {
+        String prefix = "MediaShift_20240501_130000";
+        Path inFlight = tempDir.resolve(prefix + "_segment_000.ts");
+        byte[] data = transportStream(6, 900000);
+        writeSegment(inFlight, Arrays.copyOf(data, data.length - 100)); // son paket yarım
+
+        List<SessionRecovery.Session> sessions = SessionRecovery.scan(tempDir);
+
+        assertEquals(1, sessions.size());
+        assertEquals(188 - 100, sessions.get(0).getTruncatedBytes());
+        assertEquals(5 * 188, Files.size(inFlight));
+        SegmentManifest.Entry entry = sessions.get(0).getManifest().getEntries().get(0);
+        assertEquals(4.0, entry.getDuration(), 1e-6);
+        assertEquals(0, entry.getInitSize());
+        assertTrue(SegmentValidator.validate(inFlight).isValid());
+    }
+
+    @Test
+    public void testScansThousandsOfSegmentsQuickly() throws Exception {
+        byte[] data = segment(0, 2);
+        for (int i = 0; i < 2000; i++) {
+            writeSegment(tempDir.resolve(String.format("segment_%04d.mp4", i)), data);
+        }
+
+        long start = System.nanoTime();
+        List<SessionRecovery.Session> sessions = SessionRecovery.scanAll(tempDir);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(1, sessions.size());
+        assertEquals(2000, sessions.get(0).getRecoveredCount());
+        assertEquals(0, sessions.get(0).getTruncatedBytes());
+        assertTrue(Files.exists(tempDir.resolve("manifest.csv")));
+        assertTrue(millis < 10_000, "scan took " + millis + " ms");
+    }
+
+    @Test
+    public void testMissingEarlierSegmentIsInsertedInOrder() throws Exception {
+        String prefix = "MediaShift_20240501_140000";
+        Path first = tempDir.resolve(prefix + "_segment_000.mp4");
+        Path lost = tempDir.resolve(prefix + "_segment_001.mp4");
+        Path last = tempDir.resolve(prefix + "_segment_002.mp4");
+        writeSegment(first, segment(0, 2));
+        writeSegment(lost, segment(2, 3));
+        writeSegment(last, segment(5, 4));
+        SegmentManifest manifest = new SegmentManifest(tempDir.resolve(prefix + "_manifest.csv"));
+        manifest.addSegment(first, 0, 2, Files.size(first), true);
+        manifest.addSegment(last, 5, 9, Files.size(last), true);
+
+        List<SessionRecovery.Session> sessions = SessionRecovery.scan(tempDir);
+
+        assertEquals(1, sessions.size());
+        assertEquals(1, sessions.get(0).getRecoveredCount());
+        assertEquals(List.of(first, lost, last), sessions.get(0).getSegments());
+        SegmentManifest rebuilt = sessions.get(0).getManifest();
+        assertEquals(2.0, rebuilt.get(lost).getStart(), 1e-6);
+        assertEquals(5.0, rebuilt.get(last).getStart(), 1e-6);
+        assertEquals(9.0, rebuilt.getEnd(), 1e-6);
+    }
+
+    @Test
+    public void testSegmentStillBeingWrittenIsSkipped() throws Exception {
+        Path active = tempDir.resolve("MediaShift_20240501_150000_segment_000.mp4");
+        Files.write(active, segment(0, 2)); // Az önce yazıldı
+
+        assertTrue(SessionRecovery.scan(tempDir).isEmpty());
+        assertFalse(Files.exists(tempDir.resolve("MediaShift_20240501_150000_manifest.csv")));
+    }
+}
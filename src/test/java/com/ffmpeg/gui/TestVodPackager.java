@@ -0,0 +1,126 @@
+package com.ffmpeg.gui;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestVodPackager {
+
+    @TempDir
+    Path tempDir;
+
+    private static byte[] box(String type, byte[]... children) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        for (byte[] child : children) {
+            body.writeBytes(child);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(8 + body.size());
+        buffer.putInt(8 + body.size()).put(type.getBytes(StandardCharsets.US_ASCII)).put(body.toByteArray());
+        return buffer.array();
+    }
+
+    private static byte[] ints(int... values) {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * 4);
+        for (int value : values) {
+            buffer.putInt(value);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Tek video track'li segment: her fragman iki örnek (1024 tick), init 84 byte
+     */
+    private Path segment(String name, int timescale, int... fragmentStarts) throws IOException {
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        file.writeBytes(box("ftyp", "isom".getBytes(StandardCharsets.US_ASCII), ints(512)));
+        file.writeBytes(box("moov",
+            box("trak",
+                box("tkhd", ints(0, 0, 0, 1)),
+                box("mdia", box("mdhd", ints(0, 0, 0, timescale, 0)))),
+            box("mvex", box("trex", ints(0, 1, 1, 512, 0, 0)))));
+        for (int start : fragmentStarts) {
+            file.writeBytes(box("moof",
+                box("mfhd", ints(0, 1)),
+                box("traf",
+                    box("tfhd", ints(0x020000, 1)),
+                    box("tfdt", ints(0, start)),
+                    box("trun", ints(0x000001, 2, 0)))));
+            file.writeBytes(box("mdat", new byte[] {1, 2, 3, 4}));
+        }
+        Path path = tempDir.resolve(name);
+        Files.write(path, file.toByteArray());
+        return path;
+    }
+
+    @Test
+    public void testByteRangePlaylistAndDash() throws IOException {
+        Path first = segment("seg_000.mp4", 1024, 0, 1024);
+        Path second = segment("seg_001.mp4", 1024, 2048, 3072);
+        long initLength = Fmp4Stitcher.readLayout(first).getInitLength();
+        long mediaLength = Files.size(first) - initLength;
+
+        VodPackager.Result result = new VodPackager(null)
+            .packageSegments(List.of(first, second), tempDir, "session", true);
+
+        assertEquals(2, result.getSegmentCount());
+        assertEquals(4.0, result.getDurationSeconds(), 1e-9);
+        List<String> lines = Files.readAllLines(result.getPlaylist());
+        assertTrue(lines.contains("#EXT-X-PLAYLIST-TYPE:VOD"));
+        assertTrue(lines.contains("#EXT-X-TARGETDURATION:2"));
+        assertEquals(1, lines.stream().filter(line -> line.startsWith("#EXT-X-MAP:")).count());
+        assertTrue(lines.contains("#EXT-X-MAP:URI=\"seg_000.mp4\",BYTERANGE=\"" + initLength + "@0\""));
+        assertTrue(lines.contains("#EXT-X-BYTERANGE:" + mediaLength + "@" + initLength));
+        assertFalse(lines.contains("#EXT-X-DISCONTINUITY"));
+        assertEquals("#EXT-X-ENDLIST", lines.get(lines.size() - 1));
+
+        assertNotNull(result.getMpd());
+        String mpd = Files.readString(result.getMpd());
+        assertTrue(mpd.contains("mediaPresentationDuration=\"PT4.000S\""));
+        assertTrue(mpd.contains("<S t=\"2048\" d=\"2048\"/>"));
+        assertTrue(mpd.contains("<SegmentURL media=\"seg_001.mp4\" mediaRange=\"" + initLength + "-"
+                                + (Files.size(second) - 1) + "\"/>"));
+    }
+
+    @Test
+    public void testRestartedTimelineAndSkippedFiles() throws IOException {
+        Path first = segment("seg_000.mp4", 1024, 0, 1024);
+        Path restarted = segment("seg_001.mp4", 1024, 0);
+        Path otherInit = segment("seg_002.mp4", 90000, 92160);
+        Path preRoll = tempDir.resolve("preroll.ts");
+        Files.write(preRoll, new byte[188]);
+
+        VodPackager.Result result = new VodPackager(null)
+            .packageSegments(List.of(preRoll, first, restarted, otherInit), tempDir, "session", true);
+
+        assertEquals(3, result.getSegmentCount());
+        assertEquals(1, result.getSkippedCount());
+        assertNull(result.getMpd());
+        List<String> lines = Files.readAllLines(result.getPlaylist());
+        assertEquals(2, lines.stream().filter(line -> line.equals("#EXT-X-DISCONTINUITY")).count());
+        assertEquals(2, lines.stream().filter(line -> line.startsWith("#EXT-X-MAP:")).count());
+        assertFalse(lines.contains("preroll.ts"));
+    }
+
+    @Test
+    public void testCodecsFromInit() {
+        byte[] init = new byte[40];
+        System.arraycopy("avcC".getBytes(StandardCharsets.US_ASCII), 0, init, 10, 4);
+        init[14] = 1;
+        init[15] = 0x64;
+        init[16] = 0x00;
+        init[17] = 0x1F;
+        System.arraycopy("mp4a".getBytes(StandardCharsets.US_ASCII), 0, init, 30, 4);
+
+        assertEquals("avc1.64001F,mp4a.40.2", VodPackager.codecs(init));
+        assertNull(VodPackager.codecs(new byte[8]));
+    }
+}